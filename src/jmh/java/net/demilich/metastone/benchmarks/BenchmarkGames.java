@@ -0,0 +1,133 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.TurnState;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCatalogue;
+import net.demilich.metastone.game.cards.CardProxy;
+import net.demilich.metastone.game.cards.CardType;
+import net.demilich.metastone.game.cards.HeroCard;
+import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.gui.deckbuilder.validation.DefaultDeckValidator;
+import net.demilich.metastone.gui.deckbuilder.validation.IDeckValidator;
+import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+
+/**
+ * Builds the games the benchmarks run on. Cards are loaded from the ./cards
+ * catalogue of the working directory; decks, shuffles and the moves leading
+ * to a mid-game state are all seeded, so every run measures the same states.
+ */
+final class BenchmarkGames {
+
+	static final long SEED = 20160401L;
+
+	private static boolean cardsLoaded;
+	private static Deck mageDeck;
+	private static Deck warriorDeck;
+
+	private static Deck createDeck(HeroClass heroClass, long seed) {
+		// the catalogue order depends on the file system, so sort it first
+		List<Card> candidates = new ArrayList<>();
+		for (Card card : CardCatalogue.getAll()) {
+			HeroClass restriction = card.getClassRestriction();
+			if (card.isCollectible() && card.getCardType() != CardType.HERO && (restriction == heroClass || restriction == HeroClass.ANY)) {
+				candidates.add(card);
+			}
+		}
+		candidates.sort(Comparator.comparing(Card::getCardId));
+
+		Random random = new Random(seed);
+		IDeckValidator deckValidator = new DefaultDeckValidator();
+		Deck deck = new Deck(heroClass);
+		while (!deck.isComplete()) {
+			Card card = candidates.get(random.nextInt(candidates.size()));
+			if (deckValidator.canAddCardToDeck(card, deck)) {
+				deck.getCards().add(card);
+			}
+		}
+		return deck;
+	}
+
+	/**
+	 * Creates a game between two random players that has not been started
+	 * yet. All games are played with the same two decks; the seed determines
+	 * the shuffles, random effects and the players' moves.
+	 */
+	static GameContext createGame(long seed) {
+		loadCards();
+		PlayerConfig player1Config = new PlayerConfig(mageDeck, new PlayRandomBehaviour(seed));
+		player1Config.setName("Player 1");
+		player1Config.setHeroCard(getHeroCard(HeroClass.MAGE));
+
+		PlayerConfig player2Config = new PlayerConfig(warriorDeck, new PlayRandomBehaviour(seed + 1));
+		player2Config.setName("Player 2");
+		player2Config.setHeroCard(getHeroCard(HeroClass.WARRIOR));
+
+		GameContext context = new GameContext(new Player(player1Config), new Player(player2Config), new GameLogic());
+		context.getRandom().setSeed(seed);
+		return context;
+	}
+
+	/**
+	 * Plays seeded random moves until the given turn and returns the game at
+	 * the start of the active player's next decision.
+	 */
+	static GameContext createMidGame(long seed, int turn) {
+		GameContext context = createGame(seed);
+		context.getLogic().setLoggingEnabled(false);
+		Random random = new Random(seed);
+		context.init();
+		while (!context.gameDecided() && context.getTurn() < turn) {
+			if (context.getTurnState() == TurnState.TURN_ENDED) {
+				context.startTurn();
+			}
+			List<GameAction> validActions = context.getValidActions();
+			context.playAction(validActions.get(random.nextInt(validActions.size())));
+		}
+		if (context.getTurnState() == TurnState.TURN_ENDED) {
+			context.startTurn();
+		}
+		return context;
+	}
+
+	private static HeroCard getHeroCard(HeroClass heroClass) {
+		for (Card card : CardCatalogue.getHeroes()) {
+			HeroCard heroCard = (HeroCard) card;
+			if (heroCard.getHeroClass() == heroClass) {
+				return heroCard;
+			}
+		}
+		return null;
+	}
+
+	static synchronized void loadCards() {
+		if (cardsLoaded) {
+			return;
+		}
+		// game logging would dominate every measurement
+		Logger root = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		root.setLevel(Level.WARN);
+		new CardProxy();
+		mageDeck = createDeck(HeroClass.MAGE, SEED);
+		warriorDeck = createDeck(HeroClass.WARRIOR, SEED + 1);
+		cardsLoaded = true;
+	}
+
+	private BenchmarkGames() {
+	}
+
+}
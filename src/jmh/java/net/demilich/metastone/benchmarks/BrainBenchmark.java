@@ -0,0 +1,71 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.learning.Brain;
+
+/**
+ * Scores the successor states of all valid actions of a mid-game decision
+ * with the learning behaviour's network, one state at a time and in one
+ * batch, and runs one TD(lambda) update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrainBenchmark {
+
+	private final Brain brain = new Brain();
+	private final double[][] traces = brain.createTraces();
+	private final List<GameContext> successors = new ArrayList<>();
+	private GameContext context;
+
+	@Benchmark
+	public double[][] batchedOutputs() {
+		return brain.getOutputs(successors, context.getActivePlayerId());
+	}
+
+	@Benchmark
+	public double learn() {
+		double[] nextOutput = { 0.5 };
+		brain.learn(context, context.getActivePlayerId(), nextOutput, 0, traces);
+		return nextOutput[0];
+	}
+
+	@Setup
+	public void setup() {
+		context = BenchmarkGames.createMidGame(BenchmarkGames.SEED, 10);
+		for (GameAction action : context.getValidActions()) {
+			GameContext successor = context.clone();
+			successor.getLogic().performGameAction(context.getActivePlayerId(), action);
+			successors.add(successor);
+		}
+	}
+
+	@Benchmark
+	public double singleOutputs() {
+		double sum = 0;
+		for (GameContext successor : successors) {
+			sum += brain.getOutput(successor, context.getActivePlayerId())[0];
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,67 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCatalogue;
+import net.demilich.metastone.game.cards.CardCollection;
+import net.demilich.metastone.game.cards.CardType;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+/**
+ * Card lookups and queries as done by spells that create, transform or
+ * discover cards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardCatalogueBenchmark {
+
+	private String[] cardIds;
+	private int next;
+
+	@Benchmark
+	public Card getCardById() {
+		next = (next + 1) % cardIds.length;
+		return CardCatalogue.getCardById(cardIds[next]);
+	}
+
+	@Benchmark
+	public CardCollection queryByType() {
+		return CardCatalogue.query(CardType.MINION);
+	}
+
+	@Benchmark
+	public CardCollection queryByFilter() {
+		return CardCatalogue.query(card -> card.isCollectible() && card.getClassRestriction() == HeroClass.MAGE);
+	}
+
+	@Setup
+	public void setup() {
+		BenchmarkGames.loadCards();
+		List<String> ids = new ArrayList<>();
+		for (Card card : CardCatalogue.getAll()) {
+			ids.add(card.getCardId());
+		}
+		Collections.sort(ids);
+		cardIds = ids.toArray(new String[ids.size()]);
+	}
+
+}
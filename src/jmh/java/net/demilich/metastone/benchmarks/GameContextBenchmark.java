@@ -0,0 +1,114 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.events.TurnEndEvent;
+import net.demilich.metastone.game.logic.ActionLogic;
+
+/**
+ * The operations every search behaviour performs for each node it visits:
+ * cloning the game, generating the valid actions (which includes rolling out
+ * targeted actions) or drawing a random one for a playout, and dispatching
+ * game events to the triggers in play.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameContextBenchmark {
+
+	@Param({ "4", "10" })
+	public int turn;
+
+	private final ActionLogic actionLogic = new ActionLogic();
+	private GameContext context;
+	private GameContext eventContext;
+	private GameAction heroPowerAction;
+	private List<GameAction> validActions;
+	private int nextAction;
+	private final List<GameAction> rolledOutActions = new ArrayList<>();
+	private final Random random = new Random(BenchmarkGames.SEED);
+
+	@Benchmark
+	public GameContext cloneContext() {
+		return context.clone();
+	}
+
+	/**
+	 * The fork-and-act pattern of the search behaviours: cloning the game and
+	 * performing one of its valid actions in the clone, which makes the clone
+	 * take ownership of the state it changes.
+	 */
+	@Benchmark
+	public GameContext cloneAndPerformAction() {
+		GameContext simulation = context.clone();
+		GameAction action = validActions.get(nextAction++ % validActions.size());
+		simulation.getLogic().performGameAction(simulation.getActivePlayerId(), action);
+		return simulation;
+	}
+
+	/**
+	 * Events change the game they are fired in, so every invocation restores
+	 * the mid-game state by cloning it first; subtract {@link #cloneContext()}
+	 * for the cost of the event alone. Setting up a fresh copy per invocation
+	 * instead would cost more than the event itself in timer overhead.
+	 */
+	@Benchmark
+	public GameContext fireGameEvent() {
+		GameContext game = eventContext.clone();
+		game.fireGameEvent(new TurnEndEvent(game, game.getActivePlayerId()));
+		return game;
+	}
+
+	@Benchmark
+	public GameAction getRandomAction() {
+		return context.getLogic().getRandomAction(context.getActivePlayerId(), random);
+	}
+
+	@Benchmark
+	public List<GameAction> getValidActions() {
+		return context.getValidActions();
+	}
+
+	@Benchmark
+	public List<GameAction> rollout() {
+		rolledOutActions.clear();
+		actionLogic.rollout(heroPowerAction, context, context.getActivePlayer(), rolledOutActions);
+		return rolledOutActions;
+	}
+
+	@Setup
+	public void setup() {
+		context = BenchmarkGames.createMidGame(BenchmarkGames.SEED, turn);
+		// rolls out over all characters for the mage, no targets for the
+		// warrior
+		heroPowerAction = context.getActivePlayer().getHero().getHeroPower().play();
+		validActions = context.getValidActions();
+	}
+
+	@Setup(Level.Iteration)
+	public void setupEventContext() {
+		eventContext = context.clone();
+	}
+
+}
@@ -0,0 +1,45 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.ThreatBasedHeuristic;
+
+/**
+ * State evaluation of the Game State Value behaviour, done once per searched
+ * state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+	private final ThreatBasedHeuristic heuristic = new ThreatBasedHeuristic(FeatureVector.getFittest());
+	private GameContext context;
+
+	@Benchmark
+	public double threatBasedScore() {
+		return heuristic.getScore(context, context.getActivePlayerId());
+	}
+
+	@Setup
+	public void setup() {
+		context = BenchmarkGames.createMidGame(BenchmarkGames.SEED, 10);
+	}
+
+}
@@ -0,0 +1,70 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.LethalSolver;
+import net.demilich.metastone.game.entities.heroes.Hero;
+
+/**
+ * Asks the lethal solver about several mid-game states, as a behaviour does
+ * before its search: as they are, where the damage bound rules out lethal
+ * almost always, and with the enemy hero brought down to a few health points,
+ * where the solver has to search for the sequence.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LethalSolverBenchmark {
+
+	private static final int GAMES = 8;
+
+	private final List<GameContext> games = new ArrayList<>();
+	private final List<GameContext> lowHealthGames = new ArrayList<>();
+	private int nextGame;
+
+	@Benchmark
+	public List<GameAction> lowHealth() {
+		GameContext context = lowHealthGames.get(nextGame++ % lowHealthGames.size());
+		return LethalSolver.findLethal(context, context.getActivePlayerId(), LethalSolver.DEFAULT_NODES);
+	}
+
+	@Benchmark
+	public List<GameAction> midGame() {
+		GameContext context = games.get(nextGame++ % games.size());
+		return LethalSolver.findLethal(context, context.getActivePlayerId(), LethalSolver.DEFAULT_NODES);
+	}
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < GAMES; i++) {
+			GameContext context = BenchmarkGames.createMidGame(BenchmarkGames.SEED + i, 12 + i % 6);
+			if (context.gameDecided()) {
+				continue;
+			}
+			games.add(context);
+			GameContext lowHealth = context.clone();
+			Hero enemyHero = lowHealth.getOpponent(lowHealth.getActivePlayer()).getHero();
+			enemyHero.setHp(Math.min(enemyHero.getHp(), 5));
+			lowHealthGames.add(lowHealth);
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.mcts.HearthAgent;
+import net.demilich.metastone.game.behaviour.mcts.MonteCarloTreeSearch;
+import net.demilich.metastone.game.behaviour.mcts.Parallelization;
+
+/**
+ * Search iterations per second of the tree searches for one decision of a
+ * mid-game state, by number of search threads. The extra threads run on the
+ * simulation engine's pool, which has one worker per processor, so the score
+ * only scales up to the number of cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MctsBenchmark {
+
+	private static final int MCTS_ITERATIONS = 500;
+	private static final int HEARTH_AGENT_ITERATIONS = 100;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	@Param({ "ROOT", "TREE" })
+	public Parallelization parallelization;
+
+	private GameContext context;
+	private List<GameAction> validActions;
+	private MonteCarloTreeSearch mcts;
+	private HearthAgent hearthAgent;
+
+	@Benchmark
+	@OperationsPerInvocation(HEARTH_AGENT_ITERATIONS)
+	public GameAction hearthAgent() {
+		return hearthAgent.requestAction(context, context.getActivePlayer(), validActions);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MCTS_ITERATIONS)
+	public GameAction monteCarloTreeSearch() {
+		return mcts.requestAction(context, context.getActivePlayer(), validActions);
+	}
+
+	@Setup
+	public void setup() {
+		context = BenchmarkGames.createMidGame(BenchmarkGames.SEED, 6);
+		validActions = context.getValidActions();
+		mcts = new MonteCarloTreeSearch(threads, parallelization);
+		hearthAgent = new HearthAgent(HEARTH_AGENT_ITERATIONS, threads, parallelization);
+	}
+
+}
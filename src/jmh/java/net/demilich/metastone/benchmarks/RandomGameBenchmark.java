@@ -0,0 +1,68 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+
+/**
+ * Complete games between two {@link net.demilich.metastone.game.behaviour.PlayRandomBehaviour}
+ * players, the unit of work of Simulation Mode, and random playouts, the unit
+ * of work of the Monte Carlo searches. The score is games per second on one
+ * thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomGameBenchmark {
+
+	private long gamesPlayed;
+	private GameContext midGame;
+	private final Random random = new Random(BenchmarkGames.SEED);
+
+	@Benchmark
+	public GameContext playRandomGame() {
+		// the games differ from each other, but every run plays the same
+		// sequence of games
+		GameContext context = BenchmarkGames.createGame(BenchmarkGames.SEED + gamesPlayed++);
+		context.getLogic().setLoggingEnabled(false);
+		context.play();
+		context.dispose();
+		return context;
+	}
+
+	/**
+	 * A playout from a mid-game state to the end of the game, the way the
+	 * searching behaviours run them: uniformly random actions drawn without
+	 * asking the players' behaviours.
+	 */
+	@Benchmark
+	public GameContext playRandomPlayout() {
+		GameContext playout = midGame.clone();
+		playout.getLogic().setLoggingEnabled(false);
+		playout.playRandomGame(random);
+		playout.dispose();
+		return playout;
+	}
+
+	@Setup
+	public void setup() {
+		BenchmarkGames.loadCards();
+		midGame = BenchmarkGames.createMidGame(BenchmarkGames.SEED, 6);
+	}
+
+}
@@ -0,0 +1,74 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.minions.Minion;
+import net.demilich.metastone.game.targeting.EntityReference;
+
+/**
+ * Resolution of entity references, which spells and triggers do for every
+ * effect they apply.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetingBenchmark {
+
+	private GameContext context;
+	private Player player;
+	private EntityReference minionReference;
+	private EntityReference cardInHandReference;
+
+	@Benchmark
+	public Entity findMinion() {
+		return context.resolveSingleTarget(minionReference);
+	}
+
+	@Benchmark
+	public Entity findCardInHand() {
+		return context.resolveSingleTarget(cardInHandReference);
+	}
+
+	@Benchmark
+	public List<Entity> resolveAllCharacters() {
+		return context.resolveTarget(player, player.getHero(), EntityReference.ALL_CHARACTERS);
+	}
+
+	@Benchmark
+	public List<Entity> resolveEnemyMinions() {
+		return context.resolveTarget(player, player.getHero(), EntityReference.ENEMY_MINIONS);
+	}
+
+	@Setup
+	public void setup() {
+		context = BenchmarkGames.createMidGame(BenchmarkGames.SEED, 10);
+		player = context.getActivePlayer();
+		Player opponent = context.getOpponent(player);
+		Entity minion = opponent.getHero();
+		for (Minion candidate : opponent.getMinions()) {
+			minion = candidate;
+		}
+		minionReference = minion.getReference();
+		Entity cardInHand = player.getHand().isEmpty() ? player.getHero() : player.getHand().get(player.getHand().getCount() - 1);
+		cardInHandReference = cardInHand.getReference();
+	}
+
+}
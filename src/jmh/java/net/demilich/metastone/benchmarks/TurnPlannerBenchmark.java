@@ -0,0 +1,139 @@
+package net.demilich.metastone.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.ActionType;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.GreedyOptimizeTurn;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.TurnPlanner;
+import net.demilich.metastone.game.behaviour.heuristic.IGameStateHeuristic;
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.ThreatBasedHeuristic;
+
+/**
+ * Plays whole turns of several mid-game states with {@link TurnPlanner} and
+ * {@link GreedyOptimizeTurn}, both with the same node budget per decision.
+ * Besides the turns per second, the secondary results report the states the
+ * heuristic evaluated per second and, as a measure of decision quality, the
+ * heuristic's score of the states the turns ended in, summed per second:
+ * divide score by turns for the average.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnPlannerBenchmark {
+
+	@State(Scope.Thread)
+	@AuxCounters
+	public static class Counters {
+
+		public long evaluatedStates;
+		public long turns;
+		// rounded, as counters are whole numbers
+		public long score;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			evaluatedStates = 0;
+			turns = 0;
+			score = 0;
+		}
+
+	}
+
+	/**
+	 * Counts the states it scores.
+	 */
+	private static class CountingHeuristic implements IGameStateHeuristic {
+
+		private final IGameStateHeuristic heuristic;
+		private long evaluatedStates;
+
+		public CountingHeuristic(IGameStateHeuristic heuristic) {
+			this.heuristic = heuristic;
+		}
+
+		@Override
+		public double getScore(GameContext context, int playerId) {
+			evaluatedStates++;
+			return heuristic.getScore(context, playerId);
+		}
+
+		@Override
+		public void onActionSelected(GameContext context, int playerId) {
+			heuristic.onActionSelected(context, playerId);
+		}
+
+	}
+
+	private static final int GAMES = 8;
+
+	@Param({ "planner", "greedy" })
+	public String behaviour;
+
+	@Param({ "1000", "4000" })
+	public int nodes;
+
+	private final IGameStateHeuristic heuristic = new ThreatBasedHeuristic(FeatureVector.getFittest());
+	private final List<GameContext> games = new ArrayList<>();
+	private CountingHeuristic countingHeuristic;
+	private Behaviour searcher;
+	private int nextGame;
+
+	@Benchmark
+	public double playTurn(Counters counters) {
+		GameContext context = games.get(nextGame++ % games.size()).clone();
+		int playerId = context.getActivePlayerId();
+		countingHeuristic.evaluatedStates = 0;
+		while (!context.gameDecided()) {
+			List<GameAction> validActions = context.getValidActions();
+			GameAction action = searcher.requestAction(context, context.getActivePlayer(), validActions);
+			context.getLogic().performGameAction(playerId, action);
+			if (action.getActionType() == ActionType.END_TURN) {
+				break;
+			}
+		}
+		double score = heuristic.getScore(context, playerId);
+		counters.evaluatedStates += countingHeuristic.evaluatedStates;
+		counters.turns++;
+		// won and lost games score infinitely
+		counters.score += Math.round(Math.max(-1000, Math.min(score, 1000)));
+		return score;
+	}
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < GAMES; i++) {
+			GameContext context = BenchmarkGames.createMidGame(BenchmarkGames.SEED + i, 12 + i % 6);
+			if (!context.gameDecided()) {
+				games.add(context);
+			}
+		}
+		countingHeuristic = new CountingHeuristic(heuristic);
+		searcher = behaviour.equals("planner") ? new TurnPlanner(countingHeuristic) : new GreedyOptimizeTurn(countingHeuristic);
+		searcher.setSearchBudget(SearchBudget.nodes(nodes));
+	}
+
+}
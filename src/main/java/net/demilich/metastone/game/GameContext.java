@@ -3,6 +3,7 @@ package net.demilich.metastone.game;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.Stack;
 
 import org.slf4j.Logger;
@@ -15,17 +16,21 @@ import net.demilich.metastone.game.cards.CardCollection;
 import net.demilich.metastone.game.cards.costmodifier.CardCostModifier;
 import net.demilich.metastone.game.entities.Actor;
 import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.heroes.Hero;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.events.GameEvent;
 import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.game.logic.GameRandom;
 import net.demilich.metastone.game.logic.MatchResult;
 import net.demilich.metastone.game.logic.TargetLogic;
 import net.demilich.metastone.game.spells.trigger.IGameEventListener;
 import net.demilich.metastone.game.spells.trigger.TriggerLayer;
 import net.demilich.metastone.game.spells.trigger.TriggerManager;
 import net.demilich.metastone.game.targeting.CardReference;
+import net.demilich.metastone.game.targeting.EntityIndex;
 import net.demilich.metastone.game.targeting.EntityReference;
 import net.demilich.metastone.utils.IDisposable;
+import net.demilich.metastone.utils.MathUtils;
 
 public class GameContext implements Cloneable, IDisposable {
 	public static final int PLAYER_1 = 0;
@@ -36,6 +41,8 @@ public class GameContext implements Cloneable, IDisposable {
 	private final Player[] players = new Player[2];
 	private final GameLogic logic;
 	private final TargetLogic targetLogic = new TargetLogic();
+	private EntityIndex entityIndex = new EntityIndex();
+	private GameRandom random = new GameRandom();
 	private TriggerManager triggerManager = new TriggerManager();
 	private final HashMap<Environment, Object> environment = new HashMap<>();
 	private final List<CardCostModifier> cardCostModifiers = new ArrayList<>();
@@ -80,6 +87,8 @@ public class GameContext implements Cloneable, IDisposable {
 		// player2Clone.getDeck().shuffle();
 		GameContext clone = new GameContext(player1Clone, player2Clone, logicClone);
 		clone.triggerManager = triggerManager.clone();
+		clone.entityIndex = entityIndex.clone();
+		clone.random = random.fork();
 		clone.activePlayer = activePlayer;
 		clone.turn = turn;
 		clone.actionsThisTurn = actionsThisTurn;
@@ -91,7 +100,13 @@ public class GameContext implements Cloneable, IDisposable {
 			clone.cardCostModifiers.add(cardCostModifier.clone());
 		}
 		for (Environment key : getEnvironment().keySet()) {
-			clone.getEnvironment().put(key, getEnvironment().get(key));
+			Object value = getEnvironment().get(key);
+			// the stacks are modified while an action resolves, so a clone
+			// must not share them with its original (or other clones)
+			if (value instanceof Stack) {
+				value = ((Stack<?>) value).clone();
+			}
+			clone.getEnvironment().put(key, value);
 		}
 		clone.getLogic().setLoggingEnabled(false);
 		return clone;
@@ -105,6 +120,7 @@ public class GameContext implements Cloneable, IDisposable {
 		getCardCostModifiers().clear();
 		triggerManager.dispose();
 		environment.clear();
+		entityIndex.clear();
 	}
 
 	private void endGame() {
@@ -132,14 +148,12 @@ public class GameContext implements Cloneable, IDisposable {
 		turnState = TurnState.TURN_ENDED;
 	}
 
-	private Card findCardinCollection(CardCollection cardCollection, int cardId) {
-		for (Card card : cardCollection) {
-			if (card.getId() == cardId) {
-				return card;
-			}
+	private Card findCardinCollection(CardCollection cardCollection, int cardId, boolean forReading) {
+		Card card = forReading ? cardCollection.peekById(cardId) : cardCollection.getById(cardId);
+		if (card == null) {
+			logger.error("Could not find cardId {} in card collection {}", cardId, cardCollection.toList());
 		}
-		logger.error("Could not find cardId {} in card collection {}", cardId, cardCollection.toList());
-		return null;
+		return card;
 	}
 
 	public void fireGameEvent(GameEvent gameEvent) {
@@ -219,6 +233,10 @@ public class GameContext implements Cloneable, IDisposable {
 		return (Stack<Integer>) environment.get(Environment.DAMAGE_STACK);
 	}
 
+	public EntityIndex getEntityIndex() {
+		return entityIndex;
+	}
+
 	public HashMap<Environment, Object> getEnvironment() {
 		return environment;
 	}
@@ -259,6 +277,15 @@ public class GameContext implements Cloneable, IDisposable {
 		return players;
 	}
 
+	/**
+	 * Returns the random source of this game; all randomness of the game
+	 * rules should be drawn from it so that a game can be reproduced by
+	 * seeding it (see {@link GameRandom#setSeed(long)}).
+	 */
+	public GameRandom getRandom() {
+		return random;
+	}
+
 	@SuppressWarnings("unchecked")
 	public Stack<Minion> getSummonStack() {
 		if (!environment.containsKey(Environment.SUMMON_STACK)) {
@@ -378,6 +405,50 @@ public class GameContext implements Cloneable, IDisposable {
 		return nextAction.getActionType() != ActionType.END_TURN;
 	}
 
+	/**
+	 * Plays one uniformly random valid action, like {@link #playTurn()} with a
+	 * random behaviour but without asking the active player's behaviour and
+	 * without creating the list of valid actions. Decisions nested in the
+	 * action (e.g. battlecry targets) are still made by the behaviours. Meant
+	 * for the playouts of searching behaviours.
+	 * 
+	 * @return false if the turn has ended
+	 */
+	public boolean playRandomAction(Random random) {
+		if (++actionsThisTurn > 99) {
+			logger.warn("Turn has been forcefully ended after {} actions", actionsThisTurn);
+			endTurn();
+			return false;
+		}
+
+		GameAction nextAction = gameDecided() ? null : logic.getRandomAction(activePlayer, random);
+		if (nextAction == null) {
+			endTurn();
+			return false;
+		}
+		performAction(activePlayer, nextAction);
+
+		return nextAction.getActionType() != ActionType.END_TURN;
+	}
+
+	/**
+	 * Plays uniformly random actions (see {@link #playRandomAction(Random)})
+	 * until the game is decided or the turn limit is reached. Unlike
+	 * {@link #play()}, the game must have been initialized already, and the
+	 * behaviours are not told about its end and no win or loss is recorded.
+	 */
+	public void playRandomGame(Random random) {
+		while (!gameDecided()) {
+			if (turnState == TurnState.TURN_ENDED) {
+				startTurn(activePlayer);
+			}
+			while (playRandomAction(random)) {}
+			if (getTurn() > GameLogic.TURN_LIMIT) {
+				break;
+			}
+		}
+	}
+
 	public void printCurrentTriggers() {
 		logger.info("Active spelltriggers:");
 		triggerManager.printCurrentTriggers();
@@ -391,7 +462,21 @@ public class GameContext implements Cloneable, IDisposable {
 		triggerManager.removeTriggersAssociatedWith(entityReference);
 	}
 
+	/**
+	 * Resolves the given card reference like
+	 * {@link #resolveCardReference(CardReference)}, for reading only: a card
+	 * in a hand or deck shared with a clone is not copied, so it must neither
+	 * be modified nor kept.
+	 */
+	public Card peekCardReference(CardReference cardReference) {
+		return resolveCardReference(cardReference, true);
+	}
+
 	public Card resolveCardReference(CardReference cardReference) {
+		return resolveCardReference(cardReference, false);
+	}
+
+	private Card resolveCardReference(CardReference cardReference, boolean forReading) {
 		Player player = getPlayer(cardReference.getPlayerId());
 		Card pendingCard = (Card) getEnvironment().get(Environment.PENDING_CARD);
 		if (pendingCard != null && pendingCard.getCardReference().equals(cardReference)) {
@@ -399,9 +484,9 @@ public class GameContext implements Cloneable, IDisposable {
 		}
 		switch (cardReference.getLocation()) {
 		case DECK:
-			return findCardinCollection(player.getDeck(), cardReference.getCardId());
+			return findCardinCollection(player.getDeck(), cardReference.getCardId(), forReading);
 		case HAND:
-			return findCardinCollection(player.getHand(), cardReference.getCardId());
+			return findCardinCollection(player.getHand(), cardReference.getCardId(), forReading);
 		case PENDING:
 			return (Card) getEnvironment().get(Environment.PENDING_CARD);
 		case HERO_POWER:
@@ -426,6 +511,32 @@ public class GameContext implements Cloneable, IDisposable {
 		return targetLogic.resolveTargetKey(this, player, source, targetKey);
 	}
 
+	/**
+	 * Returns a 64 bit hash of the current game state, suitable as key for
+	 * transposition tables. Entities, the trigger manager, and the boards,
+	 * hands, decks and secrets of the players keep their hashes up to date on
+	 * every change; this combines them with the mana of both players and the
+	 * active player, so it takes constant time.
+	 */
+	public long stateHash() {
+		long hash = MathUtils.hash64(activePlayer, turnState.ordinal());
+		hash = MathUtils.hash64(hash, triggerManager.getStateHash());
+		for (Player player : getPlayers()) {
+			hash = MathUtils.hash64(hash, player.getMana());
+			hash = MathUtils.hash64(hash, player.getMaxMana());
+			hash = MathUtils.hash64(hash, player.getLockedMana());
+			Hero hero = player.getHero();
+			hash = MathUtils.hash64(hash, hero.getStateHash());
+			hash = MathUtils.hash64(hash, hero.getHeroPower().getStateHash());
+			hash = MathUtils.hash64(hash, hero.getWeapon() != null ? hero.getWeapon().getStateHash() : 0);
+			hash = MathUtils.hash64(hash, player.getBoardStateHash());
+			hash = MathUtils.hash64(hash, player.getHand().getStateHash());
+			hash = MathUtils.hash64(hash, player.getDeck().getStateHash());
+			hash = MathUtils.hash64(hash, player.getSecretsStateHash());
+		}
+		return hash;
+	}
+
 	public void setIgnoreEvents(boolean ignoreEvents) {
 		this.ignoreEvents = ignoreEvents;
 	}
@@ -1,20 +1,27 @@
 package net.demilich.metastone.game;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
+import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.behaviour.IBehaviour;
 import net.demilich.metastone.game.behaviour.human.HumanBehaviour;
 import net.demilich.metastone.game.cards.CardCollection;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.entities.Actor;
 import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.IStateHashListener;
 import net.demilich.metastone.game.entities.heroes.Hero;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.logic.CustomCloneable;
 import net.demilich.metastone.game.statistics.GameStatistics;
 import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+import net.demilich.metastone.utils.MathUtils;
 
 public class Player extends CustomCloneable {
 
@@ -23,11 +30,21 @@ public class Player extends CustomCloneable {
 	private final String deckName;
 
 	private final CardCollection deck;
-	private final CardCollection hand = new CardCollection();
+	private final CardCollection hand;
 	private final List<Entity> setAsideZone = new ArrayList<>();
 	private final List<Entity> graveyard = new ArrayList<>();
 	private final List<Minion> minions = new ArrayList<>();
+	private final List<Minion> minionsView = Collections.unmodifiableList(minions);
 	private final HashSet<String> secrets = new HashSet<>();
+	private final Set<String> secretsView = Collections.unmodifiableSet(secrets);
+	// sum of the state hashes of the minions, keyed by their board position
+	private long boardStateHash;
+	private final IStateHashListener boardListener = (minion, oldHash, newHash) -> {
+		int position = indexOfMinion(minion);
+		boardStateHash += getBoardKey(position, newHash) - getBoardKey(position, oldHash);
+	};
+	// Zobrist hash of the secrets
+	private long secretsStateHash;
 
 	private final GameStatistics statistics = new GameStatistics();
 
@@ -47,12 +64,16 @@ public class Player extends CustomCloneable {
 		this.setHero(otherPlayer.getHero().clone());
 		this.deck = otherPlayer.getDeck().clone();
 		for (Minion minion : otherPlayer.getMinions()) {
-			minions.add(minion.clone());
+			Minion clone = minion.clone();
+			clone.setStateHashListener(boardListener);
+			minions.add(clone);
 		}
-		this.hand.addAll(otherPlayer.hand);
+		this.boardStateHash = otherPlayer.boardStateHash;
+		this.hand = otherPlayer.hand.clone();
 		this.graveyard.addAll(otherPlayer.graveyard);
 		this.setAsideZone.addAll(otherPlayer.setAsideZone);
 		this.secrets.addAll(otherPlayer.secrets);
+		this.secretsStateHash = otherPlayer.secretsStateHash;
 		this.id = otherPlayer.id;
 		this.mana = otherPlayer.mana;
 		this.maxMana = otherPlayer.maxMana;
@@ -62,16 +83,53 @@ public class Player extends CustomCloneable {
 	}
 
 	public Player(PlayerConfig config) {
-		config.build();
-		Deck selectedDeck = config.getDeckForPlay();
+		this(config, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Creates a player from the given configuration, picking meta and random
+	 * decks with the given random source.
+	 */
+	public Player(PlayerConfig config, Random random) {
+		Deck selectedDeck = config.selectDeckForPlay(random);
 		this.name = config.getName();
-		this.deck = selectedDeck.getCardsCopy();
-		this.setHero(config.getHeroForPlay().createHero());
+		this.deck = selectedDeck.getCardsCopy(random);
+		this.deck.trackStateHash();
+		this.hand = new CardCollection();
+		this.hand.trackStateHash();
+		this.setHero(config.getHeroForPlay(selectedDeck).createHero());
 		this.deckName = selectedDeck.getName();
 		setBehaviour(config.getBehaviour().clone());
+		if (config.getSearchBudget() != null && behaviour instanceof Behaviour) {
+			((Behaviour) behaviour).setSearchBudget(config.getSearchBudget());
+		}
+		if (config.getRolloutPolicy() != null && behaviour instanceof Behaviour) {
+			((Behaviour) behaviour).setRolloutPolicy(config.getRolloutPolicy());
+		}
 		setHideCards(config.hideCards());
 	}
 
+	public void addMinion(Minion minion) {
+		addMinion(minions.size(), minion);
+	}
+
+	public void addMinion(int index, Minion minion) {
+		minions.add(index, minion);
+		minion.setStateHashListener(boardListener);
+		updateBoardStateHash();
+	}
+
+	public void addSecret(String secretId) {
+		if (secrets.add(secretId)) {
+			secretsStateHash ^= getSecretKey(secretId);
+		}
+	}
+
+	public void clearSecrets() {
+		secrets.clear();
+		secretsStateHash = 0;
+	}
+
 	@Override
 	public Player clone() {
 		return new Player(this);
@@ -88,6 +146,18 @@ public class Player extends CustomCloneable {
 		return characters;
 	}
 
+	private static long getBoardKey(int position, long minionHash) {
+		return MathUtils.hash64(position, minionHash);
+	}
+
+	/**
+	 * Returns a hash of the state of all minions and their board positions.
+	 * It is maintained incrementally, so calling this is cheap.
+	 */
+	public long getBoardStateHash() {
+		return boardStateHash;
+	}
+
 	public CardCollection getDeck() {
 		return deck;
 	}
@@ -124,16 +194,38 @@ public class Player extends CustomCloneable {
 		return maxMana;
 	}
 
+	/**
+	 * Returns a read-only view of the minions on the board; they are added
+	 * and removed through this player, which keeps their hash.
+	 */
 	public List<Minion> getMinions() {
-		return minions;
+		return minionsView;
 	}
 
 	public String getName() {
 		return "'" + name + "' (" + getHero().getName() + ")";
 	}
 
-	public HashSet<String> getSecrets() {
-		return secrets;
+	private static long getSecretKey(String secretId) {
+		long key = secretId.length();
+		for (int i = 0; i < secretId.length(); i++) {
+			key = MathUtils.hash64(key, secretId.charAt(i));
+		}
+		return key;
+	}
+
+	/**
+	 * Returns a read-only view of the card ids of the secrets in play.
+	 */
+	public Set<String> getSecrets() {
+		return secretsView;
+	}
+
+	/**
+	 * Returns a 64 bit Zobrist hash of the secrets in play.
+	 */
+	public long getSecretsStateHash() {
+		return secretsStateHash;
 	}
 	
 	public List<Entity> getSetAsideZone() {
@@ -144,10 +236,41 @@ public class Player extends CustomCloneable {
 		return statistics;
 	}
 
+	private int indexOfMinion(Entity minion) {
+		for (int i = 0; i < minions.size(); i++) {
+			if (minions.get(i) == minion) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	public boolean hideCards() {
 		return hideCards && !(behaviour instanceof HumanBehaviour);
 	}
 
+	public Minion removeMinion(int index) {
+		Minion minion = minions.remove(index);
+		minion.setStateHashListener(null);
+		updateBoardStateHash();
+		return minion;
+	}
+
+	public boolean removeMinion(Minion minion) {
+		int index = indexOfMinion(minion);
+		if (index < 0) {
+			return false;
+		}
+		removeMinion(index);
+		return true;
+	}
+
+	public void removeSecret(String secretId) {
+		if (secrets.remove(secretId)) {
+			secretsStateHash ^= getSecretKey(secretId);
+		}
+	}
+
 	public void setBehaviour(IBehaviour behaviour) {
 		this.behaviour = behaviour;
 	}
@@ -176,6 +299,15 @@ public class Player extends CustomCloneable {
 		this.maxMana = maxMana;
 	}
 
+	private void updateBoardStateHash() {
+		// the positions of the following minions change, and there are at
+		// most seven of them
+		boardStateHash = 0;
+		for (int i = 0; i < minions.size(); i++) {
+			boardStateHash += getBoardKey(i, minions.get(i).getStateHash());
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "[PLAYER " + "id: " + getId() + ", name: " + getName() + ", hero: " + getHero() + "]";
@@ -0,0 +1,155 @@
+package net.demilich.metastone.game;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A number of games played by the {@link SimulationEngine}. Cancelling a batch
+ * lets running games finish, but no new games are started. The first game
+ * throwing an exception cancels the batch and fails its completion, and so
+ * does the executor rejecting a game (e.g. after a shutdown). A batch
+ * may be given a stop condition, which is checked after each game and cancels
+ * the batch once it holds (e.g. when the result is statistically decided).
+ */
+public class SimulationBatch {
+
+	private static Logger logger = LoggerFactory.getLogger(SimulationBatch.class);
+
+	private final Executor executor;
+	private final Supplier<GameContext> gameFactory;
+	private final int numberOfGames;
+	private final Consumer<GameContext> gameCompletedListener;
+	private final BooleanSupplier stopCondition;
+
+	private final AtomicInteger gamesStarted = new AtomicInteger();
+	private final AtomicInteger gamesCompleted = new AtomicInteger();
+	private final AtomicInteger runningTasks = new AtomicInteger();
+	private final CompletableFuture<SimulationBatch> completion = new CompletableFuture<>();
+	private volatile boolean cancelled;
+	private volatile Throwable failure;
+
+	SimulationBatch(Executor executor, Supplier<GameContext> gameFactory, int numberOfGames, Consumer<GameContext> gameCompletedListener,
+			BooleanSupplier stopCondition) {
+		this.executor = executor;
+		this.gameFactory = gameFactory;
+		this.numberOfGames = numberOfGames;
+		this.gameCompletedListener = gameCompletedListener;
+		this.stopCondition = stopCondition;
+	}
+
+	/**
+	 * Blocks until all games have been played or the batch was cancelled and
+	 * its running games have finished.
+	 *
+	 * @throws RuntimeException
+	 *             if one of the games failed
+	 */
+	public void await() {
+		try {
+			completion.join();
+		} catch (CompletionException e) {
+			throw new RuntimeException("Simulation failed", e.getCause());
+		}
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	private void fail(Throwable e) {
+		synchronized (this) {
+			if (failure == null) {
+				failure = e;
+			}
+		}
+		cancel();
+	}
+
+	private void finish() {
+		if (failure != null) {
+			completion.completeExceptionally(failure);
+		} else {
+			completion.complete(this);
+		}
+	}
+
+	/**
+	 * Completes once the batch is done; completes exceptionally if one of the
+	 * games failed.
+	 */
+	public CompletableFuture<SimulationBatch> getCompletion() {
+		return completion;
+	}
+
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	public int getGamesCompleted() {
+		return gamesCompleted.get();
+	}
+
+	public int getNumberOfGames() {
+		return numberOfGames;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	private void playGame() {
+		try {
+			GameContext game = gameFactory.get();
+			game.play();
+			gamesCompleted.incrementAndGet();
+			if (gameCompletedListener != null) {
+				gameCompletedListener.accept(game);
+			}
+			game.dispose();
+			if (stopCondition != null && stopCondition.getAsBoolean()) {
+				cancel();
+			}
+		} catch (Throwable e) {
+			logger.error("Game failed, cancelling simulation", e);
+			fail(e);
+		}
+		scheduleNextGame();
+	}
+
+	private void scheduleNextGame() {
+		if (!cancelled && gamesStarted.getAndIncrement() < numberOfGames) {
+			try {
+				executor.execute(this::playGame);
+				return;
+			} catch (RejectedExecutionException e) {
+				logger.error("Game rejected, cancelling simulation", e);
+				fail(e);
+			}
+		}
+		if (runningTasks.decrementAndGet() == 0) {
+			finish();
+		}
+	}
+
+	void start(int maxRunningGames) {
+		int tasks = Math.max(1, Math.min(maxRunningGames, numberOfGames));
+		runningTasks.set(tasks);
+		for (int i = 0; i < tasks; i++) {
+			scheduleNextGame();
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package net.demilich.metastone.game;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.game.logic.GameRandom;
+import net.demilich.metastone.gui.gameconfig.GameConfig;
+import net.demilich.metastone.utils.MathUtils;
+
+/**
+ * Plays batches of games on a long-lived work-stealing pool. Games are handed
+ * to the pool a few at a time, each finished game making room for the next
+ * one, so batches of any size only keep a bounded number of games alive.
+ * Finished games are reported through callbacks on the worker threads.
+ */
+public class SimulationEngine {
+
+	private static SimulationEngine instance;
+
+	public static Supplier<GameContext> createGameFactory(GameConfig gameConfig) {
+		Function<Random, GameContext> gameFactory = random -> {
+			Player player1 = new Player(gameConfig.getPlayerConfig1(), random);
+			Player player2 = new Player(gameConfig.getPlayerConfig2(), random);
+			return new GameContext(player1, player2, new GameLogic());
+		};
+		if (gameConfig.getRandomSeed() != null) {
+			return seeded(gameFactory, gameConfig.getRandomSeed());
+		}
+		return () -> gameFactory.apply(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Wraps a game factory so that the n-th game it creates is seeded with a
+	 * seed derived from the given one and n. The factory is given a fork of
+	 * the game's generator for the choices made before the game exists, such
+	 * as picking meta and random decks. Games may be created in any order by
+	 * the workers, but two batches with the same seed always play the same
+	 * set of seeded games.
+	 */
+	public static Supplier<GameContext> seeded(Function<Random, GameContext> gameFactory, long seed) {
+		AtomicLong gamesCreated = new AtomicLong();
+		return () -> {
+			long gameSeed = MathUtils.hash64(seed, gamesCreated.getAndIncrement());
+			GameContext game = gameFactory.apply(new GameRandom(gameSeed).fork());
+			game.getRandom().setSeed(gameSeed);
+			return game;
+		};
+	}
+
+	/**
+	 * Returns the engine shared by the whole application, using one worker
+	 * per available processor. An engine is created anew if the last one has
+	 * been shut down.
+	 */
+	public static synchronized SimulationEngine getInstance() {
+		if (instance == null || instance.pool.isShutdown()) {
+			instance = new SimulationEngine(Runtime.getRuntime().availableProcessors());
+		}
+		return instance;
+	}
+
+	private final ForkJoinPool pool;
+
+	public SimulationEngine(int parallelism) {
+		// worker threads of a ForkJoinPool are daemon threads, so the engine
+		// does not keep the application from exiting; engines created for a
+		// single job should still be shut down to release their threads
+		this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+	}
+
+	/**
+	 * Gives access to the pool, so that other parallel work (e.g. search
+	 * threads) can share the workers with running simulations.
+	 */
+	public ExecutorService getExecutor() {
+		return pool;
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Stops the workers once the games already started are over. The engine
+	 * cannot start new games afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	public SimulationBatch simulate(GameConfig gameConfig, Consumer<GameContext> gameCompletedListener) {
+		return simulate(createGameFactory(gameConfig), gameConfig.getNumberOfGames(), gameCompletedListener);
+	}
+
+	/**
+	 * Starts playing the given number of games, each created by the game
+	 * factory. The listener is called from a worker thread after each game,
+	 * before the game is disposed.
+	 */
+	public SimulationBatch simulate(Supplier<GameContext> gameFactory, int numberOfGames, Consumer<GameContext> gameCompletedListener) {
+		return simulate(gameFactory, numberOfGames, gameCompletedListener, null);
+	}
+
+	/**
+	 * Like {@link #simulate(Supplier, int, Consumer)}, but stops starting new
+	 * games as soon as the stop condition holds. The condition is checked on a
+	 * worker thread after each game, following the listener.
+	 */
+	public SimulationBatch simulate(Supplier<GameContext> gameFactory, int numberOfGames, Consumer<GameContext> gameCompletedListener,
+			BooleanSupplier stopCondition) {
+		SimulationBatch batch = new SimulationBatch(pool, gameFactory, numberOfGames, gameCompletedListener, stopCondition);
+		batch.start(getParallelism());
+		return batch;
+	}
+
+}
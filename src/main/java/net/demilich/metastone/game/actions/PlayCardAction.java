@@ -25,7 +25,7 @@ public abstract class PlayCardAction extends GameAction {
 
 	@Override
 	public boolean canBeExecutedOn(GameContext context, Player player, Entity entity) {
-		Card card = context.resolveCardReference(getCardReference());
+		Card card = context.peekCardReference(getCardReference());
 		if (card instanceof SpellCard) {
 			SpellCard spellCard = (SpellCard) card;
 			return spellCard.canBeCastOn(context, player, entity);
@@ -4,6 +4,9 @@ import net.demilich.metastone.game.GameContext;
 
 public abstract class Behaviour implements IBehaviour {
 
+	private SearchBudget searchBudget;
+	private RolloutPolicy rolloutPolicy;
+
 	public IBehaviour clone() {
 		try {
 			return (IBehaviour) super.clone();
@@ -13,8 +16,42 @@ public abstract class Behaviour implements IBehaviour {
 		return null;
 	}
 
+	/**
+	 * Returns how Monte Carlo searches play out the states they search, or
+	 * null if they play random moves until the game is decided ({@link
+	 * RolloutPolicy#RANDOM}).
+	 */
+	public RolloutPolicy getRolloutPolicy() {
+		return rolloutPolicy;
+	}
+
+	/**
+	 * Returns the budget searching behaviours spend on each decision, or null
+	 * if they use their own fixed amount of work.
+	 */
+	public SearchBudget getSearchBudget() {
+		return searchBudget;
+	}
+
 	@Override
 	public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
 	}
 
+	/**
+	 * Sets how Monte Carlo searches play out the states they search.
+	 * Behaviours which do not run playouts ignore the policy.
+	 */
+	public void setRolloutPolicy(RolloutPolicy rolloutPolicy) {
+		this.rolloutPolicy = rolloutPolicy;
+	}
+
+	/**
+	 * Limits each decision of a searching behaviour to the given budget; the
+	 * search returns its best answer so far once the budget is spent.
+	 * Behaviours which do not search ignore the budget.
+	 */
+	public void setSearchBudget(SearchBudget searchBudget) {
+		this.searchBudget = searchBudget;
+	}
+
 }
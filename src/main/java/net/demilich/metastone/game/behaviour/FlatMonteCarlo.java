@@ -1,8 +1,8 @@
 package net.demilich.metastone.game.behaviour;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,20 +22,6 @@ public class FlatMonteCarlo extends Behaviour {
 		this.iterations = iterations;
 	}
 
-	private GameAction getBestAction(HashMap<GameAction, Double> actionScores) {
-		GameAction bestAction = null;
-		double bestScore = Integer.MIN_VALUE;
-		for (GameAction actionEntry : actionScores.keySet()) {
-			double score = actionScores.get(actionEntry);
-			if (score > bestScore) {
-				bestAction = actionEntry;
-				bestScore = score;
-			}
-		}
-		logger.debug("Best action determined by MonteCarlo: " + bestAction.getActionType());
-		return bestAction;
-	}
-
 	@Override
 	public String getName() {
 		return "Flat Monte-Carlo " + iterations;
@@ -52,12 +38,9 @@ public class FlatMonteCarlo extends Behaviour {
 		return discardedCards;
 	}
 
-	private int playRandomUntilEnd(GameContext simulation, int playerId) {
-		for (Player player : simulation.getPlayers()) {
-			player.setBehaviour(new PlayRandomBehaviour());
-		}
-		simulation.playTurn();
-		return simulation.getWinningPlayerId() == playerId ? 1 : 0;
+	private double playRandomUntilEnd(GameContext simulation, int playerId, SearchBudget.Tracker budget) {
+		RolloutPolicy rolloutPolicy = getRolloutPolicy() != null ? getRolloutPolicy() : RolloutPolicy.RANDOM;
+		return rolloutPolicy.playOut(simulation, playerId, ThreadLocalRandom.current(), budget);
 	}
 
 	@Override
@@ -65,28 +48,63 @@ public class FlatMonteCarlo extends Behaviour {
 		if (validActions.size() == 1) {
 			return validActions.get(0);
 		}
-		HashMap<GameAction, Double> actionScores = new HashMap<>();
-		for (GameAction gameAction : validActions) {
-			double score = simulate(context, player.getId(), gameAction);
-			actionScores.put(gameAction, score);
-			logger.debug("Action {} gets score of {}", gameAction.getActionType(), score);
+		int actionCount = validActions.size();
+		SearchBudget searchBudget = getSearchBudget() != null ? getSearchBudget() : SearchBudget.nodes((long) iterations * actionCount);
+		SearchBudget.Tracker budget = searchBudget.start();
 
+		GameContext[] simulations = new GameContext[actionCount];
+		double[] scores = new double[actionCount];
+		int[] playouts = new int[actionCount];
+		boolean[] decided = new boolean[actionCount];
+		for (int i = 0; i < actionCount; i++) {
+			// with a clone budget smaller than the number of actions, the
+			// remaining actions are not searched at all
+			if (budget.isExhausted()) {
+				break;
+			}
+			simulations[i] = budget.clone(context);
+			simulations[i].getLogic().performGameAction(simulations[i].getActivePlayer().getId(), validActions.get(i));
+			if (simulations[i].gameDecided()) {
+				scores[i] = simulations[i].getWinningPlayerId() == player.getId() ? 1 : 0;
+				playouts[i] = 1;
+				decided[i] = true;
+			}
 		}
-		GameAction bestAction = getBestAction(actionScores);
-		return bestAction;
-	}
 
-	private double simulate(GameContext context, int playerId, GameAction action) {
-		GameContext simulation = context.clone();
-		simulation.getLogic().performGameAction(simulation.getActivePlayer().getId(), action);
-		if (simulation.gameDecided()) {
-			return simulation.getWinningPlayerId() == playerId ? 1 : 0;
+		// one playout per action and round, so that the actions can be
+		// compared by their average score whenever the budget runs out
+		boolean searching = true;
+		while (searching) {
+			searching = false;
+			for (int i = 0; i < actionCount; i++) {
+				if (simulations[i] == null || decided[i]) {
+					continue;
+				}
+				if (!budget.nextNode()) {
+					searching = false;
+					break;
+				}
+				scores[i] += playRandomUntilEnd(budget.clone(simulations[i]), player.getId(), budget);
+				playouts[i]++;
+				searching = true;
+			}
 		}
-		double score = 0;
-		for (int i = 0; i < iterations; i++) {
-			score += playRandomUntilEnd(simulation.clone(), playerId);
+
+		GameAction bestAction = validActions.get(0);
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < actionCount; i++) {
+			if (playouts[i] == 0) {
+				continue;
+			}
+			double score = scores[i] / playouts[i];
+			logger.debug("Action {} gets score of {}", validActions.get(i).getActionType(), score);
+			if (score > bestScore) {
+				bestAction = validActions.get(i);
+				bestScore = score;
+			}
 		}
-		return score;
+		logger.debug("Best action determined by MonteCarlo: " + bestAction.getActionType());
+		return bestAction;
 	}
 
 }
@@ -18,41 +18,62 @@ public class GreedyOptimizeTurn extends Behaviour {
 
 	private final Logger logger = LoggerFactory.getLogger(GreedyOptimizeTurn.class);
 
+	// search depth unless a search budget is set
+	private static final int DEFAULT_DEPTH = 3;
+	// with a search budget the depth is deepened until the budget is spent,
+	// the whole turn has been searched or this depth has been reached
+	private static final int MAX_DEPTH = 12;
+
 	private final IGameStateHeuristic heuristic;
 
 	private int assignedGC;
 	private final HashMap<ActionType, Integer> evaluatedActions = new HashMap<ActionType, Integer>();
 	private final TranspositionTable table = new TranspositionTable();
+	private SearchBudget.Tracker budget;
+	// set when the budget ran out during the current search
+	private boolean aborted;
+	// set when the current search stopped at the depth limit somewhere
+	private boolean depthLimited;
 
 	public GreedyOptimizeTurn(IGameStateHeuristic heuristic) {
 		this.heuristic = heuristic;
 	}
 
 	private double alphaBeta(GameContext context, int playerId, GameAction action, int depth) {
-		GameContext simulation = context.clone();
+		if (!budget.nextNode()) {
+			aborted = true;
+			return 0;
+		}
+		GameContext simulation = budget.clone(context);
 		simulation.getLogic().performGameAction(playerId, action);
 		if (!evaluatedActions.containsKey(action.getActionType())) {
 			evaluatedActions.put(action.getActionType(), 0);
 		}
 		evaluatedActions.put(action.getActionType(), evaluatedActions.get(action.getActionType()) + 1);
-		if (depth == 0 || simulation.getActivePlayerId() != playerId || simulation.gameDecided()) {
+		if (simulation.getActivePlayerId() != playerId || simulation.gameDecided()) {
+			return heuristic.getScore(simulation, playerId);
+		}
+		if (depth == 0) {
+			depthLimited = true;
 			return heuristic.getScore(simulation, playerId);
 		}
 
 		List<GameAction> validActions = simulation.getValidActions();
 
 		double score = Float.NEGATIVE_INFINITY;
-		if (table.known(simulation)) {
+		if (table.known(simulation, depth)) {
 			return table.getScore(simulation);
 			// logger.info("GameState is known, has score of {}", score);
 		} else {
 			for (GameAction gameAction : validActions) {
 				score = Math.max(score, alphaBeta(simulation, playerId, gameAction, depth - 1));
-				if (score >= 10000) {
+				if (score >= 10000 || aborted) {
 					break;
 				}
 			}
-			table.save(simulation, score);
+			if (!aborted) {
+				table.save(simulation, depth, score);
+			}
 		}
 
 		return score;
@@ -61,7 +82,9 @@ public class GreedyOptimizeTurn extends Behaviour {
 	@Override
 	public IBehaviour clone() {
 		try {
-			return new GreedyOptimizeTurn(heuristic.getClass().newInstance());
+			GreedyOptimizeTurn clone = new GreedyOptimizeTurn(heuristic.getClass().newInstance());
+			clone.setSearchBudget(getSearchBudget());
+			return clone;
 		} catch (InstantiationException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -95,9 +118,18 @@ public class GreedyOptimizeTurn extends Behaviour {
 			return validActions.get(0);
 		}
 
-		// for now, do now evaluate battecry actions
-		if (validActions.get(0).getActionType() == ActionType.BATTLECRY) {
-			return validActions.get(context.getLogic().random(validActions.size()));
+		// for now, do now evaluate battecry actions; nested decisions of
+		// simulated actions (e.g. discovers) must not start a search of their
+		// own, which would end the one in progress
+		if (validActions.get(0).getActionType() == ActionType.BATTLECRY || budget != null) {
+			return validActions.get(context.getRandom().nextInt(validActions.size()));
+		}
+
+		GameAction lethalAction = LethalSolver.findLethalAction(context, player, validActions);
+		if (lethalAction != null) {
+			logger.debug("Selecting lethal action {}", lethalAction);
+			heuristic.onActionSelected(context, player.getId());
+			return lethalAction;
 		}
 
 		if (assignedGC != 0 && assignedGC != context.hashCode()) {
@@ -111,15 +143,41 @@ public class GreedyOptimizeTurn extends Behaviour {
 		GameAction bestAction = validActions.get(0);
 		double bestScore = Double.NEGATIVE_INFINITY;
 
-		for (GameAction gameAction : validActions) {
-			logger.debug("********************* SIMULATION STARTS *********************");
-			double score = alphaBeta(context, player.getId(), gameAction, 3);
-			if (score > bestScore) {
-				bestAction = gameAction;
-				bestScore = score;
+		// without a budget, search to the default depth; with a budget,
+		// deepen iteratively and keep the result of the deepest completed
+		// search
+		SearchBudget searchBudget = getSearchBudget();
+		budget = (searchBudget != null ? searchBudget : SearchBudget.UNLIMITED).start();
+		int minDepth = searchBudget != null ? 1 : DEFAULT_DEPTH;
+		int maxDepth = searchBudget != null ? MAX_DEPTH : DEFAULT_DEPTH;
+		for (int depth = minDepth; depth <= maxDepth; depth++) {
+			aborted = false;
+			depthLimited = false;
+			GameAction depthBestAction = null;
+			double depthBestScore = Double.NEGATIVE_INFINITY;
+			for (GameAction gameAction : validActions) {
+				logger.debug("********************* SIMULATION STARTS *********************");
+				double score = alphaBeta(context, player.getId(), gameAction, depth);
+				if (aborted) {
+					break;
+				}
+				if (score > depthBestScore) {
+					depthBestAction = gameAction;
+					depthBestScore = score;
+				}
+				logger.debug("********************* SIMULATION ENDS, Action {} achieves score {}", gameAction, score);
+			}
+			// an incomplete search is only better than nothing
+			if (depthBestAction != null && (!aborted || depth == minDepth)) {
+				bestAction = depthBestAction;
+				bestScore = depthBestScore;
+			}
+			if (aborted || !depthLimited) {
+				break;
 			}
-			logger.debug("********************* SIMULATION ENDS, Action {} achieves score {}", gameAction, score);
+			logger.debug("Depth {} searched after {} nodes", depth, budget.getNodes());
 		}
+		budget = null;
 
 		int totalActionCount = 0;
 		for (ActionType actionType : evaluatedActions.keySet()) {
@@ -0,0 +1,384 @@
+package net.demilich.metastone.game.behaviour;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.ActionType;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.actions.PlayCardAction;
+import net.demilich.metastone.game.actions.PlaySpellCardAction;
+import net.demilich.metastone.game.behaviour.mcts.utils.ActionUtils;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardType;
+import net.demilich.metastone.game.cards.IChooseOneCard;
+import net.demilich.metastone.game.cards.MinionCard;
+import net.demilich.metastone.game.cards.SpellCard;
+import net.demilich.metastone.game.cards.WeaponCard;
+import net.demilich.metastone.game.entities.Actor;
+import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.heroes.Hero;
+import net.demilich.metastone.game.entities.minions.Minion;
+import net.demilich.metastone.game.heroes.powers.HeroPower;
+import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.game.spells.DamageSpell;
+import net.demilich.metastone.game.spells.desc.SpellArg;
+import net.demilich.metastone.game.spells.desc.SpellDesc;
+import net.demilich.metastone.game.targeting.EntityReference;
+import net.demilich.metastone.game.targeting.TargetSelection;
+
+/**
+ * Finds a sequence of actions which kills the opponent's hero in the current
+ * turn, so that a behaviour can skip its search when the opponent is dead on
+ * board. Only damage is considered: attacks of minions (with charge or
+ * windfury) and the hero (with a weapon, possibly equipped from the hand),
+ * charge minions without battlecry from the hand, and spells and hero powers
+ * which deal a fixed amount of damage (with spell damage) to a target of the
+ * player's choice or to the enemy hero.
+ * <p>
+ * Most turns are settled without simulating anything: an upper bound of the
+ * damage the player can deal to the enemy hero, which accounts for the health
+ * and divine shields of taunt minions in the way of attacks, falls short of
+ * the hero's health and armor. Otherwise the actions are searched depth first
+ * on clones of the game, hits on the hero first, and every state is cut off
+ * as soon as its bound falls short. Attacks and spells are only aimed at the
+ * enemy hero and at taunt minions, and states reached before by another order
+ * of actions are skipped. As the actions are simulated by the game logic, a
+ * sequence found is lethal for sure, unless random effects or the opponent's
+ * secrets interfere; sequences are played once more on another clone to rule
+ * out the former, and the solver gives up on opponents with secrets.
+ */
+public class LethalSolver {
+
+	// searched states per query unless set otherwise
+	public static final int DEFAULT_NODES = 1000;
+
+	private static final Set<TargetSelection> ENEMY_HERO_TARGETS = EnumSet.of(TargetSelection.ANY,
+			TargetSelection.ENEMY_CHARACTERS, TargetSelection.ENEMY_HERO, TargetSelection.HEROES);
+
+	/**
+	 * Returns the first action of a lethal sequence among the given valid
+	 * actions, or null if the solver finds none. Nested decisions (e.g.
+	 * battlecry targets) are left to the caller.
+	 */
+	public static GameAction findLethalAction(GameContext context, Player player, List<GameAction> validActions) {
+		ActionType actionType = validActions.get(0).getActionType();
+		if (actionType == ActionType.BATTLECRY || actionType == ActionType.DISCOVER) {
+			return null;
+		}
+		List<GameAction> line = findLethal(context, player.getId(), DEFAULT_NODES);
+		return line != null ? ActionUtils.findEquivalent(validActions, line.get(0)) : null;
+	}
+
+	/**
+	 * Returns a sequence of actions of the given player which kills the
+	 * opponent's hero this turn, or null if there is none or the solver
+	 * gave up after searching the given number of states. The game itself is
+	 * left untouched.
+	 */
+	public static List<GameAction> findLethal(GameContext context, int playerId, int nodes) {
+		if (context.getActivePlayerId() != playerId || context.gameDecided()) {
+			return null;
+		}
+		Player opponent = context.getOpponent(context.getPlayer(playerId));
+		if (!opponent.getSecrets().isEmpty() || opponent.getHero().hasAttribute(Attribute.IMMUNE)) {
+			return null;
+		}
+		if (getDamageBound(context, playerId) < opponent.getHero().getEffectiveHp()) {
+			return null;
+		}
+		LethalSolver solver = new LethalSolver(playerId, nodes);
+		GameContext root = prepare(context.clone());
+		List<GameAction> line = new ArrayList<>();
+		boolean found = solver.search(root, line);
+		root.dispose();
+		if (!found || !isLethal(context, playerId, line)) {
+			return null;
+		}
+		return line;
+	}
+
+	/**
+	 * Returns the damage the given spell card or hero power deals to the
+	 * enemy hero if the player plays it on the hero, or 0 if it is not a
+	 * spell of fixed damage to a chosen target or to the enemy hero. A card
+	 * to choose one of several spells from deals the most damage of them.
+	 */
+	private static int getBurnDamage(GameContext context, Player player, Card card) {
+		if (card instanceof IChooseOneCard) {
+			int damage = 0;
+			for (PlayCardAction option : ((IChooseOneCard) card).playOptions()) {
+				if (option instanceof PlaySpellCardAction) {
+					damage = Math.max(damage, getBurnDamage(context, player, card, (PlaySpellCardAction) option));
+				}
+			}
+			return damage;
+		}
+		if (!(card instanceof SpellCard)) {
+			return 0;
+		}
+		SpellCard spellCard = (SpellCard) card;
+		return getBurnDamage(context, player, card, spellCard.getSpell(), spellCard.getTargetRequirement());
+	}
+
+	/**
+	 * Returns the damage the given action playing the given card deals to
+	 * the enemy hero, see {@link #getBurnDamage(GameContext, Player, Card)};
+	 * the action's spell is the chosen one of a card to choose from.
+	 */
+	private static int getBurnDamage(GameContext context, Player player, Card card, PlaySpellCardAction action) {
+		return getBurnDamage(context, player, card, action.getSpell(), action.getTargetRequirement());
+	}
+
+	private static int getBurnDamage(GameContext context, Player player, Card card, SpellDesc spell,
+			TargetSelection targetRequirement) {
+		if (spell == null || spell.getSpellClass() != DamageSpell.class || !spell.contains(SpellArg.VALUE)
+				|| spell.contains(SpellArg.VALUE_PROVIDER) || spell.getBool(SpellArg.RANDOM_TARGET)
+				|| spell.contains(SpellArg.FILTER)) {
+			return 0;
+		}
+		if (spell.hasPredefinedTarget() ? !spell.getTarget().equals(EntityReference.ENEMY_HERO)
+				: !ENEMY_HERO_TARGETS.contains(targetRequirement)) {
+			return 0;
+		}
+		GameLogic logic = context.getLogic();
+		int damage = spell.getValue();
+		if (card.getCardType() == CardType.HERO_POWER) {
+			damage = logic.applyHeroPowerDamage(player, damage);
+		} else {
+			damage = logic.applySpellpower(player, card, damage);
+		}
+		return logic.applyAmplify(player, damage, Attribute.SPELL_AMPLIFY_MULTIPLIER);
+	}
+
+	/**
+	 * Adds a card of the given cost and damage to the given table of the most
+	 * damage per amount of mana spent (a knapsack).
+	 */
+	private static void addDamage(int[] damageByMana, int cost, int damage) {
+		for (int mana = damageByMana.length - 1; mana >= cost; mana--) {
+			damageByMana[mana] = Math.max(damageByMana[mana], damageByMana[mana - cost] + damage);
+		}
+	}
+
+	/**
+	 * Returns an upper bound of the damage the given player can deal to the
+	 * enemy hero this turn. The cards played from the hand (and the hero
+	 * power) are the ones dealing the most damage within the player's mana.
+	 * Spells and hero powers reach the hero directly; attacks only after the
+	 * taunt minions in their way are dead, which takes at least their health
+	 * (and one more hit for a divine shield) off the total damage.
+	 */
+	static int getDamageBound(GameContext context, int playerId) {
+		Player player = context.getPlayer(playerId);
+		Player opponent = context.getOpponent(player);
+		GameLogic logic = context.getLogic();
+		int boardDamage = 0;
+		for (Minion minion : player.getMinions()) {
+			boardDamage += getAttackDamage(minion, minion.getAttack());
+		}
+		Hero hero = player.getHero();
+		int heroDamage = getAttackDamage(hero, hero.getAttack());
+		boardDamage += heroDamage;
+
+		// the most damage by mana spent, of burn alone and of all cards
+		int mana = Math.max(0, player.getMana());
+		int[] burnDamage = new int[mana + 1];
+		int[] cardDamage = new int[mana + 1];
+		for (Card card : player.getHand()) {
+			// the cheap checks go first, most cards deal no damage
+			int damage = 0;
+			boolean burn = false;
+			if (card.getCardType() == CardType.SPELL || card.getCardType() == CardType.CHOOSE_ONE) {
+				damage = getBurnDamage(context, player, card);
+				burn = true;
+			} else if (isChargeMinion(card)) {
+				int attacks = card.hasAttribute(Attribute.MEGA_WINDFURY) ? GameLogic.MEGA_WINDFURY_ATTACKS
+						: card.hasAttribute(Attribute.WINDFURY) ? GameLogic.WINDFURY_ATTACKS : 1;
+				damage = ((MinionCard) card).getAttack() * attacks;
+			} else if (card.getCardType() == CardType.WEAPON && canAttackWithWeapon(hero)) {
+				// at most the hero's attack with both weapons
+				int weaponDamage = ((WeaponCard) card).getWeapon().getWeaponDamage();
+				damage = Math.max(0, hero.getAttack() + weaponDamage - heroDamage);
+			}
+			if (damage <= 0 || !logic.canPlayCard(playerId, card.getCardReference())) {
+				continue;
+			}
+			int cost = logic.getModifiedManaCost(player, card);
+			if (burn) {
+				addDamage(burnDamage, cost, damage);
+			}
+			addDamage(cardDamage, cost, damage);
+		}
+		HeroPower heroPower = hero.getHeroPower();
+		if (heroPower.getCardType() == CardType.HERO_POWER) {
+			int damage = getBurnDamage(context, player, heroPower);
+			if (damage > 0 && logic.canPlayCard(playerId, heroPower.getCardReference())) {
+				int cost = logic.getModifiedManaCost(player, heroPower);
+				addDamage(burnDamage, cost, damage);
+				addDamage(cardDamage, cost, damage);
+			}
+		}
+
+		int tauntHealth = 0;
+		for (Minion minion : opponent.getMinions()) {
+			if (isTaunt(minion)) {
+				tauntHealth += minion.getHp() + (minion.hasAttribute(Attribute.DIVINE_SHIELD) ? 1 : 0);
+			}
+		}
+		// either no attack hits the hero, or all taunts die first
+		return Math.max(burnDamage[mana], boardDamage + cardDamage[mana] - tauntHealth);
+	}
+
+	private static int getAttackDamage(Actor attacker, int attack) {
+		if (!attacker.canAttackThisTurn()) {
+			return 0;
+		}
+		return attack * attacker.getAttributeValue(Attribute.NUMBER_OF_ATTACKS);
+	}
+
+	private static boolean canAttackWithWeapon(Hero hero) {
+		return !hero.hasAttribute(Attribute.CANNOT_ATTACK) && !hero.hasAttribute(Attribute.FROZEN)
+				&& hero.getAttributeValue(Attribute.NUMBER_OF_ATTACKS) > 0;
+	}
+
+	private static boolean isChargeMinion(Card card) {
+		return card instanceof MinionCard && card.hasAttribute(Attribute.CHARGE) && ((MinionCard) card).isVanilla();
+	}
+
+	/**
+	 * Returns whether the given sequence of actions kills the opponent's hero
+	 * when played on another clone of the given game.
+	 */
+	private static boolean isLethal(GameContext context, int playerId, List<GameAction> line) {
+		GameContext replay = prepare(context.clone());
+		try {
+			for (GameAction action : line) {
+				GameAction validAction = ActionUtils.findEquivalent(replay.getValidActions(), action);
+				if (validAction == null) {
+					return false;
+				}
+				replay.getLogic().performGameAction(playerId, validAction);
+			}
+			Player player = replay.getPlayer(playerId);
+			return replay.getOpponent(player).getHero().isDestroyed() && !player.getHero().isDestroyed();
+		} finally {
+			replay.dispose();
+		}
+	}
+
+	private static boolean isTaunt(Entity entity) {
+		return entity.hasAttribute(Attribute.TAUNT) && !entity.hasAttribute(Attribute.STEALTH)
+				&& !entity.hasAttribute(Attribute.IMMUNE);
+	}
+
+	private static GameContext prepare(GameContext state) {
+		state.getLogic().setLoggingEnabled(false);
+		for (Player player : state.getPlayers()) {
+			// nested decisions of the searched actions must not reach the
+			// actual behaviours
+			player.setBehaviour(new PlayRandomBehaviour());
+		}
+		return state;
+	}
+
+	private final int playerId;
+	private final int maxNodes;
+	private final Set<Long> visited = new HashSet<>();
+	private int nodes;
+
+	private LethalSolver(int playerId, int maxNodes) {
+		this.playerId = playerId;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Returns the actions of the given state which may help to kill the
+	 * enemy hero, those hitting it first.
+	 */
+	private List<GameAction> getCandidates(GameContext state) {
+		Player player = state.getPlayer(playerId);
+		Player opponent = state.getOpponent(player);
+		EntityReference enemyHero = opponent.getHero().getReference();
+		List<GameAction> hits = new ArrayList<>();
+		List<GameAction> others = new ArrayList<>();
+		Set<Integer> summonedCards = new HashSet<>();
+		for (GameAction action : state.getValidActions()) {
+			switch (action.getActionType()) {
+			case PHYSICAL_ATTACK:
+				break;
+			case SPELL:
+			case HERO_POWER:
+				PlaySpellCardAction spellAction = (PlaySpellCardAction) action;
+				Card card = state.peekCardReference(spellAction.getCardReference());
+				if (getBurnDamage(state, player, card, spellAction) == 0) {
+					continue;
+				}
+				break;
+			case SUMMON:
+				PlayCardAction summon = (PlayCardAction) action;
+				// the position of a charge minion does not matter
+				if (!isChargeMinion(state.peekCardReference(summon.getCardReference()))
+						|| !summonedCards.add(summon.getCardReference().getCardId())) {
+					continue;
+				}
+				others.add(action);
+				continue;
+			case EQUIP_WEAPON:
+				if (canAttackWithWeapon(player.getHero())) {
+					others.add(action);
+				}
+				continue;
+			default:
+				continue;
+			}
+			EntityReference target = action.getTargetKey();
+			if (target == null || target.equals(enemyHero)) {
+				hits.add(action);
+				continue;
+			}
+			Entity targetEntity = state.resolveSingleTarget(target);
+			if (targetEntity.getOwner() == opponent.getId() && isTaunt(targetEntity)) {
+				others.add(action);
+			}
+		}
+		hits.addAll(others);
+		return hits;
+	}
+
+	private boolean search(GameContext state, List<GameAction> line) {
+		Player player = state.getPlayer(playerId);
+		Player opponent = state.getOpponent(player);
+		if (opponent.getHero().isDestroyed()) {
+			// a draw is no win
+			return !player.getHero().isDestroyed();
+		}
+		if (state.gameDecided() || state.getActivePlayerId() != playerId
+				|| getDamageBound(state, playerId) < opponent.getHero().getEffectiveHp()) {
+			return false;
+		}
+		for (GameAction action : getCandidates(state)) {
+			if (nodes++ >= maxNodes) {
+				return false;
+			}
+			GameContext successor = state.clone();
+			successor.getLogic().performGameAction(playerId, action);
+			if (visited.add(successor.stateHash())) {
+				line.add(action);
+				if (search(successor, line)) {
+					successor.dispose();
+					return true;
+				}
+				line.remove(line.size() - 1);
+			}
+			successor.dispose();
+		}
+		return false;
+	}
+
+}
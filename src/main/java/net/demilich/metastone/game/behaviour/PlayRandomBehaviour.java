@@ -11,7 +11,25 @@ import net.demilich.metastone.game.cards.Card;
 
 public class PlayRandomBehaviour extends Behaviour {
 
-	private Random random = new Random();
+	// null draws from the random generator of the game
+	private final Random random;
+
+	/**
+	 * Creates a behaviour that draws its moves from the random generator of
+	 * the game, so that seeded games (see
+	 * {@link GameContext#getRandom()}) play the same moves again.
+	 */
+	public PlayRandomBehaviour() {
+		this.random = null;
+	}
+
+	/**
+	 * Creates a behaviour that always plays the same moves in the same
+	 * situations, e.g. for reproducible benchmarks.
+	 */
+	public PlayRandomBehaviour(long seed) {
+		this.random = new Random(seed);
+	}
 
 	@Override
 	public String getName() {
@@ -29,6 +47,7 @@ public class PlayRandomBehaviour extends Behaviour {
 			return validActions.get(0);
 		}
 
+		Random random = this.random != null ? this.random : context.getRandom();
 		int randomIndex = random.nextInt(validActions.size());
 		GameAction randomAction = validActions.get(randomIndex);
 		return randomAction;
@@ -0,0 +1,216 @@
+package net.demilich.metastone.game.behaviour;
+
+import java.util.List;
+import java.util.Random;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.TurnState;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.heuristic.IGameStateHeuristic;
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.ThreatBasedHeuristic;
+import net.demilich.metastone.game.logic.GameLogic;
+
+/**
+ * How the Monte Carlo searches play out a searched state and score the
+ * result, as a value in [0, 1] for the searching player. Moves are uniformly
+ * random, or {@link #epsilonGreedy epsilon-greedy} on a heuristic: the move
+ * whose resulting state the heuristic scores best, except for a random move
+ * with probability epsilon. A playout may be {@link #truncate truncated}
+ * after a number of turns, in which case an evaluation heuristic's score of
+ * the last state is squashed into (0, 1) by a logistic function. Decided
+ * games are worth 1 for the winner and 0 for the loser, so the values of both
+ * players always add up to 1; draws and playouts stopped without an
+ * evaluation heuristic are worth 0.5.
+ * <p>
+ * Policies are immutable and may be shared by the threads of a search, as
+ * long as their heuristics are stateless like {@link
+ * net.demilich.metastone.game.behaviour.threat.ThreatBasedHeuristic}.
+ */
+public class RolloutPolicy {
+
+	/**
+	 * Random moves until the game is decided or the turn limit is reached.
+	 */
+	public static final RolloutPolicy RANDOM = new RolloutPolicy(null, 1, 0, null, 1);
+
+	// evaluation score of a parsed truncated policy that is squashed to 0.73
+	private static final double TRUNCATION_SCALE = 10;
+
+	public static RolloutPolicy epsilonGreedy(IGameStateHeuristic heuristic, double epsilon) {
+		return new RolloutPolicy(heuristic, epsilon, 0, null, 1);
+	}
+
+	/**
+	 * Parses a policy written as "random" or "greedy" followed by epsilon,
+	 * e.g. "greedy0.1", optionally truncated after a number of turns, e.g.
+	 * "random,2turns". Greedy moves and truncated playouts are scored by a
+	 * {@link ThreatBasedHeuristic} with the fittest known feature vector.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the text is not a valid policy
+	 */
+	public static RolloutPolicy parse(String text) {
+		String[] parts = text.replaceAll("\\s", "").toLowerCase().split(",", -1);
+		IGameStateHeuristic heuristic = new ThreatBasedHeuristic(FeatureVector.getFittest());
+		try {
+			RolloutPolicy policy = null;
+			if (parts[0].equals("random")) {
+				policy = RANDOM;
+			} else if (parts[0].startsWith("greedy")) {
+				policy = epsilonGreedy(heuristic, Double.parseDouble(parts[0].substring("greedy".length())));
+			}
+			if (policy != null && parts.length == 1) {
+				return policy;
+			}
+			if (policy != null && parts.length == 2 && parts[1].endsWith("turns")) {
+				int turns = Integer.parseInt(parts[1].substring(0, parts[1].length() - "turns".length()));
+				if (turns > 0) {
+					return policy.truncate(turns, heuristic, TRUNCATION_SCALE);
+				}
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Invalid rollout policy: '" + text + "', expected e.g. random, greedy0.1 or random,2turns");
+	}
+
+	private final IGameStateHeuristic guide;
+	private final double epsilon;
+	private final int turns;
+	private final IGameStateHeuristic evaluation;
+	private final double scale;
+
+	/**
+	 * @param guide
+	 *            the heuristic choosing the moves, or null for random moves
+	 * @param epsilon
+	 *            probability of a random move instead of the guide's choice
+	 * @param turns
+	 *            number of turns after which the playout stops, counting the
+	 *            current one, or 0 to play until the game is decided
+	 * @param evaluation
+	 *            the heuristic scoring the state a truncated playout stops
+	 *            at, or null
+	 * @param scale
+	 *            evaluation score that is squashed to 0.73; a score of 0 is
+	 *            worth 0.5
+	 */
+	public RolloutPolicy(IGameStateHeuristic guide, double epsilon, int turns, IGameStateHeuristic evaluation, double scale) {
+		if (epsilon < 0 || epsilon > 1) {
+			throw new IllegalArgumentException("Epsilon must be in [0, 1]: " + epsilon);
+		}
+		if (turns < 0) {
+			throw new IllegalArgumentException("Turns must not be negative: " + turns);
+		}
+		if (scale <= 0) {
+			throw new IllegalArgumentException("Scale must be positive: " + scale);
+		}
+		this.guide = guide;
+		this.epsilon = epsilon;
+		this.turns = turns;
+		this.evaluation = evaluation;
+		this.scale = scale;
+	}
+
+	private double evaluate(GameContext state, int playerId) {
+		if (state.gameDecided()) {
+			int winningPlayerId = state.getWinningPlayerId();
+			return winningPlayerId == playerId ? 1 : winningPlayerId == -1 ? 0.5 : 0;
+		}
+		if (evaluation == null) {
+			return 0.5;
+		}
+		double score = evaluation.getScore(state, playerId);
+		// infinite scores of dead heroes are squashed to 0 or 1 as well
+		return 1 / (1 + Math.exp(-score / scale));
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public int getTurns() {
+		return turns;
+	}
+
+	/**
+	 * Plays out the given state, which is used up by the playout, and returns
+	 * its value for the given player. Decisions nested in the moves (e.g.
+	 * battlecry targets) are made at random.
+	 */
+	public double playOut(GameContext state, int playerId, Random random) {
+		return playOut(state, playerId, random, SearchBudget.UNLIMITED.start());
+	}
+
+	/**
+	 * Plays out the given state like {@link #playOut(GameContext, int, Random)}
+	 * for a search with the given budget. The guide's clones count against the
+	 * budget, and once it is exhausted the playout is finished with random
+	 * moves, which clone nothing.
+	 */
+	public double playOut(GameContext state, int playerId, Random random, SearchBudget.Tracker budget) {
+		for (Player player : state.getPlayers()) {
+			player.setBehaviour(new PlayRandomBehaviour());
+		}
+		state.getLogic().setLoggingEnabled(false);
+		int lastTurn = turns > 0 ? state.getTurn() + turns - 1 : Integer.MAX_VALUE;
+		while (!state.gameDecided() && state.getTurn() <= GameLogic.TURN_LIMIT) {
+			if (state.getTurnState() == TurnState.TURN_ENDED) {
+				if (state.getTurn() >= lastTurn) {
+					break;
+				}
+				state.startTurn();
+			}
+			if (guide == null || random.nextDouble() < epsilon || budget.isExhausted()) {
+				state.playRandomAction(random);
+				continue;
+			}
+			GameAction action = selectGreedyAction(state, budget);
+			if (action == null) {
+				state.endTurn();
+				continue;
+			}
+			state.playAction(action);
+		}
+		return evaluate(state, playerId);
+	}
+
+	private GameAction selectGreedyAction(GameContext state, SearchBudget.Tracker budget) {
+		int playerId = state.getActivePlayerId();
+		List<GameAction> validActions = state.getValidActions();
+		GameAction bestAction = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (GameAction action : validActions) {
+			GameContext simulation = budget.clone(state);
+			simulation.getLogic().performGameAction(playerId, action);
+			double score = guide.getScore(simulation, playerId);
+			simulation.dispose();
+			if (bestAction == null || score > bestScore) {
+				bestAction = action;
+				bestScore = score;
+			}
+		}
+		return bestAction;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(guide == null ? "random" : "epsilon-greedy " + epsilon);
+		if (turns > 0) {
+			builder.append(", " + turns + " turns");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns a policy choosing moves like this one which stops after the
+	 * given number of turns and scores the last state with the given
+	 * evaluation heuristic.
+	 */
+	public RolloutPolicy truncate(int turns, IGameStateHeuristic evaluation, double scale) {
+		return new RolloutPolicy(guide, epsilon, turns, evaluation, scale);
+	}
+
+}
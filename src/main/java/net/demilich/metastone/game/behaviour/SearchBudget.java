@@ -0,0 +1,160 @@
+package net.demilich.metastone.game.behaviour;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.demilich.metastone.game.GameContext;
+
+/**
+ * Amount of work a searching behaviour may spend on a single decision,
+ * measured in wall-clock milliseconds, searched nodes or cloned game states.
+ * What a node is depends on the search: an iteration of a tree search, a
+ * playout of a flat Monte Carlo search or a searched state of a game tree
+ * search. Budgets are immutable; each decision {@link #start() starts} its
+ * own {@link Tracker}.
+ */
+public class SearchBudget {
+
+	public enum Unit {
+		MILLISECONDS("ms"),
+		NODES("nodes"),
+		CLONES("clones");
+
+		private final String suffix;
+
+		private Unit(String suffix) {
+			this.suffix = suffix;
+		}
+
+		public String getSuffix() {
+			return suffix;
+		}
+	}
+
+	/**
+	 * Spending of a single decision. Trackers may be shared by the threads of
+	 * a parallel search.
+	 */
+	public class Tracker {
+
+		private final long deadline;
+		private final AtomicLong nodes = new AtomicLong();
+		private final AtomicLong clones = new AtomicLong();
+
+		private Tracker() {
+			deadline = unit == Unit.MILLISECONDS ? System.nanoTime() + limit * 1000000 : Long.MAX_VALUE;
+		}
+
+		/**
+		 * Clones the given game and counts the clone against the budget.
+		 */
+		public GameContext clone(GameContext context) {
+			clones.incrementAndGet();
+			return context.clone();
+		}
+
+		public long getClones() {
+			return clones.get();
+		}
+
+		public long getNodes() {
+			return nodes.get();
+		}
+
+		public boolean isExhausted() {
+			switch (unit) {
+			case MILLISECONDS:
+				return System.nanoTime() >= deadline;
+			case CLONES:
+				return clones.get() >= limit;
+			case NODES:
+			default:
+				return nodes.get() >= limit;
+			}
+		}
+
+		/**
+		 * Claims the next node. Returns false if the budget is exhausted, in
+		 * which case the search should return its best answer so far. With a
+		 * node budget, concurrent threads never claim more nodes than the
+		 * limit in total.
+		 */
+		public boolean nextNode() {
+			long claimed = nodes.incrementAndGet();
+			switch (unit) {
+			case MILLISECONDS:
+				return System.nanoTime() < deadline;
+			case CLONES:
+				return clones.get() < limit;
+			case NODES:
+			default:
+				return claimed <= limit;
+			}
+		}
+
+	}
+
+	public static final SearchBudget UNLIMITED = new SearchBudget(Unit.NODES, Long.MAX_VALUE);
+
+	public static SearchBudget clones(long clones) {
+		return new SearchBudget(Unit.CLONES, clones);
+	}
+
+	public static SearchBudget milliseconds(long milliseconds) {
+		return new SearchBudget(Unit.MILLISECONDS, milliseconds);
+	}
+
+	public static SearchBudget nodes(long nodes) {
+		return new SearchBudget(Unit.NODES, nodes);
+	}
+
+	/**
+	 * Parses a budget written as a number followed by a unit, e.g. "250ms",
+	 * "1000nodes" or "5000 clones".
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the text is not a valid budget
+	 */
+	public static SearchBudget parse(String text) {
+		String trimmed = text.trim().toLowerCase();
+		for (Unit unit : Unit.values()) {
+			if (trimmed.endsWith(unit.getSuffix())) {
+				String number = trimmed.substring(0, trimmed.length() - unit.getSuffix().length()).trim();
+				try {
+					return new SearchBudget(unit, Long.parseLong(number));
+				} catch (NumberFormatException e) {
+					break;
+				}
+			}
+		}
+		throw new IllegalArgumentException("Invalid search budget: '" + text + "', expected e.g. 250ms, 1000nodes or 5000clones");
+	}
+
+	private final Unit unit;
+	private final long limit;
+
+	public SearchBudget(Unit unit, long limit) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Search budget must be positive: " + limit);
+		}
+		this.unit = unit;
+		this.limit = limit;
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	public Unit getUnit() {
+		return unit;
+	}
+
+	public Tracker start() {
+		return new Tracker();
+	}
+
+	@Override
+	public String toString() {
+		return limit + unit.getSuffix();
+	}
+
+}
@@ -1,93 +1,86 @@
 package net.demilich.metastone.game.behaviour;
 
-import java.util.HashMap;
-
-import net.demilich.metastone.game.Attribute;
 import net.demilich.metastone.game.GameContext;
-import net.demilich.metastone.game.Player;
-import net.demilich.metastone.game.cards.Card;
-import net.demilich.metastone.game.entities.Entity;
 
+/**
+ * Fixed-size transposition table keyed on {@link GameContext#stateHash()}.
+ * Each slot holds one entry; a new entry replaces the existing one if that
+ * was stored before the last {@link #clear()} or was searched to a lower
+ * depth.
+ */
 public class TranspositionTable {
 
-	private static int hash(Entity entity) {
-		int hash = entity.getName().hashCode();
-		for (Attribute tag : entity.getAttributes().keySet()) {
-			Object value = entity.getAttributes().get(tag);
-			if (!(value instanceof Integer)) {
-				continue;
-			}
-			hash = mergeHashes(hash, entity.getAttribute(tag).hashCode());
-		}
-		return hash;
-	}
+	private static final int DEFAULT_SIZE = 1 << 16;
 
-	private static int mergeHashes(int hash1, int hash2) {
-		int hash = 0;
-		hash = hash * 33 ^ hash1;
-		hash = hash * 33 ^ hash2;
-		return hash;
-	}
+	private final long[] keys;
+	private final double[] scores;
+	private final int[] depths;
+	// entries of older generations are treated as empty, which makes clearing
+	// the table free
+	private final int[] generations;
+	private final int mask;
+	private int generation = 1;
 
-	private HashMap<Integer, Double> knownScores = new HashMap<Integer, Double>();
+	private long cachedKey;
+	private GameContext cachedState;
 
-	// private HashMap<Integer, GameContext> debug = new HashMap<Integer,
-	// GameContext>();
-	private int cachedKey;
+	public TranspositionTable() {
+		this(DEFAULT_SIZE);
+	}
 
-	private GameContext cachedState;
+	public TranspositionTable(int size) {
+		int capacity = Integer.highestOneBit(Math.max(size, 1));
+		if (capacity < size) {
+			capacity <<= 1;
+		}
+		keys = new long[capacity];
+		scores = new double[capacity];
+		depths = new int[capacity];
+		generations = new int[capacity];
+		mask = capacity - 1;
+	}
 
 	public void clear() {
-		knownScores.clear();
+		generation++;
+		cachedState = null;
 	}
 
 	public double getScore(GameContext context) {
-		return knownScores.get(hash(context));
+		return scores[slot(hash(context))];
 	}
 
-	private int hash(GameContext context) {
-		if (context == cachedState) {
-			return cachedKey;
+	private long hash(GameContext context) {
+		if (context != cachedState) {
+			cachedState = context;
+			cachedKey = context.stateHash();
 		}
+		return cachedKey;
+	}
 
-		int hash = context.getActivePlayerId();
-
-		for (Player player : context.getPlayers()) {
-			hash = mergeHashes(hash, player.getMana());
-			hash = mergeHashes(hash, player.getMaxMana());
-			hash = mergeHashes(hash, hash(player.getHero()));
-			for (Card handCard : player.getHand()) {
-				hash = mergeHashes(hash, hash(handCard));
-			}
-
-			for (Card deckCard : player.getDeck()) {
-				hash = mergeHashes(hash, hash(deckCard));
-			}
-			for (Entity minion : player.getMinions()) {
-				hash = mergeHashes(hash, hash(minion));
-				hash = mergeHashes(hash, context.getTriggersAssociatedWith(minion.getReference()).size());
-			}
-
-		}
-		cachedState = context;
-		cachedKey = hash;
-		return hash;
+	/**
+	 * Returns whether a score for this state, searched to at least the given
+	 * depth, is stored.
+	 */
+	public boolean known(GameContext context, int depth) {
+		long key = hash(context);
+		int slot = slot(key);
+		return generations[slot] == generation && keys[slot] == key && depths[slot] >= depth;
 	}
 
-	public boolean known(GameContext context) {
-		int key = hash(context);
-		// if (knownScores.containsKey(key)) {
-		// System.out.println("Identical game states found!");
-		// System.out.println("New: " + context);
-		// System.out.println("Existing: " + debug.get(key));
-		// }
-		return knownScores.containsKey(key);
+	public void save(GameContext context, int depth, double score) {
+		long key = hash(context);
+		int slot = slot(key);
+		if (generations[slot] == generation && keys[slot] != key && depths[slot] > depth) {
+			return;
+		}
+		keys[slot] = key;
+		scores[slot] = score;
+		depths[slot] = depth;
+		generations[slot] = generation;
 	}
 
-	public void save(GameContext context, double score) {
-		int key = hash(context);
-		knownScores.put(key, score);
-		// debug.put(key, context);
+	private int slot(long key) {
+		return (int) (key ^ (key >>> 32)) & mask;
 	}
 
 }
@@ -0,0 +1,429 @@
+package net.demilich.metastone.game.behaviour;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.ActionType;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.actions.PhysicalAttackAction;
+import net.demilich.metastone.game.actions.PlayCardAction;
+import net.demilich.metastone.game.behaviour.heuristic.IGameStateHeuristic;
+import net.demilich.metastone.game.behaviour.mcts.utils.ActionUtils;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.MinionCard;
+import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.EntityType;
+import net.demilich.metastone.game.entities.heroes.Hero;
+import net.demilich.metastone.game.entities.minions.Minion;
+import net.demilich.metastone.game.events.GameEventType;
+import net.demilich.metastone.game.spells.trigger.IGameEventListener;
+import net.demilich.metastone.game.targeting.EntityReference;
+
+/**
+ * Plans the rest of the current turn as a whole: searches the sequences of
+ * the player's actions up to the end of the turn and scores the state each
+ * one leads to with a heuristic. The search deepens iteratively until the
+ * whole turn has been searched or the budget is spent. Each iteration tries
+ * the plan of the previous one first and the other actions in the order of
+ * the heuristic's score of their immediate result, so a search cut short by
+ * the budget has looked at the most promising plans.
+ * <p>
+ * Independent actions are only searched in one order. Two attacks with
+ * different attackers on different targets (or both on a hero) commute as
+ * long as nothing on the board reacts to attacks or summons, and so do an
+ * attack and summoning a minion without battlecry, deathrattle, trigger or
+ * aura; a sleep set keeps the search from trying such an action again after
+ * an independent one that was tried later at the same point. Two summons do
+ * not commute, as the minions end up in the other order. Other
+ * transpositions are caught by a {@link TranspositionTable}.
+ * <p>
+ * A plan searched to the end of the turn is followed for the next decisions
+ * as long as the game reaches the planned states; otherwise the turn is
+ * planned again.
+ */
+public class TurnPlanner extends Behaviour {
+
+	private final static Logger logger = LoggerFactory.getLogger(TurnPlanner.class);
+
+	// searched states per decision unless a search budget is set
+	private static final int DEFAULT_NODES = 5000;
+	private static final int MAX_DEPTH = 12;
+	// scores at least this high are wins, which need no further search
+	private static final double WINNING_SCORE = 10000;
+	// the events attacks and summons fire
+	private static final Set<GameEventType> REACTIVE_EVENTS = EnumSet.of(GameEventType.TARGET_ACQUISITION,
+			GameEventType.PHYSICAL_ATTACK, GameEventType.PRE_DAMAGE, GameEventType.DAMAGE, GameEventType.KILL,
+			GameEventType.ENRAGE_CHANGED, GameEventType.WEAPON_DESTROYED, GameEventType.PLAY_CARD, GameEventType.SUMMON,
+			GameEventType.BOARD_CHANGED);
+
+	/**
+	 * An action of a plan and the hash of the state it leads to.
+	 */
+	private static class Step {
+
+		private final GameAction action;
+		private final long stateHash;
+
+		public Step(GameAction action, long stateHash) {
+			this.action = action;
+			this.stateHash = stateHash;
+		}
+	}
+
+	/**
+	 * The state an action leads to, with the heuristic's score of it.
+	 */
+	private static class Successor {
+
+		private final GameAction action;
+		private final GameContext state;
+		private final double score;
+		private final boolean turnEnded;
+
+		public Successor(GameAction action, GameContext state, double score, boolean turnEnded) {
+			this.action = action;
+			this.state = state;
+			this.score = score;
+			this.turnEnded = turnEnded;
+		}
+	}
+
+	private static boolean hasDeathrattle(GameContext state, EntityReference reference) {
+		Entity entity = state.resolveSingleTarget(reference);
+		return entity == null || entity.hasAttribute(Attribute.DEATHRATTLES);
+	}
+
+	private static boolean hasReactiveTriggers(GameContext state, Entity entity) {
+		for (IGameEventListener trigger : state.getTriggersAssociatedWith(entity.getReference())) {
+			for (GameEventType eventType : REACTIVE_EVENTS) {
+				if (trigger.interestedIn(eventType)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isEquivalent(GameAction action, GameAction other) {
+		return other != null && ActionUtils.findEquivalent(Collections.singletonList(action), other) != null;
+	}
+
+	/**
+	 * Returns whether the two actions, both valid in the given state, lead to
+	 * the same state in either order. Only holds if the state is quiet, see
+	 * {@link #isQuiet}.
+	 */
+	private static boolean isIndependent(GameContext state, GameAction first, GameAction second) {
+		ActionType firstType = first.getActionType();
+		ActionType secondType = second.getActionType();
+		if (firstType == ActionType.PHYSICAL_ATTACK && secondType == ActionType.PHYSICAL_ATTACK) {
+			PhysicalAttackAction firstAttack = (PhysicalAttackAction) first;
+			PhysicalAttackAction secondAttack = (PhysicalAttackAction) second;
+			if (firstAttack.getAttackerReference().equals(secondAttack.getAttackerReference())) {
+				return false;
+			}
+			if (first.getTargetKey().equals(second.getTargetKey())
+					&& state.resolveSingleTarget(first.getTargetKey()).getEntityType() != EntityType.HERO) {
+				// e.g. the first attack takes the divine shield
+				return false;
+			}
+			return isQuietAttack(state, firstAttack) && isQuietAttack(state, secondAttack);
+		}
+		if (firstType == ActionType.SUMMON && secondType == ActionType.PHYSICAL_ATTACK) {
+			return isIndependent(state, second, first);
+		}
+		if (firstType == ActionType.PHYSICAL_ATTACK && secondType == ActionType.SUMMON) {
+			PhysicalAttackAction attack = (PhysicalAttackAction) first;
+			// the minion is summoned next to its target
+			EntityReference position = second.getTargetKey();
+			if (position != null && (position.equals(attack.getAttackerReference()) || position.equals(attack.getTargetKey()))) {
+				return false;
+			}
+			return isQuietAttack(state, attack) && isVanillaSummon(state, second);
+		}
+		return false;
+	}
+
+	private static boolean isQuietAttack(GameContext state, PhysicalAttackAction attack) {
+		return !hasDeathrattle(state, attack.getAttackerReference()) && !hasDeathrattle(state, attack.getTargetKey());
+	}
+
+	/**
+	 * Returns whether nothing in the given state reacts to attacks or
+	 * summoned minions: there are no secrets, no card cost modifiers, and no
+	 * triggers or auras on heroes, weapons or minions which listen to the
+	 * events of attacks and summons. Triggers at the start or end of a turn,
+	 * on spells or on the hero power do not matter.
+	 */
+	private static boolean isQuiet(GameContext state) {
+		if (!state.getCardCostModifiers().isEmpty()) {
+			return false;
+		}
+		for (Player player : state.getPlayers()) {
+			if (!player.getSecrets().isEmpty()) {
+				return false;
+			}
+			Hero hero = player.getHero();
+			if (hasReactiveTriggers(state, hero) || hero.getWeapon() != null && hasReactiveTriggers(state, hero.getWeapon())) {
+				return false;
+			}
+			for (Minion minion : player.getMinions()) {
+				if (hasReactiveTriggers(state, minion)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVanillaSummon(GameContext state, GameAction action) {
+		Card card = state.peekCardReference(((PlayCardAction) action).getCardReference());
+		return card instanceof MinionCard && ((MinionCard) card).isVanilla();
+	}
+
+	private final IGameStateHeuristic heuristic;
+	private final TranspositionTable table = new TranspositionTable();
+	// the rest of the current plan, if it reaches the end of the turn
+	private List<Step> plan = new ArrayList<>();
+	private SearchBudget.Tracker budget;
+	// set when the budget ran out during the current search
+	private boolean aborted;
+	// set when the current search stopped at the depth limit somewhere
+	private boolean depthLimited;
+
+	public TurnPlanner(IGameStateHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	public IBehaviour clone() {
+		try {
+			TurnPlanner clone = new TurnPlanner(heuristic.getClass().newInstance());
+			clone.setSearchBudget(getSearchBudget());
+			clone.setRolloutPolicy(getRolloutPolicy());
+			return clone;
+		} catch (InstantiationException e) {
+			e.printStackTrace();
+		} catch (IllegalAccessException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the next action of the current plan if the game is in the
+	 * planned state, or null.
+	 */
+	private GameAction followPlan(GameContext context, List<GameAction> validActions, long stateHash) {
+		if (plan.isEmpty() || plan.get(0).stateHash != stateHash) {
+			plan.clear();
+			return null;
+		}
+		plan.remove(0);
+		if (plan.isEmpty()) {
+			return null;
+		}
+		GameAction action = ActionUtils.findEquivalent(validActions, plan.get(0).action);
+		if (action == null) {
+			plan.clear();
+		}
+		return action;
+	}
+
+	@Override
+	public String getName() {
+		return "Turn Planner";
+	}
+
+	@Override
+	public List<Card> mulligan(GameContext context, Player player, List<Card> cards) {
+		List<Card> discardedCards = new ArrayList<Card>();
+		for (Card card : cards) {
+			if (card.getBaseManaCost() >= 4) {
+				discardedCards.add(card);
+			}
+		}
+		return discardedCards;
+	}
+
+	@Override
+	public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
+		plan.clear();
+	}
+
+	@Override
+	public GameAction requestAction(GameContext context, Player player, List<GameAction> validActions) {
+		ActionType actionType = validActions.get(0).getActionType();
+		if (actionType == ActionType.BATTLECRY || actionType == ActionType.DISCOVER) {
+			// nested decisions are not planned, and the plan only goes on if
+			// this one leads to the planned state
+			return validActions.get(context.getRandom().nextInt(validActions.size()));
+		}
+		GameAction plannedAction = followPlan(context, validActions, context.stateHash());
+		if (plannedAction != null) {
+			heuristic.onActionSelected(context, player.getId());
+			return plannedAction;
+		}
+		if (validActions.size() == 1) {
+			heuristic.onActionSelected(context, player.getId());
+			return validActions.get(0);
+		}
+		GameAction lethalAction = LethalSolver.findLethalAction(context, player, validActions);
+		if (lethalAction != null) {
+			logger.debug("Selecting lethal action {}", lethalAction);
+			heuristic.onActionSelected(context, player.getId());
+			return lethalAction;
+		}
+
+		SearchBudget searchBudget = getSearchBudget() != null ? getSearchBudget() : SearchBudget.nodes(DEFAULT_NODES);
+		budget = searchBudget.start();
+		table.clear();
+		GameContext root = budget.clone(context);
+		for (Player rootPlayer : root.getPlayers()) {
+			// keeps nested decisions of the searched actions from searching
+			rootPlayer.setBehaviour(new PlayRandomBehaviour());
+		}
+
+		List<Step> bestLine = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		boolean complete = false;
+		for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+			aborted = false;
+			depthLimited = false;
+			List<Step> line = new ArrayList<>();
+			double score = search(root, player.getId(), depth, new ArrayList<>(), bestLine, line);
+			// an incomplete iteration may not have reached the end of the
+			// turn with its best plan, so it only helps if there is none yet
+			if (!line.isEmpty() && (!aborted || bestLine == null)) {
+				bestLine = line;
+				bestScore = score;
+				complete = !aborted && !depthLimited;
+			}
+			if (aborted || !depthLimited) {
+				break;
+			}
+			logger.debug("Depth {} searched after {} nodes", depth, budget.getNodes());
+		}
+		budget = null;
+		root.dispose();
+
+		GameAction bestAction = bestLine != null ? ActionUtils.findEquivalent(validActions, bestLine.get(0).action) : null;
+		if (bestAction == null) {
+			// the budget ran out before the first action was searched
+			bestAction = validActions.get(0);
+		} else if (complete) {
+			plan = bestLine;
+		}
+		logger.debug("Selecting best action {} with score {}", bestAction, bestScore);
+		heuristic.onActionSelected(context, player.getId());
+		return bestAction;
+	}
+
+	/**
+	 * Searches the sequences of the player's actions from the given state up
+	 * to the given depth and returns the best score. The best sequence is
+	 * added to line; the given principal variation (which may be null) is
+	 * tried first. Actions equivalent to one in the sleep set are not tried,
+	 * as an earlier sibling of an ancestor already has.
+	 */
+	private double search(GameContext state, int playerId, int depth, List<GameAction> sleep, List<Step> principalVariation,
+			List<Step> line) {
+		List<GameAction> validActions = state.getValidActions();
+		// only actions which are still valid are asleep
+		sleep.removeIf(action -> ActionUtils.findEquivalent(validActions, action) == null);
+		List<Successor> successors = new ArrayList<>();
+		try {
+			for (GameAction action : validActions) {
+				if (ActionUtils.findEquivalent(sleep, action) != null) {
+					continue;
+				}
+				if (!budget.nextNode()) {
+					aborted = true;
+					return Double.NEGATIVE_INFINITY;
+				}
+				GameContext successor = budget.clone(state);
+				successor.getLogic().performGameAction(playerId, action);
+				boolean turnEnded = successor.getActivePlayerId() != playerId || successor.gameDecided();
+				successors.add(new Successor(action, successor, heuristic.getScore(successor, playerId), turnEnded));
+			}
+			GameAction principalAction = principalVariation != null && !principalVariation.isEmpty() ? principalVariation.get(0).action : null;
+			successors.sort((first, second) -> {
+				boolean firstPrincipal = isEquivalent(first.action, principalAction);
+				boolean secondPrincipal = isEquivalent(second.action, principalAction);
+				if (firstPrincipal != secondPrincipal) {
+					return firstPrincipal ? -1 : 1;
+				}
+				return Double.compare(second.score, first.score);
+			});
+
+			boolean quiet = depth > 1 && isQuiet(state);
+			List<GameAction> tried = new ArrayList<>();
+			double bestScore = Double.NEGATIVE_INFINITY;
+			for (Successor successor : successors) {
+				double score;
+				List<Step> successorLine = new ArrayList<>();
+				if (successor.turnEnded) {
+					score = successor.score;
+				} else if (depth <= 1) {
+					depthLimited = true;
+					score = successor.score;
+				} else if (table.known(successor.state, depth - 1)) {
+					score = table.getScore(successor.state);
+				} else {
+					List<GameAction> successorSleep = new ArrayList<>();
+					if (quiet) {
+						for (GameAction action : sleep) {
+							if (isIndependent(state, action, successor.action)) {
+								successorSleep.add(action);
+							}
+						}
+						for (GameAction action : tried) {
+							if (isIndependent(state, action, successor.action)) {
+								successorSleep.add(action);
+							}
+						}
+					}
+					List<Step> successorVariation = null;
+					if (isEquivalent(successor.action, principalAction)) {
+						successorVariation = principalVariation.subList(1, principalVariation.size());
+					}
+					score = search(successor.state, playerId, depth - 1, successorSleep, successorVariation, successorLine);
+					if (aborted) {
+						break;
+					}
+					// a score searched with a sleep set may miss plans, which
+					// other paths to the same state would not find again
+					if (successorSleep.isEmpty()) {
+						table.save(successor.state, depth - 1, score);
+					}
+				}
+				if (score > bestScore) {
+					bestScore = score;
+					line.clear();
+					line.add(new Step(successor.action, successor.state.stateHash()));
+					line.addAll(successorLine);
+				}
+				tried.add(successor.action);
+				if (bestScore >= WINNING_SCORE) {
+					break;
+				}
+			}
+			return bestScore;
+		} finally {
+			// the states are not needed once the search below them is done
+			for (Successor successor : successors) {
+				successor.state.dispose();
+			}
+		}
+	}
+
+}
@@ -1,18 +1,34 @@
 package net.demilich.metastone.game.behaviour.learning;
 
-import java.util.Arrays;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
-import net.demilich.metastone.game.behaviour.neutralnetwork.HiddenUnit;
 import net.demilich.metastone.game.behaviour.neutralnetwork.NeuralNetwork;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.utils.MathUtils;
 
+/**
+ * Value network of the learning behaviour, trained by TD(lambda). A brain may
+ * be shared by the games of a parallel self-play run. Readers score states
+ * with the latest published snapshot of the weights, which is never changed
+ * and so is read without locks. Learners update the working weights in place
+ * without any locking, Hogwild style: concurrent updates may overwrite each
+ * other now and then, which costs little when updates are small and sparse
+ * compared to the cost of locking. Every few updates, the learner which
+ * makes the update copies the working weights into a new snapshot.
+ * Eligibility traces belong to a game and player, see {@link
+ * #createTraces()}.
+ * <p>
+ * Besides learning online, a brain can be trained offline by replaying
+ * experiences recorded in an {@link ExperienceStore}.
+ */
 public class Brain implements IBrain {
 
 	private static Logger logger = LoggerFactory.getLogger(Brain.class);
@@ -24,46 +40,53 @@ public class Brain implements IBrain {
 	private static final double ALPHA = 0.1;
 	private static final double BETA = 0.1;
 	private static final double LAMBDA = 0.5;
+	// learning rates of the hidden and the output layer
+	private static final double[] LEARNING_RATES = { ALPHA, BETA };
+	// updates between two published snapshots unless set otherwise
+	private static final int PUBLISH_INTERVAL = 16;
 
-	private boolean learning;
-	private NeuralNetwork neuralNetwork;
-	private double[][] ew;
-	private double[][][] ev;
+	private volatile boolean learning;
+	// the working weights, updated by the learners
+	private volatile NeuralNetwork neuralNetwork;
+	// the latest published weights, used by the readers
+	private volatile NeuralNetwork snapshot;
+	private final int publishInterval;
+	private final AtomicLong updates = new AtomicLong();
+	private final AtomicLong version = new AtomicLong();
 
 	public Brain() {
+		this(PUBLISH_INTERVAL);
+	}
+
+	/**
+	 * @param publishInterval
+	 *            number of updates after which the weights are published to
+	 *            the readers
+	 */
+	public Brain(int publishInterval) {
+		this.publishInterval = Math.max(1, publishInterval);
 		neuralNetwork = new NeuralNetwork(INPUTS, new int[] { HIDDEN_NEURONS, OUTPUTS });
-		ew = new double[HIDDEN_NEURONS][OUTPUTS];
-		ev = new double[INPUTS][HIDDEN_NEURONS][OUTPUTS];
-	}
-
-	private void backPropagation(double[] in, double[] out, double[] expected) {
-		// compute eligability traces
-		for (int j = 0; j < neuralNetwork.hidden[0].length; j++) {
-			for (int k = 0; k < out.length; k++) {
-				ew[j][k] = LAMBDA * ew[j][k] + gradient(neuralNetwork.hidden[1][k]) * neuralNetwork.hidden[0][j].getValue();
-				for (int i = 0; i < in.length; i++) {
-					ev[i][j][k] = LAMBDA * ev[i][j][k] + gradient(neuralNetwork.hidden[1][k]) * neuralNetwork.hidden[1][k].weights[j]
-							* gradient(neuralNetwork.hidden[0][j]) * in[i];
-				}
-			}
-		}
+		snapshot = new NeuralNetwork(neuralNetwork);
+	}
 
+	private void backPropagation(double[] in, double[] expected, double[][] traces, double lambda) {
+		NeuralNetwork neuralNetwork = this.neuralNetwork;
+		double[] out = neuralNetwork.updateTraces(in, traces, lambda);
 		double[] error = new double[out.length];
 		for (int k = 0; k < out.length; k++) {
 			error[k] = expected[k] - out[k];
 		}
-
-		for (int j = 0; j < neuralNetwork.hidden[0].length; j++) {
-			for (int k = 0; k < out.length; k++) {
-				// weight from j to k, shown with learning param of BETA
-				neuralNetwork.hidden[1][k].weights[j] += BETA * error[k] * ew[j][k];
-				for (int i = 0; i < in.length; i++) {
-					neuralNetwork.hidden[0][j].weights[i] += ALPHA * error[k] * ev[i][j][k];
-				}
-			}
+		neuralNetwork.applyTraces(traces, error, LEARNING_RATES);
+		if (updates.incrementAndGet() % publishInterval == 0) {
+			publish();
 		}
 	}
 
+	@Override
+	public double[][] createTraces() {
+		return neuralNetwork.createTraces();
+	}
+
 	private void encodePlayer(Player player, double[] data, int offset) {
 		List<Minion> minions = player.getMinions();
 		int totalMinionAttack = 0;
@@ -82,14 +105,19 @@ public class Brain implements IBrain {
 		data[offset++] = MathUtils.clamp01(player.getDeck().getCount() / 30.0);
 	}
 
-	private double[] gameStateToInput(GameContext context, int playerId) {
+	@Override
+	public double[] gameStateToInput(GameContext context, int playerId) {
 		double[] input = new double[INPUTS];
+		gameStateToInput(context, playerId, input, 0);
+		return input;
+	}
+
+	private void gameStateToInput(GameContext context, int playerId, double[] data, int offset) {
 		Player player = context.getPlayer(playerId);
 		Player opponent = context.getOpponent(player);
-		encodePlayer(player, input, 0);
-		encodePlayer(opponent, input, INPUTS / 2);
-		input[INPUTS - 1] = MathUtils.clamp01(context.getTurn() / 10.0);
-		return input;
+		encodePlayer(player, data, offset);
+		encodePlayer(opponent, data, offset + INPUTS / 2);
+		data[offset + INPUTS - 1] = MathUtils.clamp01(context.getTurn() / 10.0);
 	}
 
 	@Override
@@ -97,14 +125,46 @@ public class Brain implements IBrain {
 		return output[0];
 	}
 
+	/**
+	 * Returns the size of the encoded states, as stored in an {@link
+	 * ExperienceStore}.
+	 */
+	public int getInputCount() {
+		return INPUTS;
+	}
+
 	@Override
 	public double[] getOutput(GameContext context, int playerId) {
 		double[] input = gameStateToInput(context, playerId);
-		return neuralNetwork.getValue(input);
+		return snapshot.getValue(input);
+	}
+
+	@Override
+	public double[][] getOutputs(List<GameContext> contexts, int playerId) {
+		double[] inputs = new double[contexts.size() * INPUTS];
+		for (int n = 0; n < contexts.size(); n++) {
+			gameStateToInput(contexts.get(n), playerId, inputs, n * INPUTS);
+		}
+		double[] values = snapshot.getValues(inputs, contexts.size());
+		double[][] outputs = new double[contexts.size()][OUTPUTS];
+		for (int n = 0; n < contexts.size(); n++) {
+			System.arraycopy(values, n * OUTPUTS, outputs[n], 0, OUTPUTS);
+		}
+		return outputs;
+	}
+
+	/**
+	 * Returns the number of updates made so far by all learners.
+	 */
+	public long getUpdates() {
+		return updates.get();
 	}
 
-	private double gradient(HiddenUnit hiddenUnit) {
-		return hiddenUnit.getValue() * (1.0 - hiddenUnit.getValue());
+	/**
+	 * Returns the number of snapshots published so far.
+	 */
+	public long getVersion() {
+		return version.get();
 	}
 
 	@Override
@@ -113,53 +173,93 @@ public class Brain implements IBrain {
 	}
 
 	@Override
-	public void learn(GameContext originalState, int playerId, double[] nextOutput, double reward) {
+	public void learn(GameContext originalState, int playerId, double[] nextOutput, double reward, double[][] traces) {
 		double[] currentInput = gameStateToInput(originalState, playerId);
-		double[] currentOutput = getOutput(originalState, playerId);
 		for (int i = 0; i < nextOutput.length; i++) {
 			nextOutput[i] += reward;
 		}
-		backPropagation(currentInput, currentOutput, nextOutput);
+		backPropagation(currentInput, nextOutput, traces, LAMBDA);
 	}
 
+	@Override
 	public void load(String path) {
-		// try {
-		// neuralNetwork = NeuralNetwork.readFrom(path);
-		// logger.info("Saved brain data loaded");
-		// } catch (ClassNotFoundException e) {
-		// e.printStackTrace();
-		// } catch (IOException e) {
-		// logger.info("Brain data not found, using unlearned neural network");
-		// }
-
-	}
-
-	private void printWeights() {
-		for (int i = 0; i < neuralNetwork.hidden.length; i++) {
-			for (int j = 0; j < neuralNetwork.hidden[i].length; j++) {
-				for (int k = 0; k < neuralNetwork.hidden[i][j].weights.length; k++) {
-					System.out.println(Arrays.toString(neuralNetwork.hidden[i][j].weights));
+		if (!new File(path).exists()) {
+			logger.info("Brain data not found, using unlearned neural network");
+			return;
+		}
+		try {
+			NeuralNetwork loaded = NeuralNetwork.readFrom(path);
+			if (loaded.getInputCount() != INPUTS || loaded.getOutputCount() != OUTPUTS) {
+				logger.warn("Brain data in {} does not fit this network, using unlearned neural network", path);
+				return;
+			}
+			neuralNetwork = loaded;
+			publish();
+			logger.info("Saved brain data loaded");
+		} catch (ClassNotFoundException | IOException e) {
+			logger.warn("Brain data in {} cannot be read, using unlearned neural network: {}", path, e.toString());
+		}
+	}
+
+	/**
+	 * Publishes the current working weights to the readers.
+	 */
+	public void publish() {
+		snapshot = new NeuralNetwork(neuralNetwork);
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Trains on a minibatch of recorded experiences by TD(0): the value of
+	 * each state is moved towards the reward plus the value of the next state
+	 * under the published weights, or towards the reward alone at the end of
+	 * a game. The next states are scored in one batch.
+	 */
+	public void replay(List<Experience> minibatch) {
+		int nonTerminal = 0;
+		for (Experience experience : minibatch) {
+			if (!experience.isTerminal()) {
+				nonTerminal++;
+			}
+		}
+		double[] nextInputs = new double[nonTerminal * INPUTS];
+		int n = 0;
+		for (Experience experience : minibatch) {
+			if (!experience.isTerminal()) {
+				System.arraycopy(experience.getNextState(), 0, nextInputs, n++ * INPUTS, INPUTS);
+			}
+		}
+		double[] nextValues = snapshot.getValues(nextInputs, nonTerminal);
+		double[][] traces = createTraces();
+		n = 0;
+		for (Experience experience : minibatch) {
+			double[] expected = new double[OUTPUTS];
+			for (int k = 0; k < OUTPUTS; k++) {
+				expected[k] = experience.getReward();
+				if (!experience.isTerminal()) {
+					expected[k] += nextValues[n * OUTPUTS + k];
 				}
 			}
+			if (!experience.isTerminal()) {
+				n++;
+			}
+			// without decay, the traces are the gradients of this state alone
+			backPropagation(experience.getState(), expected, traces, 0);
 		}
 	}
 
+	@Override
 	public void save(String path) {
-
-		// try {
-		// neuralNetwork.writeTo(path);
-		// logger.info("Brain data saved to: " + path);
-		// } catch (IOException e) {
-		// }
+		try {
+			neuralNetwork.writeTo(path);
+			logger.info("Brain data saved to: " + path);
+		} catch (IOException e) {
+			logger.error("Brain data could not be saved to: " + path, e);
+		}
 	}
 
 	@Override
 	public void setLearning(boolean learning) {
 		this.learning = learning;
 	}
-
-	public void wipeEligabilityTraces() {
-		ew = new double[HIDDEN_NEURONS][OUTPUTS];
-		ev = new double[INPUTS][HIDDEN_NEURONS][OUTPUTS];
-	}
 }
@@ -0,0 +1,47 @@
+package net.demilich.metastone.game.behaviour.learning;
+
+/**
+ * One transition seen by a learning player: the encoded state at one of its
+ * decisions, the encoded state at its next decision (none if the game ended
+ * in between), the reward received in between and the outcome of the whole
+ * game for the player (1 for a win, -1 otherwise).
+ */
+public class Experience {
+
+	private final double[] state;
+	private final double[] nextState;
+	private final double reward;
+	private final double outcome;
+
+	public Experience(double[] state, double[] nextState, double reward, double outcome) {
+		this.state = state;
+		this.nextState = nextState;
+		this.reward = reward;
+		this.outcome = outcome;
+	}
+
+	/**
+	 * Returns the encoded state at the next decision, or null if the game
+	 * ended after this state.
+	 */
+	public double[] getNextState() {
+		return nextState;
+	}
+
+	public double getOutcome() {
+		return outcome;
+	}
+
+	public double getReward() {
+		return reward;
+	}
+
+	public double[] getState() {
+		return state;
+	}
+
+	public boolean isTerminal() {
+		return nextState == null;
+	}
+
+}
@@ -0,0 +1,284 @@
+package net.demilich.metastone.game.behaviour.learning;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only store of experiences on disk, from which minibatches can be
+ * sampled for training, e.g. to replay the games of a long self-play run in
+ * later experiments. The store is a directory of segment files of equal
+ * capacity, each memory-mapped as a whole. A segment starts with a header
+ * giving the format, the size of the encoded states, the capacity and the
+ * number of experiences written so far, followed by fixed-size records:
+ *
+ * <pre>
+ * int flags (1 if the game ended after the state)
+ * float reward
+ * float outcome
+ * float[inputs] state
+ * float[inputs] next state (zeros if the game ended)
+ * </pre>
+ *
+ * All values are big-endian. States are stored as floats, which is plenty
+ * for inputs scaled to [0, 1] and halves the size of the store.
+ * <p>
+ * Appending is synchronized; reading and sampling may happen at the same
+ * time from any thread and see all experiences appended before
+ * {@link #size()} was read.
+ */
+public class ExperienceStore implements Closeable {
+
+	private static class Segment {
+
+		private final RandomAccessFile file;
+		private final MappedByteBuffer buffer;
+		private int count;
+
+		private Segment(RandomAccessFile file, MappedByteBuffer buffer, int count) {
+			this.file = file;
+			this.buffer = buffer;
+			this.count = count;
+		}
+
+	}
+
+	private static Logger logger = LoggerFactory.getLogger(ExperienceStore.class);
+
+	public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 16;
+
+	private static final int MAGIC = 0x4D534558;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int COUNT_OFFSET = 16;
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".bin";
+
+	private static final int TERMINAL = 1;
+
+	private final File directory;
+	private final int inputs;
+	private final int segmentCapacity;
+	private final int recordSize;
+	private final List<Segment> segments = new CopyOnWriteArrayList<>();
+	private volatile long size;
+
+	/**
+	 * Opens the store in the given directory with the default segment
+	 * capacity, creating the directory if needed.
+	 */
+	public ExperienceStore(File directory, int inputs) throws IOException {
+		this(directory, inputs, DEFAULT_SEGMENT_CAPACITY);
+	}
+
+	/**
+	 * Opens the store in the given directory, creating the directory if
+	 * needed. Existing segments are kept, and new experiences are appended
+	 * after them.
+	 *
+	 * @param inputs
+	 *            the size of the encoded states
+	 * @param segmentCapacity
+	 *            the number of experiences per segment file
+	 * @throws IOException
+	 *             if the directory holds segments of another format, state
+	 *             size or capacity
+	 */
+	public ExperienceStore(File directory, int inputs, int segmentCapacity) throws IOException {
+		this.directory = directory;
+		this.inputs = inputs;
+		this.segmentCapacity = segmentCapacity;
+		this.recordSize = 12 + 8 * inputs;
+		if (inputs <= 0 || segmentCapacity <= 0 || HEADER_SIZE + (long) segmentCapacity * recordSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid experience store layout: " + inputs + " inputs, " + segmentCapacity
+					+ " experiences per segment");
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create experience store directory " + directory);
+		}
+		openSegments();
+	}
+
+	/**
+	 * Appends an experience to the store.
+	 */
+	public synchronized void append(Experience experience) {
+		if (experience.getState().length != inputs || (!experience.isTerminal() && experience.getNextState().length != inputs)) {
+			throw new IllegalArgumentException("Experience does not have " + inputs + " inputs");
+		}
+		Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (segment == null || segment.count == segmentCapacity) {
+			try {
+				segment = createSegment(segments.size());
+			} catch (IOException e) {
+				throw new RuntimeException("Cannot create experience store segment", e);
+			}
+			segments.add(segment);
+		}
+		MappedByteBuffer buffer = segment.buffer;
+		int offset = HEADER_SIZE + segment.count * recordSize;
+		buffer.putInt(offset, experience.isTerminal() ? TERMINAL : 0);
+		buffer.putFloat(offset + 4, (float) experience.getReward());
+		buffer.putFloat(offset + 8, (float) experience.getOutcome());
+		offset += 12;
+		for (int i = 0; i < inputs; i++) {
+			buffer.putFloat(offset + 4 * i, (float) experience.getState()[i]);
+		}
+		offset += 4 * inputs;
+		for (int i = 0; i < inputs; i++) {
+			buffer.putFloat(offset + 4 * i, experience.isTerminal() ? 0 : (float) experience.getNextState()[i]);
+		}
+		segment.count++;
+		buffer.putInt(COUNT_OFFSET, segment.count);
+		size++;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		for (Segment segment : segments) {
+			segment.buffer.force();
+			segment.file.close();
+		}
+		segments.clear();
+		size = 0;
+	}
+
+	private Segment createSegment(int index) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(getSegmentFile(index), "rw");
+		MappedByteBuffer buffer;
+		try {
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) segmentCapacity * recordSize);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, FORMAT_VERSION);
+		buffer.putInt(8, inputs);
+		buffer.putInt(12, segmentCapacity);
+		buffer.putInt(COUNT_OFFSET, 0);
+		return new Segment(file, buffer, 0);
+	}
+
+	/**
+	 * Writes all appended experiences through to the segment files.
+	 */
+	public synchronized void flush() {
+		for (Segment segment : segments) {
+			segment.buffer.force();
+		}
+	}
+
+	/**
+	 * Returns the experience with the given index, in the order in which the
+	 * experiences were appended.
+	 */
+	public Experience get(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Experience " + index + " of " + size);
+		}
+		MappedByteBuffer buffer = segments.get((int) (index / segmentCapacity)).buffer;
+		int offset = HEADER_SIZE + (int) (index % segmentCapacity) * recordSize;
+		boolean terminal = (buffer.getInt(offset) & TERMINAL) != 0;
+		double reward = buffer.getFloat(offset + 4);
+		double outcome = buffer.getFloat(offset + 8);
+		offset += 12;
+		double[] state = new double[inputs];
+		for (int i = 0; i < inputs; i++) {
+			state[i] = buffer.getFloat(offset + 4 * i);
+		}
+		double[] nextState = null;
+		if (!terminal) {
+			offset += 4 * inputs;
+			nextState = new double[inputs];
+			for (int i = 0; i < inputs; i++) {
+				nextState[i] = buffer.getFloat(offset + 4 * i);
+			}
+		}
+		return new Experience(state, nextState, reward, outcome);
+	}
+
+	public int getInputs() {
+		return inputs;
+	}
+
+	private File getSegmentFile(int index) {
+		return new File(directory, String.format("%s%05d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+	}
+
+	private void openSegments() throws IOException {
+		File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+		if (files == null) {
+			throw new IOException("Cannot list experience store directory " + directory);
+		}
+		Arrays.sort(files);
+		long experiences = 0;
+		for (int index = 0; index < files.length; index++) {
+			if (!files[index].equals(getSegmentFile(index))) {
+				throw new IOException("Experience store segment " + getSegmentFile(index) + " is missing");
+			}
+			RandomAccessFile file = new RandomAccessFile(files[index], "rw");
+			try {
+				if (file.length() != HEADER_SIZE + (long) segmentCapacity * recordSize) {
+					throw new IOException("Experience store segment " + files[index] + " does not match the layout of the store");
+				}
+				MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+				int count = buffer.getInt(COUNT_OFFSET);
+				if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != inputs
+						|| buffer.getInt(12) != segmentCapacity || count < 0 || count > segmentCapacity) {
+					throw new IOException("Experience store segment " + files[index] + " does not match the layout of the store");
+				}
+				// only the last segment may be partly filled
+				if (!segments.isEmpty() && segments.get(segments.size() - 1).count < segmentCapacity) {
+					throw new IOException("Experience store segment " + files[index - 1] + " is incomplete");
+				}
+				segments.add(new Segment(file, buffer, count));
+				experiences += count;
+			} catch (IOException e) {
+				file.close();
+				close();
+				throw e;
+			}
+		}
+		size = experiences;
+		if (experiences > 0) {
+			logger.info("Opened experience store {} with {} experiences", directory, experiences);
+		}
+	}
+
+	/**
+	 * Draws the given number of experiences uniformly at random, with
+	 * replacement. Returns an empty list if the store is empty.
+	 */
+	public List<Experience> sample(int count, Random random) {
+		long available = size;
+		List<Experience> minibatch = new ArrayList<>(count);
+		if (available == 0) {
+			return minibatch;
+		}
+		for (int i = 0; i < count; i++) {
+			long index = (long) (random.nextDouble() * available);
+			minibatch.add(get(Math.min(index, available - 1)));
+		}
+		return minibatch;
+	}
+
+	/**
+	 * Returns the number of experiences in the store.
+	 */
+	public long size() {
+		return size;
+	}
+
+}
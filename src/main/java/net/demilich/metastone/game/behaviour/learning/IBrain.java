@@ -1,16 +1,36 @@
 package net.demilich.metastone.game.behaviour.learning;
 
+import java.util.List;
+
 import net.demilich.metastone.game.GameContext;
 
 public interface IBrain {
 
+	/**
+	 * Returns empty eligibility traces for the learning steps of one player
+	 * in one game.
+	 */
+	public abstract double[][] createTraces();
+
+	/**
+	 * Encodes the given state from the point of view of the given player as
+	 * the input of the brain.
+	 */
+	public abstract double[] gameStateToInput(GameContext context, int playerId);
+
 	public abstract double getEstimatedUtility(double[] output);
 
 	public abstract double[] getOutput(GameContext context, int playerId);
 
+	/**
+	 * Returns the outputs for several states at once, in the order of the
+	 * given states.
+	 */
+	public abstract double[][] getOutputs(List<GameContext> contexts, int playerId);
+
 	public abstract boolean isLearning();
 
-	public abstract void learn(GameContext originalState, int playerId, double[] nextOutput, double reward);
+	public abstract void learn(GameContext originalState, int playerId, double[] nextOutput, double reward, double[][] traces);
 
 	public abstract void load(String savePath);
 
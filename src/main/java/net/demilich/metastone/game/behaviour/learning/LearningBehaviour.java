@@ -17,20 +17,66 @@ public class LearningBehaviour extends Behaviour {
 
 	private static Logger logger = LoggerFactory.getLogger(LearningBehaviour.class);
 
-	private static final String SAVE_PATH = "brain.ser";
+	// where the shared brain is loaded from and saved to
+	static final String SAVE_PATH = "brain.ser";
 
-	private static final IBrain brain = new Brain();
+	/**
+	 * Holds the brain shared by the behaviours created without one, which is
+	 * loaded from the saved brain data when the first of them is created.
+	 */
+	private static class SharedBrain {
+
+		private static final IBrain brain = load();
+
+		private static IBrain load() {
+			IBrain brain = new Brain();
+			brain.load(SAVE_PATH);
+			return brain;
+		}
+
+	}
+
+	private final IBrain brain;
+	// eligibility traces of the game being played, created by the first
+	// learning step
+	private double[][] traces;
+	// records the states of the game being played, if set
+	private ExperienceStore experienceStore;
+	private List<double[]> episode = new ArrayList<>();
 
 	public LearningBehaviour(boolean learn) {
-		brain.load(SAVE_PATH);
+		this(SharedBrain.brain);
 		brain.setLearning(learn);
 	}
 
+	/**
+	 * Creates a behaviour playing with the given brain, which may be shared
+	 * with behaviours playing in other games at the same time.
+	 */
+	public LearningBehaviour(IBrain brain) {
+		this.brain = brain;
+	}
+
+	@Override
+	public LearningBehaviour clone() {
+		LearningBehaviour clone = (LearningBehaviour) super.clone();
+		clone.traces = null;
+		clone.episode = new ArrayList<>();
+		return clone;
+	}
+
 	@Override
 	public String getName() {
 		return "Learning";
 	}
 
+	private void learn(GameContext context, int playerId, double[] nextOutput, double reward) {
+		if (traces == null) {
+			traces = brain.createTraces();
+		}
+		brain.learn(context, playerId, nextOutput, reward, traces);
+	}
+
 	@Override
 	public List<Card> mulligan(GameContext context, Player player, List<Card> cards) {
 		List<Card> discardedCards = new ArrayList<Card>();
@@ -44,6 +90,9 @@ public class LearningBehaviour extends Behaviour {
 
 	@Override
 	public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
+		if (experienceStore != null && !episode.isEmpty()) {
+			recordEpisode(playerId == winningPlayerId ? 1.0 : -1.0);
+		}
 		if (!brain.isLearning()) {
 			return;
 		}
@@ -56,7 +105,21 @@ public class LearningBehaviour extends Behaviour {
 			actual[0] = reward = -1.0;
 		}
 
-		brain.learn(context, playerId, actual, reward);
+		learn(context, playerId, actual, reward);
+		traces = null;
+	}
+
+	/**
+	 * Appends the transitions between the decisions of the game just played
+	 * to the experience store, the last one rewarded with the outcome.
+	 */
+	private void recordEpisode(double outcome) {
+		for (int i = 0; i < episode.size(); i++) {
+			boolean last = i == episode.size() - 1;
+			double[] nextState = last ? null : episode.get(i + 1);
+			experienceStore.append(new Experience(episode.get(i), nextState, last ? outcome : 0, outcome));
+		}
+		episode.clear();
 	}
 
 	@Override
@@ -64,30 +127,40 @@ public class LearningBehaviour extends Behaviour {
 
 		// for now, do not evaluate battecry actions
 		if (validActions.get(0).getActionType() == ActionType.BATTLECRY) {
-			return validActions.get(context.getLogic().random(validActions.size()));
+			return validActions.get(context.getRandom().nextInt(validActions.size()));
+		}
+
+		if (experienceStore != null) {
+			episode.add(brain.gameStateToInput(context, player.getId()));
 		}
 
 		GameAction bestAction = null;
 		double expectedUtility = -2.0;
 		double[] nextOutput = null;
 
+		// the successor states of all actions are scored in one batch
+		List<GameContext> simulations = new ArrayList<>(validActions.size());
 		for (GameAction gameAction : validActions) {
 			GameContext simulation = context.clone();
 			simulation.getLogic().performGameAction(player.getId(), gameAction);
-			double[] output = brain.getOutput(simulation, player.getId());
-			double utility = brain.getEstimatedUtility(output);
+			simulations.add(simulation);
+		}
+		double[][] outputs = brain.getOutputs(simulations, player.getId());
+		for (int i = 0; i < validActions.size(); i++) {
+			double utility = brain.getEstimatedUtility(outputs[i]);
 
 			if (utility > expectedUtility) {
-				bestAction = gameAction;
+				bestAction = validActions.get(i);
 				expectedUtility = utility;
-				nextOutput = output;
+				nextOutput = outputs[i];
 				// logger.info("Action {} received utility of {}", gameAction,
 				// utility);
 			}
+			simulations.get(i).dispose();
 		}
 
 		if (brain.isLearning()) {
-			brain.learn(context, player.getId(), nextOutput, 0);
+			learn(context, player.getId(), nextOutput, 0);
 		}
 
 		return bestAction;
@@ -97,4 +170,12 @@ public class LearningBehaviour extends Behaviour {
 		brain.save(SAVE_PATH);
 	}
 
+	/**
+	 * Records the states at the decisions of each game played into the given
+	 * store, or stops recording if it is null.
+	 */
+	public void setExperienceStore(ExperienceStore experienceStore) {
+		this.experienceStore = experienceStore;
+	}
+
 }
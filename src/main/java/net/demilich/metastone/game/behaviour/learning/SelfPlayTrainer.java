@@ -0,0 +1,239 @@
+package net.demilich.metastone.game.behaviour.learning;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.SimulationBatch;
+import net.demilich.metastone.game.SimulationEngine;
+import net.demilich.metastone.game.cards.CardProxy;
+import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.game.entities.heroes.MetaHero;
+import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.gui.deckbuilder.DeckProxy;
+import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+
+/**
+ * Trains a brain by self-play on the workers of a simulation engine. Each
+ * worker plays its own games, both players learning into the one shared
+ * brain while reading its published weights (see {@link Brain}).
+ */
+public class SelfPlayTrainer {
+
+	/**
+	 * Games played and updates made by a training run, and how fast.
+	 */
+	public static class Throughput {
+
+		private final int games;
+		private final long updates;
+		private final double seconds;
+
+		private Throughput(int games, long updates, double seconds) {
+			this.games = games;
+			this.updates = updates;
+			this.seconds = seconds;
+		}
+
+		public int getGames() {
+			return games;
+		}
+
+		public double getGamesPerSecond() {
+			return seconds > 0 ? games / seconds : 0;
+		}
+
+		public double getSeconds() {
+			return seconds;
+		}
+
+		public long getUpdates() {
+			return updates;
+		}
+
+		public double getUpdatesPerSecond() {
+			return seconds > 0 ? updates / seconds : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games, %d updates in %.1f s (%.1f games/s, %.0f updates/s)", games, updates, seconds,
+					getGamesPerSecond(), getUpdatesPerSecond());
+		}
+
+	}
+
+	private static Logger logger = LoggerFactory.getLogger(SelfPlayTrainer.class);
+
+	// games between two progress messages
+	private static final int PROGRESS_INTERVAL = 100;
+
+	private static final String DEFAULT_DECK = "Brann Dragon Priest";
+	// experiences per minibatch when replaying a store after training
+	private static final int REPLAY_MINIBATCH_SIZE = 32;
+
+	private final SimulationEngine engine;
+	private final Brain brain;
+	private ExperienceStore experienceStore;
+
+	public SelfPlayTrainer(SimulationEngine engine, Brain brain) {
+		this.engine = engine;
+		this.brain = brain;
+	}
+
+	private Supplier<GameContext> createGameFactory(Deck deck1, Deck deck2) {
+		PlayerConfig player1Config = createPlayerConfig(deck1, "Player 1");
+		PlayerConfig player2Config = createPlayerConfig(deck2, "Player 2");
+		return () -> new GameContext(new Player(player1Config), new Player(player2Config), new GameLogic());
+	}
+
+	private PlayerConfig createPlayerConfig(Deck deck, String name) {
+		LearningBehaviour behaviour = new LearningBehaviour(brain);
+		behaviour.setExperienceStore(experienceStore);
+		PlayerConfig playerConfig = new PlayerConfig(deck, behaviour);
+		playerConfig.setName(name);
+		playerConfig.setHeroCard(MetaHero.getHeroCard(deck.getHeroClass()));
+		return playerConfig;
+	}
+
+	/**
+	 * Trains the brain offline on the given number of minibatches drawn from
+	 * the store (see {@link ExperienceStore#sample(int, Random)}) and
+	 * publishes the final weights. Returns the number of updates made, which
+	 * is zero if the store is empty.
+	 */
+	public long replay(ExperienceStore store, int minibatches, int minibatchSize, Random random) {
+		brain.setLearning(true);
+		long startUpdates = brain.getUpdates();
+		long startTime = System.nanoTime();
+		try {
+			for (int i = 0; i < minibatches && store.size() > 0; i++) {
+				brain.replay(store.sample(minibatchSize, random));
+			}
+		} finally {
+			brain.publish();
+		}
+		long updates = brain.getUpdates() - startUpdates;
+		logger.info("Replay finished: {} updates from {} experiences in {} s", updates, store.size(),
+				String.format("%.1f", (System.nanoTime() - startTime) / 1e9));
+		return updates;
+	}
+
+	/**
+	 * Records the experiences of both players of all games played into the
+	 * given store, so that they can be replayed later (see {@link
+	 * Brain#replay(java.util.List)}), or stops recording if it is null.
+	 */
+	public void setExperienceStore(ExperienceStore experienceStore) {
+		this.experienceStore = experienceStore;
+	}
+
+	/**
+	 * Plays the given number of games between the two decks, both players
+	 * learning, and blocks until they are over. The final weights are
+	 * published when training ends.
+	 */
+	public Throughput train(Deck deck1, Deck deck2, int numberOfGames) {
+		brain.setLearning(true);
+		long startUpdates = brain.getUpdates();
+		long startTime = System.nanoTime();
+		AtomicInteger gamesCompleted = new AtomicInteger();
+		SimulationBatch batch = engine.simulate(createGameFactory(deck1, deck2), numberOfGames, game -> {
+			int games = gamesCompleted.incrementAndGet();
+			if (games % PROGRESS_INTERVAL == 0) {
+				logger.info("Self-play: {} of {} games, {} updates, weights version {}", games, numberOfGames,
+						brain.getUpdates() - startUpdates, brain.getVersion());
+			}
+		});
+		try {
+			batch.await();
+		} finally {
+			brain.publish();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		Throughput throughput = new Throughput(batch.getGamesCompleted(), brain.getUpdates() - startUpdates, seconds);
+		logger.info("Self-play finished: {}", throughput);
+		return throughput;
+	}
+
+	/**
+	 * Trains the brain that {@link LearningBehaviour} loads by self-play and
+	 * saves it again; the decks are looked up by name in the decks folder.
+	 * If an experience store directory is given, the games are recorded into
+	 * it and the whole store is replayed once after training.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args[0].equals("help") || args[0].equals("-h") || args[0].equals("--help")) {
+			usage();
+			return;
+		}
+		int numberOfGames;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			numberOfGames = Integer.parseInt(args[0]);
+			if (args.length >= 2) {
+				threads = Integer.parseInt(args[1]);
+			}
+		} catch (NumberFormatException e) {
+			usage();
+			return;
+		}
+		if (numberOfGames < 1 || threads < 1) {
+			usage();
+			return;
+		}
+		String deck1Name = args.length >= 3 ? args[2] : DEFAULT_DECK;
+		String deck2Name = args.length >= 4 ? args[3] : deck1Name;
+		File experienceDirectory = args.length >= 5 ? new File(args[4]) : null;
+
+		ch.qos.logback.classic.Logger root = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		root.setLevel(Level.INFO);
+		new CardProxy();
+		DeckProxy deckProxy = new DeckProxy();
+		deckProxy.loadDecks();
+		Deck deck1 = deckProxy.getDeckByName(deck1Name);
+		Deck deck2 = deckProxy.getDeckByName(deck2Name);
+		if (deck1 == null || deck2 == null) {
+			logger.error("Deck not found: {}", deck1 == null ? deck1Name : deck2Name);
+			return;
+		}
+
+		Brain brain = new Brain();
+		brain.load(LearningBehaviour.SAVE_PATH);
+		SimulationEngine engine = new SimulationEngine(threads);
+		SelfPlayTrainer trainer = new SelfPlayTrainer(engine, brain);
+		ExperienceStore store = null;
+		try {
+			if (experienceDirectory != null) {
+				store = new ExperienceStore(experienceDirectory, brain.getInputCount());
+				trainer.setExperienceStore(store);
+			}
+			trainer.train(deck1, deck2, numberOfGames);
+			if (store != null) {
+				int minibatches = (int) Math.min(Integer.MAX_VALUE, store.size() / REPLAY_MINIBATCH_SIZE);
+				trainer.replay(store, minibatches, REPLAY_MINIBATCH_SIZE, new Random());
+			}
+		} finally {
+			engine.shutdown();
+			if (store != null) {
+				store.close();
+			}
+		}
+		brain.save(LearningBehaviour.SAVE_PATH);
+	}
+
+	private static void usage() {
+		System.out.println("Usage: SelfPlayTrainer numberOfGames [threads] [deck1] [deck2] [experiences]");
+		System.out.println("  trains " + LearningBehaviour.SAVE_PATH + " by self-play between two decks (default " + DEFAULT_DECK + ")");
+		System.out.println("  experiences: directory to record the games into, replayed once after training");
+	}
+
+}
@@ -5,12 +5,17 @@ import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.TurnState;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.behaviour.Behaviour;
-import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.behaviour.IBehaviour;
+import net.demilich.metastone.game.behaviour.LethalSolver;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
 import net.demilich.metastone.game.cards.Card;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -22,17 +27,55 @@ public class HearthAgent extends Behaviour {
 
     private static final int ITERATIONS = 500;
     private final int iterations;
+    private final int threads;
+    private final Parallelization parallelization;
+    // the subtrees below the last selected action, one per tree, reused by the next decision if it starts from the
+    // state they were grown from
+    private List<Node> retainedNodes;
+    // the visits the last decision took over from the previous one
+    private int reusedVisits;
+    private StateCache stateCache = new StateCache(StateCache.DEFAULT_CAPACITY, HearthAgent::playAction);
 
     public HearthAgent() {
-        this.iterations = ITERATIONS;
+        this(ITERATIONS);
     }
 
     public HearthAgent(int iterations) {
+        this(iterations, 1, Parallelization.TREE);
+    }
+
+    /**
+     * @param iterations number of iterations per decision, shared by all threads, unless a search budget is set
+     * @param threads number of search threads
+     * @param parallelization whether the threads grow a shared tree or one tree each
+     */
+    public HearthAgent(int iterations, int threads, Parallelization parallelization) {
         this.iterations = iterations;
+        this.threads = Math.max(1, threads);
+        this.parallelization = parallelization;
+    }
+
+    @Override
+    public IBehaviour clone() {
+        HearthAgent clone = (HearthAgent) super.clone();
+        clone.retainedNodes = null;
+        clone.stateCache = new StateCache(StateCache.DEFAULT_CAPACITY, HearthAgent::playAction);
+        return clone;
+    }
+
+    /**
+     * Returns the number of visits of the trees the last searched decision reused from the decision before, 0 if it
+     * started from scratch.
+     */
+    public int getReusedVisits() {
+        return reusedVisits;
     }
 
     @Override
     public String getName() {
+        if (threads > 1) {
+            return "HearthAgent (" + threads + " threads, " + parallelization.toString().toLowerCase() + ")";
+        }
         return "HearthAgent";
     }
 
@@ -42,84 +85,144 @@ public class HearthAgent extends Behaviour {
         return cards.stream().filter(card -> card.getBaseManaCost() >= 4).collect(Collectors.toList());
     }
 
+    @Override
+    public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
+        retainedNodes = null;
+        stateCache.clear();
+    }
+
     @Override
     public GameAction requestAction(GameContext context, Player player, List<GameAction> validActions) {
         logger.debug("Requesting action for player {} and turn {}", player, context.getTurn());
         if (validActions.size() == 1) {
             logger.debug("valid actions size is 1, returning action {}", validActions.get(0));
+            if (retainedNodes != null) {
+                retainNodes(retainedNodes, validActions.get(0));
+            }
             return validActions.get(0);
-        } else {
-            logger.debug("Entering UCT...");
-            return this.UCT(context, iterations, validActions);
         }
+        GameAction lethalAction = LethalSolver.findLethalAction(context, player, validActions);
+        if (lethalAction != null) {
+            logger.debug("Selecting lethal action {}", lethalAction);
+            retainedNodes = null;
+            return lethalAction;
+        }
+        logger.debug("Entering UCT...");
+        return this.UCT(context, iterations, validActions);
     }
 
     private GameAction UCT(GameContext rootstate, int itermax, List<GameAction> validActions) {
-        Node rootNode = new Node(rootstate, validActions);
-        Node node;
-        GameContext state;
-        GameAction action;
-        //GameAction random_action;
-        int winning, result;
-
+        SearchBudget.Tracker budget = (getSearchBudget() != null ? getSearchBudget() : SearchBudget.nodes(itermax)).start();
+        List<Node> rootNodes = new ArrayList<>();
+        int trees = parallelization == Parallelization.ROOT ? threads : 1;
+        boolean reused = false;
+        reusedVisits = 0;
+        for (int i = 0; i < trees; i++) {
+            Node retained = retainedNodes != null ? retainedNodes.get(i) : null;
+            if (retained != null && retained.isGrownFrom(rootstate, validActions, stateCache, budget)) {
+                logger.debug("Reusing tree with {} visits", retained.getVisits());
+                reusedVisits += retained.getVisits();
+                retained.detach(stateCache, budget);
+                rootNodes.add(retained);
+                reused = true;
+            } else {
+                rootNodes.add(null);
+            }
+        }
+        // the states cached for an earlier tree will not be needed again
+        if (!reused) {
+            stateCache.clear();
+        }
+        for (int i = 0; i < trees; i++) {
+            if (rootNodes.get(i) == null) {
+                rootNodes.set(i, new Node(stateCache.createRootState(rootstate, budget), validActions));
+            }
+        }
 
         logger.debug("Starting iterations... for rootstate {} and turn {} and mana {}",
                 rootstate.hashCode(), rootstate.getTurn(), rootstate.getActivePlayer().getMana(), rootstate);
-        for (int i=0; i < itermax; i++) {
-            logger.debug("Iteration {}", i);
-            node = rootNode;
-            state = rootstate.clone();
-
-            // Select
-            while (node.isFullyExpanded() && !node.isTerminal()) {
-                node = node.UTCSelectChild();
-                logger.debug("Selected node with action {} and parent action {} and parent == rootNode {}",
-                        node.getAction(), node.getParent().getAction(), node.getParent() == rootNode);
-                // get state from node, else we might end up with different cards in hand due to random draw after end turn
-                state = node.getState();
-                logger.debug("Selected state is now \n {}", state);
-                //playAction(state, node.getAction());
+        ParallelSearch.run(threads, thread -> {
+            Node rootNode = rootNodes.get(thread % trees);
+            while (budget.nextNode()) {
+                logger.debug("Iteration {}", budget.getNodes());
+                iterate(rootNode, budget);
             }
+        });
+        logger.debug("Ended iterations!");
 
-            // Expand
-            if (!node.isFullyExpanded()) { // if we can expand (i.e. state/node is non-terminal
-                action = node.getRandomUntriedAction();
-                logger.debug("Expanded random action {}", action);
-                playAction(state, action);
-                node = node.AddChild(action, state); // add child and descent tree
-                logger.debug("Added child with action: {} and state: {}", action, state.hashCode());
-            }
+        GameAction bestAction = Node.getBestChildAction(rootNodes, validActions);
+        // the budget may run out before the first iteration
+        if (bestAction == null) {
+            bestAction = validActions.get(0);
+        }
+        retainNodes(rootNodes, bestAction);
+        return bestAction;
+    }
 
+    private void retainNodes(List<Node> rootNodes, GameAction selectedAction) {
+        List<Node> children = new ArrayList<>(rootNodes.size());
+        for (Node rootNode : rootNodes) {
+            children.add(rootNode != null ? rootNode.getChild(selectedAction) : null);
+        }
+        retainedNodes = children;
+    }
 
-            logger.debug("Staring roll out on {} with cloned state", state.hashCode());
-            state = state.clone();
-            // Roll out - play the game randomly till the game ends
-            for (Player p : state.getPlayers()) {
-                p.setBehaviour(new PlayRandomBehaviour());
+    private void iterate(Node rootNode, SearchBudget.Tracker budget) {
+        Node node = rootNode;
+        GameContext state;
+        GameAction action;
+        //GameAction random_action;
+        double value;
+
+        node.addVirtualLoss();
+        // Select
+        while (node.isFullyExpanded() && !node.isTerminal()) {
+            node = node.UTCSelectChild();
+            node.addVirtualLoss();
+            logger.debug("Selected node with action {} and parent action {} and parent == rootNode {}",
+                    node.getAction(), node.getParent().getAction(), node.getParent() == rootNode);
+            //playAction(state, node.getAction());
+        }
+        // rebuild the state of the selected node only; the rebuilt state has the same random draws (e.g. after an
+        // end turn) as when the node was added, else we might end up with different cards in hand
+        state = stateCache.getState(node, budget);
+        logger.debug("Selected state is now \n {}", state);
+
+        // Expand
+        action = node.removeRandomUntriedAction(state);
+        if (action != null) { // if we can expand (i.e. state/node is non-terminal and no other thread took the last action)
+            logger.debug("Expanded random action {}", action);
+            if (!node.isFullyExpanded() && node.getCachedState() == null) {
+                // the node will be expanded again, so save rebuilding its state
+                stateCache.keep(node, state, budget);
             }
-            while (!state.gameDecided()) {
-                if (!state.gameDecided() && (state.getTurnState() == TurnState.TURN_ENDED)) {
-                    state.startTurn();
-                }
-                while (state.playTurn());
-            }
-
-            // Back propagate
-            winning = state.getWinningPlayerId();
-            state.dispose();
-            logger.debug("Roll out of {} has ended with result {} (winning player: {})", state.hashCode(), winning, state.getWinningPlayerId());
-            while(node != null) {
-                result = winning == node.getPlayerId() ? 1 : 0;
-                node.Update(result);
-                node = node.getParent();
+            playAction(state, action);
+            node = node.AddChild(action, state); // add child and descent tree
+            if (StateCache.isShallow(node)) {
+                stateCache.keep(node, state, budget);
             }
+            logger.debug("Added child with action: {} and state: {}", action, state.hashCode());
         }
-        logger.debug("Ended iterations!");
 
-        return rootNode.getBestChildAction();
+
+        logger.debug("Staring roll out on {}", state.hashCode());
+        // Roll out - play the game randomly till the game ends, unless another rollout policy is set
+        RolloutPolicy rolloutPolicy = getRolloutPolicy() != null ? getRolloutPolicy() : RolloutPolicy.RANDOM;
+        // the rebuilt state would draw the same cards and random effects in every roll out from this node
+        state.getRandom().setSeed(ThreadLocalRandom.current().nextLong());
+        value = rolloutPolicy.playOut(state, rootNode.getPlayerId(), ThreadLocalRandom.current(), budget);
+
+        // Back propagate
+        state.dispose();
+        logger.debug("Roll out of {} has ended with value {} (winning player: {})", state.hashCode(), value, state.getWinningPlayerId());
+        while(node != null) {
+            // the values of both players add up to 1
+            node.Update(node.getPlayerId() == rootNode.getPlayerId() ? value : 1 - value);
+            node = node.getParent();
+        }
     }
 
-    private void playAction(GameContext state, GameAction action) {
+    private static void playAction(GameContext state, GameAction action) {
         //if (!state.gameDecided() && (state.getTurnState() == TurnState.TURN_ENDED)) state.startTurn();
         boolean ret = state.playAction(action);
 
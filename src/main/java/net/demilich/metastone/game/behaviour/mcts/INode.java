@@ -1,149 +1,416 @@
 package net.demilich.metastone.game.behaviour.mcts;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import net.demilich.metastone.game.GameContext;
-import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.actions.GameAction;
-import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.mcts.utils.ActionUtils;
 
-class INode {
+/**
+ * Node of the search tree of {@link MonteCarloTreeSearch}. Several threads may
+ * process the same tree: expanding a node hands each untried action to one
+ * thread only, and visits are counted on the way down (a virtual loss until
+ * the playout's result is added on the way up), so that concurrent threads
+ * spread out over the tree instead of all following the same path.
+ * <p>
+ * Nodes keep their action, statistics and children, but not their game
+ * states, which are rebuilt by a {@link StateCache}. A node's valid actions
+ * are taken from its rebuilt state whenever it is expanded, so only their
+ * number is stored.
+ * <p>
+ * With a {@link NodeTable}, the tree becomes a directed acyclic graph: an
+ * action leading to a state that is already in the table links to that
+ * state's node instead of adding a new one, so different orders of the same
+ * actions share their statistics. The node is then reached by several
+ * actions, so the actions of the edges are kept by the parents; the node's
+ * own action is the one it was first reached by, from which its state is
+ * rebuilt. When a node becomes the root of a new search, the table is rebuilt
+ * from the nodes it still reaches (see {@link #register}).
+ */
+class INode implements SearchNode {
 
-	private GameContext state;
-	private List<GameAction> validTransitions;
-	private final List<INode> children = new LinkedList<>();
-	private final GameAction incomingAction;
-	private int visits;
-	private int score;
+	private static final INode[] NO_CHILDREN = new INode[0];
+	private static final GameAction[] NO_ACTIONS = new GameAction[0];
+
+	private static final AtomicLongFieldUpdater<INode> STATS = AtomicLongFieldUpdater.newUpdater(INode.class, "stats");
+
+	// scores are counted in fixed point, as playouts may be worth a fraction
+	// of a win
+	private static final int SCORE_UNIT = 1 << 10;
+	// a score never exceeds visits * SCORE_UNIT, so with 38 bits it cannot
+	// carry into the visits for less than 2^26 visits per node
+	private static final int VISITS_SHIFT = 38;
+	private static final long SCORE_MASK = (1L << VISITS_SHIFT) - 1;
+
+	/**
+	 * Returns the best of the given valid actions over several trees grown
+	 * from the root state, summing up the scores of each action. The trees
+	 * may have been grown for an earlier decision and hold equivalent copies
+	 * of the valid actions.
+	 */
+	public static GameAction getBestAction(List<INode> roots, List<GameAction> validActions) {
+		List<GameAction> actions = new ArrayList<>();
+		Map<GameAction, Double> scores = new IdentityHashMap<>();
+		for (INode root : roots) {
+			INode[] children = root.children;
+			GameAction[] childActions = root.childActions;
+			for (int i = 0; i < children.length; i++) {
+				INode node = children[i];
+				GameAction action = ActionUtils.findEquivalent(validActions, childActions[i]);
+				if (action == null) {
+					continue;
+				}
+				Double score = scores.get(action);
+				if (score == null) {
+					actions.add(action);
+					score = 0.0;
+				}
+				scores.put(action, score + node.getScore());
+			}
+		}
+		GameAction best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (GameAction action : actions) {
+			if (scores.get(action) > bestScore) {
+				best = action;
+				bestScore = scores.get(action);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Plays a searched action; also used by the {@link StateCache} to replay
+	 * it.
+	 */
+	static void perform(GameContext state, GameAction action) {
+		try {
+			state.getLogic().performGameAction(state.getActivePlayer().getId(), action);
+		} catch (Exception e) {
+			System.err.println("Exception on action: " + action + " state decided: " + state.gameDecided());
+			e.printStackTrace();
+			throw e;
+		}
+	}
+
+	private GameAction incomingAction;
+	private INode parent;
+	// the state hash the node is found by in a NodeTable
+	private long stateHash;
 	private final int player;
+	private final boolean terminal;
+	private final int winningPlayerId;
+	// the valid actions of a root, which may differ from those of its state
+	// (e.g. for a battlecry); other nodes take them from their state
+	private List<GameAction> rootActions;
+	// -1 until the node is first expanded
+	private int actionCount = -1;
+	private int triedActions;
+	// the actions leading to the children; written before the children, so
+	// that it is at least as long as the children read before it
+	private volatile GameAction[] childActions = NO_ACTIONS;
+	private volatile INode[] children = NO_CHILDREN;
+	// visits in the upper 26 bits, score in the lower 38, so that each update
+	// is a single atomic operation
+	private volatile long stats;
+	private volatile GameContext cachedState;
 
 	public INode(GameAction incomingAction, int player) {
+		this(incomingAction, player, null, 0, false, -1);
+	}
+
+	private INode(GameAction incomingAction, int player, INode parent, long stateHash, boolean terminal,
+			int winningPlayerId) {
 		this.incomingAction = incomingAction;
 		this.player = player;
+		this.parent = parent;
+		this.stateHash = stateHash;
+		this.terminal = terminal;
+		this.winningPlayerId = winningPlayerId;
+	}
+
+	private synchronized void addChild(GameAction action, INode child) {
+		for (INode existing : children) {
+			if (existing == child) {
+				// another action leading to the same state
+				return;
+			}
+		}
+		GameAction[] grownActions = Arrays.copyOf(childActions, childActions.length + 1);
+		grownActions[childActions.length] = action;
+		childActions = grownActions;
+		INode[] grown = Arrays.copyOf(children, children.length + 1);
+		grown[children.length] = child;
+		children = grown;
 	}
 
-	private boolean canFurtherExpanded() {
-		return !validTransitions.isEmpty();
+	void addVirtualLoss() {
+		STATS.addAndGet(this, 1L << VISITS_SHIFT);
 	}
 
-	private INode expand() {
-		GameAction action = validTransitions.remove(0);
-		GameContext newState = state.clone();
+	/**
+	 * Makes this node the root of its tree, so that its ancestors can be
+	 * garbage collected. Its state is cached for good, as it can no longer be
+	 * rebuilt from theirs.
+	 */
+	public void detach(StateCache cache, SearchBudget.Tracker budget) {
+		GameContext state = cachedState;
+		cache.pin(this, state != null ? state : cache.getState(this, budget));
+		parent = null;
+	}
 
-		try {
-			newState.getLogic().performGameAction(newState.getActivePlayer().getId(), action);
-		} catch (Exception e) {
-			System.err.println("Exception on action: " + action + " state decided: " + state.gameDecided());
-			e.printStackTrace();
-			throw e;
+	/**
+	 * Stores the nodes this root still reaches in the given empty table, once
+	 * it has been reused for a new decision, so that the table no longer
+	 * links to nodes of the dropped part of the old tree. Every node is given
+	 * the parent it is first reached from, as its old one may be in the
+	 * dropped part; its state is then rebuilt along that path, and the
+	 * dropped part can be garbage collected.
+	 */
+	public void register(NodeTable table) {
+		Set<INode> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<INode> open = new ArrayDeque<>();
+		reached.add(this);
+		open.add(this);
+		table.putIfAbsent(stateHash, this);
+		while (!open.isEmpty()) {
+			INode node = open.poll();
+			INode[] children = node.children;
+			GameAction[] childActions = node.childActions;
+			for (int i = 0; i < children.length; i++) {
+				INode child = children[i];
+				if (reached.add(child)) {
+					child.parent = node;
+					child.incomingAction = childActions[i];
+					table.putIfAbsent(child.stateHash, child);
+					open.add(child);
+				}
+			}
 		}
+	}
+
+	/**
+	 * Adds a child for the next untried action, playing it on the given state
+	 * of this node, or returns null if all actions have been tried (or are
+	 * being tried by other threads). If the action leads to a state which
+	 * already has a node in the given table (if any), that node becomes the
+	 * child.
+	 */
+	private INode expand(GameContext state, StateCache cache, NodeTable table, SearchBudget.Tracker budget) {
+		List<GameAction> actions = rootActions != null ? rootActions : state.getValidActions();
+		GameAction action;
+		boolean untried;
+		synchronized (this) {
+			actionCount = actions.size();
+			if (triedActions >= actionCount) {
+				return null;
+			}
+			action = actions.get(triedActions++);
+			untried = triedActions < actionCount;
+		}
+		if (untried && cachedState == null) {
+			// the node will be expanded again, so save rebuilding its state
+			cache.keep(this, state, budget);
+		}
+
+		perform(state, action);
 
-		INode child = new INode(action, getPlayer());
-		child.initState(newState, newState.getValidActions());
-		children.add(child);
+		long childHash = table != null ? state.stateHash() : 0;
+		INode child = new INode(action, getPlayer(), this, childHash, state.gameDecided(), state.getWinningPlayerId());
+		INode transposition = table != null ? table.putIfAbsent(childHash, child) : null;
+		if (transposition != null) {
+			transposition.addVirtualLoss();
+			addChild(action, transposition);
+			return transposition;
+		}
+		if (!child.terminal && StateCache.isShallow(child)) {
+			cache.keep(child, state, budget);
+		}
+		// the child is visited by the playout following its expansion
+		child.addVirtualLoss();
+		addChild(action, child);
 		return child;
 	}
 
+	@Override
+	public GameAction getAction() {
+		return incomingAction;
+	}
+
 	public GameAction getBestAction() {
+		INode[] children = this.children;
+		GameAction[] childActions = this.childActions;
 		GameAction best = null;
-		int bestScore = Integer.MIN_VALUE;
-		for (INode node : children) {
-			if (node.getScore() > bestScore) {
-				best = node.incomingAction;
-				bestScore = node.getScore();
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < children.length; i++) {
+			if (children[i].getScore() > bestScore) {
+				best = childActions[i];
+				bestScore = children[i].getScore();
 			}
 		}
 		return best;
 	}
 
-	public List<INode> getChildren() {
+	@Override
+	public GameContext getCachedState() {
+		return cachedState;
+	}
+
+	/**
+	 * Returns the child reached by the given action (or an equivalent one),
+	 * or null if that action has not been expanded.
+	 */
+	public INode getChild(GameAction action) {
+		INode[] children = this.children;
+		GameAction[] childActions = this.childActions;
+		List<GameAction> actions = new ArrayList<>(children.length);
+		for (int i = 0; i < children.length; i++) {
+			if (childActions[i] == action) {
+				return children[i];
+			}
+			actions.add(childActions[i]);
+		}
+		GameAction equivalent = ActionUtils.findEquivalent(actions, action);
+		return equivalent != null ? children[actions.indexOf(equivalent)] : null;
+	}
+
+	/**
+	 * Returns the children expanded so far. The array must not be modified.
+	 */
+	public INode[] getChildren() {
 		return children;
 	}
 
+	@Override
+	public INode getParent() {
+		return parent;
+	}
+
 	public int getPlayer() {
 		return player;
 	}
 
-	public int getScore() {
-		return score;
+	public double getScore() {
+		return (stats & SCORE_MASK) / (double) SCORE_UNIT;
 	}
 
-	public GameContext getState() {
-		return state;
+	/**
+	 * Returns the state hash the node is found by in a {@link NodeTable}.
+	 */
+	long getStateHash() {
+		return stateHash;
 	}
 
 	public int getVisits() {
-		return visits;
+		return (int) (stats >>> VISITS_SHIFT);
+	}
+
+	public void initState(GameContext state, List<GameAction> validActions, StateCache cache, SearchBudget.Tracker budget) {
+		cache.pin(this, cache.createRootState(state, budget));
+		this.stateHash = state.stateHash();
+		this.rootActions = new ArrayList<GameAction>(validActions);
 	}
 
-	public void initState(GameContext state, List<GameAction> validActions) {
-		this.state = state.clone();
-		this.validTransitions = new ArrayList<GameAction>(validActions);
+	public synchronized boolean isExpandable() {
+		if (terminal) {
+			return false;
+		}
+		return actionCount < 0 || triedActions < actionCount;
 	}
 
-	public boolean isExpandable() {
-		if (validTransitions.isEmpty()) {
+	/**
+	 * Returns whether this node was grown from the same state as the given
+	 * game, so that its subtree can be reused to search the game's next
+	 * decision. This fails if the last action had a random outcome other than
+	 * the one searched.
+	 */
+	public boolean isGrownFrom(GameContext context, List<GameAction> validActions, StateCache cache, SearchBudget.Tracker budget) {
+		if (terminal) {
+			return false;
+		}
+		GameContext state = cache.getState(this, budget);
+		if (state.getActivePlayerId() != context.getActivePlayerId()) {
 			return false;
 		}
-		if (state.gameDecided()) {
+		if (state.getValidActions().size() != validActions.size()) {
 			return false;
 		}
-		return getChildren().size() < validTransitions.size();
+		return state.stateHash() == context.stateHash();
 	}
 
 	public boolean isLeaf() {
-		return children == null || children.isEmpty();
+		return children.length == 0;
 	}
 
-	private boolean isTerminal() {
-		return state.gameDecided();
-	}
-
-	public void process(ITreePolicy treePolicy) {
-		List<INode> visited = new LinkedList<INode>();
+	public void process(ITreePolicy treePolicy, RolloutPolicy rolloutPolicy, StateCache cache, NodeTable table,
+			SearchBudget.Tracker budget) {
+		List<INode> visited = new ArrayList<INode>();
 		INode current = this;
 		INode tmp;
+		GameContext state = null;
+		addVirtualLoss();
 		visited.add(this);
-		while (!current.isTerminal()) {
-			if (current.canFurtherExpanded()) {
-				current = current.expand();
-				visited.add(current);
-				break;
-			} else {
-				tmp = treePolicy.select(current);
-				if (tmp == null) break;
-				current = tmp;
-				visited.add(current);
+		while (!current.terminal) {
+			if (current.isExpandable()) {
+				state = cache.getState(current, budget);
+				tmp = current.expand(state, cache, table, budget);
+				if (tmp != null) {
+					current = tmp;
+					visited.add(current);
+					break;
+				}
+				state = null;
 			}
+			tmp = treePolicy.select(current);
+			// a transposition may lead back to a state on the path
+			if (tmp == null || visited.contains(tmp)) break;
+			current = tmp;
+			current.addVirtualLoss();
+			visited.add(current);
 		}
 
-		int value = rollOut(current);
+		double value;
+		if (current.terminal) {
+			value = current.winningPlayerId == getPlayer() ? 1 : 0;
+		} else {
+			value = rollOut(state != null ? state : cache.getState(current, budget), rolloutPolicy, budget);
+		}
 		for (INode node : visited) {
 			node.updateStats(value);
 		}
 	}
 
-	public int rollOut(INode node) {
-		if (node.getState().gameDecided()) {
-			GameContext state = node.getState();
-			return state.getWinningPlayerId() == getPlayer() ? 1 : 0;
-		}
-
-		GameContext simulation = node.getState().clone();
-		for (Player player : simulation.getPlayers()) {
-			player.setBehaviour(new PlayRandomBehaviour());
-		}
-
-		simulation.playTurn();
+	/**
+	 * Plays out the given state, which is used up by the playout, with the
+	 * given rollout policy, counting its clones against the given budget. A rebuilt state continues the random sequence of
+	 * the state it was rebuilt from, so it is reseeded first: otherwise every
+	 * playout from the same node would see the same draws and random effects.
+	 */
+	public double rollOut(GameContext simulation, RolloutPolicy rolloutPolicy, SearchBudget.Tracker budget) {
+		simulation.getRandom().setSeed(ThreadLocalRandom.current().nextLong());
+		return rolloutPolicy.playOut(simulation, getPlayer(), ThreadLocalRandom.current(), budget);
+	}
 
-		return simulation.getWinningPlayerId() == getPlayer() ? 1 : 0;
+	@Override
+	public void setCachedState(GameContext state) {
+		this.cachedState = state;
 	}
 
-	private void updateStats(int value) {
-		visits++;
-		score += value;
+	void updateStats(double value) {
+		// the visit has already been counted on the way down
+		STATS.addAndGet(this, Math.round(value * SCORE_UNIT));
 	}
 
 }
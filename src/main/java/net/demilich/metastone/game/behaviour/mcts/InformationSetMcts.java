@@ -0,0 +1,179 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.IBehaviour;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCollection;
+import net.demilich.metastone.game.targeting.CardLocation;
+import net.demilich.metastone.game.targeting.EntityIndex.Zone;
+
+/**
+ * Information set Monte Carlo tree search. Instead of searching the actual
+ * game, whose clones reveal the opponent's hand and the outcome of every
+ * draw, the search samples determinizations: copies of the game in which the
+ * opponent's hand is dealt anew from the cards the player cannot see, and
+ * whose random generator is reseeded so that draws and random effects come
+ * out differently. Each determinization grows its own tree, and the scores of
+ * the root actions are summed up over all trees.
+ * <p>
+ * The iterations are spread over the trees in turn. With as many threads as
+ * determinizations, each thread searches one determinization of its own, so
+ * the search scales with the number of cores the way root parallel MCTS does.
+ * Trees are not reused for the next decision, as it samples new
+ * determinizations anyway.
+ * <p>
+ * The opponent's secrets in play are not determinized: the searched copies
+ * keep the actual secrets, so the search knows which of them will trigger
+ * although the player only knows how many there are.
+ */
+public class InformationSetMcts extends Behaviour {
+
+	private final static Logger logger = LoggerFactory.getLogger(InformationSetMcts.class);
+
+	// iterations per decision unless a search budget is set
+	private static final int ITERATIONS = 500;
+
+	/**
+	 * Turns the given game into a sample of the states the given observer
+	 * cannot tell apart from it: the opponent's hand cards are shuffled into
+	 * the opponent's deck and as many cards are dealt back, and the game's
+	 * random generator is reseeded. Cards with a passive trigger stay in place,
+	 * as their trigger is only registered while they are in the hand, and so
+	 * do the opponent's secrets in play.
+	 */
+	public static void determinize(GameContext state, int observerId, Random random) {
+		Player opponent = state.getOpponent(state.getPlayer(observerId));
+		CardCollection hand = opponent.getHand();
+		CardCollection deck = opponent.getDeck();
+		List<Card> hidden = new ArrayList<>();
+		for (Card card : hand.toList()) {
+			if (card.getAttribute(Attribute.PASSIVE_TRIGGER) == null) {
+				hand.remove(card);
+				hidden.add(card);
+			}
+		}
+		int dealt = hidden.size();
+		for (Card card : deck.toList()) {
+			if (card.getAttribute(Attribute.PASSIVE_TRIGGER) == null) {
+				deck.remove(card);
+				hidden.add(card);
+			}
+		}
+		Collections.shuffle(hidden, random);
+		for (int i = 0; i < hidden.size(); i++) {
+			Card card = hidden.get(i);
+			if (i < dealt) {
+				card.setOwner(opponent.getId());
+				card.setLocation(CardLocation.HAND);
+				hand.add(card);
+				state.getEntityIndex().put(opponent.getId(), card, Zone.HAND);
+			} else {
+				card.setLocation(CardLocation.DECK);
+				deck.add(card);
+				state.getEntityIndex().put(opponent.getId(), card, Zone.DECK);
+			}
+		}
+		state.getRandom().setSeed(random.nextLong());
+	}
+
+	private final int determinizations;
+	private final int threads;
+	private StateCache stateCache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+
+	public InformationSetMcts() {
+		this(8, 1);
+	}
+
+	/**
+	 * @param determinizations
+	 *            number of determinizations sampled for each decision
+	 * @param threads
+	 *            number of threads sharing the iterations of each decision
+	 */
+	public InformationSetMcts(int determinizations, int threads) {
+		this.determinizations = Math.max(1, determinizations);
+		this.threads = Math.max(1, threads);
+	}
+
+	@Override
+	public IBehaviour clone() {
+		InformationSetMcts clone = (InformationSetMcts) super.clone();
+		clone.stateCache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+		return clone;
+	}
+
+	@Override
+	public String getName() {
+		if (threads > 1) {
+			return "ISMCTS (" + threads + " threads)";
+		}
+		return "ISMCTS";
+	}
+
+	@Override
+	public List<Card> mulligan(GameContext context, Player player, List<Card> cards) {
+		List<Card> discardedCards = new ArrayList<>();
+		for (Card card : cards) {
+			if (card.getBaseManaCost() >= 4) {
+				discardedCards.add(card);
+			}
+		}
+		return discardedCards;
+	}
+
+	@Override
+	public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
+		stateCache.clear();
+	}
+
+	@Override
+	public GameAction requestAction(GameContext context, Player player, List<GameAction> validActions) {
+		if (validActions.size() == 1) {
+			return validActions.get(0);
+		}
+		SearchBudget searchBudget = getSearchBudget() != null ? getSearchBudget() : SearchBudget.nodes(ITERATIONS);
+		SearchBudget.Tracker budget = searchBudget.start();
+		stateCache.clear();
+		List<INode> roots = new ArrayList<>(determinizations);
+		for (int i = 0; i < determinizations; i++) {
+			GameContext sample = budget.clone(context);
+			determinize(sample, player.getId(), ThreadLocalRandom.current());
+			INode root = new INode(null, player.getId());
+			root.initState(sample, validActions, stateCache, budget);
+			sample.dispose();
+			roots.add(root);
+		}
+		RolloutPolicy rolloutPolicy = getRolloutPolicy() != null ? getRolloutPolicy() : RolloutPolicy.RANDOM;
+		ParallelSearch.run(threads, thread -> {
+			UctPolicy treePolicy = new UctPolicy();
+			int next = thread;
+			while (budget.nextNode()) {
+				roots.get(next % determinizations).process(treePolicy, rolloutPolicy, stateCache, null, budget);
+				next += threads;
+			}
+		});
+		GameAction bestAction = INode.getBestAction(roots, validActions);
+		if (bestAction == null) {
+			// the budget ran out before the first iteration
+			bestAction = validActions.get(0);
+		}
+		logger.debug("ISMCTS selected {} over {} determinizations", bestAction, determinizations);
+		return bestAction;
+	}
+
+}
@@ -10,17 +10,87 @@ import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.IBehaviour;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
 import net.demilich.metastone.game.cards.Card;
 
 public class MonteCarloTreeSearch extends Behaviour {
 
 	private final static Logger logger = LoggerFactory.getLogger(MonteCarloTreeSearch.class);
 
+	// iterations per decision unless a search budget is set
 	private static final int ITERATIONS = 500;
 
+	private final int threads;
+	private final Parallelization parallelization;
+	private final boolean transpositions;
+	// the subtrees below the last selected action, one per tree; the next
+	// decision reuses them if it starts from the state they were grown from
+	private List<INode> retainedRoots;
+	// the visits the last decision took over from the previous one
+	private int reusedVisits;
+	private StateCache stateCache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+	// one per tree if transpositions are merged, else null
+	private List<NodeTable> nodeTables;
+
+	public MonteCarloTreeSearch() {
+		this(1, Parallelization.TREE);
+	}
+
+	/**
+	 * @param threads
+	 *            number of threads sharing the iterations of each decision
+	 * @param parallelization
+	 *            whether the threads grow a shared tree or one tree each
+	 */
+	public MonteCarloTreeSearch(int threads, Parallelization parallelization) {
+		this(threads, parallelization, false);
+	}
+
+	/**
+	 * @param threads
+	 *            number of threads sharing the iterations of each decision
+	 * @param parallelization
+	 *            whether the threads grow a shared tree or one tree each
+	 * @param transpositions
+	 *            whether states reached by different orders of actions share
+	 *            a single node, which turns the trees into directed acyclic
+	 *            graphs; experimental, as the results of a shared node are
+	 *            only backed up along the path they were played out on, so
+	 *            its other parents select it by statistics they did not see
+	 *            grow; it is therefore not offered in the player settings
+	 */
+	public MonteCarloTreeSearch(int threads, Parallelization parallelization, boolean transpositions) {
+		this.threads = Math.max(1, threads);
+		this.parallelization = parallelization;
+		this.transpositions = transpositions;
+	}
+
+	@Override
+	public IBehaviour clone() {
+		MonteCarloTreeSearch clone = (MonteCarloTreeSearch) super.clone();
+		clone.retainedRoots = null;
+		clone.stateCache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+		clone.nodeTables = null;
+		return clone;
+	}
+
+	/**
+	 * Returns the number of visits of the trees the last searched decision
+	 * reused from the decision before, 0 if it started from scratch.
+	 */
+	public int getReusedVisits() {
+		return reusedVisits;
+	}
+
 	@Override
 	public String getName() {
-		return "MCTS";
+		String name = transpositions ? "Experimental MCTS-DAG" : "MCTS";
+		if (threads > 1) {
+			return name + " (" + threads + " threads, " + parallelization.toString().toLowerCase() + ")";
+		}
+		return name;
 	}
 
 	@Override
@@ -34,21 +104,94 @@ public class MonteCarloTreeSearch extends Behaviour {
 		return discardedCards;
 	}
 
+	@Override
+	public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
+		retainedRoots = null;
+		stateCache.clear();
+		nodeTables = null;
+	}
+
 	@Override
 	public GameAction requestAction(GameContext context, Player player, List<GameAction> validActions) {
 		if (validActions.size() == 1) {
 			// logger.info("MCTS selected best action {}", validActions.get(0));
+			if (retainedRoots != null) {
+				retainRoots(retainedRoots, validActions.get(0));
+			}
 			return validActions.get(0);
 		}
-		INode root = new INode(null, player.getId());
-		root.initState(context, validActions);
-		UctPolicy treePolicy = new UctPolicy();
-		for (int i = 0; i < ITERATIONS; i++) {
-			root.process(treePolicy);
+		// threads take iterations until the budget is spent, so faster
+		// threads simply do more of them
+		SearchBudget searchBudget = getSearchBudget() != null ? getSearchBudget() : SearchBudget.nodes(ITERATIONS);
+		SearchBudget.Tracker budget = searchBudget.start();
+		List<INode> roots = new ArrayList<>();
+		int trees = parallelization == Parallelization.ROOT ? threads : 1;
+		boolean reused = false;
+		reusedVisits = 0;
+		for (int i = 0; i < trees; i++) {
+			INode retained = retainedRoots != null ? retainedRoots.get(i) : null;
+			if (retained != null && retained.isGrownFrom(context, validActions, stateCache, budget)) {
+				logger.debug("Reusing tree with {} visits", retained.getVisits());
+				reusedVisits += retained.getVisits();
+				retained.detach(stateCache, budget);
+				if (nodeTables != null) {
+					// the nodes of the dropped part of the old tree must not be
+					// linked back in
+					nodeTables.get(i).clear();
+					retained.register(nodeTables.get(i));
+				}
+				roots.add(retained);
+				reused = true;
+			} else {
+				roots.add(null);
+			}
+		}
+		if (!reused) {
+			// none of the cached states will be needed again
+			stateCache.clear();
+		}
+		if (transpositions && nodeTables == null) {
+			nodeTables = new ArrayList<>(trees);
+			for (int i = 0; i < trees; i++) {
+				nodeTables.add(new NodeTable(NodeTable.DEFAULT_SIZE));
+			}
+		}
+		for (int i = 0; i < trees; i++) {
+			if (roots.get(i) == null) {
+				if (nodeTables != null) {
+					// the nodes of the previous tree are no longer reachable
+					nodeTables.get(i).clear();
+				}
+				INode root = new INode(null, player.getId());
+				root.initState(context, validActions, stateCache, budget);
+				roots.set(i, root);
+			}
+		}
+		RolloutPolicy rolloutPolicy = getRolloutPolicy() != null ? getRolloutPolicy() : RolloutPolicy.RANDOM;
+		ParallelSearch.run(threads, thread -> {
+			INode root = roots.get(thread % trees);
+			NodeTable table = nodeTables != null ? nodeTables.get(thread % trees) : null;
+			UctPolicy treePolicy = new UctPolicy();
+			while (budget.nextNode()) {
+				root.process(treePolicy, rolloutPolicy, stateCache, table, budget);
+			}
+		});
+		GameAction bestAction = INode.getBestAction(roots, validActions);
+		if (bestAction == null) {
+			// the budget ran out before the first iteration
+			bestAction = validActions.get(0);
 		}
-		GameAction bestAction = root.getBestAction();
+		retainRoots(roots, bestAction);
 		// logger.info("MCTS selected best action {}", bestAction);
 		return bestAction;
 	}
 
+	private void retainRoots(List<INode> roots, GameAction selectedAction) {
+		List<INode> children = new ArrayList<>(roots.size());
+		for (INode root : roots) {
+			children.add(root != null ? root.getChild(selectedAction) : null);
+		}
+		retainedRoots = children;
+	}
+
 }
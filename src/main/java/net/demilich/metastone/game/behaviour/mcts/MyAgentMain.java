@@ -3,9 +3,11 @@ package net.demilich.metastone.game.behaviour.mcts;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import net.demilich.metastone.game.GameContext;
-import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.SimulationEngine;
 import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
 import net.demilich.metastone.game.behaviour.threat.FeatureVector;
 import net.demilich.metastone.game.behaviour.threat.GameStateValueBehaviour;
 import net.demilich.metastone.game.cards.Card;
@@ -14,7 +16,6 @@ import net.demilich.metastone.game.cards.CardProxy;
 import net.demilich.metastone.game.cards.HeroCard;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
-import net.demilich.metastone.game.logic.GameLogic;
 import net.demilich.metastone.gui.deckbuilder.DeckProxy;
 import net.demilich.metastone.gui.gameconfig.GameConfig;
 import net.demilich.metastone.gui.gameconfig.PlayerConfig;
@@ -24,43 +25,14 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("Duplicates")
 public class MyAgentMain {
 
-    private static class PlayGameTask implements Callable<Void> {
-
-        private final GameConfig gameConfig;
-
-        public PlayGameTask(GameConfig gameConfig) {
-            this.gameConfig = gameConfig;
-        }
-
-        @Override
-        public Void call() throws Exception {
-            PlayerConfig playerConfig1 = gameConfig.getPlayerConfig1();
-            PlayerConfig playerConfig2 = gameConfig.getPlayerConfig2();
-
-            Player player1 = new Player(playerConfig1);
-            Player player2 = new Player(playerConfig2);
-
-            GameContext newGame = new GameContext(player1, player2, new GameLogic());
-            newGame.play();
-
-            onGameComplete(newGame);
-            newGame.dispose();
-
-            return null;
-        }
-
-    }
-
     private static org.slf4j.Logger logger = LoggerFactory.getLogger(MyAgentMain.class);
-    private static int gamesCompleted = 0;
-    private static long lastUpdate;
+    private static final AtomicInteger gamesCompleted = new AtomicInteger();
+    private static volatile long lastUpdate;
 
     private static final GameConfig gameConfig = new GameConfig();
     private static final SimulationResult result = new SimulationResult(gameConfig);
@@ -68,16 +40,13 @@ public class MyAgentMain {
 
     private static void onGameComplete(GameContext state) {
         long timeStamp = System.currentTimeMillis();
-        gamesCompleted++;
-        if (timeStamp - lastUpdate > 100) {
+        int completed = gamesCompleted.incrementAndGet();
+        if (timeStamp - lastUpdate > 100 || completed == gameConfig.getNumberOfGames()) {
             lastUpdate = timeStamp;
-            System.out.print("\rGames completed: " + gamesCompleted + " of " + gameConfig.getNumberOfGames());
-            if (gamesCompleted == gameConfig.getNumberOfGames()) System.out.println();
-        }
-        synchronized (result) {
-            result.getPlayer1Stats().merge(state.getPlayer1().getStatistics());
-            result.getPlayer2Stats().merge(state.getPlayer2().getStatistics());
+            System.out.print("\rGames completed: " + completed + " of " + gameConfig.getNumberOfGames());
+            if (completed == gameConfig.getNumberOfGames()) System.out.println();
         }
+        result.onGameEnded(state);
     }
 
 
@@ -108,6 +77,10 @@ public class MyAgentMain {
     public static void main(String[] args) {
         int numberOfGames = 5;
         int iterations = 400;
+        int threads = 1;
+        SearchBudget searchBudget = null;
+        RolloutPolicy rolloutPolicy = null;
+        Long seed = null;
         if (args.length >= 1) {
             if (args[0].equals("help") || args[0].equals("-h") || args[0].equals("--help")) {
                 usage();
@@ -117,7 +90,20 @@ public class MyAgentMain {
                     numberOfGames = MathUtils.clamp(numberOfGames, 2, 1000);
                     iterations = Integer.parseInt(args[1]);
                     iterations = MathUtils.clamp(iterations, 100, 1000);
-                } catch (NumberFormatException e) {
+                    if (args.length >= 3) {
+                        threads = Integer.parseInt(args[2]);
+                        threads = MathUtils.clamp(threads, 1, Runtime.getRuntime().availableProcessors());
+                    }
+                    if (args.length >= 4) {
+                        searchBudget = SearchBudget.parse(args[3]);
+                    }
+                    if (args.length >= 5) {
+                        rolloutPolicy = RolloutPolicy.parse(args[4]);
+                    }
+                    if (args.length >= 6) {
+                        seed = Long.parseLong(args[5]);
+                    }
+                } catch (IllegalArgumentException e) {
                     usage();
                 }
             }
@@ -125,9 +111,11 @@ public class MyAgentMain {
 
         Deck deck = deckProxy.getDeckByName("Brann Dragon Priest");
         //Deck deck2 = DeckFactory.getRandomDeck(HeroClass.WARRIOR);
-        PlayerConfig playerConfig1 = new PlayerConfig(deck, new HearthAgent(iterations));
+        PlayerConfig playerConfig1 = new PlayerConfig(deck, new HearthAgent(iterations, threads, Parallelization.TREE));
         playerConfig1.setName("Player 1");
         playerConfig1.setHeroCard(getHeroCardForClass(HeroClass.PRIEST));
+        playerConfig1.setSearchBudget(searchBudget);
+        playerConfig1.setRolloutPolicy(rolloutPolicy);
         Behaviour behaviour = new GameStateValueBehaviour(FeatureVector.getFittest(), "(untrained)");
         PlayerConfig playerConfig2 = new PlayerConfig(deck, behaviour);
         playerConfig2.setName("Player 2");
@@ -136,46 +124,18 @@ public class MyAgentMain {
         gameConfig.setPlayerConfig1(playerConfig1);
         gameConfig.setPlayerConfig2(playerConfig2);
         gameConfig.setNumberOfGames(numberOfGames);
+        gameConfig.setRandomSeed(seed);
 
-        int cores = Runtime.getRuntime().availableProcessors();
-        logger.info("Starting simulation on " + cores + " cores");
+        SimulationEngine engine = SimulationEngine.getInstance();
+        logger.info("Starting simulation on " + engine.getParallelism() + " cores");
         System.out.print("Games completed: 0 of " + gameConfig.getNumberOfGames());
-        ExecutorService executor = Executors.newFixedThreadPool(cores);
-
-        List<Future<Void>> futures = new ArrayList<>();
 
-        // queue up all games as tasks
         lastUpdate = System.currentTimeMillis();
-        for (int i = 0; i < gameConfig.getNumberOfGames(); i++) {
-            PlayGameTask task = new PlayGameTask(gameConfig);
-            Future<Void> future = executor.submit(task);
-            futures.add(future);
-        }
-
-        executor.shutdown();
-        boolean completed = false;
-        while (!completed) {
-            completed = true;
-            for (Future<Void> future : futures)
-            {
-                if (!future.isDone()) {
-                    completed = false;
-                    continue;
-                }
-                try {
-                    future.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    logger.error(ExceptionUtils.getStackTrace(e));
-                    e.printStackTrace();
-                    System.exit(-1);
-                }
-            }
-            futures.removeIf(Future::isDone);
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        try {
+            engine.simulate(gameConfig, MyAgentMain::onGameComplete).await();
+        } catch (RuntimeException e) {
+            logger.error(ExceptionUtils.getStackTrace(e));
+            System.exit(-1);
         }
 
         result.calculateMetaStatistics();
@@ -185,7 +145,10 @@ public class MyAgentMain {
     }
 
     private static void usage() {
-        System.out.println("Usage: java -jar hearthagent.jar [numberOfGames] [iterations]");
+        System.out.println("Usage: java -jar hearthagent.jar [numberOfGames] [iterations] [threads] [budget] [rollout] [seed]");
+        System.out.println("  budget: search budget per decision instead of the iterations, e.g. 250ms, 1000nodes or 5000clones");
+        System.out.println("  rollout: how playouts choose moves, e.g. random, greedy0.1 or random,2turns (default random)");
+        System.out.println("  seed: seeds the games, so that runs with the same seed start from the same deals");
         System.exit(0);
     }
 }
@@ -2,39 +2,107 @@ package net.demilich.metastone.game.behaviour.mcts;
 
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.actions.GameAction;
-import net.demilich.metastone.game.behaviour.mcts.utils.ListUtils;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.mcts.utils.ActionUtils;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
-class Node {
+/**
+ * Node of the search tree of {@link HearthAgent}, safe to share between
+ * search threads. A visit is counted as soon as a thread selects the node
+ * (a virtual loss) and the playout's result is added when it is known.
+ * The node's game state is not stored but rebuilt by a {@link StateCache}
+ */
+class Node implements SearchNode {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final AtomicLongFieldUpdater<Node> STATS = AtomicLongFieldUpdater.newUpdater(Node.class, "stats");
+
+    // wins are counted in fixed point, as a playout may be worth a fraction of a win
+    private static final int WIN_UNIT = 1 << 10;
+    // wins never exceed visits * WIN_UNIT, so with 38 bits they cannot carry into the visits for less than 2^26
+    // visits per node
+    private static final int VISITS_SHIFT = 38;
+    private static final long WINS_MASK = (1L << VISITS_SHIFT) - 1;
+
+    /**
+     * Select the valid action that was most visited over several trees grown
+     * from the same root state. Trees reused from an earlier decision hold
+     * equivalent copies of the valid actions
+     * @param roots The roots of the trees
+     * @param validActions The valid actions of the root state
+     * @return The most visited action
+     */
+    public static GameAction getBestChildAction(List<Node> roots, List<GameAction> validActions) {
+        List<GameAction> actions = new ArrayList<>();
+        Map<GameAction, Integer> visits = new IdentityHashMap<>();
+        for (Node root : roots) {
+            for (Node c : root.childNodes) {
+                GameAction a = ActionUtils.findEquivalent(validActions, c.action);
+                if (a == null) {
+                    continue;
+                }
+                Integer v = visits.get(a);
+                if (v == null) {
+                    actions.add(a);
+                    v = 0;
+                }
+                visits.put(a, v + c.getVisits());
+            }
+        }
+        GameAction best = null;
+        int bestVisits = -1;
+        for (GameAction a : actions) {
+            if (visits.get(a) > bestVisits) {
+                bestVisits = visits.get(a);
+                best = a;
+            }
+        }
+        return best;
+    }
 
     //private final static Logger logger = LoggerFactory.getLogger(Node.class);
 
     private final GameAction action;
-    private final Node parent;
+    private Node parent;
     private final int playerId;
-    private List<Node> childNodes = new LinkedList<>();
-    private int wins = 0;
-    private int visits = 0;
-    private List<GameAction> untriedMoves;
-    private GameContext state;
+    private volatile Node[] childNodes = NO_CHILDREN;
+    // visits in the upper 26 bits, wins in the lower 38
+    private volatile long stats;
+    // the valid actions of a root; other nodes take them from their rebuilt state
+    private List<GameAction> rootMoves;
+    // -1 until the node is first expanded
+    private int moveCount = -1;
+    // indices of the untried moves in their first untriedCount elements, dropped once all moves were tried
+    private int[] untriedMoves;
+    private int untriedCount;
+    private volatile GameContext cachedState;
     //private ITreePolicy policy;
 
     private Node(GameAction action, Node parent, GameContext state) {
         this.action = action;
         this.parent = parent;
-        this.state = state;
         this.playerId = state.getActivePlayerId();
-        this.untriedMoves = state.getValidActions();
     }
 
+    /**
+     * Create a root
+     * @param state The state of the root, kept by the node for good
+     * @param validActions The valid actions of the state
+     */
     public Node(GameContext state, List<GameAction> validActions) {
         this.action = null;
         this.parent = null;
-        this.state = state;
+        this.cachedState = state;
         this.playerId = state.getActivePlayerId();
-        this.untriedMoves = validActions;
+        this.rootMoves = new ArrayList<>(validActions);
     }
 
     public Node UTCSelectChild() {
@@ -50,42 +118,160 @@ class Node {
         return bestChild;
     }
 
+    /**
+     * Add a child for an action taken with {@link #removeRandomUntriedAction()}
+     * @param a The action
+     * @param s The state after playing the action
+     * @return The child, already visited once
+     */
     public Node AddChild(GameAction a, GameContext s) {
         Node node = new Node(a, this, s);
-        this.untriedMoves.remove(a);
-        this.childNodes.add(node);
+        node.addVirtualLoss();
+        synchronized (this) {
+            Node[] grown = Arrays.copyOf(this.childNodes, this.childNodes.length + 1);
+            grown[this.childNodes.length] = node;
+            this.childNodes = grown;
+        }
         return node;
     }
 
-    public void Update(int result) {
-        this.visits++;
-        this.wins += result;
+    /**
+     * Count a visit before its result is known, so that other threads
+     * consider this node a loss until the result is added with
+     * {@link #Update(double)}
+     */
+    public void addVirtualLoss() {
+        STATS.addAndGet(this, 1L << VISITS_SHIFT);
+    }
+
+    public void Update(double result) {
+        STATS.addAndGet(this, Math.round(result * WIN_UNIT));
     }
 
     private double UCB1(Node c) {
-        return (double) c.wins/c.visits + Math.sqrt(2*Math.log(this.visits))/c.visits;
+        long cStats = c.stats;
+        long cWins = cStats & WINS_MASK;
+        int cVisits = (int) (cStats >>> VISITS_SHIFT);
+        return (double) cWins/WIN_UNIT/cVisits + Math.sqrt(2*Math.log(this.getVisits()))/cVisits;
     }
 
-    public boolean isFullyExpanded() {
-        return this.untriedMoves.size() == 0;
+    public int getVisits() {
+        return (int) (this.stats >>> VISITS_SHIFT);
+    }
+
+    /**
+     * Check whether all moves were taken with {@link #removeRandomUntriedAction(GameContext)}. Nodes that were
+     * never expanded do not know their moves yet and are not fully expanded
+     * @return Whether all moves were taken
+     */
+    public synchronized boolean isFullyExpanded() {
+        return this.moveCount >= 0 && this.untriedCount == 0;
+    }
+
+    /**
+     * Check whether this node was grown from the same state as the given
+     * game, i.e. whether its subtree can be reused for the game's next
+     * decision. Fails if the last action had another random outcome than the
+     * searched one
+     * @param context The game
+     * @param validActions The valid actions of the game
+     * @param cache The cache rebuilding the node's state
+     * @param budget The budget the rebuilding counts against
+     * @return Whether the node can become the new root
+     */
+    public boolean isGrownFrom(GameContext context, List<GameAction> validActions, StateCache cache, SearchBudget.Tracker budget) {
+        if (this.playerId != context.getActivePlayerId()) {
+            return false;
+        }
+        GameContext state = cache.getState(this, budget);
+        if (state.gameDecided() || state.getValidActions().size() != validActions.size()) {
+            return false;
+        }
+        return state.stateHash() == context.stateHash();
+    }
+
+    /**
+     * Make this node the root of its tree, so that results are no longer
+     * propagated to its former ancestors. The node keeps its state for good,
+     * as it can no longer be rebuilt from theirs
+     * @param cache The cache rebuilding the node's state
+     * @param budget The budget the rebuilding counts against
+     */
+    public void detach(StateCache cache, SearchBudget.Tracker budget) {
+        GameContext state = this.cachedState;
+        cache.pin(this, state != null ? state : cache.getState(this, budget));
+        this.parent = null;
+    }
+
+    /**
+     * Get the child reached by the given action or an equivalent one
+     * @param a The action
+     * @return The child, or null if the action has not been expanded
+     */
+    public Node getChild(GameAction a) {
+        Node[] children = this.childNodes;
+        List<GameAction> actions = new ArrayList<>(children.length);
+        for (Node c : children) {
+            actions.add(c.action);
+        }
+        GameAction equivalent = ActionUtils.findEquivalent(actions, a);
+        return equivalent != null ? children[actions.indexOf(equivalent)] : null;
     }
 
     public boolean isTerminal() {
-        return this.childNodes.size() == 0;
+        return this.childNodes.length == 0;
     }
 
-    public GameAction getRandomUntriedAction() {
-        return ListUtils.getRandomElement(this.untriedMoves);
+    /**
+     * Take a random untried action, so that no other thread expands it too
+     * @param state The state of this node, rebuilt by the caller
+     * @return The action, or null if all actions have been taken
+     */
+    public GameAction removeRandomUntriedAction(GameContext state) {
+        List<GameAction> moves = this.rootMoves != null ? this.rootMoves : state.getValidActions();
+        int index;
+        synchronized (this) {
+            if (this.moveCount < 0) {
+                this.moveCount = moves.size();
+                this.untriedCount = moves.size();
+                this.untriedMoves = new int[moves.size()];
+                for (int i = 0; i < moves.size(); i++) {
+                    this.untriedMoves[i] = i;
+                }
+            }
+            if (this.untriedCount == 0) {
+                return null;
+            }
+            int taken = ThreadLocalRandom.current().nextInt(this.untriedCount);
+            index = this.untriedMoves[taken];
+            this.untriedMoves[taken] = this.untriedMoves[--this.untriedCount];
+            if (this.untriedCount == 0) {
+                this.untriedMoves = null;
+            }
+        }
+        return moves.get(index);
     }
 
+    @Override
     public GameAction getAction() {
         return action;
     }
 
+    @Override
+    public GameContext getCachedState() {
+        return cachedState;
+    }
+
+    @Override
     public Node getParent() {
         return parent;
     }
 
+    @Override
+    public void setCachedState(GameContext state) {
+        this.cachedState = state;
+    }
+
     public int getPlayerId() {
         return playerId;
     }
@@ -98,15 +284,11 @@ class Node {
         GameAction best = null;
         int visits = -1;
         for (Node c: this.childNodes) {
-            if (c.visits > visits) {
-                visits = c.visits;
+            if (c.getVisits() > visits) {
+                visits = c.getVisits();
                 best = c.action;
             }
         }
         return best;
     }
-
-    public GameContext getState() {
-        return state.clone();
-    }
 }
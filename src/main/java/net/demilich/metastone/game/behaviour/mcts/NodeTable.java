@@ -0,0 +1,74 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded table of the nodes of a search, keyed on the
+ * {@link net.demilich.metastone.game.GameContext#stateHash() state hash} of
+ * their states, through which a search finds the node of a state it reaches
+ * again by another order of actions. Each slot holds one node; a colliding
+ * node replaces it, so the table never grows and a lost entry merely misses
+ * a transposition. The table may be shared by the threads of a search.
+ */
+final class NodeTable {
+
+	static final int DEFAULT_SIZE = 1 << 14;
+
+	private static class Entry {
+
+		private final long hash;
+		private final INode node;
+
+		public Entry(long hash, INode node) {
+			this.hash = hash;
+			this.node = node;
+		}
+	}
+
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask;
+
+	NodeTable(int size) {
+		int capacity = Integer.highestOneBit(Math.max(size, 1));
+		if (capacity < size) {
+			capacity <<= 1;
+		}
+		entries = new AtomicReferenceArray<>(capacity);
+		mask = capacity - 1;
+	}
+
+	void clear() {
+		for (int i = 0; i < entries.length(); i++) {
+			entries.set(i, null);
+		}
+	}
+
+	/**
+	 * Returns the node stored for the given state hash, or null if there is
+	 * none (e.g. because a colliding node has replaced it).
+	 */
+	INode get(long hash) {
+		Entry entry = entries.get((int) (hash ^ (hash >>> 32)) & mask);
+		return entry != null && entry.hash == hash ? entry.node : null;
+	}
+
+	/**
+	 * Returns the node stored for the given state hash, or stores the given
+	 * node and returns null if there is none. If several threads store a
+	 * node for the same hash at once, all but the first get its node back.
+	 */
+	INode putIfAbsent(long hash, INode node) {
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		Entry entry = new Entry(hash, node);
+		while (true) {
+			Entry existing = entries.get(slot);
+			if (existing != null && existing.hash == hash) {
+				return existing.node;
+			}
+			if (entries.compareAndSet(slot, existing, entry)) {
+				return null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import net.demilich.metastone.game.SimulationEngine;
+
+/**
+ * Runs the threads of a parallel search. The first one runs on the calling
+ * thread, the others on the workers of the {@link SimulationEngine}, so that
+ * searching players share the cores with the games being simulated. When
+ * called from a busy worker, the remaining threads are run by the caller
+ * while it waits for them, so the search cannot deadlock the pool.
+ */
+final class ParallelSearch {
+
+	/**
+	 * Calls the worker once for each thread index in [0, threads) and returns
+	 * when all of them have finished.
+	 */
+	static void run(int threads, IntConsumer worker) {
+		if (threads <= 1) {
+			worker.accept(0);
+			return;
+		}
+		ExecutorService executor = SimulationEngine.getInstance().getExecutor();
+		List<Future<?>> helpers = new ArrayList<>(threads - 1);
+		for (int i = 1; i < threads; i++) {
+			final int index = i;
+			helpers.add(executor.submit(() -> worker.accept(index)));
+		}
+		try {
+			worker.accept(0);
+			for (Future<?> helper : helpers) {
+				helper.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			for (Future<?> helper : helpers) {
+				helper.cancel(false);
+			}
+		}
+	}
+
+	private ParallelSearch() {
+	}
+
+}
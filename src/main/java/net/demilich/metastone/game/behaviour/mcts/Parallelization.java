@@ -0,0 +1,20 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+/**
+ * How a Monte Carlo tree search spreads its iterations over several threads.
+ */
+public enum Parallelization {
+
+	/**
+	 * Each thread grows its own tree from the root state; the statistics of
+	 * the root's children are summed up when choosing the action.
+	 */
+	ROOT,
+
+	/**
+	 * All threads grow a single shared tree, using virtual loss to keep them
+	 * from exploring the same path at the same time.
+	 */
+	TREE,
+
+}
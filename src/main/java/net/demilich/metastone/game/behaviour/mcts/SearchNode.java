@@ -0,0 +1,24 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+
+/**
+ * Node of a search tree that does not keep its own game state; the state is
+ * rebuilt by a {@link StateCache} from the actions leading to the node.
+ */
+interface SearchNode {
+
+	/**
+	 * Returns the action leading from the parent to this node, or null for a
+	 * root.
+	 */
+	GameAction getAction();
+
+	GameContext getCachedState();
+
+	SearchNode getParent();
+
+	void setCachedState(GameContext state);
+
+}
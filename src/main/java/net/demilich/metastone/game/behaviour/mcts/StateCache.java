@@ -0,0 +1,162 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+
+/**
+ * Game states of the nodes of search trees. Nodes only store the action
+ * leading to them, and a node's state is rebuilt by replaying these actions
+ * on a copy of the nearest ancestor state that is still cached. Roots and the
+ * nodes up to {@link #SHALLOW_DEPTH} keep their states for good, deeper nodes
+ * only while they are among the most recently used ones, so a tree needs a
+ * bounded number of game states however many nodes it has.
+ * <p>
+ * A copy continues the random sequence of the state it was copied from (see
+ * {@link net.demilich.metastone.game.logic.GameRandom#continueFrom}) instead
+ * of forking it, and nested decisions of the replayed actions (e.g. battlecry
+ * targets) are drawn from that sequence too. A node's state therefore comes
+ * out the same whichever ancestor it is rebuilt from, including the outcomes
+ * of random effects. Playouts reseed the states they are given, so that they
+ * sample those outcomes instead.
+ */
+final class StateCache {
+
+	static final int DEFAULT_CAPACITY = 64;
+	static final int SHALLOW_DEPTH = 1;
+
+	private static int getDepth(SearchNode node) {
+		int depth = 0;
+		for (SearchNode parent = node.getParent(); parent != null; parent = parent.getParent()) {
+			depth++;
+		}
+		return depth;
+	}
+
+	private final BiConsumer<GameContext, GameAction> replay;
+	private final Map<SearchNode, GameContext> recent;
+
+	/**
+	 * @param capacity
+	 *            number of deeper nodes whose states are cached
+	 * @param replay
+	 *            plays a node's action on its parent's state, the same way the
+	 *            search does when it expands the node
+	 */
+	StateCache(int capacity, BiConsumer<GameContext, GameAction> replay) {
+		this.replay = replay;
+		this.recent = new LinkedHashMap<SearchNode, GameContext>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<SearchNode, GameContext> eldest) {
+				if (size() <= capacity) {
+					return false;
+				}
+				SearchNode node = eldest.getKey();
+				if (node.getCachedState() == eldest.getValue()) {
+					node.setCachedState(null);
+				}
+				return true;
+			}
+
+		};
+	}
+
+	/**
+	 * Forgets the cached states of deeper nodes, e.g. when a new tree is
+	 * started.
+	 */
+	synchronized void clear() {
+		for (Map.Entry<SearchNode, GameContext> entry : recent.entrySet()) {
+			if (entry.getKey().getCachedState() == entry.getValue()) {
+				entry.getKey().setCachedState(null);
+			}
+		}
+		recent.clear();
+	}
+
+	private GameContext copy(GameContext state, SearchBudget.Tracker budget) {
+		GameContext copy = budget.clone(state);
+		copy.getRandom().continueFrom(state.getRandom());
+		return copy;
+	}
+
+	/**
+	 * Returns a copy of the game to be the state of a new root.
+	 */
+	GameContext createRootState(GameContext context, SearchBudget.Tracker budget) {
+		GameContext state = budget.clone(context);
+		for (Player player : state.getPlayers()) {
+			// makes the nested decisions of searched actions with the game's
+			// own random generator, so that replaying an action repeats them
+			player.setBehaviour(new PlayRandomBehaviour());
+		}
+		return state;
+	}
+
+	/**
+	 * Returns the state of the given node, rebuilt from the nearest cached
+	 * state. The state is a new copy the caller may play on.
+	 */
+	GameContext getState(SearchNode node, SearchBudget.Tracker budget) {
+		Deque<GameAction> actions = new ArrayDeque<>();
+		SearchNode cached = node;
+		GameContext cachedState = cached.getCachedState();
+		while (cachedState == null) {
+			actions.push(cached.getAction());
+			cached = cached.getParent();
+			cachedState = cached.getCachedState();
+		}
+		synchronized (this) {
+			// counts as a use of the cached state
+			recent.get(cached);
+		}
+		GameContext state = copy(cachedState, budget);
+		for (GameAction action : actions) {
+			replay.accept(state, action);
+		}
+		return state;
+	}
+
+	/**
+	 * Caches a copy of the given state of a node, which saves replaying the
+	 * actions leading to the node the next times it is needed. Shallow nodes
+	 * keep it for good, deeper ones until it is one of the least recently
+	 * used.
+	 */
+	void keep(SearchNode node, GameContext state, SearchBudget.Tracker budget) {
+		GameContext copy = copy(state, budget);
+		if (isShallow(node)) {
+			pin(node, copy);
+			return;
+		}
+		synchronized (this) {
+			node.setCachedState(copy);
+			recent.put(node, copy);
+		}
+	}
+
+	/**
+	 * Caches the given state of a node for good, e.g. because the node
+	 * becomes a root.
+	 */
+	synchronized void pin(SearchNode node, GameContext state) {
+		recent.remove(node);
+		node.setCachedState(state);
+	}
+
+	static boolean isShallow(SearchNode node) {
+		return getDepth(node) <= SHALLOW_DEPTH;
+	}
+
+}
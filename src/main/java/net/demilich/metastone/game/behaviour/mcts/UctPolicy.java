@@ -1,11 +1,10 @@
 package net.demilich.metastone.game.behaviour.mcts;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 class UctPolicy implements ITreePolicy {
 
 	private static final double EPSILON = 1e-5;
-	private static final Random random = new Random();
 
 	private static final double C = 1 / Math.sqrt(2);
 
@@ -16,7 +15,7 @@ class UctPolicy implements ITreePolicy {
 		for (INode child : parent.getChildren()) {
 			double uctValue = child.getVisits() == 0 ? 1000000
 					: child.getScore() / (double) child.getVisits() + C * Math.sqrt(Math.log(parent.getVisits()) / child.getVisits())
-							+ random.nextDouble() * EPSILON;
+							+ ThreadLocalRandom.current().nextDouble() * EPSILON;
 
 			// small random number to break ties randomly in unexpanded nodes
 			if (uctValue > bestValue) {
@@ -0,0 +1,42 @@
+package net.demilich.metastone.game.behaviour.mcts.utils;
+
+import net.demilich.metastone.game.actions.GameAction;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Matches actions of a search tree against the valid actions of a game.
+ * Actions are generated anew for every state, so a tree that is reused for
+ * a later decision holds copies of the game's actions rather than the same
+ * objects.
+ */
+public class ActionUtils {
+
+    /**
+     * Find the action doing the same as the given one, i.e. of the same
+     * action group and with the same target
+     * @param actions The actions to search
+     * @param action The action to look for
+     * @return The matching action from the list, or null if there is none
+     */
+    public static GameAction findEquivalent(List<GameAction> actions, GameAction action) {
+        for (GameAction candidate : actions) {
+            if (candidate == action) {
+                return candidate;
+            }
+        }
+        for (GameAction candidate : actions) {
+            if (candidate.getActionType() == action.getActionType() && candidate.isSameActionGroup(action)
+                    && Objects.equals(candidate.getTargetKey(), action.getTargetKey())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+
+    private ActionUtils() {
+
+    }
+}
@@ -8,10 +8,28 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Random;
 
+/**
+ * A fully connected feed forward network of sigmoid units without biases.
+ * The weights of each layer are one row-major matrix in a flat array, row i
+ * holding the weights of the units on unit i of the layer below. The forward
+ * pass adds each row, scaled by the activation below, to the sums of the
+ * layer: a loop over contiguous memory whose steps do not depend on each
+ * other, unlike a dot product per unit. Several inputs can be evaluated in
+ * one batch.
+ * <p>
+ * For temporal difference learning, the network keeps eligibility traces:
+ * decaying sums of the gradients of each output with respect to each weight
+ * ({@link #updateTraces}), along which an error in the outputs is corrected
+ * ({@link #applyTraces}). The traces are passed in, so that several learners
+ * can train one network. Evaluating inputs is safe for concurrent use as long
+ * as nobody learns; learners running at the same time do not lock, and may
+ * overwrite some of each other's weight changes. Readers which need stable
+ * weights should evaluate a copy.
+ */
 public class NeuralNetwork implements Serializable {
 
 	// serialver for backwards compatibility
-	private static final long serialVersionUID = 1165374168397424904L;
+	private static final long serialVersionUID = 1165374168397424905L;
 
 	// the random number generator
 	public static final Random random = new Random();
@@ -30,19 +48,24 @@ public class NeuralNetwork implements Serializable {
 		return net;
 	}
 
-	// the layers of the network
-	public InputUnit[] input;
+	private static double sigmoid(double x) {
+		return 1 / (1 + Math.exp(-x));
+	}
+
+	// the number of units of each layer, the input layer first
+	private final int[] sizes;
 
-	public HiddenUnit[][] hidden;
+	// the weights of each layer above the input layer, row-major
+	private final double[][] weights;
 
 	/**
 	 * Builds a neural network with the given number of input units, hidden
 	 * units, and output units. Thus, calling
-	 * 
+	 *
 	 * new NeuralNetwork(10, new int[] {20, 5});
 	 *
 	 * creates a neural network with 10 input units, a layer of 20 hidden units,
-	 * and then 5 output units.
+	 * and then 5 output units. All weights start at 0.
 	 *
 	 * @param input
 	 *            The number of input units
@@ -50,28 +73,13 @@ public class NeuralNetwork implements Serializable {
 	 *            The number of hidden units, as well as the number of layers
 	 */
 	public NeuralNetwork(int input, int[] hidden) {
-		this.input = new InputUnit[input];
-		this.hidden = new HiddenUnit[hidden.length][];
-
-		for (int i = 0; i < hidden.length; i++)
-			this.hidden[i] = new HiddenUnit[hidden[i]];
-
-		for (int i = 0; i < input; i++)
-			this.input[i] = new InputUnit();
-
-		for (int i = 0; i < hidden.length; i++)
-			for (int j = 0; j < hidden[i]; j++)
-				if (i == 0)
-					this.hidden[i][j] = new HiddenUnit(this.input, random);
-				else
-					this.hidden[i][j] = new HiddenUnit(this.hidden[i - 1], random);
-
-		// for (int i = 0; i < hidden.length; i++) {
-		// for (int j = 0; j < hidden[i]; j++) {
-		// this.hidden[i][j].randomizeWeights(random);
-		// }
-		// }
-
+		sizes = new int[hidden.length + 1];
+		sizes[0] = input;
+		System.arraycopy(hidden, 0, sizes, 1, hidden.length);
+		weights = new double[hidden.length][];
+		for (int layer = 0; layer < hidden.length; layer++) {
+			weights[layer] = new double[sizes[layer + 1] * sizes[layer]];
+		}
 	}
 
 	/**
@@ -82,21 +90,88 @@ public class NeuralNetwork implements Serializable {
 	 *            The network to base it off of
 	 */
 	public NeuralNetwork(NeuralNetwork net) {
-		this.input = new InputUnit[net.input.length];
-		this.hidden = new HiddenUnit[net.hidden.length][];
+		sizes = net.sizes.clone();
+		weights = new double[net.weights.length][];
+		for (int layer = 0; layer < weights.length; layer++) {
+			weights[layer] = net.weights[layer].clone();
+		}
+	}
 
-		for (int i = 0; i < input.length; i++)
-			this.input[i] = new InputUnit();
+	/**
+	 * Corrects the weights by the given error of each output along the given
+	 * eligibility traces, with the given learning rate for the weights of
+	 * each layer (the lowest hidden layer first).
+	 */
+	public void applyTraces(double[][] traces, double[] error, double[] learningRates) {
+		int outputs = getOutputCount();
+		for (int layer = 0; layer < weights.length; layer++) {
+			double[] layerWeights = weights[layer];
+			double[] layerTraces = traces[layer];
+			double rate = learningRates[layer];
+			for (int w = 0; w < layerWeights.length; w++) {
+				double change = 0;
+				for (int k = 0; k < outputs; k++) {
+					change += error[k] * layerTraces[w * outputs + k];
+				}
+				layerWeights[w] += rate * change;
+			}
+		}
+	}
 
-		for (int i = 0; i < net.hidden.length; i++) {
-			this.hidden[i] = new HiddenUnit[net.hidden[i].length];
+	/**
+	 * Returns empty eligibility traces for this network: for each layer
+	 * above the input layer, one trace per weight and output, row-major.
+	 */
+	public double[][] createTraces() {
+		double[][] traces = new double[weights.length][];
+		for (int layer = 0; layer < weights.length; layer++) {
+			traces[layer] = new double[weights[layer].length * getOutputCount()];
+		}
+		return traces;
+	}
 
-			for (int j = 0; j < net.hidden[i].length; j++)
-				if (i == 0)
-					this.hidden[i][j] = new HiddenUnit(this.input, net.hidden[i][j].weights);
-				else
-					this.hidden[i][j] = new HiddenUnit(this.hidden[i - 1], net.hidden[i][j].weights);
+	/**
+	 * Computes the activations of all layers for the given inputs, stored
+	 * one after the other, and returns them per layer (the input layer
+	 * first), each layer row-major with one row per input.
+	 */
+	private double[][] forward(double[] inputs, int count) {
+		double[][] activations = new double[sizes.length][];
+		activations[0] = inputs;
+		for (int layer = 0; layer < weights.length; layer++) {
+			int below = sizes[layer];
+			int units = sizes[layer + 1];
+			double[] in = activations[layer];
+			double[] layerWeights = weights[layer];
+			double[] out = new double[count * units];
+			for (int n = 0; n < count; n++) {
+				int inOffset = n * below;
+				int outOffset = n * units;
+				for (int i = 0; i < below; i++) {
+					double activation = in[inOffset + i];
+					if (activation == 0) {
+						continue;
+					}
+					int row = i * units;
+					for (int j = 0; j < units; j++) {
+						out[outOffset + j] += layerWeights[row + j] * activation;
+					}
+				}
+				for (int j = 0; j < units; j++) {
+					out[outOffset + j] = sigmoid(out[outOffset + j]);
+				}
+			}
+			activations[layer + 1] = out;
 		}
+		return activations;
+	}
+
+	public int getInputCount() {
+		return sizes[0];
+	}
+
+	public int getOutputCount() {
+		return sizes[sizes.length - 1];
 	}
 
 	/**
@@ -107,19 +182,88 @@ public class NeuralNetwork implements Serializable {
 	 * @return The network value from this input
 	 */
 	public double[] getValue(double[] input) {
-		double[] result = new double[hidden[hidden.length - 1].length];
+		return getValues(input, 1);
+	}
+
+	/**
+	 * Calculates the network values of several inputs in one pass.
+	 *
+	 * @param inputs
+	 *            The inputs, stored one after the other
+	 * @param count
+	 *            The number of inputs
+	 * @return The outputs, stored one after the other in the order of the
+	 *         inputs
+	 */
+	public double[] getValues(double[] inputs, int count) {
+		double[][] activations = forward(inputs, count);
+		return activations[activations.length - 1];
+	}
 
-		for (int i = 0; i < input.length; i++)
-			this.input[i].setValue(input[i]);
+	/**
+	 * Returns the weight of the given unit on the given unit of the layer
+	 * below.
+	 *
+	 * @param layer
+	 *            The layer of the unit, 0 for the lowest hidden layer
+	 */
+	public double getWeight(int layer, int unit, int input) {
+		return weights[layer][input * sizes[layer + 1] + unit];
+	}
 
-		for (int i = 0; i < hidden.length; i++)
-			for (int j = 0; j < hidden[i].length; j++)
-				this.hidden[i][j].recompute();
+	public void randomizeWeights(Random random) {
+		for (double[] layerWeights : weights) {
+			for (int w = 0; w < layerWeights.length; w++) {
+				layerWeights[w] = random.nextDouble() * 0.2;
+			}
+		}
+	}
 
-		for (int j = 0; j < hidden[hidden.length - 1].length; j++)
-			result[j] = this.hidden[hidden.length - 1][j].getValue();
+	public void setWeight(int layer, int unit, int input, double weight) {
+		weights[layer][input * sizes[layer + 1] + unit] = weight;
+	}
 
-		return result;
+	/**
+	 * Decays the given eligibility traces by lambda and adds the gradients of
+	 * the outputs for the given input, and returns the outputs.
+	 */
+	public double[] updateTraces(double[] input, double[][] traces, double lambda) {
+		double[][] activations = forward(input, 1);
+		int outputs = getOutputCount();
+		double[] output = activations[activations.length - 1];
+		for (int k = 0; k < outputs; k++) {
+			// gradient of output k by the sum of each unit of the layer
+			double[] delta = new double[outputs];
+			delta[k] = output[k] * (1 - output[k]);
+			for (int layer = weights.length - 1; layer >= 0; layer--) {
+				int below = sizes[layer];
+				int units = sizes[layer + 1];
+				double[] in = activations[layer];
+				double[] layerWeights = weights[layer];
+				double[] layerTraces = traces[layer];
+				for (int i = 0; i < below; i++) {
+					int row = i * units;
+					for (int j = 0; j < units; j++) {
+						int trace = (row + j) * outputs + k;
+						layerTraces[trace] = lambda * layerTraces[trace] + delta[j] * in[i];
+					}
+				}
+				if (layer == 0) {
+					break;
+				}
+				double[] belowDelta = new double[below];
+				for (int i = 0; i < below; i++) {
+					int row = i * units;
+					double sum = 0;
+					for (int j = 0; j < units; j++) {
+						sum += delta[j] * layerWeights[row + j];
+					}
+					belowDelta[i] = sum * in[i] * (1 - in[i]);
+				}
+				delta = belowDelta;
+			}
+		}
+		return output;
 	}
 
 	/**
@@ -68,6 +68,14 @@ public class FeatureVector implements Cloneable {
 		return clone;
 	}
 
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof FeatureVector)) {
+			return false;
+		}
+		return values.equals(((FeatureVector) other).values);
+	}
+
 	public double get(WeightedFeature param) {
 		return values.get(param);
 	}
@@ -76,6 +84,11 @@ public class FeatureVector implements Cloneable {
 		return values;
 	}
 
+	@Override
+	public int hashCode() {
+		return values.hashCode();
+	}
+
 	public void set(WeightedFeature param, double value) {
 		getValues().put(param, value);
 	}
@@ -13,6 +13,7 @@ import net.demilich.metastone.game.actions.ActionType;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.behaviour.IBehaviour;
+import net.demilich.metastone.game.behaviour.LethalSolver;
 import net.demilich.metastone.game.behaviour.heuristic.IGameStateHeuristic;
 import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.gui.trainingmode.RequestTrainingDataNotification;
@@ -99,6 +100,12 @@ public class GameStateValueBehaviour extends Behaviour {
 			depth = 0;
 		}
 
+		GameAction lethalAction = LethalSolver.findLethalAction(context, player, validActions);
+		if (lethalAction != null) {
+			logger.debug("Selecting lethal action {}", lethalAction);
+			return lethalAction;
+		}
+
 		GameAction bestAction = validActions.get(0);
 		double bestScore = Double.NEGATIVE_INFINITY;
 
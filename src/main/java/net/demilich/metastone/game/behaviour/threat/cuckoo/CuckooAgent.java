@@ -29,11 +29,7 @@ public class CuckooAgent implements Comparable<CuckooAgent> {
 	}
 
 	public void setFitness(double fitness) {
-		if (this.fitness < 0) {
-			this.fitness = fitness;
-		} else {
-			this.fitness = (this.fitness + fitness) * 0.5;
-		}
+		this.fitness = fitness;
 	}
 
 }
@@ -1,9 +1,11 @@
 package net.demilich.metastone.game.behaviour.threat.cuckoo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 
 import net.demilich.metastone.game.behaviour.threat.FeatureVector;
@@ -11,6 +13,13 @@ import net.demilich.metastone.game.behaviour.threat.WeightedFeature;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.utils.MathUtils;
 
+/**
+ * Evolves feature vectors by cuckoo search. Fitness is compared by racing
+ * candidates in the fitness function (see {@link IFitnessFunction#race}),
+ * whose evaluations run at the same time, and a generation continues
+ * whenever the results it needs arrive. Fitness functions may keep what they
+ * measured about a feature vector while a nest holds it.
+ */
 public class CuckooLearner {
 
 	private static int POPULATION_SIZE = 15;
@@ -72,66 +81,97 @@ public class CuckooLearner {
 
 	private final IFitnessFunction fitnessFunction;
 
-	private CuckooAgent fittest;
+	private volatile CuckooAgent fittest;
 
 	public CuckooLearner(Deck deckToTrain, List<Deck> decks) {
+		this(new WinRateFitness(deckToTrain, decks));
+	}
+
+	public CuckooLearner(IFitnessFunction fitnessFunction) {
+		this.fitnessFunction = fitnessFunction;
 		nests = new ArrayList<CuckooAgent>(POPULATION_SIZE);
 		for (int i = 0; i < POPULATION_SIZE; i++) {
 			nests.add(newRandomSolution());
 		}
 		fittest = nests.get(0);
-
-		fitnessFunction = new WinRateFitness(deckToTrain, decks);
 	}
 
-	public void evolve() {
+	/**
+	 * Starts the next generation and returns a future which completes when it
+	 * is done. The next generation must not be started before that.
+	 */
+	public CompletableFuture<Void> evolve() {
 		// pick a random solution
 		int i = ThreadLocalRandom.current().nextInt(POPULATION_SIZE);
 		// change it randomly
 		System.out.println("Random nest picked: " + i);
 		FeatureVector newBreed = levyFlight(nests.get(i).getData());
 		CuckooAgent cuckoo = new CuckooAgent(newBreed);
-		double fitnessI = fitnessFunction.evaluate(newBreed);
-		System.out.println("Fitness I: " + fitnessI);
-		cuckoo.setFitness(fitnessI);
 		int j = ThreadLocalRandom.current().nextInt(POPULATION_SIZE);
 		CuckooAgent randomNest = nests.get(j);
-		double fitnessJ = fitnessFunction.evaluate(randomNest.getData());
-		System.out.println("Fitness J: " + fitnessJ);
-		randomNest.setFitness(fitnessJ);
-
-		// if new solution is better than old one, replace it
-		if (fitnessI > fitnessJ) {
-			System.out.println("New solution is better! Replacing old one...");
-			nests.remove(j);
-			nests.add(cuckoo);
-		}
 
-		// rank all existing solutions
-		for (CuckooAgent nest : nests) {
-			nest.setFitness(fitnessFunction.evaluate(nest.getData()));
-		}
-		Collections.sort(nests);
-		// discard a portion of the worst ones
-		int discardAmount = (int) (POPULATION_SIZE * DISCOVERY_RATE);
-		for (int k = 0; k < discardAmount; k++) {
-			CuckooAgent notFitEnough = nests.remove(nests.size() - 1);
-			System.out.println("Solution with fitness value " + notFitEnough.getFitness() + " has been removed");
-		}
-		// fill up with new
-		while (nests.size() < POPULATION_SIZE) {
-			CuckooAgent newBirdInTown = newRandomSolution();
-			newBirdInTown.setFitness(fitnessFunction.evaluate(newBirdInTown.getData()));
-			nests.add(newBirdInTown);
-		}
-		Collections.sort(nests);
-		fittest = nests.get(0);
-		System.out.println("New best solution: " + fittest.getData());
-		System.out.println("Fitness value: " + fittest.getFitness());
+		return fitnessFunction.race(Arrays.asList(newBreed, randomNest.getData()), 1).thenCompose(result -> {
+			double fitnessI = result.getFitness(0);
+			double fitnessJ = result.getFitness(1);
+			System.out.println("Fitness I: " + fitnessI);
+			System.out.println("Fitness J: " + fitnessJ);
+			cuckoo.setFitness(fitnessI);
+			randomNest.setFitness(fitnessJ);
+			// if new solution is better than old one, replace it
+			if (result.hasSurvived(0) && (!result.hasSurvived(1) || fitnessI > fitnessJ)) {
+				System.out.println("New solution is better! Replacing old one...");
+				nests.remove(randomNest);
+				nests.add(cuckoo);
+				fitnessFunction.forget(randomNest.getData());
+			} else {
+				fitnessFunction.forget(newBreed);
+			}
+			return rank();
+		});
 	}
 
 	public FeatureVector getFittest() {
 		return fittest.getData();
 	}
 
+	/**
+	 * Races all nests to find the portion of the worst ones, discards them
+	 * and fills up with new ones.
+	 */
+	private CompletableFuture<Void> rank() {
+		int discardAmount = (int) (POPULATION_SIZE * DISCOVERY_RATE);
+		List<FeatureVector> candidates = new ArrayList<>(nests.size());
+		for (CuckooAgent nest : nests) {
+			candidates.add(nest.getData());
+		}
+		return fitnessFunction.race(candidates, nests.size() - discardAmount).thenAccept(result -> {
+			// the survivors of the race rank before the eliminated nests
+			List<CuckooAgent> survivors = new ArrayList<>();
+			List<CuckooAgent> eliminated = new ArrayList<>();
+			for (int k = 0; k < nests.size(); k++) {
+				CuckooAgent nest = nests.get(k);
+				nest.setFitness(result.getFitness(k));
+				(result.hasSurvived(k) ? survivors : eliminated).add(nest);
+			}
+			Collections.sort(survivors);
+			Collections.sort(eliminated);
+			nests.clear();
+			nests.addAll(survivors);
+			nests.addAll(eliminated);
+			fittest = nests.get(0);
+			// discard a portion of the worst ones
+			for (int k = 0; k < discardAmount; k++) {
+				CuckooAgent notFitEnough = nests.remove(nests.size() - 1);
+				fitnessFunction.forget(notFitEnough.getData());
+				System.out.println("Solution with fitness value " + notFitEnough.getFitness() + " has been removed");
+			}
+			// fill up with new
+			while (nests.size() < POPULATION_SIZE) {
+				nests.add(newRandomSolution());
+			}
+			System.out.println("New best solution: " + fittest.getData());
+			System.out.println("Fitness value: " + fittest.getFitness());
+		});
+	}
+
 }
\ No newline at end of file
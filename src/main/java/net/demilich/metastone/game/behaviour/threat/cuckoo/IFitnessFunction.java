@@ -1,9 +1,59 @@
 package net.demilich.metastone.game.behaviour.threat.cuckoo;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import net.demilich.metastone.game.behaviour.threat.FeatureVector;
 
 public interface IFitnessFunction {
 
 	double evaluate(FeatureVector featureVector);
 
+	/**
+	 * Starts evaluating the given feature vector and returns its fitness once
+	 * known, without blocking the caller. The vector must not be changed while
+	 * it is evaluated.
+	 */
+	default CompletableFuture<Double> evaluateAsync(FeatureVector featureVector) {
+		return CompletableFuture.completedFuture(evaluate(featureVector));
+	}
+
+	/**
+	 * Tells the fitness function that the given feature vector will not be
+	 * evaluated again, so that anything kept about it can be dropped.
+	 */
+	default void forget(FeatureVector featureVector) {
+	}
+
+	/**
+	 * Compares the given candidates to find the given number of fittest ones.
+	 * Every candidate is evaluated in full, and the fittest ones survive.
+	 * Fitness functions which can measure fitness bit by bit may stop
+	 * evaluating candidates as soon as they are clearly among the worst.
+	 */
+	default CompletableFuture<RaceResult> race(List<FeatureVector> candidates, int survivors) {
+		List<CompletableFuture<Double>> evaluations = new ArrayList<>(candidates.size());
+		for (FeatureVector candidate : candidates) {
+			evaluations.add(evaluateAsync(candidate));
+		}
+		return CompletableFuture.allOf(evaluations.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			double[] fitness = new double[candidates.size()];
+			boolean[] survived = new boolean[candidates.size()];
+			for (int i = 0; i < fitness.length; i++) {
+				fitness[i] = evaluations.get(i).join();
+			}
+			for (int i = 0; i < fitness.length; i++) {
+				int fitter = 0;
+				for (int j = 0; j < fitness.length; j++) {
+					if (fitness[j] > fitness[i] || (fitness[j] == fitness[i] && j < i)) {
+						fitter++;
+					}
+				}
+				survived[i] = fitter < survivors;
+			}
+			return new RaceResult(fitness, survived);
+		});
+	}
+
 }
@@ -0,0 +1,34 @@
+package net.demilich.metastone.game.behaviour.threat.cuckoo;
+
+/**
+ * The outcome of a race between candidates: the fitness measured for each
+ * candidate, and whether it survived the race or was eliminated as clearly
+ * worse than enough others.
+ */
+public class RaceResult {
+
+	private final double[] fitness;
+	private final boolean[] survived;
+
+	public RaceResult(double[] fitness, boolean[] survived) {
+		this.fitness = fitness;
+		this.survived = survived;
+	}
+
+	/**
+	 * Returns the fitness of the candidate with the given index, measured on
+	 * the games it played before it was eliminated or the race ended.
+	 */
+	public double getFitness(int candidate) {
+		return fitness[candidate];
+	}
+
+	public boolean hasSurvived(int candidate) {
+		return survived[candidate];
+	}
+
+	public int size() {
+		return fitness.length;
+	}
+
+}
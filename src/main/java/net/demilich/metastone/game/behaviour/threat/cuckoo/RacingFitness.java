@@ -0,0 +1,178 @@
+package net.demilich.metastone.game.behaviour.threat.cuckoo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+
+/**
+ * A win rate fitness measured in rounds of games, on which candidates are
+ * raced against each other (Hoeffding racing). All candidates still in the
+ * race play the same round at the same time; the n-th round of every
+ * candidate is made of the same games, so that candidates are compared on
+ * common random numbers. After each round, a candidate is eliminated once the
+ * Hoeffding bounds show it to be worse than enough others: if the upper bound
+ * of its win rate is below the lower bound of as many others as there are to
+ * survive. The bounds are checked after every round, so the error
+ * probability is split over all candidates and rounds. The race ends once no
+ * more candidates than are to survive are left, or after the last round, so
+ * that clearly bad candidates play few games and close ones play many.
+ * <p>
+ * The wins of each round are kept per feature vector object, so a vector
+ * raced again only plays the rounds it has not played yet. Equal vectors of
+ * different nests keep their own rounds, and forgetting one of them leaves
+ * the others.
+ */
+public abstract class RacingFitness implements IFitnessFunction {
+
+	private final int roundGames;
+	private final int maxRounds;
+	private final double delta;
+
+	// the wins in each round played so far, per feature vector object;
+	// vectors are mutable, so they are not keyed by their weights
+	private final Map<FeatureVector, List<CompletableFuture<Integer>>> rounds = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+
+	/**
+	 * @param roundGames
+	 *            number of games of each round
+	 * @param maxRounds
+	 *            number of rounds after which a race ends, and which a single
+	 *            evaluation plays
+	 * @param delta
+	 *            probability of eliminating a candidate wrongly, per race
+	 */
+	protected RacingFitness(int roundGames, int maxRounds, double delta) {
+		this.roundGames = roundGames;
+		this.maxRounds = maxRounds;
+		this.delta = delta;
+	}
+
+	@Override
+	public double evaluate(FeatureVector featureVector) {
+		return evaluateAsync(featureVector).join();
+	}
+
+	@Override
+	public CompletableFuture<Double> evaluateAsync(FeatureVector featureVector) {
+		List<CompletableFuture<Integer>> wins = new ArrayList<>(maxRounds);
+		for (int round = 0; round < maxRounds; round++) {
+			wins.add(getRound(featureVector, round));
+		}
+		return CompletableFuture.allOf(wins.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			int totalWins = 0;
+			for (CompletableFuture<Integer> roundWins : wins) {
+				totalWins += roundWins.join();
+			}
+			return 100.0 * totalWins / (maxRounds * roundGames);
+		});
+	}
+
+	@Override
+	public void forget(FeatureVector featureVector) {
+		rounds.remove(featureVector);
+	}
+
+	/**
+	 * Returns the wins of the given vector in the given round, playing the
+	 * round and those before it unless they have been played already.
+	 */
+	private CompletableFuture<Integer> getRound(FeatureVector featureVector, int round) {
+		List<CompletableFuture<Integer>> played = rounds.computeIfAbsent(featureVector, key -> new ArrayList<>());
+		synchronized (played) {
+			while (played.size() <= round) {
+				played.add(playRound(featureVector, played.size()));
+			}
+			return played.get(round);
+		}
+	}
+
+	/**
+	 * Returns the half width of the confidence interval of a win rate
+	 * measured on the given number of games, for a race between the given
+	 * number of candidates. The intervals of all candidates must hold after
+	 * every round at once, so delta is divided by both.
+	 */
+	private double getHoeffdingBound(int candidates, int games) {
+		return Math.sqrt(Math.log(2.0 * candidates * maxRounds / delta) / (2 * games));
+	}
+
+	/**
+	 * Plays the given round of games with the given feature vector, and
+	 * returns the number of games won. Every candidate must play the same
+	 * games in the same round.
+	 */
+	protected abstract CompletableFuture<Integer> playRound(FeatureVector featureVector, int round);
+
+	@Override
+	public CompletableFuture<RaceResult> race(List<FeatureVector> candidates, int survivors) {
+		int[] wins = new int[candidates.size()];
+		int[] roundsPlayed = new int[candidates.size()];
+		boolean[] alive = new boolean[candidates.size()];
+		for (int i = 0; i < alive.length; i++) {
+			alive[i] = true;
+		}
+		return raceRound(candidates, survivors, 0, wins, roundsPlayed, alive);
+	}
+
+	private CompletableFuture<RaceResult> raceRound(List<FeatureVector> candidates, int survivors, int round, int[] wins,
+			int[] roundsPlayed, boolean[] alive) {
+		// null for the candidates out of the race
+		List<CompletableFuture<Integer>> roundWins = new ArrayList<>(candidates.size());
+		List<CompletableFuture<Integer>> running = new ArrayList<>();
+		for (int i = 0; i < candidates.size(); i++) {
+			CompletableFuture<Integer> candidateWins = alive[i] ? getRound(candidates.get(i), round) : null;
+			roundWins.add(candidateWins);
+			if (candidateWins != null) {
+				running.add(candidateWins);
+			}
+		}
+		return CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[running.size()])).thenCompose(ignored -> {
+			int aliveCount = 0;
+			for (int i = 0; i < candidates.size(); i++) {
+				if (alive[i]) {
+					wins[i] += roundWins.get(i).join();
+					roundsPlayed[i]++;
+					aliveCount++;
+				}
+			}
+			// all candidates in the race have played the same number of games
+			int games = (round + 1) * roundGames;
+			double bound = getHoeffdingBound(candidates.size(), games);
+			boolean[] eliminated = new boolean[candidates.size()];
+			for (int i = 0; i < candidates.size(); i++) {
+				if (!alive[i]) {
+					continue;
+				}
+				int dominating = 0;
+				for (int j = 0; j < candidates.size(); j++) {
+					if (alive[j] && (double) (wins[j] - wins[i]) / games > 2 * bound) {
+						dominating++;
+					}
+				}
+				eliminated[i] = dominating >= survivors;
+			}
+			for (int i = 0; i < candidates.size(); i++) {
+				if (eliminated[i]) {
+					alive[i] = false;
+					aliveCount--;
+				}
+			}
+
+			if (round + 1 < maxRounds && aliveCount > survivors) {
+				return raceRound(candidates, survivors, round + 1, wins, roundsPlayed, alive);
+			}
+			double[] fitness = new double[candidates.size()];
+			for (int i = 0; i < candidates.size(); i++) {
+				fitness[i] = 100.0 * wins[i] / (roundsPlayed[i] * roundGames);
+			}
+			return CompletableFuture.completedFuture(new RaceResult(fitness, alive));
+		});
+	}
+
+}
@@ -1,117 +1,97 @@
 package net.demilich.metastone.game.behaviour.threat.cuckoo;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.SimulationBatch;
+import net.demilich.metastone.game.SimulationEngine;
 import net.demilich.metastone.game.behaviour.threat.FeatureVector;
 import net.demilich.metastone.game.behaviour.threat.GameStateValueBehaviour;
 import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.game.entities.heroes.MetaHero;
 import net.demilich.metastone.game.logic.GameLogic;
-import net.demilich.metastone.game.statistics.GameStatistics;
+import net.demilich.metastone.game.logic.GameRandom;
 import net.demilich.metastone.game.statistics.Statistic;
 import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+import net.demilich.metastone.utils.MathUtils;
 
-public class WinRateFitness implements IFitnessFunction {
-
-	private class PlayGameTask implements Callable<Void> {
-
-		private final GameStatistics stats;
-		private final FeatureVector solution;
-
-		public PlayGameTask(GameStatistics stats, FeatureVector solution) {
-			this.stats = stats;
-			this.solution = solution;
-		}
-
-		@Override
-		public Void call() throws Exception {
-			PlayerConfig player1Config = new PlayerConfig(deckToTrain, new GameStateValueBehaviour(solution, "(current)"));
-			player1Config.setName("Player 1 (learning)");
-			Player player1 = new Player(player1Config);
-
-			PlayerConfig player2Config = new PlayerConfig(getRandomDeck(), new GameStateValueBehaviour());
-			player2Config.setName("Player 2 (static)");
-			Player player2 = new Player(player2Config);
-
-			GameContext newGame = new GameContext(player1, player2, new GameLogic());
-			newGame.play();
-			synchronized (stats) {
-				stats.merge(player1.getStatistics());
-			}
+/**
+ * Rates a feature vector by its win rate against the default one. The games
+ * are played on a simulation engine, so that several vectors can be evaluated
+ * at the same time. The n-th game of every vector is played against the same
+ * opponent deck with the same random seed.
+ */
+public class WinRateFitness extends RacingFitness {
 
-			return null;
-		}
+	private static Logger logger = LoggerFactory.getLogger(WinRateFitness.class);
 
-	}
+	private static final int ROUND_GAMES = 10;
+	private static final int MAX_ROUNDS = 10;
+	private static final double DELTA = 0.05;
 
-	private static final int NUMBER_OF_GAMES = 50;
+	private final SimulationEngine engine;
 	private final Deck deckToTrain;
 
 	private final List<Deck> decks;
+	// the seed from which the games of all vectors are derived
+	private final long seed;
 
 	public WinRateFitness(Deck deckToTrain, List<Deck> decks) {
+		this(SimulationEngine.getInstance(), deckToTrain, decks, ThreadLocalRandom.current().nextLong());
+	}
+
+	public WinRateFitness(SimulationEngine engine, Deck deckToTrain, List<Deck> decks, long seed) {
+		super(ROUND_GAMES, MAX_ROUNDS, DELTA);
+		this.engine = engine;
 		this.deckToTrain = deckToTrain;
 		this.decks = decks;
+		this.seed = seed;
 	}
 
-	@Override
-	public double evaluate(FeatureVector solution) {
-		GameStatistics stats = new GameStatistics();
-		double earlyWinRate = launchGames(solution, stats, 10);
-		if (earlyWinRate < 40) {
-			return earlyWinRate;
-		}
-		return launchGames(solution, stats, NUMBER_OF_GAMES - 10);
-
+	private GameContext createGame(FeatureVector solution, int game) {
+		long gameSeed = MathUtils.hash64(seed, game);
+		// picks the cards of random decks
+		GameRandom deckRandom = new GameRandom(gameSeed).fork();
+		PlayerConfig player1Config = new PlayerConfig(deckToTrain, new GameStateValueBehaviour(solution, "(current)"));
+		player1Config.setName("Player 1 (learning)");
+		player1Config.setHeroCard(MetaHero.getHeroCard(deckToTrain.getHeroClass()));
+		Player player1 = new Player(player1Config, deckRandom);
+
+		Deck opponentDeck = getDeck(game);
+		PlayerConfig player2Config = new PlayerConfig(opponentDeck, new GameStateValueBehaviour());
+		player2Config.setName("Player 2 (static)");
+		player2Config.setHeroCard(MetaHero.getHeroCard(opponentDeck.getHeroClass()));
+		Player player2 = new Player(player2Config, deckRandom);
+
+		GameContext context = new GameContext(player1, player2, new GameLogic());
+		context.getRandom().setSeed(gameSeed);
+		return context;
 	}
 
-	private Deck getRandomDeck() {
-		return decks.get(ThreadLocalRandom.current().nextInt(decks.size()));
+	private Deck getDeck(int game) {
+		return decks.get((int) Long.remainderUnsigned(MathUtils.hash64(~seed, game), decks.size()));
 	}
 
-	private double launchGames(FeatureVector solution, GameStatistics stats, int numberOfGames) {
-		int cores = Runtime.getRuntime().availableProcessors();
-		ExecutorService executor = Executors.newFixedThreadPool(cores);
-
-		List<Future<Void>> futures = new ArrayList<Future<Void>>();
-		for (int i = 0; i < numberOfGames; i++) {
-			PlayGameTask task = new PlayGameTask(stats, solution);
-			Future<Void> future = executor.submit(task);
-			futures.add(future);
-		}
-
-		executor.shutdown();
-		boolean completed = false;
-		while (!completed) {
-			completed = true;
-			for (Future<Void> future : futures) {
-				if (!future.isDone()) {
-					completed = false;
-					continue;
-				}
-				try {
-					future.get();
-				} catch (InterruptedException | ExecutionException e) {
-					e.printStackTrace();
-				}
-			}
-			futures.removeIf(future -> future.isDone());
-			try {
-				Thread.sleep(20);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	@Override
+	protected CompletableFuture<Integer> playRound(FeatureVector solution, int round) {
+		AtomicInteger gamesCreated = new AtomicInteger();
+		AtomicInteger gamesWon = new AtomicInteger();
+		SimulationBatch batch = engine.simulate(() -> createGame(solution, round * ROUND_GAMES + gamesCreated.getAndIncrement()),
+				ROUND_GAMES, game -> gamesWon.addAndGet((int) game.getPlayer1().getStatistics().getLong(Statistic.GAMES_WON)));
+		return batch.getCompletion().handle((completedBatch, failure) -> {
+			// games which were not played count as lost
+			if (failure != null) {
+				logger.error("Fitness evaluation failed", failure);
 			}
-		}
-
-		return stats.getDouble(Statistic.WIN_RATE) * 100;
+			return gamesWon.get();
+		});
 	}
 
 }
@@ -1,6 +1,5 @@
 package net.demilich.metastone.game.cards;
 
-import java.util.EnumMap;
 
 import net.demilich.metastone.game.Attribute;
 import net.demilich.metastone.game.GameContext;
@@ -41,7 +40,9 @@ public abstract class Card extends Entity {
 
 		setAttribute(Attribute.BASE_MANA_COST, desc.baseManaCost);
 		if (desc.attributes != null) {
-			attributes.putAll(desc.attributes);
+			for (Attribute attribute : desc.attributes.keySet()) {
+				setAttribute(attribute, desc.attributes.get(attribute));
+			}
 		}
 
 		if (desc.manaCostModifier != null) {
@@ -49,15 +50,13 @@ public abstract class Card extends Entity {
 		}
 
 		if (desc.passiveTrigger != null) {
-			attributes.put(Attribute.PASSIVE_TRIGGER, desc.passiveTrigger);
+			setAttribute(Attribute.PASSIVE_TRIGGER, desc.passiveTrigger);
 		}
 	}
 
 	@Override
 	public Card clone() {
-		Card clone = (Card) super.clone();
-		clone.attributes = new EnumMap<>(getAttributes());
-		return clone;
+		return (Card) super.clone();
 	}
 
 	public int getBaseManaCost() {
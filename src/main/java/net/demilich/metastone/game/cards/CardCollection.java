@@ -3,45 +3,121 @@ package net.demilich.metastone.game.cards;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Predicate;
 
+import net.demilich.metastone.game.entities.IStateHashListener;
+import net.demilich.metastone.game.targeting.IdFactory;
+
 public class CardCollection implements Iterable<Card>, Cloneable {
 
+	/**
+	 * A card list which is shared between a collection and its clones. None
+	 * of the participants may modify the list or hand out its cards; the first
+	 * one needing to do so takes a private deep copy, the last one simply
+	 * adopts the list.
+	 */
+	private static class SharedCards {
+
+		private final List<Card> cards;
+		private int references = 1;
+
+		public SharedCards(List<Card> cards) {
+			this.cards = cards;
+		}
+
+		public synchronized List<Card> release() {
+			if (--references == 0) {
+				return cards;
+			}
+			List<Card> copy = new ArrayList<Card>(cards.size());
+			for (Card card : cards) {
+				copy.add(card.clone());
+			}
+			return copy;
+		}
+
+		public synchronized void retain() {
+			references++;
+		}
+	}
+
 	private List<Card> cards = new ArrayList<Card>();
+	private SharedCards sharedCards;
+	// the cards by entity id, built on first lookup; shared with clones along
+	// with the card list and only changed while it is not
+	private Map<Integer, Card> cardsById;
+	// whether the sum of the state hashes of all cards is kept up to date,
+	// see trackStateHash()
+	private boolean tracksStateHash;
+	private long stateHash;
+	private final IStateHashListener stateHashListener = (card, oldHash, newHash) -> stateHash += newHash - oldHash;
 
 	public CardCollection() {
 
 	}
 
 	public void add(Card card) {
-		cards.add(card);
+		getCards().add(card);
+		onCardAdded(card);
 	}
 
 	public void addAll(CardCollection cardCollection) {
-		for (Card card : cardCollection) {
-			cards.add(card.clone());
+		List<Card> cards = getCards();
+		// only reads the other collection, so it does not need to own its
+		// cards
+		for (Card card : cardCollection.cards) {
+			Card copy = card.clone();
+			cards.add(copy);
+			onCardAdded(copy);
 		}
 	}
 	
 	public void addRandomly(Card card) {
-		int index = ThreadLocalRandom.current().nextInt(cards.size() + 1);
-		cards.add(index, card);
+		addRandomly(card, ThreadLocalRandom.current());
 	}
 
-	public CardCollection clone() {
-		CardCollection clone = new CardCollection();
-		for (Card card : cards) {
-			clone.add(card.clone());
-		}
+	public void addRandomly(Card card, Random random) {
+		int index = random.nextInt(cards.size() + 1);
+		getCards().add(index, card);
+		onCardAdded(card);
+	}
 
+	/**
+	 * Returns a collection containing copies of all cards. The copies are made
+	 * lazily: both collections share their card list until one of them is
+	 * modified or hands out one of its cards. Cloning the same collection from
+	 * several threads is safe as long as none of them modifies it.
+	 */
+	public synchronized CardCollection clone() {
+		if (sharedCards == null) {
+			sharedCards = new SharedCards(cards);
+		}
+		sharedCards.retain();
+		if (cardsById == null) {
+			cardsById = indexCards(cards);
+		}
+		CardCollection clone = new CardCollection();
+		clone.cards = cards;
+		clone.sharedCards = sharedCards;
+		clone.cardsById = cardsById;
+		clone.tracksStateHash = tracksStateHash;
+		clone.stateHash = stateHash;
 		return clone;
 	}
 
+	/**
+	 * Returns whether the given card instance is in this collection, as
+	 * handed out by {@link #get(int)} or {@link #iterator()}. This does not
+	 * take ownership of a shared card list.
+	 */
 	public boolean contains(Card card) {
-		return cards.contains(card);
+		return indexOf(card) >= 0;
 	}
 	
 	public boolean containsCard(Card card) {
@@ -56,32 +132,146 @@ public class CardCollection implements Iterable<Card>, Cloneable {
 		return false;
 	}
 
+	/**
+	 * Returns the card at the given index, for reading only; see
+	 * {@link #iterator()}.
+	 */
 	public Card get(int index) {
 		return cards.get(index);
 	}
 
+	/**
+	 * Returns the card with the given entity id, or null if there is none.
+	 * Only a hit takes ownership of a shared card list.
+	 */
+	public Card getById(int id) {
+		if (peekById(id) == null) {
+			return null;
+		}
+		getCards();
+		return peekById(id);
+	}
+
+	private int indexOf(Card card) {
+		for (int i = 0; i < cards.size(); i++) {
+			if (cards.get(i) == card) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private List<Card> getCards() {
+		if (sharedCards != null) {
+			releaseSharedCards();
+		}
+		return cards;
+	}
+
+	private static Map<Integer, Card> indexCards(List<Card> cards) {
+		Map<Integer, Card> cardsById = new HashMap<>(cards.size() * 2);
+		for (Card card : cards) {
+			cardsById.put(card.getId(), card);
+		}
+		return cardsById;
+	}
+
+	private void onCardAdded(Card card) {
+		if (cardsById != null) {
+			cardsById.put(card.getId(), card);
+		}
+		if (tracksStateHash) {
+			card.setStateHashListener(stateHashListener);
+			stateHash += card.getStateHash();
+		}
+	}
+
+	private void onCardRemoved(Card card) {
+		if (cardsById != null) {
+			if (card.getId() == IdFactory.UNASSIGNED) {
+				// other cards may be waiting for their id under the same key
+				cardsById = null;
+			} else {
+				cardsById.remove(card.getId());
+			}
+		}
+		if (tracksStateHash) {
+			card.setStateHashListener(null);
+			stateHash -= card.getStateHash();
+		}
+	}
+
 	public int getCount() {
 		return cards.size();
 	}
 
 	public Card getRandom() {
+		return getRandom(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Returns a random card, drawn from the given random source; during a game
+	 * this should be {@link net.demilich.metastone.game.GameContext#getRandom()}.
+	 */
+	public Card getRandom(Random random) {
 		if (cards.isEmpty()) {
 			return null;
 		}
-		return cards.get(ThreadLocalRandom.current().nextInt(cards.size()));
+		return getCards().get(random.nextInt(cards.size()));
 	}
 
 	public Card getRandomOfType(CardType cardType) {
-		List<Card> relevantCards = new ArrayList<>();
-		for (Card card : cards) {
-			if (card.getCardType() == cardType) {
-				relevantCards.add(card);
+		return getRandomOfType(cardType, ThreadLocalRandom.current());
+	}
+
+	public Card getRandomOfType(CardType cardType, Random random) {
+		// taking ownership keeps the order of the cards, so the matching
+		// indices can be collected before
+		List<Integer> relevantIndices = new ArrayList<>();
+		for (int i = 0; i < cards.size(); i++) {
+			if (cards.get(i).getCardType() == cardType) {
+				relevantIndices.add(i);
 			}
 		}
-		if (relevantCards.isEmpty()) {
+		if (relevantIndices.isEmpty()) {
 			return null;
 		}
-		return relevantCards.get(ThreadLocalRandom.current().nextInt(relevantCards.size()));
+		return getCards().get(relevantIndices.get(random.nextInt(relevantIndices.size())));
+	}
+
+	private synchronized void releaseSharedCards() {
+		if (sharedCards != null) {
+			List<Card> ownCards = sharedCards.release();
+			if (ownCards != cards) {
+				// the cards were copied
+				cardsById = null;
+			}
+			cards = ownCards;
+			sharedCards = null;
+			if (tracksStateHash) {
+				// the cards were tracked by the collection owning them last
+				for (Card card : cards) {
+					card.setStateHashListener(stateHashListener);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an order independent hash of the state of all cards, without
+	 * taking ownership of a shared card list. This takes constant time if the
+	 * collection {@link #trackStateHash() tracks} its cards, and time linear
+	 * in its size otherwise.
+	 */
+	public long getStateHash() {
+		if (tracksStateHash) {
+			return stateHash;
+		}
+		long hash = 0;
+		for (Card card : cards) {
+			hash += card.getStateHash();
+		}
+		return hash;
 	}
 
 	public boolean hasCardOfType(CardType cardType) {
@@ -93,37 +283,91 @@ public class CardCollection implements Iterable<Card>, Cloneable {
 		return false;
 	}
 
+	/**
+	 * Returns whether the given card instance belongs to this collection, so
+	 * that it may be changed. While the card list is shared with a clone, none
+	 * of its cards belongs to either collection yet (the one taking ownership
+	 * first gets copies), so this returns false for all of them.
+	 */
+	public boolean owns(Card card) {
+		return sharedCards == null && indexOf(card) >= 0;
+	}
+
 	public boolean isEmpty() {
 		return cards.isEmpty();
 	}
 
+	/**
+	 * Iterates over the cards for reading only, without taking ownership of a
+	 * shared card list: the cards must neither be modified nor kept. Use
+	 * {@link #toList()} to get cards which may be.
+	 */
 	@Override
 	public Iterator<Card> iterator() {
-		return cards.iterator();
+		return Collections.unmodifiableList(cards).iterator();
+	}
+
+	/**
+	 * Returns the card with the given entity id, or null if there is none,
+	 * for reading only; see {@link #iterator()}. This does not take ownership
+	 * of a shared card list.
+	 */
+	public Card peekById(int id) {
+		Map<Integer, Card> cardsById = this.cardsById;
+		if (cardsById == null || !cardsById.containsKey(id) && cardsById.containsKey(IdFactory.UNASSIGNED)) {
+			// cards are given their ids while in a collection, so the index
+			// is built again as long as some of them had none yet
+			cardsById = indexCards(cards);
+			this.cardsById = cardsById;
+		}
+		return cardsById.get(id);
 	}
 
 	public Card peekFirst() {
-		return cards.get(0);
+		return getCards().get(0);
 	}
 
+	/**
+	 * Removes the given card instance. It may have been handed out from a
+	 * shared card list; taking ownership keeps the order of the cards, so its
+	 * index is looked up before.
+	 */
 	public boolean remove(Card card) {
-		return cards.remove(card);
+		int index = indexOf(card);
+		if (index < 0) {
+			return false;
+		}
+		getCards().remove(index);
+		onCardRemoved(card);
+		return true;
 	}
 
 	public void removeAll() {
-		cards.clear();
+		removeAll(card -> true);
 	}
 
 	public void removeAll(Predicate<Card> filter) {
-		cards.removeIf(filter);
+		for (Iterator<Card> iterator = getCards().iterator(); iterator.hasNext();) {
+			Card card = iterator.next();
+			if (filter.test(card)) {
+				iterator.remove();
+				onCardRemoved(card);
+			}
+		}
 	}
 
 	public Card removeFirst() {
-		return cards.remove(0);
+		Card card = getCards().remove(0);
+		onCardRemoved(card);
+		return card;
 	}
 
 	public void shuffle() {
-		Collections.shuffle(cards);
+		shuffle(ThreadLocalRandom.current());
+	}
+
+	public void shuffle(Random random) {
+		Collections.shuffle(getCards(), random);
 	}
 
 	public void sortByManaCost() {
@@ -136,15 +380,33 @@ public class CardCollection implements Iterable<Card>, Cloneable {
 				return manaCost1.compareTo(manaCost2);
 			}
 		};
-		cards.sort(manaComparator);
+		getCards().sort(manaComparator);
 	}
 
 	public void sortByName() {
-		cards.sort((card1, card2) -> card1.getName().compareTo(card2.getName()));
+		getCards().sort((card1, card2) -> card1.getName().compareTo(card2.getName()));
+	}
+
+	/**
+	 * Makes this collection keep the sum of the state hashes of its cards up
+	 * to date while they change, so that {@link #getStateHash()} takes
+	 * constant time; meant for the hands and decks of players. A card can
+	 * only be tracked by one collection at a time, the last one it was added
+	 * to. Clones track their cards as well.
+	 */
+	public void trackStateHash() {
+		tracksStateHash = true;
+		stateHash = 0;
+		for (Card card : cards) {
+			stateHash += card.getStateHash();
+			if (sharedCards == null) {
+				card.setStateHashListener(stateHashListener);
+			}
+		}
 	}
 
 	public List<Card> toList() {
-		return new ArrayList<>(cards);
+		return new ArrayList<>(getCards());
 	}
 
 }
@@ -83,6 +83,16 @@ public class MinionCard extends Card {
 		return getAttributeValue(Attribute.BASE_HP);
 	}
 
+	/**
+	 * Returns whether the minion has no battlecry, deathrattle, trigger, aura,
+	 * card cost modifier or trigger while in the hand, so that summoning it
+	 * changes nothing but the board and the player's mana.
+	 */
+	public boolean isVanilla() {
+		return desc.battlecry == null && desc.deathrattle == null && desc.trigger == null && desc.aura == null
+				&& desc.cardCostModifier == null && desc.passiveTrigger == null;
+	}
+
 	@Override
 	public PlayCardAction play() {
 		return new PlayMinionCardAction(getCardReference());
@@ -1,5 +1,7 @@
 package net.demilich.metastone.game.decks;
 
+import java.util.Random;
+
 import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.game.cards.CardCollection;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
@@ -34,6 +36,14 @@ public class Deck {
 		return getCards().clone();
 	}
 
+	/**
+	 * Returns the cards to play a game with; decks which pick their cards at
+	 * random draw them from the given random source.
+	 */
+	public CardCollection getCardsCopy(Random random) {
+		return getCardsCopy();
+	}
+
 	public String getDescription() {
 		return description;
 	}
@@ -1,5 +1,6 @@
 package net.demilich.metastone.game.decks;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import net.demilich.metastone.game.cards.Card;
@@ -9,9 +10,13 @@ import net.demilich.metastone.game.entities.heroes.HeroClass;
 public class DeckFactory {
 
 	public static Deck getDeckConsistingof(int count, Card... cards) {
+		return getDeckConsistingof(ThreadLocalRandom.current(), count, cards);
+	}
+
+	public static Deck getDeckConsistingof(Random random, int count, Card... cards) {
 		CardCollection cardCollection = new CardCollection();
 		for (int i = 0; i < count; i++) {
-			int randomIndex = ThreadLocalRandom.current().nextInt(cards.length);
+			int randomIndex = random.nextInt(cards.length);
 			cardCollection.add(cards[randomIndex].clone());
 		}
 		Deck deck = new Deck(HeroClass.ANY);
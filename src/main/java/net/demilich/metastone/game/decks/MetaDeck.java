@@ -2,6 +2,7 @@ package net.demilich.metastone.game.decks;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import net.demilich.metastone.game.entities.heroes.HeroClass;
@@ -28,7 +29,15 @@ public class MetaDeck extends Deck {
 	}
 
 	public Deck selectRandom() {
-		return getDecks().get(ThreadLocalRandom.current().nextInt(getDecks().size()));
+		return selectRandom(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Returns one of the decks, drawn from the given random source, e.g. one
+	 * derived from the seed of a game.
+	 */
+	public Deck selectRandom(Random random) {
+		return getDecks().get(random.nextInt(getDecks().size()));
 	}
 
 }
@@ -1,5 +1,6 @@
 package net.demilich.metastone.game.decks;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import net.demilich.metastone.game.cards.Card;
@@ -19,6 +20,11 @@ public class RandomDeck extends Deck {
 
 	@Override
 	public CardCollection getCardsCopy() {
+		return getCardsCopy(ThreadLocalRandom.current());
+	}
+
+	@Override
+	public CardCollection getCardsCopy(Random random) {
 		Deck copyDeck = new Deck(getHeroClass());
 		IDeckValidator deckValidator = new DefaultDeckValidator();
 		CardCollection classCards = CardCatalogue.query(card -> {
@@ -31,7 +37,7 @@ public class RandomDeck extends Deck {
 		while (!copyDeck.isComplete()) {
 			// random deck consists of roughly 50% class cards and 50% neutral
 			// cards
-			Card randomCard = ThreadLocalRandom.current().nextBoolean() ? classCards.getRandom() : neutralCards.getRandom();
+			Card randomCard = random.nextBoolean() ? classCards.getRandom(random) : neutralCards.getRandom(random);
 			if (deckValidator.canAddCardToDeck(randomCard, copyDeck)) {
 				copyDeck.getCards().add(randomCard);
 			}
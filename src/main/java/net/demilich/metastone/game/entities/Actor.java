@@ -1,7 +1,6 @@
 package net.demilich.metastone.game.entities;
 
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
 
 import net.demilich.metastone.game.Attribute;
@@ -25,10 +24,14 @@ public abstract class Actor extends Entity {
 	}
 
 	public void addDeathrattle(SpellDesc deathrattleSpell) {
-		if (!hasAttribute(Attribute.DEATHRATTLES)) {
-			setAttribute(Attribute.DEATHRATTLES, new ArrayList<SpellDesc>());
+		// the deathrattle list may be shared with clones, so it is never
+		// modified in place
+		List<SpellDesc> deathrattles = new ArrayList<SpellDesc>();
+		if (hasAttribute(Attribute.DEATHRATTLES)) {
+			deathrattles.addAll(getDeathrattles());
 		}
-		getDeathrattles().add(deathrattleSpell);
+		deathrattles.add(deathrattleSpell);
+		setAttribute(Attribute.DEATHRATTLES, deathrattles);
 	}
 
 	public boolean canAttackThisTurn() {
@@ -47,15 +50,7 @@ public abstract class Actor extends Entity {
 	@Override
 	public Actor clone() {
 		Actor clone = (Actor) super.clone();
-		clone.attributes = new EnumMap<>(getAttributes());
 		clone.spellTrigger = spellTrigger != null ? spellTrigger.clone() : null;
-		if (hasAttribute(Attribute.DEATHRATTLES)) {
-			clone.removeAttribute(Attribute.DEATHRATTLES);
-			for (SpellDesc deathrattleSpell : getDeathrattles()) {
-				SpellDesc deathrattleClone = deathrattleSpell.clone();
-				clone.addDeathrattle(deathrattleClone);
-			}
-		}
 		return clone;
 	}
 
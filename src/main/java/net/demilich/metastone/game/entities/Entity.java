@@ -1,34 +1,206 @@
 package net.demilich.metastone.game.entities;
 
-import java.util.EnumMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import net.demilich.metastone.game.Attribute;
 import net.demilich.metastone.game.logic.CustomCloneable;
 import net.demilich.metastone.game.targeting.EntityReference;
 import net.demilich.metastone.game.targeting.IdFactory;
+import net.demilich.metastone.utils.MathUtils;
 
 public abstract class Entity extends CustomCloneable {
 
+	/**
+	 * A read-only view of the attributes of an entity, iterating in the order
+	 * of their declaration like the EnumMap they used to be stored in.
+	 */
+	private class AttributeView extends AbstractMap<Attribute, Object> {
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof Attribute && isPresent(((Attribute) key).ordinal());
+		}
+
+		@Override
+		public Set<Map.Entry<Attribute, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<Attribute, Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<Attribute, Object>> iterator() {
+					return new Iterator<Map.Entry<Attribute, Object>>() {
+
+						private int next = nextPresent(0);
+
+						@Override
+						public boolean hasNext() {
+							return next < ATTRIBUTES.length;
+						}
+
+						@Override
+						public Map.Entry<Attribute, Object> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							Attribute attribute = ATTRIBUTES[next];
+							next = nextPresent(next + 1);
+							return new SimpleImmutableEntry<Attribute, Object>(attribute, getAttribute(attribute));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return AttributeView.this.size();
+				}
+			};
+		}
+
+		@Override
+		public Object get(Object key) {
+			return key instanceof Attribute ? getAttribute((Attribute) key) : null;
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (int i = PRESENCE_OFFSET; i < values.length; i++) {
+				size += Integer.bitCount(values[i]);
+			}
+			return size;
+		}
+
+	}
+
+	private static final Attribute[] ATTRIBUTES = Attribute.values();
+	// the presence bits of all attributes are stored behind their values
+	private static final int PRESENCE_OFFSET = ATTRIBUTES.length;
+
 	private String name;
-	protected Map<Attribute, Object> attributes = new EnumMap<Attribute, Object>(Attribute.class);
+	// integer attribute values indexed by ordinal, followed by the presence
+	// bits
+	private int[] values = new int[PRESENCE_OFFSET + (ATTRIBUTES.length + 31) / 32];
+	// non-integer attribute values such as DEATHRATTLES or BATTLECRY; only
+	// allocated when needed
+	private Object[] objects;
+	// set when the attribute arrays are shared with a clone; they are copied
+	// before the next write. Several search threads may clone the same
+	// entity, so the flag is volatile and only written by the first of them
+	private volatile boolean attributesShared;
+	// Zobrist hash of all attributes, updated on every write
+	private long attributeHash;
+	// the zone keeping the hash of this entity, if any; not cloned
+	private IStateHashListener stateHashListener;
 	private int id = IdFactory.UNASSIGNED;
 	private int ownerIndex = -1;
 
+	private void attributeHashChanged(long oldAttributeHash) {
+		if (stateHashListener != null && attributeHash != oldAttributeHash) {
+			long nameHash = getNameHash();
+			stateHashListener.onStateHashChanged(this, oldAttributeHash ^ nameHash, attributeHash ^ nameHash);
+		}
+	}
+
+	public void clearAttributes() {
+		long oldAttributeHash = attributeHash;
+		values = new int[values.length];
+		objects = null;
+		attributesShared = false;
+		attributeHash = 0;
+		attributeHashChanged(oldAttributeHash);
+	}
+
+	@Override
+	public Entity clone() {
+		if (!attributesShared) {
+			attributesShared = true;
+		}
+		// the clone copies the flag
+		Entity clone = (Entity) super.clone();
+		clone.stateHashListener = null;
+		return clone;
+	}
+
+	private void copySharedAttributes() {
+		if (attributesShared) {
+			values = values.clone();
+			if (objects != null) {
+				objects = objects.clone();
+			}
+			attributesShared = false;
+		}
+	}
+
+	private long attributeKey(int index) {
+		if (objects != null && objects[index] != null) {
+			Object value = objects[index];
+			long valueKey;
+			if (value instanceof Enum) {
+				valueKey = ((Enum<?>) value).ordinal();
+			} else if (value instanceof List) {
+				valueKey = ((List<?>) value).size();
+			} else {
+				valueKey = value.getClass().getName().hashCode();
+			}
+			return MathUtils.hash64(~index, valueKey);
+		}
+		// absent and zero valued attributes are equivalent
+		return values[index] != 0 ? MathUtils.hash64(index, values[index]) : 0;
+	}
+
 	public Object getAttribute(Attribute attribute) {
-		return attributes.get(attribute);
+		int index = attribute.ordinal();
+		if (!isPresent(index)) {
+			return null;
+		}
+		if (objects != null && objects[index] != null) {
+			return objects[index];
+		}
+		return values[index];
 	}
 
+	/**
+	 * Returns a read-only view of all attributes of this entity, which
+	 * follows later changes of the entity. Copy the keys before changing the
+	 * attributes while iterating over them.
+	 */
 	public Map<Attribute, Object> getAttributes() {
-		return attributes;
+		return new AttributeView();
 	}
 
+	/**
+	 * Returns the value of an integer attribute, 0 if it is absent.
+	 *
+	 * @throws ClassCastException
+	 *             if the attribute holds a value which is not an integer
+	 */
 	public int getAttributeValue(Attribute attribute) {
-		return attributes.containsKey(attribute) ? (int) attributes.get(attribute) : 0;
+		int index = attribute.ordinal();
+		if (objects != null && objects[index] != null) {
+			return (Integer) objects[index];
+		}
+		return values[index];
 	}
 
 	public abstract EntityType getEntityType();
 
+	/**
+	 * Returns a 64 bit hash of the name and attributes of this entity. It is
+	 * maintained incrementally, so calling this is cheap.
+	 */
+	public long getStateHash() {
+		return attributeHash ^ getNameHash();
+	}
+
+	private long getNameHash() {
+		return name != null ? MathUtils.hash64(name.hashCode(), 0) : 0;
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -46,25 +218,34 @@ public abstract class Entity extends CustomCloneable {
 	}
 
 	public boolean hasAttribute(Attribute attribute) {
-		Object value = attributes.get(attribute);
-		if (value == null) {
-			return false;
-		}
-		if (value instanceof Integer) {
-			return ((int) value) != 0;
-		}
-		return true;
+		int index = attribute.ordinal();
+		return values[index] != 0 || objects != null && objects[index] != null;
 	}
 
 	public boolean isDestroyed() {
 		return hasAttribute(Attribute.DESTROYED);
 	}
 
-	public void modifyAttribute(Attribute attribute, int value) {
-		if (!attributes.containsKey(attribute)) {
-			setAttribute(attribute, 0);
+	private boolean isPresent(int index) {
+		return (values[PRESENCE_OFFSET + (index >>> 5)] & (1 << index)) != 0;
+	}
+
+	private int nextPresent(int index) {
+		while (index < ATTRIBUTES.length && !isPresent(index)) {
+			index++;
 		}
-		setAttribute(attribute, getAttributeValue(attribute) + value);
+		return index;
+	}
+
+	public void modifyAttribute(Attribute attribute, int value) {
+		copySharedAttributes();
+		int index = attribute.ordinal();
+		long oldAttributeHash = attributeHash;
+		attributeHash ^= attributeKey(index);
+		values[index] += value;
+		values[PRESENCE_OFFSET + (index >>> 5)] |= 1 << index;
+		attributeHash ^= attributeKey(index);
+		attributeHashChanged(oldAttributeHash);
 	}
 	
 	public void modifyHpBonus(int value) {
@@ -72,19 +253,60 @@ public abstract class Entity extends CustomCloneable {
 	}
 
 	public void removeAttribute(Attribute attribute) {
-		attributes.remove(attribute);
+		int index = attribute.ordinal();
+		if (!isPresent(index)) {
+			return;
+		}
+		copySharedAttributes();
+		long oldAttributeHash = attributeHash;
+		attributeHash ^= attributeKey(index);
+		values[index] = 0;
+		values[PRESENCE_OFFSET + (index >>> 5)] &= ~(1 << index);
+		if (objects != null) {
+			objects[index] = null;
+		}
+		attributeHashChanged(oldAttributeHash);
 	}
 
 	public void setAttribute(Attribute attribute) {
-		attributes.put(attribute, 1);
+		setAttribute(attribute, 1);
 	}
 
 	public void setAttribute(Attribute attribute, int value) {
-		attributes.put(attribute, value);
+		copySharedAttributes();
+		int index = attribute.ordinal();
+		long oldAttributeHash = attributeHash;
+		attributeHash ^= attributeKey(index);
+		values[index] = value;
+		values[PRESENCE_OFFSET + (index >>> 5)] |= 1 << index;
+		if (objects != null) {
+			objects[index] = null;
+		}
+		attributeHash ^= attributeKey(index);
+		attributeHashChanged(oldAttributeHash);
 	}
 
 	public void setAttribute(Attribute attribute, Object value) {
-		attributes.put(attribute, value);
+		if (value == null) {
+			removeAttribute(attribute);
+			return;
+		}
+		if (value instanceof Integer) {
+			setAttribute(attribute, (int) value);
+			return;
+		}
+		copySharedAttributes();
+		int index = attribute.ordinal();
+		long oldAttributeHash = attributeHash;
+		attributeHash ^= attributeKey(index);
+		if (objects == null) {
+			objects = new Object[ATTRIBUTES.length];
+		}
+		objects[index] = value;
+		values[index] = 0;
+		values[PRESENCE_OFFSET + (index >>> 5)] |= 1 << index;
+		attributeHash ^= attributeKey(index);
+		attributeHashChanged(oldAttributeHash);
 	}
 
 	public void setId(int id) {
@@ -92,11 +314,23 @@ public abstract class Entity extends CustomCloneable {
 	}
 
 	public void setName(String name) {
+		long oldHash = getStateHash();
 		this.name = name;
+		if (stateHashListener != null && getStateHash() != oldHash) {
+			stateHashListener.onStateHashChanged(this, oldHash, getStateHash());
+		}
 	}
 
 	public void setOwner(int ownerIndex) {
 		this.ownerIndex = ownerIndex;
 	}
 
+	/**
+	 * Sets the zone to notify when the state hash of this entity changes, or
+	 * null. An entity is kept by at most one zone; clones start without one.
+	 */
+	public void setStateHashListener(IStateHashListener stateHashListener) {
+		this.stateHashListener = stateHashListener;
+	}
+
 }
@@ -0,0 +1,11 @@
+package net.demilich.metastone.game.entities;
+
+/**
+ * Gets notified when the state hash of an entity changes, so that a zone can
+ * keep the hash of all its entities up to date.
+ */
+public interface IStateHashListener {
+
+	public void onStateHashChanged(Entity entity, long oldHash, long newHash);
+
+}
@@ -53,11 +53,8 @@ public class Hero extends Actor {
 
 	public Map<Attribute, Object> getAttributesCopy() {
 		Map<Attribute, Object> copy = new EnumMap<>(Attribute.class);
-		for (Attribute attribute : attributes.keySet()) {
-			if (attribute != Attribute.COMBO) {
-				continue;
-			}
-			copy.put(attribute, attributes.get(attribute));
+		if (getAttribute(Attribute.COMBO) != null) {
+			copy.put(Attribute.COMBO, getAttribute(Attribute.COMBO));
 		}
 		return copy;
 	}
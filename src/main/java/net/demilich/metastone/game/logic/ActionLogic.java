@@ -3,6 +3,7 @@ package net.demilich.metastone.game.logic;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 
 import net.demilich.metastone.game.Attribute;
 import net.demilich.metastone.game.GameContext;
@@ -23,57 +24,116 @@ import net.demilich.metastone.game.targeting.TargetSelection;
 
 public class ActionLogic {
 
+	/**
+	 * Receives the actions of a player before their targets are rolled out.
+	 */
+	private interface ActionSink {
+
+		void add(GameAction action);
+
+	}
+
+	/**
+	 * Draws one of the rolled out actions uniformly at random while they are
+	 * enumerated: each action (with all of its targets) replaces the current
+	 * pick with a probability proportional to its number of targets. Only the
+	 * picked target is cloned into an action.
+	 */
+	private class ActionSampler implements ActionSink {
+
+		private final GameContext context;
+		private final Player player;
+		private final Random random;
+		private int count;
+		private GameAction action;
+		private Entity target;
+
+		public ActionSampler(GameContext context, Player player, Random random) {
+			this.context = context;
+			this.player = player;
+			this.random = random;
+		}
+
+		@Override
+		public void add(GameAction candidate) {
+			context.getLogic().processTargetModifiers(player, candidate);
+			if (candidate.getTargetRequirement() == TargetSelection.NONE) {
+				if (random.nextInt(++count) == 0) {
+					action = candidate;
+				}
+				return;
+			}
+			List<Entity> validTargets = targetLogic.getValidTargets(context, player, candidate);
+			if (validTargets.isEmpty()) {
+				return;
+			}
+			count += validTargets.size();
+			int pick = random.nextInt(count);
+			if (pick < validTargets.size()) {
+				action = candidate;
+				target = validTargets.get(pick);
+			}
+		}
+
+		public void addEndTurn() {
+			if (random.nextInt(++count) == 0) {
+				action = new EndTurnAction();
+			}
+		}
+
+		public GameAction getAction() {
+			if (action == null || action.getTargetRequirement() == TargetSelection.NONE) {
+				return action;
+			}
+			GameAction rolledOutAction = action.clone();
+			rolledOutAction.setTarget(target);
+			return rolledOutAction;
+		}
+
+	}
+
 	private final TargetLogic targetLogic = new TargetLogic();
 
-	private List<GameAction> getHeroAttackActions(GameContext context, Player player) {
-		List<GameAction> heroAttackActions = new ArrayList<GameAction>();
+	private void addHeroAttackActions(GameContext context, Player player, ActionSink actions) {
 		Hero hero = player.getHero();
 		if (!hero.canAttackThisTurn()) {
-			return heroAttackActions;
+			return;
 		}
-		rollout(new PhysicalAttackAction(hero.getReference()), context, player, heroAttackActions);
-
-		return heroAttackActions;
+		actions.add(new PhysicalAttackAction(hero.getReference()));
 	}
 
-	private List<GameAction> getHeroPowerActions(GameContext context, Player player) {
-		List<GameAction> heroPowerActions = new ArrayList<GameAction>();
+	private void addHeroPowerActions(GameContext context, Player player, ActionSink actions) {
 		HeroPower heroPower = player.getHero().getHeroPower();
 		heroPower.onWillUse(context, player);
 		CardReference heroPowerReference = new CardReference(player.getId(), CardLocation.HERO_POWER, heroPower.getId(),
 				heroPower.getName());
 		if (!context.getLogic().canPlayCard(player.getId(), heroPowerReference)) {
-			return heroPowerActions;
+			return;
 		}
 		if (heroPower.hasAttribute(Attribute.CHOOSE_ONE)) {
 			IChooseOneCard chooseOneCard = (IChooseOneCard) heroPower;
 			for (GameAction chooseOneAction : chooseOneCard.playOptions()) {
-				rollout(chooseOneAction, context, player, heroPowerActions);
+				actions.add(chooseOneAction);
 			}
 		} else {
-			rollout(heroPower.play(), context, player, heroPowerActions);	
+			actions.add(heroPower.play());
 		}
-		
-		return heroPowerActions;
 	}
 
-	private List<GameAction> getPhysicalAttackActions(GameContext context, Player player) {
-		List<GameAction> physicalAttackActions = new ArrayList<GameAction>();
-		physicalAttackActions.addAll(getHeroAttackActions(context, player));
+	private void addPhysicalAttackActions(GameContext context, Player player, ActionSink actions) {
+		addHeroAttackActions(context, player, actions);
 
 		for (Minion minion : player.getMinions()) {
 			if (!minion.canAttackThisTurn()) {
 				continue;
 			}
 
-			rollout(new PhysicalAttackAction(minion.getReference()), context, player, physicalAttackActions);
+			actions.add(new PhysicalAttackAction(minion.getReference()));
 		}
-		return physicalAttackActions;
 	}
 
-	private List<GameAction> getPlayCardActions(GameContext context, Player player) {
-		List<GameAction> playCardActions = new ArrayList<GameAction>();
-		playCardActions.addAll(getHeroPowerActions(context, player));
+	private void addPlayCardActions(GameContext context, Player player, ActionSink actions) {
+		addHeroPowerActions(context, player, actions);
 
 		for (Card card : player.getHand()) {
 			CardReference cardReference = new CardReference(player.getId(), CardLocation.HAND, card.getId(), card.getName());
@@ -84,19 +144,34 @@ public class ActionLogic {
 			if (card.hasAttribute(Attribute.CHOOSE_ONE)) {
 				IChooseOneCard chooseOneCard = (IChooseOneCard) card;
 				for (GameAction chooseOneAction : chooseOneCard.playOptions()) {
-					rollout(chooseOneAction, context, player, playCardActions);
+					actions.add(chooseOneAction);
 				}
 			} else {
-				rollout(card.play(), context, player, playCardActions);
+				actions.add(card.play());
 			}
 		}
-		return playCardActions;
+	}
+
+	/**
+	 * Returns one of the actions {@link #getValidActions(GameContext, Player)}
+	 * would return, each with the same probability, without creating the
+	 * others. Returns null if there are no valid actions.
+	 */
+	public GameAction getRandomAction(GameContext context, Player player, Random random) {
+		ActionSampler sampler = new ActionSampler(context, player, random);
+		addPhysicalAttackActions(context, player, sampler);
+		addPlayCardActions(context, player, sampler);
+		if (context.getTurnState() != TurnState.TURN_ENDED) {
+			sampler.addEndTurn();
+		}
+		return sampler.getAction();
 	}
 
 	public List<GameAction> getValidActions(GameContext context, Player player) {
 		List<GameAction> validActions = new ArrayList<GameAction>();
-		validActions.addAll(getPhysicalAttackActions(context, player));
-		validActions.addAll(getPlayCardActions(context, player));
+		ActionSink sink = action -> rollout(action, context, player, validActions);
+		addPhysicalAttackActions(context, player, sink);
+		addPlayCardActions(context, player, sink);
 		if (context.getTurnState() != TurnState.TURN_ENDED) {
 			validActions.add(new EndTurnAction());
 		}
@@ -8,7 +8,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,6 +75,7 @@ import net.demilich.metastone.game.spells.trigger.TriggerLayer;
 import net.demilich.metastone.game.spells.trigger.secrets.Secret;
 import net.demilich.metastone.game.targeting.CardLocation;
 import net.demilich.metastone.game.targeting.CardReference;
+import net.demilich.metastone.game.targeting.EntityIndex.Zone;
 import net.demilich.metastone.game.targeting.EntityReference;
 import net.demilich.metastone.game.targeting.IdFactory;
 import net.demilich.metastone.game.targeting.TargetSelection;
@@ -183,16 +184,17 @@ public class GameLogic implements Cloneable {
 		return baseValue + spellpower;
 	}
 
-	private void assignCardIds(CardCollection cardCollection) {
-		for (Card card : cardCollection) {
+	private void assignCardIds(int playerId, CardCollection cardCollection, Zone zone) {
+		for (Card card : cardCollection.toList()) {
 			card.setId(idFactory.generateId());
 			card.setLocation(CardLocation.DECK);
+			context.getEntityIndex().put(playerId, card, zone);
 		}
 	}
 
 	public boolean canPlayCard(int playerId, CardReference cardReference) {
 		Player player = context.getPlayer(playerId);
-		Card card = context.resolveCardReference(cardReference);
+		Card card = context.peekCardReference(cardReference);
 		int manaCost = getModifiedManaCost(player, card);
 		if (player.getMana() < manaCost) {
 			return false;
@@ -331,6 +333,7 @@ public class GameLogic implements Cloneable {
 				actor.setAttribute(Attribute.PENDING_DESTROY);
 				removeSpelltriggers(actor);
 				context.getPlayer(actor.getOwner()).getGraveyard().add(actor);
+				context.getEntityIndex().put(actor.getOwner(), actor, Zone.GRAVEYARD);
 				destroyList.add(actor);
 			}
 		}
@@ -478,7 +481,7 @@ public class GameLogic implements Cloneable {
 
 		int boardPosition = owner.getMinions().indexOf(minion);
 		if (boardPosition != -1) {
-			owner.getMinions().remove(boardPosition);
+			owner.removeMinion(boardPosition);
 		}
 
 		resolveDeathrattles(owner, minion, boardPosition);
@@ -493,7 +496,7 @@ public class GameLogic implements Cloneable {
 	}
 
 	public int determineBeginner(int... playerIds) {
-		return ThreadLocalRandom.current().nextBoolean() ? playerIds[0] : playerIds[1];
+		return context.getRandom().nextBoolean() ? playerIds[0] : playerIds[1];
 	}
 
 	public void discardCard(Player player, Card card) {
@@ -520,7 +523,7 @@ public class GameLogic implements Cloneable {
 			return null;
 		}
 
-		Card card = deck.getRandom();
+		Card card = deck.getRandom(context.getRandom());
 		return drawCard(playerId, card, source);
 	}
 
@@ -591,6 +594,7 @@ public class GameLogic implements Cloneable {
 
 		log("{} equips weapon {}", player.getHero(), weapon);
 		player.getHero().setWeapon(weapon);
+		context.getEntityIndex().put(playerId, weapon, Zone.WEAPON);
 		weapon.onEquip(context, player);
 		weapon.setActive(context.getActivePlayerId() == playerId);
 		if (weapon.getBattlecry() != null && weapon.getBattlecry().isResolvedLate()) {
@@ -684,7 +688,7 @@ public class GameLogic implements Cloneable {
 			return originalTarget;
 		}
 
-		return (Actor) SpellUtils.getRandomTarget(validTargets);
+		return (Actor) SpellUtils.getRandomTarget(context, validTargets);
 	}
 
 	/**
@@ -783,6 +787,15 @@ public class GameLogic implements Cloneable {
 		return total;
 	}
 
+	/**
+	 * Returns a uniformly random valid action of the given player, or null if
+	 * there is none, without creating all the valid actions.
+	 */
+	public GameAction getRandomAction(int playerId, Random random) {
+		Player player = context.getPlayer(playerId);
+		return actionLogic.getRandomAction(context, player, random);
+	}
+
 	public List<GameAction> getValidActions(int playerId) {
 		Player player = context.getPlayer(playerId);
 		return actionLogic.getValidActions(context, player);
@@ -909,12 +922,14 @@ public class GameLogic implements Cloneable {
 		player.getHero().setHp(player.getHero().getAttributeValue(Attribute.BASE_HP));
 
 		player.getHero().getHeroPower().setId(idFactory.generateId());
-		assignCardIds(player.getDeck());
-		assignCardIds(player.getHand());
+		context.getEntityIndex().put(player.getId(), player.getHero(), Zone.HERO);
+		context.getEntityIndex().put(player.getId(), player.getHero().getHeroPower(), Zone.HERO_POWER);
+		assignCardIds(playerId, player.getDeck(), Zone.DECK);
+		assignCardIds(playerId, player.getHand(), Zone.HAND);
 
 		log("Setting hero hp to {} for {}", player.getHero().getHp(), player.getName());
 
-		player.getDeck().shuffle();
+		player.getDeck().shuffle(context.getRandom());
 
 		mulligan(player, begins);
 	}
@@ -931,7 +946,7 @@ public class GameLogic implements Cloneable {
 	}
 
 	public JoustEvent joust(Player player) {
-		Card ownCard = player.getDeck().getRandomOfType(CardType.MINION);
+		Card ownCard = player.getDeck().getRandomOfType(CardType.MINION, context.getRandom());
 		Card opponentCard = null;
 		boolean won = false;
 		// no minions left in deck - automatically loose joust
@@ -940,7 +955,7 @@ public class GameLogic implements Cloneable {
 			log("Jousting LOST - no minion card left");
 		} else {
 			Player opponent = context.getOpponent(player);
-			opponentCard = opponent.getDeck().getRandomOfType(CardType.MINION);
+			opponentCard = opponent.getDeck().getRandomOfType(CardType.MINION, context.getRandom());
 			// opponent has no minions left in deck - automatically win joust
 			if (opponentCard == null) {
 				won = true;
@@ -1014,9 +1029,10 @@ public class GameLogic implements Cloneable {
 			return;
 		}
 		if (canSummonMoreMinions(player)) {
-			context.getOpponent(player).getMinions().remove(minion);
-			player.getMinions().add(minion);
+			context.getOpponent(player).removeMinion(minion);
+			player.addMinion(minion);
 			minion.setOwner(player.getId());
+			context.getEntityIndex().put(player.getId(), minion, Zone.MINION);
 			applyAttribute(minion, Attribute.SUMMONING_SICKNESS);
 			List<IGameEventListener> triggers = context.getTriggersAssociatedWith(minion.getReference());
 			removeSpelltriggers(minion);
@@ -1060,7 +1076,7 @@ public class GameLogic implements Cloneable {
 		int numberOfStarterCards = begins ? STARTER_CARDS : STARTER_CARDS + 1;
 		List<Card> starterCards = new ArrayList<>();
 		for (int j = 0; j < numberOfStarterCards; j++) {
-			Card randomCard = player.getDeck().getRandom();
+			Card randomCard = player.getDeck().getRandom(context.getRandom());
 			player.getDeck().remove(randomCard);
 			log("Player {} been offered card {} for mulligan", player.getName(), randomCard);
 			starterCards.add(randomCard);
@@ -1077,7 +1093,7 @@ public class GameLogic implements Cloneable {
 		// draw random cards from deck until required starter card count is
 		// reached
 		while (starterCards.size() < numberOfStarterCards) {
-			Card randomCard = player.getDeck().getRandom();
+			Card randomCard = player.getDeck().getRandom(context.getRandom());
 			player.getDeck().remove(randomCard);
 			starterCards.add(randomCard);
 		}
@@ -1085,6 +1101,7 @@ public class GameLogic implements Cloneable {
 		// put the mulligan cards back in the deck
 		for (Card discardedCard : discardedCards) {
 			player.getDeck().add(discardedCard);
+			context.getEntityIndex().put(player.getId(), discardedCard, Zone.DECK);
 		}
 
 		for (Card starterCard : starterCards) {
@@ -1164,7 +1181,7 @@ public class GameLogic implements Cloneable {
 	public void playSecret(Player player, Secret secret, boolean fromHand) {
 		log("{} has a new secret activated: {}", player.getName(), secret.getSource());
 		addGameEventListener(player, secret, player.getHero());
-		player.getSecrets().add(secret.getSource().getCardId());
+		player.addSecret(secret.getSource().getCardId());
 		if (fromHand) {
 			context.fireGameEvent(new SecretPlayedEvent(context, (SecretCard) secret.getSource()));
 		}
@@ -1190,11 +1207,11 @@ public class GameLogic implements Cloneable {
 	 * @return Random number between 0 and max (exclusive)
 	 */
 	public int random(int max) {
-		return ThreadLocalRandom.current().nextInt(max);
+		return context.getRandom().nextInt(max);
 	}
 
 	public boolean randomBool() {
-		return ThreadLocalRandom.current().nextBoolean();
+		return context.getRandom().nextBoolean();
 	}
 
 	public void receiveCard(int playerId, Card card) {
@@ -1215,6 +1232,7 @@ public class GameLogic implements Cloneable {
 			log("{} receives card {}", player.getName(), card);
 			hand.add(card);
 			card.setLocation(CardLocation.HAND);
+			context.getEntityIndex().put(playerId, card, Zone.HAND);
 		} else {
 			log("{} has too many cards on his hand, card destroyed: {}", player.getName(), card);
 			discardCard(player, card);
@@ -1256,6 +1274,7 @@ public class GameLogic implements Cloneable {
 		}
 		player.getHand().remove(card);
 		player.getGraveyard().add(card);
+		context.getEntityIndex().put(playerId, card, Zone.GRAVEYARD);
 	}
 	
 	public void removeCardFromDeck(int playerID, Card card) {
@@ -1267,6 +1286,7 @@ public class GameLogic implements Cloneable {
 		}
 		player.getDeck().remove(card);
 		player.getGraveyard().add(card);
+		context.getEntityIndex().put(playerID, card, Zone.GRAVEYARD);
 	}
 
 	public void removeMinion(Minion minion) {
@@ -1277,8 +1297,9 @@ public class GameLogic implements Cloneable {
 		minion.setAttribute(Attribute.DESTROYED);
 
 		Player owner = context.getPlayer(minion.getOwner());
-		owner.getMinions().remove(minion);
+		owner.removeMinion(minion);
 		owner.getGraveyard().add(minion);
+		context.getEntityIndex().put(owner.getId(), minion, Zone.GRAVEYARD);
 		context.fireGameEvent(new BoardChangedEvent(context));
 	}
 
@@ -1289,7 +1310,7 @@ public class GameLogic implements Cloneable {
 			secret.onRemove(context);
 			context.removeTrigger(secret);
 		}
-		player.getSecrets().clear();
+		player.clearSecrets();
 	}
 
 	private void removeSpelltriggers(Entity entity) {
@@ -1364,7 +1385,7 @@ public class GameLogic implements Cloneable {
 
 	public void secretTriggered(Player player, Secret secret) {
 		log("Secret was trigged: {}", secret.getSource());
-		player.getSecrets().remove(secret.getSource().getCardId());
+		player.removeSecret(secret.getSource().getCardId());
 		context.fireGameEvent(new SecretRevealedEvent(context, (SecretCard) secret.getSource(), player.getId()));
 	}
 
@@ -1384,8 +1405,11 @@ public class GameLogic implements Cloneable {
 		card.setLocation(CardLocation.DECK);
 
 		if (player.getDeck().getCount() < MAX_DECK_SIZE) {
-			player.getDeck().addRandomly(card);
+			player.getDeck().addRandomly(card, context.getRandom());
+			context.getEntityIndex().put(player.getId(), card, Zone.DECK);
 			log("Card {} has been shuffled to {}'s deck", card, player.getName());
+		} else {
+			context.getEntityIndex().remove(card);
 		}
 	}
 
@@ -1473,22 +1497,23 @@ public class GameLogic implements Cloneable {
 		minion.setOwner(player.getId());
 
 		if (index < 0 || index >= player.getMinions().size()) {
-			player.getMinions().add(minion);
+			player.addMinion(minion);
 		} else {
-			player.getMinions().add(index, minion);
+			player.addMinion(index, minion);
 		}
+		context.getEntityIndex().put(playerId, minion, Zone.MINION);
 
 		if (resolveBattlecry && minion.getBattlecry() != null && !minion.getBattlecry().isResolvedLate()) {
 			resolveBattlecry(player.getId(), minion);
 		}
 		
 		if (context.getEnvironment().get(Environment.TRANSFORM) != null) {
-			player.getMinions().remove(minion);
+			player.removeMinion(minion);
 			minion = (Minion) context.getEnvironment().get(Environment.TRANSFORM);
 			if (index < 0 || index >= player.getMinions().size()) {
-				player.getMinions().add(minion);
+				player.addMinion(minion);
 			} else {
-				player.getMinions().add(index, minion);
+				player.addMinion(index, minion);
 			}
 			minion.setBattlecry(null);
 			context.getEnvironment().remove(Environment.TRANSFORM);
@@ -1532,7 +1557,7 @@ public class GameLogic implements Cloneable {
 
 		log("{} was transformed to {}", minion, newMinion);
 		Player owner = context.getPlayer(minion.getOwner());
-		owner.getMinions().remove(minion);
+		owner.removeMinion(minion);
 		
 		//If the minion being transforms is being summoned, replace the old minion on the stack.
 		//Otherwise, summon the add the new minion.
@@ -1547,21 +1572,24 @@ public class GameLogic implements Cloneable {
 		} else if (!owner.getSetAsideZone().contains(minion)) {
 			int index = owner.getMinions().indexOf(minion);
 			if (index < 0 || index >= owner.getMinions().size()) {
-				owner.getMinions().add(newMinion);
+				owner.addMinion(newMinion);
 			} else {
-				owner.getMinions().add(index, newMinion);
+				owner.addMinion(index, newMinion);
 			}
 		} else {
 			owner.getSetAsideZone().add(newMinion);
 			newMinion.setId(idFactory.generateId());
 			newMinion.setOwner(owner.getId());
+			context.getEntityIndex().put(owner.getId(), newMinion, Zone.SET_ASIDE_ZONE);
 			removeSpelltriggers(newMinion);
 			return;
 		}
 		owner.getSetAsideZone().add(minion);
+		context.getEntityIndex().put(owner.getId(), minion, Zone.SET_ASIDE_ZONE);
 		
 		newMinion.setId(idFactory.generateId());
 		newMinion.setOwner(owner.getId());
+		context.getEntityIndex().put(owner.getId(), newMinion, Zone.MINION);
 		
 		applyAttribute(newMinion, Attribute.SUMMONING_SICKNESS);
 		refreshAttacksPerRound(newMinion);
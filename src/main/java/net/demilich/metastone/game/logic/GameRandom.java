@@ -0,0 +1,83 @@
+package net.demilich.metastone.game.logic;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import net.demilich.metastone.utils.MathUtils;
+
+/**
+ * Seedable random source of a single game (SplitMix64). Every clone of a game
+ * gets a {@link #fork()} of its generator: the fork is fully determined by the
+ * parent's seed and history, but forking does not consume numbers from the
+ * parent, so a game plays out the same way no matter how often it is cloned
+ * (e.g. by a searching AI). Two games started with the same seed therefore
+ * see the same shuffles and random effects for as long as they make the same
+ * random calls, which allows comparing behaviours on common random numbers.
+ * <p>
+ * Like the rest of a game, instances are not meant to be used from several
+ * threads, except that forking is synchronized.
+ */
+public class GameRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private long state;
+	private long forks;
+
+	public GameRandom() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	public GameRandom(long seed) {
+		// Random(long) calls setSeed(long)
+		super(seed);
+	}
+
+	/**
+	 * Returns a new generator whose sequence depends on the state of this one
+	 * and on how many forks were taken before, without advancing this
+	 * generator.
+	 */
+	public synchronized GameRandom fork() {
+		return new GameRandom(MathUtils.hash64(state, ++forks));
+	}
+
+	/**
+	 * Makes this generator continue the sequence of the given one, so that a
+	 * clone of a game sees the same random outcomes as the original would
+	 * from now on, instead of those of a fork. Used to rebuild a searched
+	 * state exactly from a saved earlier state.
+	 */
+	public void continueFrom(GameRandom other) {
+		long otherState;
+		long otherForks;
+		synchronized (other) {
+			otherState = other.state;
+			otherForks = other.forks;
+		}
+		synchronized (this) {
+			state = otherState;
+			forks = otherForks;
+		}
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return MathUtils.hash64(0, state);
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		state = seed;
+		forks = 0;
+	}
+
+}
@@ -17,6 +17,8 @@ import net.demilich.metastone.game.entities.Actor;
 import net.demilich.metastone.game.entities.Entity;
 import net.demilich.metastone.game.entities.heroes.Hero;
 import net.demilich.metastone.game.entities.minions.Minion;
+import net.demilich.metastone.game.targeting.EntityIndex;
+import net.demilich.metastone.game.targeting.EntityIndex.Zone;
 import net.demilich.metastone.game.targeting.EntityReference;
 import net.demilich.metastone.game.targeting.TargetSelection;
 
@@ -74,34 +76,46 @@ public class TargetLogic {
 		if (environmentResult != null) {
 			return environmentResult;
 		}
+		EntityIndex entityIndex = context.getEntityIndex();
+		Entity indexResult = entityIndex.find(context, targetId);
+		if (indexResult != null) {
+			return indexResult;
+		}
+		// entities which were not indexed, e.g. because a spell moved them
+		// itself
 		for (Player player : context.getPlayers()) {
 			if (player.getHero().getId() == targetId) {
+				entityIndex.put(player.getId(), player.getHero(), Zone.HERO);
 				return player.getHero();
 			} else if (player.getHero().getWeapon() != null && player.getHero().getWeapon().getId() == targetId) {
+				entityIndex.put(player.getId(), player.getHero().getWeapon(), Zone.WEAPON);
 				return player.getHero().getWeapon();
 			}
 
 			for (Actor minion : player.getMinions()) {
 				if (minion.getId() == targetId) {
+					entityIndex.put(player.getId(), minion, Zone.MINION);
 					return minion;
 				}
 			}
 
 			for (Entity entity : player.getGraveyard()) {
 				if (entity.getId() == targetId) {
+					entityIndex.put(player.getId(), entity, Zone.GRAVEYARD);
 					return entity;
 				}
 			}
 			for (Entity entity : player.getSetAsideZone()) {
 				if (entity.getId() == targetId) {
+					entityIndex.put(player.getId(), entity, Zone.SET_ASIDE_ZONE);
 					return entity;
 				}
 			}
 		}
 
-		Entity cardResult = findInCards(context.getPlayer1(), targetId);
+		Entity cardResult = findInCards(context.getPlayer1(), targetId, entityIndex);
 		if (cardResult == null) {
-			cardResult = findInCards(context.getPlayer2(), targetId);
+			cardResult = findInCards(context.getPlayer2(), targetId, entityIndex);
 		}
 		if (cardResult != null) {
 			return cardResult;
@@ -113,19 +127,20 @@ public class TargetLogic {
 		throw new RuntimeException("Target not found exception: " + targetKey);
 	}
 
-	private Entity findInCards(Player player, int targetId) {
+	private Entity findInCards(Player player, int targetId, EntityIndex entityIndex) {
 		if (player.getHero().getHeroPower().getId() == targetId) {
+			entityIndex.put(player.getId(), player.getHero().getHeroPower(), Zone.HERO_POWER);
 			return player.getHero().getHeroPower();
 		}
-		for (Card card : player.getHand()) {
-			if (card.getId() == targetId) {
-				return card;
-			}
+		Card card = player.getHand().getById(targetId);
+		if (card != null) {
+			entityIndex.put(player.getId(), card, Zone.HAND);
+			return card;
 		}
-		for (Card card : player.getDeck()) {
-			if (card.getId() == targetId) {
-				return card;
-			}
+		card = player.getDeck().getById(targetId);
+		if (card != null) {
+			entityIndex.put(player.getId(), card, Zone.DECK);
+			return card;
 		}
 
 		return null;
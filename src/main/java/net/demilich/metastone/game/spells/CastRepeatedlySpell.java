@@ -24,7 +24,7 @@ public class CastRepeatedlySpell extends Spell {
 			if (targets.isEmpty()) {
 				return;
 			}
-			Entity randomTarget = SpellUtils.getRandomTarget(targets);
+			Entity randomTarget = SpellUtils.getRandomTarget(context, targets);
 			SpellUtils.castChildSpell(context, player, spell, source, randomTarget);
 			if (condition.isFulfilled(context, player, randomTarget)) {
 				return;
@@ -53,7 +53,7 @@ public class CopyCardSpell extends Spell {
 			if (sourceCollection.isEmpty()) {
 				return;
 			}
-			Card clone = sourceCollection.getRandom().getCopy();
+			Card clone = sourceCollection.getRandom(context.getRandom()).getCopy();
 			context.getLogic().receiveCard(player.getId(), clone);
 		}
 	}
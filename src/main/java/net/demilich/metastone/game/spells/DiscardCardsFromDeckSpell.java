@@ -31,7 +31,7 @@ public class DiscardCardsFromDeckSpell extends Spell {
 			if (player.getDeck().isEmpty()) {
 				return;
 			}
-			Card card = player.getDeck().getRandom();
+			Card card = player.getDeck().getRandom(context.getRandom());
 			context.getLogic().removeCardFromDeck(player.getId(), card);
 		}
 	}
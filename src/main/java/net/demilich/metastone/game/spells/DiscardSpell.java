@@ -31,7 +31,7 @@ public class DiscardSpell extends Spell {
 		int cardCount = numberOfCards == ALL_CARDS ? player.getHand().getCount() : numberOfCards;
 
 		for (int i = 0; i < cardCount; i++) {
-			Card randomHandCard = player.getHand().getRandom();
+			Card randomHandCard = player.getHand().getRandom(context.getRandom());
 			if (randomHandCard == null) {
 				return;
 			}
@@ -36,7 +36,7 @@ public class DiscoverCardSpell extends Spell {
 		int count = desc.getInt(SpellArg.HOW_MANY, 3);
 		for (int i = 0; i < count; i++) {
 			if (!result.isEmpty()) {
-				Card card = result.getRandom();
+				Card card = result.getRandom(context.getRandom());
 				cards.add(card);
 				result.remove(card);
 			}
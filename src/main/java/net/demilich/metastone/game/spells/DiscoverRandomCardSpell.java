@@ -35,7 +35,7 @@ public class DiscoverRandomCardSpell extends Spell {
 			Card card = (Card) context.getEnvironment().get(Environment.PENDING_CARD);
 			heroClass = card.getClassRestriction();
 			if (heroClass == HeroClass.ANY) {
-				heroClass = SpellUtils.getRandomHeroClass();
+				heroClass = SpellUtils.getRandomHeroClass(context);
 			}
 		}
 		CardCollection classCards = CardCatalogue.query((CardType) null, (Rarity) null, heroClass);
@@ -56,7 +56,7 @@ public class DiscoverRandomCardSpell extends Spell {
 			if (!result.isEmpty()) {
 				Card card = null;
 				do {
-					card = result.getRandom();
+					card = result.getRandom(context.getRandom());
 					result.remove(card);
 				} while (cards.containsCard(card));
 				if (card != null) {
@@ -26,7 +26,7 @@ public class EquipRandomWeaponSpell extends Spell {
 	@Override
 	protected void onCast(GameContext context, Player player, SpellDesc desc, Entity source, Entity target) {
 		CardCollection allWeapons = CardCatalogue.query(CardType.WEAPON);
-		WeaponCard weaponCard = (WeaponCard) allWeapons.getRandom();
+		WeaponCard weaponCard = (WeaponCard) allWeapons.getRandom(context.getRandom());
 		Weapon weapon = weaponCard.getWeapon();
 		weapon.setBattlecry(null);
 
@@ -30,7 +30,7 @@ public class FromDeckToHandSpell extends Spell {
 		for (int i = 0; i < value; i++) {
 			Card card = null;
 			if (!relevantCards.isEmpty()) {
-				card = relevantCards.getRandom();
+				card = relevantCards.getRandom(context.getRandom());
 				relevantCards.remove(card);
 				player.getDeck().remove(card);
 			} else if (replacementCard != null) {
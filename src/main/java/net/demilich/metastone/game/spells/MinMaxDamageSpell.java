@@ -1,7 +1,6 @@
 package net.demilich.metastone.game.spells;
 
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
@@ -31,7 +30,7 @@ public class MinMaxDamageSpell extends DamageSpell {
 		int minDamage = desc.getInt(SpellArg.MIN_DAMAGE, 0);
 		int maxDamage = desc.getInt(SpellArg.MAX_DAMAGE, 0);
 		int damageRange = maxDamage - minDamage;
-		int damageRoll = minDamage + ThreadLocalRandom.current().nextInt(damageRange + 1);
+		int damageRoll = minDamage + context.getRandom().nextInt(damageRange + 1);
 
 		context.getLogic().damage(player, (Actor) target, damageRoll, source);
 	}
@@ -26,7 +26,7 @@ public class MissilesSpell extends DamageSpell {
 		}
 		for (int i = 0; i < missiles; i++) {
 			List<Actor> validTargets = SpellUtils.getValidRandomTargets(targets);
-			Actor randomTarget = SpellUtils.getRandomTarget(validTargets);
+			Actor randomTarget = SpellUtils.getRandomTarget(context, validTargets);
 			context.getLogic().damage(player, randomTarget, damage, source, true);
 		}
 	}
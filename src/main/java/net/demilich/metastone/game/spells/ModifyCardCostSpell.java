@@ -12,7 +12,7 @@ public class ModifyCardCostSpell extends Spell {
 	@Override
 	protected void onCast(GameContext context, Player player, SpellDesc desc, Entity source, Entity target) {
 		int value = desc.getValue();
-		for (Card card : player.getHand()) {
+		for (Card card : player.getHand().toList()) {
 			card.modifyAttribute(Attribute.MANA_COST_MODIFIER, value);
 		}
 	}
@@ -3,7 +3,6 @@ package net.demilich.metastone.game.spells;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
@@ -28,7 +27,7 @@ public class MultiTargetDamageSpell extends DamageSpell {
 		int targets = desc.getInt(SpellArg.HOW_MANY, 2);
 		List<Minion> validTargets = new ArrayList<>(context.getOpponent(player).getMinions());
 		for (int i = 0; i < targets; i++) {
-			int randomIndex = ThreadLocalRandom.current().nextInt(validTargets.size());
+			int randomIndex = context.getRandom().nextInt(validTargets.size());
 			Actor randomTarget = validTargets.remove(randomIndex);
 			context.getLogic().damage(player, randomTarget, damage, source);
 		}
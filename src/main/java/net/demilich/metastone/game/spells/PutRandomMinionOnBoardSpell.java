@@ -27,9 +27,9 @@ public class PutRandomMinionOnBoardSpell extends Spell {
 		MinionCard minionCard = null;
 		CardCollection collection = cardLocation == CardLocation.HAND ? player.getHand() : player.getDeck();
 		if (cardFilter == null) {
-			minionCard = (MinionCard) collection.getRandomOfType(CardType.MINION);
+			minionCard = (MinionCard) collection.getRandomOfType(CardType.MINION, context.getRandom());
 		} else {
-			minionCard = (MinionCard) SpellUtils.getRandomCard(collection, card -> cardFilter.matches(context, player, card));
+			minionCard = (MinionCard) SpellUtils.getRandomCard(context, collection, card -> cardFilter.matches(context, player, card));
 		}
 
 		if (minionCard == null) {
@@ -15,7 +15,7 @@ public class PutRandomSecretIntoPlaySpell extends Spell {
 
 	private CardCollection findSecretCards(CardCollection cardCollection) {
 		CardCollection secretCards = new CardCollection();
-		for (Card card : cardCollection) {
+		for (Card card : cardCollection.toList()) {
 			if (card.hasAttribute(Attribute.SECRET)) {
 				secretCards.add(card);
 			}
@@ -33,7 +33,7 @@ public class PutRandomSecretIntoPlaySpell extends Spell {
 				return;
 			}
 			
-			secretCards.shuffle();
+			secretCards.shuffle(context.getRandom());
 
 			SecretCard secretCard = (SecretCard) secretCards.removeFirst();
 			while(!secretCards.isEmpty()) {
@@ -31,7 +31,7 @@ public class ReceiveRandomCollectibleCardSpell extends Spell {
 		for (int i = 0; i < count; i++) {
 			Card card = null;
 			if (!result.isEmpty()) {
-				card = result.getRandom();
+				card = result.getRandom(context.getRandom());
 			} else if (replacementCard != null) {
 				card = CardCatalogue.getCardById(replacementCard);
 			}
@@ -30,7 +30,7 @@ public class ReplaceDeckSpell extends Spell {
 		for (int i = 0; i < count; i++) {
 			Card card = null;
 			if (!result.isEmpty()) {
-				card = result.getRandom();
+				card = result.getRandom(context.getRandom());
 			} else if (replacementCard != null) {
 				card = CardCatalogue.getCardById(replacementCard);
 			}
@@ -23,7 +23,7 @@ public abstract class Spell {
 		// there is at least one valid target and the RANDOM_TARGET flag is set,
 		// pick one randomly
 		if (validTargets.size() > 0 && desc.getBool(SpellArg.RANDOM_TARGET)) {
-			Entity target = SpellUtils.getRandomTarget(validTargets);
+			Entity target = SpellUtils.getRandomTarget(context, validTargets);
 			castForPlayer(context, player, desc, source, target);
 		} else {
 			// there is at least one target and RANDOM_TARGET flag is not set,
@@ -2,7 +2,6 @@ package net.demilich.metastone.game.spells;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Predicate;
 
 import net.demilich.metastone.game.Attribute;
@@ -59,7 +58,7 @@ public class SpellUtils {
 
 	public static CardCollection getCards(CardCollection source, Predicate<Card> filter) {
 		CardCollection result = new CardCollection();
-		for (Card card : source) {
+		for (Card card : source.toList()) {
 			if (filter.test(card)) {
 				result.add(card);
 			}
@@ -105,25 +104,25 @@ public class SpellUtils {
 		return (DiscoverAction) player.getBehaviour().requestAction(context, player, discoverActions);
 	}
 
-	public static Card getRandomCard(CardCollection source, Predicate<Card> filter) {
+	public static Card getRandomCard(GameContext context, CardCollection source, Predicate<Card> filter) {
 		CardCollection result = getCards(source, filter);
 		if (result.isEmpty()) {
 			return null;
 		}
-		return result.getRandom();
+		return result.getRandom(context.getRandom());
 	}
 	
-	public static HeroClass getRandomHeroClass() {
+	public static HeroClass getRandomHeroClass(GameContext context) {
 		HeroClass randomClass = HeroClass.ANY;
 		HeroClass[] values = HeroClass.values();
 		while (!isBaseClass(randomClass)) {
-			randomClass = values[ThreadLocalRandom.current().nextInt(values.length)];
+			randomClass = values[context.getRandom().nextInt(values.length)];
 		}
 		return randomClass;
 	}
 
-	public static <T> T getRandomTarget(List<T> targets) {
-		int randomIndex = ThreadLocalRandom.current().nextInt(targets.size());
+	public static <T> T getRandomTarget(GameContext context, List<T> targets) {
+		int randomIndex = context.getRandom().nextInt(targets.size());
 		return targets.get(randomIndex);
 	}
 
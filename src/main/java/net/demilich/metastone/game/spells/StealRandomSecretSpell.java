@@ -41,16 +41,20 @@ public class StealRandomSecretSpell extends Spell {
 
 		if (!validSecrets.isEmpty()) {
 			Secret secret = validSecrets.get(context.getLogic().random(validSecrets.size()));
+			// the trigger manager indexes secrets by their host, so the secret
+			// has to be registered again after changing it
+			context.removeTrigger(secret);
 			secret.setHost(player.getHero());
 			secret.setOwner(player.getId());
-			player.getSecrets().add(secret.getSource().getCardId());
-			opponent.getSecrets().remove(secret.getSource().getCardId());
+			context.addTrigger(secret);
+			player.addSecret(secret.getSource().getCardId());
+			opponent.removeSecret(secret.getSource().getCardId());
 		} else {
 			// no valid secret to steal; instead destroy one for the opponent at
 			// least
 			Secret secret = (Secret) secrets.get(context.getLogic().random(secrets.size()));
 			context.removeTrigger(secret);
-			opponent.getSecrets().remove(secret.getSource().getCardId());
+			opponent.removeSecret(secret.getSource().getCardId());
 		}
 
 	}
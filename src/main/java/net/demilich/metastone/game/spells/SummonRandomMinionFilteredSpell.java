@@ -28,7 +28,7 @@ public class SummonRandomMinionFilteredSpell extends Spell {
 			}
 		}
 		
-		return (MinionCard) relevantMinions.getRandom();
+		return (MinionCard) relevantMinions.getRandom(context.getRandom());
 	}
 
 
@@ -21,7 +21,7 @@ public class TransformToMinionWithManaCostSpell extends TransformMinionSpell {
 		return new SpellDesc(arguments);
 	}
 
-	private static MinionCard getRandomMinionWithCost(int manaCost) {
+	private static MinionCard getRandomMinionWithCost(GameContext context, int manaCost) {
 		CardCollection allMinions = CardCatalogue.query(CardType.MINION);
 		CardCollection minionsWithSameCost = new CardCollection();
 		for (Card card : allMinions) {
@@ -30,14 +30,14 @@ public class TransformToMinionWithManaCostSpell extends TransformMinionSpell {
 				minionsWithSameCost.add(minionCard);
 			}
 		}
-		return (MinionCard) minionsWithSameCost.getRandom();
+		return (MinionCard) minionsWithSameCost.getRandom(context.getRandom());
 	}
 
 	@Override
 	protected void onCast(GameContext context, Player player, SpellDesc desc, Entity source, Entity target) {
 		Minion minion = (Minion) target;
 		int manaCost = minion.getSourceCard().getBaseManaCost();
-		Card randomCard = getRandomMinionWithCost(manaCost);
+		Card randomCard = getRandomMinionWithCost(context, manaCost);
 		SpellDesc transformMinionSpell = TransformMinionSpell.create(randomCard.getCardId());
 		super.onCast(context, player, transformMinionSpell, source, target);
 	}
@@ -19,7 +19,7 @@ public class AlarmOBotSpell extends ReturnMinionToHandSpell {
 		}
 		// Summon a random minion and remove the corresponding card
 		// before adding Alarm-o-bot to your hand!
-		MinionCard randomMinionCard = (MinionCard) player.getHand().getRandomOfType(CardType.MINION);
+		MinionCard randomMinionCard = (MinionCard) player.getHand().getRandomOfType(CardType.MINION, context.getRandom());
 		context.getLogic().removeCard(player.getId(), randomMinionCard);
 		context.getLogic().summon(player.getId(), randomMinionCard.summon());
 		// return Alarm-o-bot to hand (Now it's safe!)
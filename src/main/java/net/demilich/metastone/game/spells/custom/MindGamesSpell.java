@@ -22,7 +22,7 @@ public class MindGamesSpell extends Spell {
 	@Override
 	protected void onCast(GameContext context, Player player, SpellDesc desc, Entity source, Entity target) {
 		Player opponent = context.getOpponent(player);
-		MinionCard minionCard = (MinionCard) opponent.getDeck().getRandomOfType(CardType.MINION);
+		MinionCard minionCard = (MinionCard) opponent.getDeck().getRandomOfType(CardType.MINION, context.getRandom());
 		if (minionCard == null) {
 			minionCard = (MinionCard) CardCatalogue.getCardById("token_shadow_of_nothing");
 		}
@@ -1,34 +1,124 @@
 package net.demilich.metastone.game.spells.trigger;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.demilich.metastone.game.events.GameEvent;
+import net.demilich.metastone.game.events.GameEventType;
 import net.demilich.metastone.game.targeting.EntityReference;
 import net.demilich.metastone.utils.IDisposable;
+import net.demilich.metastone.utils.MathUtils;
 
+/**
+ * Keeps track of all registered game event listeners. Listeners are bucketed
+ * by trigger layer and by the event types they are interested in, so firing
+ * an event only visits listeners which may react to it; listeners interested
+ * in every event type share one bucket per layer. A second index groups the
+ * listeners by their host.
+ *
+ * The interests, layer and host of a listener are captured when it is
+ * added. A listener whose host changes has to be removed and added again.
+ * A listener added twice fires twice, and has to be removed twice.
+ */
 public class TriggerManager implements Cloneable, IDisposable {
 
 	public static Logger logger = LoggerFactory.getLogger(TriggerManager.class);
 
-	private final List<IGameEventListener> triggers = new ArrayList<IGameEventListener>();;
+	private static final GameEventType[] EVENT_TYPES = GameEventType.values();
+	private static final long ALL_EVENT_TYPES;
+	private static final int MIN_REMOVED_FOR_COMPACTION = 32;
+
+	static {
+		// the event types a listener is interested in are kept in a bit mask
+		if (EVENT_TYPES.length > Long.SIZE) {
+			throw new IllegalStateException("Too many event types for a long bit mask: " + EVENT_TYPES.length);
+		}
+		long allEventTypes = 0;
+		for (GameEventType eventType : EVENT_TYPES) {
+			if (eventType != GameEventType.ALL) {
+				allEventTypes |= 1L << eventType.ordinal();
+			}
+		}
+		ALL_EVENT_TYPES = allEventTypes;
+	}
+
+	private static class Registration {
+
+		private final IGameEventListener listener;
+		// listeners fire in the order they were added
+		private final long order;
+		private final TriggerLayer layer;
+		private final EntityReference hostReference;
+		private final long eventTypes;
+		private boolean removed;
+		// the next registration of the same listener, if it was added more
+		// than once
+		private Registration duplicate;
+
+		public Registration(IGameEventListener listener, long order, TriggerLayer layer, EntityReference hostReference, long eventTypes) {
+			this.listener = listener;
+			this.order = order;
+			this.layer = layer;
+			this.hostReference = hostReference;
+			this.eventTypes = eventTypes;
+		}
+
+	}
+
+	// all registrations in the order they were added; removed ones are
+	// dropped on the next compaction
+	private final List<Registration> registrations = new ArrayList<Registration>();
+	private long nextOrder;
+	private int removedCount;
+	// order independent hash of the hosts and layers of all listeners,
+	// updated on every change
+	private long stateHash;
+
+	// the indices are built on first use, so cloned managers which never see
+	// an event do not pay for them
+	private boolean indexed;
+	private final Map<IGameEventListener, Registration> registrationsByListener = new IdentityHashMap<>();
+	private final Map<EntityReference, List<Registration>> registrationsByHost = new HashMap<>();
+	private final Map<TriggerLayer, List<List<Registration>>> buckets = new EnumMap<>(TriggerLayer.class);
 
 	public TriggerManager() {
 	}
 
 	private TriggerManager(TriggerManager otherTriggerManager) {
-		for (IGameEventListener gameEventListener : otherTriggerManager.triggers) {
-			triggers.add(gameEventListener.clone());
+		for (Registration registration : otherTriggerManager.registrations) {
+			if (registration.removed) {
+				continue;
+			}
+			registrations.add(new Registration(registration.listener.clone(), registration.order, registration.layer,
+					registration.hostReference, registration.eventTypes));
 		}
+		nextOrder = otherTriggerManager.nextOrder;
+		stateHash = otherTriggerManager.stateHash;
 	}
 
 	public void addTrigger(IGameEventListener trigger) {
-		triggers.add(trigger);
-		if (triggers.size() > 100) {
-			logger.warn("Warning, many triggers: " + triggers.size() + " adding one of type: " + trigger);
+		ensureIndexed();
+		long eventTypes = 0;
+		for (GameEventType eventType : EVENT_TYPES) {
+			if (eventType != GameEventType.ALL && trigger.interestedIn(eventType)) {
+				eventTypes |= 1L << eventType.ordinal();
+			}
+		}
+		Registration registration = new Registration(trigger, nextOrder++, trigger.getLayer(), trigger.getHostReference(), eventTypes);
+		registrations.add(registration);
+		index(registration);
+		stateHash += hashOf(registration);
+		int triggerCount = registrations.size() - removedCount;
+		if (triggerCount > 100) {
+			logger.warn("Warning, many triggers: " + triggerCount + " adding one of type: " + trigger);
 		}
 	}
 
@@ -37,71 +127,186 @@ public class TriggerManager implements Cloneable, IDisposable {
 		return new TriggerManager(this);
 	}
 
+	private void compact() {
+		registrations.removeIf(registration -> registration.removed);
+		removedCount = 0;
+		indexed = false;
+	}
+
 	@Override
 	public void dispose() {
-		triggers.clear();
+		registrations.clear();
+		removedCount = 0;
+		stateHash = 0;
+		indexed = false;
+		clearIndices();
 	}
 
-	public void fireGameEvent(GameEvent event) {
-		List<IGameEventListener> eventTriggers = new ArrayList<IGameEventListener>();
-		for (IGameEventListener trigger : triggers) {
-			if (trigger.getLayer() != event.getTriggerLayer()) {
-				continue;
+	private void clearIndices() {
+		registrationsByListener.clear();
+		registrationsByHost.clear();
+		buckets.clear();
+	}
+
+	private void ensureIndexed() {
+		if (indexed) {
+			return;
+		}
+		clearIndices();
+		for (Registration registration : registrations) {
+			if (!registration.removed) {
+				index(registration);
 			}
+		}
+		indexed = true;
+	}
 
-			if (!trigger.interestedIn(event.getEventType())) {
+	public void fireGameEvent(GameEvent event) {
+		ensureIndexed();
+		List<List<Registration>> layerBuckets = buckets.get(event.getTriggerLayer());
+		if (layerBuckets == null) {
+			return;
+		}
+		List<Registration> typeBucket = layerBuckets.get(event.getEventType().ordinal());
+		List<Registration> allBucket = layerBuckets.get(GameEventType.ALL.ordinal());
+		int typeCount = typeBucket != null ? typeBucket.size() : 0;
+		int allCount = allBucket != null ? allBucket.size() : 0;
+
+		// merge both buckets, preserving the order the listeners were added in
+		List<IGameEventListener> eventTriggers = null;
+		int typeIndex = 0;
+		int allIndex = 0;
+		while (typeIndex < typeCount || allIndex < allCount) {
+			Registration registration;
+			if (allIndex >= allCount || typeIndex < typeCount && typeBucket.get(typeIndex).order < allBucket.get(allIndex).order) {
+				registration = typeBucket.get(typeIndex++);
+			} else {
+				registration = allBucket.get(allIndex++);
+			}
+			if (registration.removed || !registration.listener.canFire(event)) {
 				continue;
 			}
-			if (triggers.contains(trigger) && trigger.canFire(event)) {
-				eventTriggers.add(trigger);
+			if (eventTriggers == null) {
+				eventTriggers = new ArrayList<IGameEventListener>();
 			}
+			eventTriggers.add(registration.listener);
 		}
-		
+		if (eventTriggers == null) {
+			return;
+		}
+
 		for (IGameEventListener trigger : eventTriggers) {
 			trigger.onGameEvent(event);
-			
+
 			// we need to double check here if the trigger still exists;
 			// after all, a previous trigger may have removed it (i.e. double
 			// corruption)
 			if (trigger.isExpired()) {
-				triggers.remove(trigger);
+				remove(trigger);
 			}
 		}
 	}
 
-	private List<IGameEventListener> getListSnapshot(List<IGameEventListener> triggerList) {
-		return new ArrayList<IGameEventListener>(triggerList);
-	}
-
 	public List<IGameEventListener> getTriggersAssociatedWith(EntityReference entityReference) {
+		ensureIndexed();
 		List<IGameEventListener> relevantTriggers = new ArrayList<>();
-		for (IGameEventListener trigger : triggers) {
-			if (trigger.getHostReference().equals(entityReference)) {
-				relevantTriggers.add(trigger);
+		List<Registration> hostRegistrations = registrationsByHost.get(entityReference);
+		if (hostRegistrations == null) {
+			return relevantTriggers;
+		}
+		for (Registration registration : hostRegistrations) {
+			if (!registration.removed) {
+				relevantTriggers.add(registration.listener);
 			}
 		}
 		return relevantTriggers;
 	}
 
+	private void index(Registration registration) {
+		registration.duplicate = null;
+		Registration first = registrationsByListener.putIfAbsent(registration.listener, registration);
+		if (first != null) {
+			while (first.duplicate != null) {
+				first = first.duplicate;
+			}
+			first.duplicate = registration;
+		}
+		registrationsByHost.computeIfAbsent(registration.hostReference, hostReference -> new ArrayList<>()).add(registration);
+
+		List<List<Registration>> layerBuckets = buckets.computeIfAbsent(registration.layer,
+				layer -> new ArrayList<List<Registration>>(Collections.nCopies(EVENT_TYPES.length, null)));
+		if (registration.eventTypes == ALL_EVENT_TYPES) {
+			addToBucket(layerBuckets, GameEventType.ALL.ordinal(), registration);
+			return;
+		}
+		for (int i = 0; i < EVENT_TYPES.length; i++) {
+			if ((registration.eventTypes & 1L << i) != 0) {
+				addToBucket(layerBuckets, i, registration);
+			}
+		}
+	}
+
+	private static void addToBucket(List<List<Registration>> layerBuckets, int index, Registration registration) {
+		List<Registration> bucket = layerBuckets.get(index);
+		if (bucket == null) {
+			bucket = new ArrayList<Registration>();
+			layerBuckets.set(index, bucket);
+		}
+		bucket.add(registration);
+	}
+
+	/**
+	 * Returns a hash of the hosts and layers of all listeners, which is
+	 * maintained incrementally and independent of the order the listeners
+	 * were added in. It tells apart e.g. a minion from a silenced copy of it.
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
+	private static long hashOf(Registration registration) {
+		int hostId = registration.hostReference != null ? registration.hostReference.getId() : EntityReference.NONE.getId();
+		return MathUtils.hash64(hostId, registration.layer.ordinal());
+	}
+
 	public void printCurrentTriggers() {
-		for (IGameEventListener trigger : triggers) {
+		for (Registration registration : registrations) {
+			if (registration.removed) {
+				continue;
+			}
 			System.out.println();
-			System.out.println(trigger.toString());
+			System.out.println(registration.listener.toString());
 			System.out.println();
 		}
 	}
 
+	private boolean remove(IGameEventListener trigger) {
+		ensureIndexed();
+		Registration registration = registrationsByListener.remove(trigger);
+		if (registration == null) {
+			return false;
+		}
+		if (registration.duplicate != null) {
+			registrationsByListener.put(trigger, registration.duplicate);
+		}
+		registration.removed = true;
+		removedCount++;
+		stateHash -= hashOf(registration);
+		if (removedCount >= MIN_REMOVED_FOR_COMPACTION && removedCount * 2 > registrations.size()) {
+			compact();
+		}
+		return true;
+	}
+
 	public void removeTrigger(IGameEventListener trigger) {
-		if (!triggers.remove(trigger)) {
+		if (!remove(trigger)) {
 			System.out.println("Failed to remove trigger " + trigger);
 		}
 	}
 
 	public void removeTriggersAssociatedWith(EntityReference entityReference) {
-		for (IGameEventListener trigger : getListSnapshot(triggers)) {
-			if (trigger.getHostReference().equals(entityReference)) {
-				triggers.remove(trigger);
-			}
+		for (IGameEventListener trigger : getTriggersAssociatedWith(entityReference)) {
+			remove(trigger);
 		}
 	}
 
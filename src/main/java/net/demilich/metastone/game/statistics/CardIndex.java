@@ -0,0 +1,48 @@
+package net.demilich.metastone.game.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns card ids as small, dense integers so that per-card counters can be
+ * stored in arrays. Indices are assigned on first use and stay valid for the
+ * lifetime of the application.
+ */
+final class CardIndex {
+
+	private static final ConcurrentHashMap<String, Integer> indices = new ConcurrentHashMap<>();
+	private static volatile String[] cardIds = new String[256];
+	private static int size;
+
+	static String getCardId(int index) {
+		return cardIds[index];
+	}
+
+	static int indexOf(String cardId) {
+		Integer index = indices.get(cardId);
+		if (index != null) {
+			return index;
+		}
+		return register(cardId);
+	}
+
+	private static synchronized int register(String cardId) {
+		Integer index = indices.get(cardId);
+		if (index != null) {
+			return index;
+		}
+		if (size == cardIds.length) {
+			cardIds = Arrays.copyOf(cardIds, size * 2);
+		}
+		String[] ids = cardIds;
+		ids[size] = cardId;
+		// publish the id before the index becomes visible
+		cardIds = ids;
+		indices.put(cardId, size);
+		return size++;
+	}
+
+	private CardIndex() {
+	}
+
+}
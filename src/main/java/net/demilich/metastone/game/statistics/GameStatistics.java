@@ -1,6 +1,5 @@
 package net.demilich.metastone.game.statistics;
 
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,17 +7,28 @@ import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.game.cards.CardType;
 import net.demilich.metastone.game.entities.weapons.Weapon;
 
+/**
+ * Counters of a single player, kept in a primitive array indexed by
+ * {@link Statistic} ordinal. Cards played are counted per interned card index
+ * (see {@link CardIndex}), so counting and merging never touch a map.
+ * Instances are not thread-safe; use a {@link StatisticsAccumulator} to
+ * collect statistics from several threads.
+ */
 public class GameStatistics implements Cloneable {
 
-	private final Map<Statistic, Object> stats = new EnumMap<Statistic, Object>(Statistic.class);
-	private final Map<String, Integer> cardsPlayed = new HashMap<String, Integer>();
+	private static final Statistic[] STATISTICS = Statistic.values();
+
+	private final long[] values = new long[STATISTICS.length];
+	// bit n is set once statistic n has been recorded
+	private long recorded;
+	private int[] cardsPlayed = new int[0];
+	// a value explicitly set for WIN_RATE, e.g. a formatted string; otherwise
+	// the win rate is derived from games won and lost
+	private Object winRate;
 
 	private void add(Statistic key, long value) {
-		if (!stats.containsKey(key)) {
-			stats.put(key, 0L);
-		}
-		long newValue = getLong(key) + value;
-		stats.put(key, newValue);
+		values[key.ordinal()] += value;
+		recorded |= 1L << key.ordinal();
 	}
 
 	public void armorGained(int armor) {
@@ -52,13 +62,16 @@ public class GameStatistics implements Cloneable {
 
 	public GameStatistics clone() {
 		GameStatistics clone = new GameStatistics();
-		clone.stats.putAll(stats);
-		clone.getCardsPlayed().putAll(getCardsPlayed());
+		clone.merge(this);
+		clone.winRate = winRate;
 		return clone;
 	}
 
 	public boolean contains(Statistic key) {
-		return stats.containsKey(key);
+		if (key == Statistic.WIN_RATE) {
+			return winRate != null || contains(Statistic.GAMES_WON) || contains(Statistic.GAMES_LOST);
+		}
+		return (recorded & (1L << key.ordinal())) != 0;
 	}
 
 	public void damageDealt(int damage) {
@@ -75,28 +88,56 @@ public class GameStatistics implements Cloneable {
 
 	public void gameLost() {
 		add(Statistic.GAMES_LOST, 1);
-		updateWinRate();
 	}
 
 	public void gameWon() {
 		add(Statistic.GAMES_WON, 1);
-		updateWinRate();
 	}
 
 	public Object get(Statistic key) {
-		return stats.get(key);
+		if (!contains(key)) {
+			return null;
+		}
+		if (key == Statistic.WIN_RATE) {
+			return winRate != null ? winRate : getWinRate();
+		}
+		return values[key.ordinal()];
 	}
 
+	/**
+	 * Returns how often each card was played, keyed by card id. The map is
+	 * built on each call.
+	 */
 	public Map<String, Integer> getCardsPlayed() {
-		return cardsPlayed;
+		Map<String, Integer> result = new HashMap<String, Integer>();
+		for (int i = 0; i < cardsPlayed.length; i++) {
+			if (cardsPlayed[i] != 0) {
+				result.put(CardIndex.getCardId(i), cardsPlayed[i]);
+			}
+		}
+		return result;
+	}
+
+	public int getCardsPlayed(String cardId) {
+		int index = CardIndex.indexOf(cardId);
+		return index < cardsPlayed.length ? cardsPlayed[index] : 0;
 	}
 
 	public double getDouble(Statistic key) {
-		return stats.containsKey(key) ? (double) stats.get(key) : 0.0;
+		if (key == Statistic.WIN_RATE) {
+			return winRate instanceof Number ? ((Number) winRate).doubleValue() : getWinRate();
+		}
+		return values[key.ordinal()];
 	}
 
 	public long getLong(Statistic key) {
-		return stats.containsKey(key) ? (long) stats.get(key) : 0L;
+		return values[key.ordinal()];
+	}
+
+	private double getWinRate() {
+		long gamesWon = getLong(Statistic.GAMES_WON);
+		long gamesPlayed = gamesWon + getLong(Statistic.GAMES_LOST);
+		return gamesPlayed == 0 ? 0.0 : gamesWon / (double) gamesPlayed;
 	}
 
 	public void heal(int healing) {
@@ -104,15 +145,21 @@ public class GameStatistics implements Cloneable {
 	}
 
 	private void increaseCardCount(Card card) {
-		if (card.getCardType() == CardType.HERO_POWER) {
+		// cards created on the fly (e.g. in tests) may have no id
+		if (card.getCardType() == CardType.HERO_POWER || card.getCardId() == null) {
 			return;
 		}
-		String cardId = card.getCardId();
-		;
-		if (!getCardsPlayed().containsKey(cardId)) {
-			getCardsPlayed().put(cardId, 0);
+		int index = CardIndex.indexOf(card.getCardId());
+		if (index >= cardsPlayed.length) {
+			growCardsPlayed(index + 1);
 		}
-		getCardsPlayed().put(cardId, getCardsPlayed().get(cardId) + 1);
+		cardsPlayed[index]++;
+	}
+
+	private void growCardsPlayed(int minLength) {
+		int[] grown = new int[Math.max(minLength, cardsPlayed.length * 2)];
+		System.arraycopy(cardsPlayed, 0, grown, 0, cardsPlayed.length);
+		cardsPlayed = grown;
 	}
 
 	public void manaSpent(int mana) {
@@ -120,27 +167,28 @@ public class GameStatistics implements Cloneable {
 	}
 
 	public void merge(GameStatistics otherStatistics) {
-		for (Statistic stat : otherStatistics.stats.keySet()) {
-			Object value = get(stat);
-			if (value != null) {
-				if (value instanceof Long) {
-					add(stat, otherStatistics.getLong(stat));
-				}
-			} else {
-				stats.put(stat, otherStatistics.get(stat));
-			}
+		long[] otherValues = otherStatistics.values;
+		for (int i = 0; i < values.length; i++) {
+			values[i] += otherValues[i];
 		}
-		for (String cardId : otherStatistics.getCardsPlayed().keySet()) {
-			if (!getCardsPlayed().containsKey(cardId)) {
-				getCardsPlayed().put(cardId, 0);
-			}
-			getCardsPlayed().put(cardId, getCardsPlayed().get(cardId) + otherStatistics.getCardsPlayed().get(cardId));
+		recorded |= otherStatistics.recorded;
+
+		int[] otherCardsPlayed = otherStatistics.cardsPlayed;
+		if (otherCardsPlayed.length > cardsPlayed.length) {
+			growCardsPlayed(otherCardsPlayed.length);
+		}
+		for (int i = 0; i < otherCardsPlayed.length; i++) {
+			cardsPlayed[i] += otherCardsPlayed[i];
 		}
-		updateWinRate();
 	}
 
 	public void set(Statistic key, Object value) {
-		stats.put(key, value);
+		if (key == Statistic.WIN_RATE) {
+			winRate = value;
+			return;
+		}
+		values[key.ordinal()] = ((Number) value).longValue();
+		recorded |= 1L << key.ordinal();
 	}
 
 	public void startTurn() {
@@ -150,18 +198,16 @@ public class GameStatistics implements Cloneable {
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder("[GameStatistics]\n");
-		for (Statistic stat : stats.keySet()) {
+		for (Statistic stat : STATISTICS) {
+			if (!contains(stat)) {
+				continue;
+			}
 			builder.append(stat);
 			builder.append(": ");
-			builder.append(stats.get(stat));
+			builder.append(get(stat));
 			builder.append("\n");
 		}
 		return builder.toString();
 	}
 
-	private void updateWinRate() {
-		double winRate = getLong(Statistic.GAMES_WON) / (double) (getLong(Statistic.GAMES_WON) + getLong(Statistic.GAMES_LOST));
-		set(Statistic.WIN_RATE, winRate);
-	}
-
 }
@@ -0,0 +1,53 @@
+package net.demilich.metastone.game.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics of games finished on several threads. Games are merged
+ * into one of a few cells chosen by thread, each with its own lock, so threads
+ * rarely wait for each other; the cells are owned by the accumulator and go
+ * away with it. The combined result is cached until more games are added.
+ */
+public class StatisticsAccumulator {
+
+	private final GameStatistics[] cells;
+	private final AtomicLong added = new AtomicLong();
+	private GameStatistics combined = new GameStatistics();
+	private long combinedAdded;
+
+	public StatisticsAccumulator() {
+		int cellCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+		cells = new GameStatistics[cellCount];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new GameStatistics();
+		}
+	}
+
+	public void add(GameStatistics statistics) {
+		GameStatistics cell = cells[(int) Thread.currentThread().getId() & cells.length - 1];
+		synchronized (cell) {
+			cell.merge(statistics);
+		}
+		added.incrementAndGet();
+	}
+
+	/**
+	 * Combines the statistics collected by all threads into a new object. The
+	 * result includes at least all games added before the call.
+	 */
+	public synchronized GameStatistics combine() {
+		long addedNow = added.get();
+		if (addedNow != combinedAdded) {
+			GameStatistics statistics = new GameStatistics();
+			for (GameStatistics cell : cells) {
+				synchronized (cell) {
+					statistics.merge(cell);
+				}
+			}
+			combined = statistics;
+			combinedAdded = addedNow;
+		}
+		return combined.clone();
+	}
+
+}
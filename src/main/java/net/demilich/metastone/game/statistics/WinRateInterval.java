@@ -0,0 +1,125 @@
+package net.demilich.metastone.game.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wilson score confidence interval of a win rate, updated one game at a time
+ * and safe to update from several threads. Once the interval is narrower than
+ * the configured width the win rate is considered decided and further games
+ * would not change the outcome of a comparison in a meaningful way.
+ * <p>
+ * A draw counts as half a win, as in the playouts of the Monte Carlo searches
+ * (see {@link net.demilich.metastone.game.behaviour.RolloutPolicy}), so the
+ * win rates of both players always add up to 1.
+ */
+public class WinRateInterval {
+
+	// two-sided 95% confidence
+	private static final double Z = 1.959964;
+	// below this number of games the normal approximation behind the interval
+	// is too rough to stop on
+	private static final int DEFAULT_MIN_GAMES = 20;
+
+	public static double getLowerBound(double wins, long games) {
+		if (games == 0) {
+			return 0;
+		}
+		return getCenter(wins, games) - getHalfWidth(wins, games);
+	}
+
+	public static double getUpperBound(double wins, long games) {
+		if (games == 0) {
+			return 1;
+		}
+		return getCenter(wins, games) + getHalfWidth(wins, games);
+	}
+
+	private static double getCenter(double wins, long games) {
+		double p = wins / (double) games;
+		return (p + Z * Z / (2 * games)) / (1 + Z * Z / games);
+	}
+
+	private static double getHalfWidth(double wins, long games) {
+		double p = wins / (double) games;
+		return Z / (1 + Z * Z / games) * Math.sqrt(p * (1 - p) / games + Z * Z / (4.0 * games * games));
+	}
+
+	private static double getWins(long packed) {
+		return (packed & 0xFFFFFFFFL) / 2.0;
+	}
+
+	private final double maxWidth;
+	private final int minGames;
+	// games in the upper, half wins (two for a win, one for a draw) in the
+	// lower half, so that both are always read and updated together
+	private final AtomicLong outcomes = new AtomicLong();
+
+	/**
+	 * @param maxWidth
+	 *            width of the interval (e.g. 0.1 for +/- 5%) at which the win
+	 *            rate is considered decided
+	 */
+	public WinRateInterval(double maxWidth) {
+		this(maxWidth, DEFAULT_MIN_GAMES);
+	}
+
+	public WinRateInterval(double maxWidth, int minGames) {
+		this.maxWidth = maxWidth;
+		this.minGames = minGames;
+	}
+
+	public void addGame(boolean won) {
+		addGame(won ? 1 : 0);
+	}
+
+	/**
+	 * Adds a game worth the given score: 1 for a win, 0.5 for a draw and 0
+	 * for a loss.
+	 */
+	public void addGame(double score) {
+		if (score != 0 && score != 0.5 && score != 1) {
+			throw new IllegalArgumentException("A game is worth 0, 0.5 or 1: " + score);
+		}
+		outcomes.addAndGet((1L << 32) + (long) (score * 2));
+	}
+
+	public long getGames() {
+		return outcomes.get() >>> 32;
+	}
+
+	public double getLowerBound() {
+		long packed = outcomes.get();
+		return getLowerBound(getWins(packed), packed >>> 32);
+	}
+
+	public double getUpperBound() {
+		long packed = outcomes.get();
+		return getUpperBound(getWins(packed), packed >>> 32);
+	}
+
+	public double getMaxWidth() {
+		return maxWidth;
+	}
+
+	/**
+	 * Returns the number of games won, draws counting half.
+	 */
+	public double getWins() {
+		return getWins(outcomes.get());
+	}
+
+	public double getWidth() {
+		long packed = outcomes.get();
+		double wins = getWins(packed);
+		long games = packed >>> 32;
+		return getUpperBound(wins, games) - getLowerBound(wins, games);
+	}
+
+	public boolean isDecided() {
+		long packed = outcomes.get();
+		double wins = getWins(packed);
+		long games = packed >>> 32;
+		return games >= minGames && getUpperBound(wins, games) - getLowerBound(wins, games) <= maxWidth;
+	}
+
+}
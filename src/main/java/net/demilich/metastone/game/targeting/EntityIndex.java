@@ -0,0 +1,156 @@
+package net.demilich.metastone.game.targeting;
+
+import java.util.Arrays;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.minions.Minion;
+
+/**
+ * Maps entity ids to the zone and owner of the entities of one
+ * {@link GameContext}; {@link net.demilich.metastone.game.logic.GameLogic}
+ * updates it whenever an entity moves between zones.
+ *
+ * Heroes, minions and the cards in hands and decks are copied along with
+ * their context, so for them only the location is kept and the entity is
+ * looked up in the zone of its owner. Graveyards and set aside zones are
+ * shared with clones, so their entities are kept directly. A clone shares
+ * the index with its original until either of them changes it.
+ */
+public class EntityIndex implements Cloneable {
+
+	public enum Zone {
+		HERO,
+		WEAPON,
+		HERO_POWER,
+		MINION,
+		GRAVEYARD,
+		SET_ASIDE_ZONE,
+		HAND,
+		DECK
+	}
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private Zone[] zones;
+	private byte[] owners;
+	private Entity[] entities;
+	private boolean shared;
+
+	public EntityIndex() {
+		clear();
+	}
+
+	private EntityIndex(EntityIndex otherIndex) {
+		zones = otherIndex.zones;
+		owners = otherIndex.owners;
+		entities = otherIndex.entities;
+		shared = true;
+	}
+
+	public void clear() {
+		zones = new Zone[INITIAL_CAPACITY];
+		owners = new byte[INITIAL_CAPACITY];
+		entities = new Entity[INITIAL_CAPACITY];
+		shared = false;
+	}
+
+	/**
+	 * Returns an index sharing the entries of this one; the first of both
+	 * changing an entry takes a private copy.
+	 */
+	@Override
+	public synchronized EntityIndex clone() {
+		shared = true;
+		return new EntityIndex(this);
+	}
+
+	private synchronized void copyEntries(int minLength) {
+		int length = zones.length;
+		while (length < minLength) {
+			length *= 2;
+		}
+		zones = Arrays.copyOf(zones, length);
+		owners = Arrays.copyOf(owners, length);
+		entities = Arrays.copyOf(entities, length);
+		shared = false;
+	}
+
+	/**
+	 * Looks up the entity with the given id, or returns null if it is not in
+	 * any indexed zone. A card in a hand or deck is looked up with
+	 * {@link net.demilich.metastone.game.cards.CardCollection#getById(int)},
+	 * so it may be changed.
+	 */
+	public Entity find(GameContext context, int id) {
+		if (id < 0 || id >= zones.length || zones[id] == null) {
+			return null;
+		}
+		Player owner = context.getPlayer(owners[id]);
+		Entity entity;
+		switch (zones[id]) {
+		case HERO:
+			entity = owner.getHero();
+			break;
+		case WEAPON:
+			entity = owner.getHero().getWeapon();
+			break;
+		case HERO_POWER:
+			entity = owner.getHero().getHeroPower();
+			break;
+		case MINION:
+			// a board holds at most seven minions
+			entity = null;
+			for (Minion minion : owner.getMinions()) {
+				if (minion.getId() == id) {
+					entity = minion;
+					break;
+				}
+			}
+			break;
+		case HAND:
+			return owner.getHand().getById(id);
+		case DECK:
+			return owner.getDeck().getById(id);
+		default:
+			entity = entities[id];
+			break;
+		}
+		return entity != null && entity.getId() == id ? entity : null;
+	}
+
+	/**
+	 * Records that the given entity is now in the given zone of the given
+	 * player. Cards in a deck have no owner yet, so it is passed separately.
+	 */
+	public void put(int playerId, Entity entity, Zone zone) {
+		int id = entity.getId();
+		if (id < 0 || playerId < 0) {
+			return;
+		}
+		if (shared || id >= zones.length) {
+			copyEntries(id + 1);
+		}
+		zones[id] = zone;
+		owners[id] = (byte) playerId;
+		entities[id] = zone == Zone.GRAVEYARD || zone == Zone.SET_ASIDE_ZONE ? entity : null;
+	}
+
+	/**
+	 * Records that the given entity has left the game without entering
+	 * another zone.
+	 */
+	public void remove(Entity entity) {
+		int id = entity.getId();
+		if (id < 0 || id >= zones.length || zones[id] == null) {
+			return;
+		}
+		if (shared) {
+			copyEntries(zones.length);
+		}
+		zones[id] = null;
+		entities[id] = null;
+	}
+
+}
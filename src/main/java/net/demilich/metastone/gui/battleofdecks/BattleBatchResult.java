@@ -1,24 +1,35 @@
 package net.demilich.metastone.gui.battleofdecks;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.statistics.GameStatistics;
 import net.demilich.metastone.game.statistics.Statistic;
+import net.demilich.metastone.game.statistics.StatisticsAccumulator;
+import net.demilich.metastone.game.statistics.WinRateInterval;
 
 public class BattleBatchResult {
 
 	private final int numberOfGames;
-	private final GameStatistics player1Results = new GameStatistics();
-	private final GameStatistics player2Results = new GameStatistics();
-	private int gamesCompleted;
+	private final StatisticsAccumulator player1Results = new StatisticsAccumulator();
+	private final StatisticsAccumulator player2Results = new StatisticsAccumulator();
+	private final AtomicInteger gamesCompleted = new AtomicInteger();
 	private final Deck deck1;
 	private final Deck deck2;
-	private boolean completed;
+	private volatile boolean completed;
+	// win rate of deck 1; null if all games are played
+	private final WinRateInterval winRateInterval;
 
 	public BattleBatchResult(Deck deck1, Deck deck2, int numberOfGames) {
+		this(deck1, deck2, numberOfGames, 0);
+	}
+
+	public BattleBatchResult(Deck deck1, Deck deck2, int numberOfGames, double winRateIntervalWidth) {
 		this.deck1 = deck1;
 		this.deck2 = deck2;
 		this.numberOfGames = numberOfGames;
+		this.winRateInterval = winRateIntervalWidth > 0 ? new WinRateInterval(winRateIntervalWidth) : null;
 	}
 
 	public Deck getDeck1() {
@@ -42,26 +53,44 @@ public class BattleBatchResult {
 	}
 
 	public GameStatistics getPlayer1Results() {
-		return player1Results;
+		return player1Results.combine();
 	}
 
 	public GameStatistics getPlayer2Results() {
-		return player2Results;
+		return player2Results.combine();
+	}
+
+	public int getGamesCompleted() {
+		return gamesCompleted.get();
 	}
 
 	public double getProgress() {
-		return gamesCompleted / (double) numberOfGames;
+		return isCompleted() ? 1.0 : gamesCompleted.get() / (double) numberOfGames;
 	}
 
 	public boolean isCompleted() {
 		return completed;
 	}
 
-	public void onGameEnded(GameContext result) {
-		getPlayer1Results().merge(result.getPlayer1().getStatistics());
-		getPlayer2Results().merge(result.getPlayer2().getStatistics());
+	/**
+	 * Returns whether the win rate of this match up is known precisely enough
+	 * to stop playing further games.
+	 */
+	public boolean isDecided() {
+		return winRateInterval != null && winRateInterval.isDecided();
+	}
 
-		if (++gamesCompleted == numberOfGames) {
+	public void onGameEnded(GameContext result) {
+		player1Results.add(result.getPlayer1().getStatistics());
+		player2Results.add(result.getPlayer2().getStatistics());
+
+		if (winRateInterval != null) {
+			// neither player wins a draw
+			double score = result.getPlayer1().getStatistics().getLong(Statistic.GAMES_WON) > 0 ? 1
+					: result.getPlayer2().getStatistics().getLong(Statistic.GAMES_WON) > 0 ? 0 : 0.5;
+			winRateInterval.addGame(score);
+		}
+		if (gamesCompleted.incrementAndGet() == numberOfGames || isDecided()) {
 			setCompleted(true);
 		}
 	}
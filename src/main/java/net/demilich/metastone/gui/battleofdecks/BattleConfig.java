@@ -10,11 +10,22 @@ public class BattleConfig {
 	private final int numberOfGames;
 	private final IBehaviour behaviour;
 	private final Collection<Deck> decks;
+	private final double winRateIntervalWidth;
 
 	public BattleConfig(int numberOfGames, IBehaviour behaviour, Collection<Deck> decks) {
+		this(numberOfGames, behaviour, decks, 0);
+	}
+
+	/**
+	 * @param winRateIntervalWidth
+	 *            width of the win rate confidence interval at which a match
+	 *            up is stopped early; 0 plays all games
+	 */
+	public BattleConfig(int numberOfGames, IBehaviour behaviour, Collection<Deck> decks, double winRateIntervalWidth) {
 		this.numberOfGames = numberOfGames;
 		this.behaviour = behaviour;
 		this.decks = decks;
+		this.winRateIntervalWidth = winRateIntervalWidth;
 	}
 
 	public IBehaviour getBehaviour() {
@@ -29,4 +40,8 @@ public class BattleConfig {
 		return numberOfGames;
 	}
 
+	public double getWinRateIntervalWidth() {
+		return winRateIntervalWidth;
+	}
+
 }
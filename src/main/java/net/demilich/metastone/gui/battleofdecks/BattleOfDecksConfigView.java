@@ -24,12 +24,15 @@ import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import net.demilich.metastone.gui.common.BehaviourStringConverter;
 import net.demilich.metastone.gui.common.DeckStringConverter;
+import net.demilich.metastone.gui.common.WinRateIntervalStringConverter;
 
 public class BattleOfDecksConfigView extends BorderPane {
 
 	@FXML
 	private ComboBox<Integer> numberOfGamesBox;
 	@FXML
+	private ComboBox<Double> winRateIntervalBox;
+	@FXML
 	private ComboBox<IBehaviour> behaviourBox;
 
 	@FXML
@@ -59,6 +62,7 @@ public class BattleOfDecksConfigView extends BorderPane {
 
 		setupBehaviourBox();
 		setupNumberOfGamesBox();
+		setupWinRateIntervalBox();
 
 		selectedDecksListView.setCellFactory(TextFieldListCell.forListView(new DeckStringConverter()));
 		selectedDecksListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
@@ -88,7 +92,8 @@ public class BattleOfDecksConfigView extends BorderPane {
 		int numberOfGames = numberOfGamesBox.getSelectionModel().getSelectedItem();
 		IBehaviour behaviour = behaviourBox.getSelectionModel().getSelectedItem();
 		Collection<Deck> decks = selectedDecksListView.getItems();
-		BattleConfig battleConfig = new BattleConfig(numberOfGames, behaviour, decks);
+		double winRateIntervalWidth = winRateIntervalBox.getSelectionModel().getSelectedItem();
+		BattleConfig battleConfig = new BattleConfig(numberOfGames, behaviour, decks, winRateIntervalWidth);
 		ApplicationFacade.getInstance().sendNotification(GameNotification.COMMIT_BATTLE_OF_DECKS_CONFIG, battleConfig);
 	}
 
@@ -119,4 +124,10 @@ public class BattleOfDecksConfigView extends BorderPane {
 		numberOfGamesBox.getSelectionModel().select(2);
 	}
 
+	private void setupWinRateIntervalBox() {
+		winRateIntervalBox.setConverter(new WinRateIntervalStringConverter());
+		winRateIntervalBox.getItems().setAll(0.0, 0.2, 0.1, 0.05, 0.02);
+		winRateIntervalBox.getSelectionModel().selectFirst();
+	}
+
 }
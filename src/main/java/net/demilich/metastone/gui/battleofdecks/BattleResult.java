@@ -1,17 +1,18 @@
 package net.demilich.metastone.gui.battleofdecks;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
-import net.demilich.metastone.game.statistics.GameStatistics;
+import net.demilich.metastone.game.statistics.StatisticsAccumulator;
 
 public class BattleResult {
 
 	private final int numberOfGames;
-	private final HashMap<String, GameStatistics> deckResults = new HashMap<String, GameStatistics>();
+	private final Map<String, StatisticsAccumulator> deckResults = new ConcurrentHashMap<String, StatisticsAccumulator>();
 	private final List<BattleBatchResult> batchResults = new ArrayList<BattleBatchResult>();
 
 	public BattleResult(int numberOfGames) {
@@ -32,11 +33,9 @@ public class BattleResult {
 
 	public List<BattleDeckResult> getDeckResults() {
 		List<BattleDeckResult> resultList = new ArrayList<BattleDeckResult>();
-		synchronized (deckResults) {
-			for (String deckName : deckResults.keySet()) {
-				BattleDeckResult deckResult = new BattleDeckResult(deckName, deckResults.get(deckName));
-				resultList.add(deckResult);
-			}
+		for (Map.Entry<String, StatisticsAccumulator> entry : deckResults.entrySet()) {
+			BattleDeckResult deckResult = new BattleDeckResult(entry.getKey(), entry.getValue().combine());
+			resultList.add(deckResult);
 		}
 		return resultList;
 	}
@@ -53,13 +52,8 @@ public class BattleResult {
 
 	private void updateStats(Player player) {
 		String deckName = player.getDeckName();
-		synchronized (deckResults) {
-			if (!deckResults.containsKey(deckName)) {
-				deckResults.put(deckName, new GameStatistics());
-			}
-			GameStatistics stats = deckResults.get(deckName);
-			stats.merge(player.getStatistics());
-		}
+		StatisticsAccumulator stats = deckResults.computeIfAbsent(deckName, name -> new StatisticsAccumulator());
+		stats.add(player.getStatistics());
 	}
 
 }
@@ -3,11 +3,8 @@ package net.demilich.metastone.gui.battleofdecks;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
@@ -18,6 +15,8 @@ import net.demilich.nittygrittymvc.interfaces.INotification;
 import net.demilich.metastone.GameNotification;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.SimulationBatch;
+import net.demilich.metastone.game.SimulationEngine;
 import net.demilich.metastone.game.behaviour.IBehaviour;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.logic.GameLogic;
@@ -25,108 +24,56 @@ import net.demilich.metastone.gui.gameconfig.PlayerConfig;
 
 public class StartBattleOfDecksCommand extends SimpleCommand<GameNotification> {
 
-	private class PlayGameTask implements Callable<Void> {
-
-		private final PlayerConfig player1Config;
-		private final PlayerConfig player2Config;
-		private final BattleBatchResult batchResult;
-
-		public PlayGameTask(Deck deck1, Deck deck2, IBehaviour behaviour, BattleBatchResult batchResult) {
-			this.player1Config = new PlayerConfig(deck1, behaviour);
-			player1Config.setName("Player 1");
-			this.player2Config = new PlayerConfig(deck2, behaviour);
-			player2Config.setName("Player 2");
-			this.batchResult = batchResult;
-		}
-
-		@Override
-		public Void call() throws Exception {
-			Player player1 = new Player(player1Config);
-			Player player2 = new Player(player2Config);
-
-			GameContext newGame = new GameContext(player1, player2, new GameLogic());
-			newGame.play();
-
-			batchResult.onGameEnded(newGame);
-			result.onGameEnded(newGame);
-
-			periodicUpdate();
-			newGame.dispose();
-
-			return null;
-		}
-
-	}
-
 	private static Logger logger = LoggerFactory.getLogger(StartBattleOfDecksCommand.class);
 	private BattleResult result;
 
-	private long lastUpdate;
+	private volatile long lastUpdate;
+
+	private static GameContext createGame(Deck deck1, Deck deck2, IBehaviour behaviour) {
+		PlayerConfig player1Config = new PlayerConfig(deck1, behaviour);
+		player1Config.setName("Player 1");
+		PlayerConfig player2Config = new PlayerConfig(deck2, behaviour);
+		player2Config.setName("Player 2");
+		return new GameContext(new Player(player1Config), new Player(player2Config), new GameLogic());
+	}
 
 	@Override
 	public void execute(INotification<GameNotification> notification) {
 		BattleConfig battleConfig = (BattleConfig) notification.getBody();
 		result = new BattleResult(battleConfig.getNumberOfGames());
 
-		Thread t = new Thread(new Runnable() {
-
-			@Override
-			public void run() {
-				logger.info("Battle of Decks started");
-				ExecutorService executor = Executors.newWorkStealingPool();
-
-				List<Future<Void>> futures = new ArrayList<Future<Void>>();
-				HashSet<Deck> processedDecks = new HashSet<>();
-				for (Deck deck1 : battleConfig.getDecks()) {
-					processedDecks.add(deck1);
-					for (Deck deck2 : battleConfig.getDecks()) {
-						if (processedDecks.contains(deck2)) {
-							continue;
-						}
-						BattleBatchResult batchResult = new BattleBatchResult(deck1, deck2, battleConfig.getNumberOfGames());
-						result.addBatchResult(batchResult);
-
-						for (int i = 0; i < battleConfig.getNumberOfGames(); i++) {
-							PlayGameTask task = new PlayGameTask(deck1, deck2, battleConfig.getBehaviour(), batchResult);
-							Future<Void> future = executor.submit(task);
-							futures.add(future);
-						}
-					}
+		logger.info("Battle of Decks started");
+		SimulationEngine engine = SimulationEngine.getInstance();
+		List<CompletableFuture<SimulationBatch>> batches = new ArrayList<>();
+		HashSet<Deck> processedDecks = new HashSet<>();
+		for (Deck deck1 : battleConfig.getDecks()) {
+			processedDecks.add(deck1);
+			for (Deck deck2 : battleConfig.getDecks()) {
+				if (processedDecks.contains(deck2)) {
+					continue;
 				}
+				BattleBatchResult batchResult = new BattleBatchResult(deck1, deck2, battleConfig.getNumberOfGames(),
+						battleConfig.getWinRateIntervalWidth());
+				result.addBatchResult(batchResult);
+
+				Supplier<GameContext> gameFactory = () -> createGame(deck1, deck2, battleConfig.getBehaviour());
+				SimulationBatch batch = engine.simulate(gameFactory, battleConfig.getNumberOfGames(), game -> {
+					batchResult.onGameEnded(game);
+					result.onGameEnded(game);
+					periodicUpdate();
+				}, batchResult::isDecided);
+				batches.add(batch.getCompletion());
+			}
+		}
 
-				executor.shutdown();
-				boolean completed = false;
-				while (!completed) {
-					completed = true;
-					for (Future<Void> future : futures) {
-						if (!future.isDone()) {
-							completed = false;
-							continue;
-						}
-						try {
-							future.get();
-						} catch (InterruptedException | ExecutionException e) {
-							logger.error(ExceptionUtils.getStackTrace(e));
-							e.printStackTrace();
-							System.exit(-1);
-						}
-					}
-					futures.removeIf(future -> future.isDone());
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
-				}
-
-				// getFacade().sendNotification(GameNotification.SIMULATION_RESULT,
-				// result);
-				logger.info("Battle of Decks finished");
-
+		CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[batches.size()])).whenComplete((ignored, e) -> {
+			if (e != null) {
+				logger.error(ExceptionUtils.getStackTrace(e));
 			}
+			// getFacade().sendNotification(GameNotification.SIMULATION_RESULT,
+			// result);
+			logger.info("Battle of Decks finished");
 		});
-		t.setDaemon(true);
-		t.start();
 	}
 
 	private void periodicUpdate() {
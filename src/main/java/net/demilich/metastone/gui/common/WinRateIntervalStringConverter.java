@@ -0,0 +1,50 @@
+package net.demilich.metastone.gui.common;
+
+import java.text.NumberFormat;
+import java.text.ParseException;
+
+import javafx.util.StringConverter;
+
+/**
+ * Shows the width of a win rate confidence interval as the +/- margin it
+ * stands for; a width of 0 means no early stopping.
+ */
+public class WinRateIntervalStringConverter extends StringConverter<Double> {
+
+	private static final String ALL_GAMES = "Play all games";
+	private static final String MARGIN_PREFIX = "Win rate ±";
+
+	/**
+	 * Reads back the text written by {@link #toString(Double)}, or returns
+	 * null if it is not in that format.
+	 */
+	@Override
+	public Double fromString(String text) {
+		if (text == null) {
+			return null;
+		}
+		text = text.trim();
+		if (text.equals(ALL_GAMES)) {
+			return 0.0;
+		}
+		if (!text.startsWith(MARGIN_PREFIX) || !text.endsWith("%")) {
+			return null;
+		}
+		String margin = text.substring(MARGIN_PREFIX.length(), text.length() - 1);
+		try {
+			// formatted in the default locale
+			return NumberFormat.getInstance().parse(margin).doubleValue() / 50;
+		} catch (ParseException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString(Double width) {
+		if (width == null || width <= 0) {
+			return ALL_GAMES;
+		}
+		return String.format(MARGIN_PREFIX + "%.1f%%", width * 50);
+	}
+
+}
@@ -3,6 +3,11 @@ package net.demilich.metastone.gui.gameconfig;
 public class GameConfig {
 
 	private int numberOfGames;
+	// width of the win rate confidence interval at which a simulation stops
+	// early; 0 plays all games
+	private double winRateIntervalWidth;
+	// seed of the first game; null plays unseeded games
+	private Long randomSeed;
 	private PlayerConfig playerConfig1;
 	private PlayerConfig playerConfig2;
 
@@ -18,6 +23,14 @@ public class GameConfig {
 		return playerConfig2;
 	}
 
+	public Long getRandomSeed() {
+		return randomSeed;
+	}
+
+	public double getWinRateIntervalWidth() {
+		return winRateIntervalWidth;
+	}
+
 	public void setNumberOfGames(int numberOfGames) {
 		this.numberOfGames = numberOfGames;
 	}
@@ -30,4 +43,20 @@ public class GameConfig {
 		this.playerConfig2 = playerConfig2;
 	}
 
+	/**
+	 * Makes the simulation reproducible: the n-th game created for this
+	 * configuration is seeded with a seed derived from this one, so two
+	 * simulations with the same seed play their games on common random
+	 * numbers. Games are replayed move for move if the behaviours draw from
+	 * the game's random generator too; searches on several threads or with a
+	 * time budget still vary.
+	 */
+	public void setRandomSeed(Long randomSeed) {
+		this.randomSeed = randomSeed;
+	}
+
+	public void setWinRateIntervalWidth(double winRateIntervalWidth) {
+		this.winRateIntervalWidth = winRateIntervalWidth;
+	}
+
 }
@@ -1,6 +1,11 @@
 package net.demilich.metastone.gui.gameconfig;
 
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
 import net.demilich.metastone.game.behaviour.IBehaviour;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
 import net.demilich.metastone.game.cards.HeroCard;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.decks.MetaDeck;
@@ -13,6 +18,8 @@ public class PlayerConfig {
 	private Deck deck;
 	private IBehaviour behaviour;
 	private boolean hideCards;
+	private SearchBudget searchBudget;
+	private RolloutPolicy rolloutPolicy;
 
 	private Deck deckForPlay;
 	private HeroCard heroForPlay;
@@ -26,15 +33,21 @@ public class PlayerConfig {
 	}
 
 	public void build() {
-		if (deck instanceof MetaDeck) {
-			MetaDeck metaDeck = (MetaDeck) deck;
-			deckForPlay = metaDeck.selectRandom();
+		deckForPlay = selectDeckForPlay(ThreadLocalRandom.current());
+		heroForPlay = getHeroForPlay(deckForPlay);
+	}
 
-			heroForPlay = MetaHero.getHeroCard(deckForPlay.getHeroClass());
-		} else {
-			deckForPlay = deck;
-			heroForPlay = heroCard;
+	/**
+	 * Returns the deck to play a game with: one of the decks of a meta deck,
+	 * drawn from the given random source, or else the deck itself. Unlike
+	 * {@link #build()}, this leaves the configuration unchanged, so games
+	 * may be set up from it on several threads at once.
+	 */
+	public Deck selectDeckForPlay(Random random) {
+		if (deck instanceof MetaDeck) {
+			return ((MetaDeck) deck).selectRandom(random);
 		}
+		return deck;
 	}
 
 	public IBehaviour getBehaviour() {
@@ -57,10 +70,37 @@ public class PlayerConfig {
 		return heroForPlay;
 	}
 
+	/**
+	 * Returns the hero to play the given deck, as selected by
+	 * {@link #selectDeckForPlay(Random)}, with.
+	 */
+	public HeroCard getHeroForPlay(Deck deckForPlay) {
+		if (deck instanceof MetaDeck) {
+			return MetaHero.getHeroCard(deckForPlay.getHeroClass());
+		}
+		return heroCard;
+	}
+
 	public String getName() {
 		return name != null ? name : heroCard.getName();
 	}
 
+	/**
+	 * Returns how the player's behaviour plays out the states it searches if
+	 * it runs playouts, or null to use the behaviour's own setting.
+	 */
+	public RolloutPolicy getRolloutPolicy() {
+		return rolloutPolicy;
+	}
+
+	/**
+	 * Returns the budget the player's behaviour spends on each decision if it
+	 * searches, or null to use the behaviour's own setting.
+	 */
+	public SearchBudget getSearchBudget() {
+		return searchBudget;
+	}
+
 	public boolean hideCards() {
 		return hideCards;
 	}
@@ -85,4 +125,12 @@ public class PlayerConfig {
 		this.name = name;
 	}
 
+	public void setRolloutPolicy(RolloutPolicy rolloutPolicy) {
+		this.rolloutPolicy = rolloutPolicy;
+	}
+
+	public void setSearchBudget(SearchBudget searchBudget) {
+		this.searchBudget = searchBudget;
+	}
+
 }
@@ -20,10 +20,13 @@ import net.demilich.metastone.game.behaviour.GreedyOptimizeMove;
 import net.demilich.metastone.game.behaviour.IBehaviour;
 import net.demilich.metastone.game.behaviour.NoAggressionBehaviour;
 import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.behaviour.TurnPlanner;
 import net.demilich.metastone.game.behaviour.heuristic.WeightedHeuristic;
 import net.demilich.metastone.game.behaviour.human.HumanBehaviour;
 import net.demilich.metastone.game.behaviour.mcts.HearthAgent;
+import net.demilich.metastone.game.behaviour.mcts.InformationSetMcts;
 import net.demilich.metastone.game.behaviour.mcts.MonteCarloTreeSearch;
+import net.demilich.metastone.game.behaviour.mcts.Parallelization;
 import net.demilich.metastone.game.behaviour.threat.GameStateValueBehaviour;
 import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.game.cards.CardCatalogue;
@@ -154,6 +157,13 @@ public class PlayerConfigView extends VBox {
 
 		behaviourList.add(new MonteCarloTreeSearch());
 		behaviourList.add(new HearthAgent());
+		behaviourList.add(new InformationSetMcts());
+		int processors = Runtime.getRuntime().availableProcessors();
+		if (processors > 1) {
+			behaviourList.add(new MonteCarloTreeSearch(processors, Parallelization.TREE));
+			behaviourList.add(new HearthAgent(500, processors, Parallelization.TREE));
+			behaviourList.add(new InformationSetMcts(processors, processors));
+		}
 
 		behaviourList.add(new GameStateValueBehaviour());
 
@@ -164,6 +174,7 @@ public class PlayerConfigView extends VBox {
 		behaviourList.add(new PlayRandomBehaviour());
 
 		behaviourList.add(new GreedyOptimizeMove(new WeightedHeuristic()));
+		behaviourList.add(new TurnPlanner(new WeightedHeuristic()));
 		behaviourList.add(new NoAggressionBehaviour());
 
 		behaviourBox.setItems(behaviourList);
@@ -129,7 +129,7 @@ public class CardCollectionEditor extends SandboxEditor {
 
 	private void populateEditableView(CardCollection cardCollection) {
 		ObservableList<Card> data = FXCollections.observableArrayList();
-		for (Card card : cardCollection) {
+		for (Card card : cardCollection.toList()) {
 			data.add(card);
 		}
 		editableListView.setItems(data);
@@ -163,7 +163,7 @@ public class EntityEditor extends SandboxEditor {
 	}
 
 	private void handleOkButton(ActionEvent actionEvent) {
-		entity.getAttributes().clear();
+		entity.clearAttributes();
 		for (Attribute tag : workingCopy.keySet()) {
 			entity.setAttribute(tag, workingCopy.get(tag));
 		}
@@ -1,12 +1,6 @@
 package net.demilich.metastone.gui.simulationmode;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
@@ -17,44 +11,16 @@ import net.demilich.nittygrittymvc.SimpleCommand;
 import net.demilich.nittygrittymvc.interfaces.INotification;
 import net.demilich.metastone.GameNotification;
 import net.demilich.metastone.game.GameContext;
-import net.demilich.metastone.game.Player;
-import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.game.SimulationBatch;
+import net.demilich.metastone.game.SimulationEngine;
 import net.demilich.metastone.gui.gameconfig.GameConfig;
-import net.demilich.metastone.gui.gameconfig.PlayerConfig;
 import net.demilich.metastone.utils.Tuple;
 
 public class SimulateGamesCommand extends SimpleCommand<GameNotification> {
 
-	private class PlayGameTask implements Callable<Void> {
-
-		private final GameConfig gameConfig;
-
-		public PlayGameTask(GameConfig gameConfig) {
-			this.gameConfig = gameConfig;
-		}
-
-		@Override
-		public Void call() throws Exception {
-			PlayerConfig playerConfig1 = gameConfig.getPlayerConfig1();
-			PlayerConfig playerConfig2 = gameConfig.getPlayerConfig2();
-
-			Player player1 = new Player(playerConfig1);
-			Player player2 = new Player(playerConfig2);
-
-			GameContext newGame = new GameContext(player1, player2, new GameLogic());
-			newGame.play();
-
-			onGameComplete(gameConfig, newGame);
-			newGame.dispose();
-
-			return null;
-		}
-
-	}
-
 	private static Logger logger = LoggerFactory.getLogger(SimulateGamesCommand.class);
-	private int gamesCompleted;
-	private long lastUpdate;
+	private final AtomicInteger gamesCompleted = new AtomicInteger();
+	private volatile long lastUpdate;
 
 	private SimulationResult result;
 
@@ -63,79 +29,40 @@ public class SimulateGamesCommand extends SimpleCommand<GameNotification> {
 		final GameConfig gameConfig = (GameConfig) notification.getBody();
 		result = new SimulationResult(gameConfig);
 
-		gamesCompleted = 0;
-
-		Thread t = new Thread(new Runnable() {
-
-			@Override
-			public void run() {
-				int cores = Runtime.getRuntime().availableProcessors();
-				logger.info("Starting simulation on " + cores + " cores");
-				ExecutorService executor = Executors.newFixedThreadPool(cores);
-				// ExecutorService executor =
-				// Executors.newSingleThreadExecutor();
-
-				List<Future<Void>> futures = new ArrayList<Future<Void>>();
-				// send initial status update
-				Tuple<Integer, Integer> progress = new Tuple<>(0, gameConfig.getNumberOfGames());
-				getFacade().sendNotification(GameNotification.SIMULATION_PROGRESS_UPDATE, progress);
+		gamesCompleted.set(0);
 
-				// queue up all games as tasks
-				lastUpdate = System.currentTimeMillis();
-				for (int i = 0; i < gameConfig.getNumberOfGames(); i++) {
-					PlayGameTask task = new PlayGameTask(gameConfig);
-					Future<Void> future = executor.submit(task);
-					futures.add(future);
-				}
-
-				executor.shutdown();
-				boolean completed = false;
-				while (!completed) {
-					completed = true;
-					for (Future<Void> future : futures) {
-						if (!future.isDone()) {
-							completed = false;
-							continue;
-						}
-						try {
-							future.get();
-						} catch (InterruptedException | ExecutionException e) {
-							logger.error(ExceptionUtils.getStackTrace(e));
-							e.printStackTrace();
-							System.exit(-1);
-						}
-					}
-					futures.removeIf(future -> future.isDone());
-					try {
-						Thread.sleep(50);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
-				}
-
-				result.calculateMetaStatistics();
-				getFacade().sendNotification(GameNotification.SIMULATION_RESULT, result);
-				logger.info("Simulation finished");
+		SimulationEngine engine = SimulationEngine.getInstance();
+		logger.info("Starting simulation on " + engine.getParallelism() + " cores");
+		// send initial status update
+		Tuple<Integer, Integer> progress = new Tuple<>(0, gameConfig.getNumberOfGames());
+		getFacade().sendNotification(GameNotification.SIMULATION_PROGRESS_UPDATE, progress);
 
+		lastUpdate = System.currentTimeMillis();
+		SimulationBatch batch = engine.simulate(SimulationEngine.createGameFactory(gameConfig), gameConfig.getNumberOfGames(),
+				game -> onGameComplete(gameConfig, game), result::isDecided);
+		batch.getCompletion().whenComplete((completedBatch, e) -> {
+			if (e != null) {
+				logger.error(ExceptionUtils.getStackTrace(e));
 			}
+			result.calculateMetaStatistics();
+			if (result.getNumberOfGames() < gameConfig.getNumberOfGames()) {
+				logger.info("Win rate decided after " + result.getNumberOfGames() + " games");
+			}
+			getFacade().sendNotification(GameNotification.SIMULATION_RESULT, result);
+			logger.info("Simulation finished");
 		});
-		t.setDaemon(true);
-		t.start();
 	}
 
 	private void onGameComplete(GameConfig gameConfig, GameContext context) {
 		long timeStamp = System.currentTimeMillis();
-		gamesCompleted++;
+		int completed = gamesCompleted.incrementAndGet();
 		if (timeStamp - lastUpdate > 100) {
 			lastUpdate = timeStamp;
-			Tuple<Integer, Integer> progress = new Tuple<>(gamesCompleted, gameConfig.getNumberOfGames());
+			Tuple<Integer, Integer> progress = new Tuple<>(completed, gameConfig.getNumberOfGames());
 			Notification<GameNotification> updateNotification = new Notification<>(GameNotification.SIMULATION_PROGRESS_UPDATE, progress);
 			getFacade().notifyObservers(updateNotification);
 		}
-		synchronized (result) {
-			result.getPlayer1Stats().merge(context.getPlayer1().getStatistics());
-			result.getPlayer2Stats().merge(context.getPlayer2().getStatistics());
-		}
+		result.onGameEnded(context);
 	}
 
 }
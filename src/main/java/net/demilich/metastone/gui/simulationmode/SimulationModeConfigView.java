@@ -16,6 +16,7 @@ import javafx.scene.layout.HBox;
 import net.demilich.metastone.ApplicationFacade;
 import net.demilich.metastone.GameNotification;
 import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.gui.common.WinRateIntervalStringConverter;
 import net.demilich.metastone.gui.gameconfig.GameConfig;
 
 public class SimulationModeConfigView extends BorderPane implements EventHandler<ActionEvent> {
@@ -32,6 +33,9 @@ public class SimulationModeConfigView extends BorderPane implements EventHandler
 	@FXML
 	protected ComboBox<Integer> numberOfGamesBox;
 
+	@FXML
+	protected ComboBox<Double> winRateIntervalBox;
+
 	protected PlayerConfigView player1Config;
 	protected PlayerConfigView player2Config;
 
@@ -55,6 +59,7 @@ public class SimulationModeConfigView extends BorderPane implements EventHandler
 		startButton.setOnAction(this);
 		backButton.setOnAction(this);
 		setupNumberOfGamesBox();
+		setupWinRateIntervalBox();
 	}
 
 	@Override
@@ -62,6 +67,7 @@ public class SimulationModeConfigView extends BorderPane implements EventHandler
 		if (actionEvent.getSource() == startButton) {
 			GameConfig gameConfig = new GameConfig();
 			gameConfig.setNumberOfGames(numberOfGamesBox.getSelectionModel().getSelectedItem());
+			gameConfig.setWinRateIntervalWidth(winRateIntervalBox.getSelectionModel().getSelectedItem());
 			gameConfig.setPlayerConfig1(player1Config.getPlayerConfig());
 			gameConfig.setPlayerConfig2(player2Config.getPlayerConfig());
 			ApplicationFacade.getInstance().sendNotification(GameNotification.COMMIT_SIMULATIONMODE_CONFIG, gameConfig);
@@ -87,4 +93,10 @@ public class SimulationModeConfigView extends BorderPane implements EventHandler
 		numberOfGamesBox.getSelectionModel().select(2);
 	}
 
+	private void setupWinRateIntervalBox() {
+		winRateIntervalBox.setConverter(new WinRateIntervalStringConverter());
+		winRateIntervalBox.getItems().setAll(0.0, 0.2, 0.1, 0.05, 0.02);
+		winRateIntervalBox.getSelectionModel().selectFirst();
+	}
+
 }
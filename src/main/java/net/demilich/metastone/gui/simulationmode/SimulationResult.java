@@ -1,23 +1,40 @@
 package net.demilich.metastone.gui.simulationmode;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.statistics.GameStatistics;
 import net.demilich.metastone.game.statistics.Statistic;
+import net.demilich.metastone.game.statistics.StatisticsAccumulator;
+import net.demilich.metastone.game.statistics.WinRateInterval;
 import net.demilich.metastone.gui.gameconfig.GameConfig;
 
 public class SimulationResult {
 
-	private final GameStatistics player1Stats = new GameStatistics();
-	private final GameStatistics player2Stats = new GameStatistics();
+	private final StatisticsAccumulator player1Accumulator = new StatisticsAccumulator();
+	private final StatisticsAccumulator player2Accumulator = new StatisticsAccumulator();
+	private GameStatistics player1Stats = new GameStatistics();
+	private GameStatistics player2Stats = new GameStatistics();
+	private final AtomicInteger gamesPlayed = new AtomicInteger();
+	// win rate of player 1; null if all configured games are played
+	private final WinRateInterval winRateInterval;
 	private final long startTimestamp;
 	private long duration;
 	private final GameConfig config;
 
 	public SimulationResult(GameConfig config) {
 		this.config = config;
+		this.winRateInterval = config.getWinRateIntervalWidth() > 0 ? new WinRateInterval(config.getWinRateIntervalWidth()) : null;
 		this.startTimestamp = System.currentTimeMillis();
 	}
 
+	/**
+	 * Combines the statistics of all finished games; call once after the last
+	 * game has ended.
+	 */
 	public void calculateMetaStatistics() {
+		player1Stats = player1Accumulator.combine();
+		player2Stats = player2Accumulator.combine();
 		calculateMetaStatistics(player1Stats);
 		calculateMetaStatistics(player2Stats);
 	}
@@ -40,8 +57,12 @@ public class SimulationResult {
 		return this.duration;
 	}
 
+	/**
+	 * Returns the number of games actually played, which is less than the
+	 * configured number if the simulation stopped early.
+	 */
 	public int getNumberOfGames() {
-		return getConfig().getNumberOfGames();
+		return gamesPlayed.get();
 	}
 
 	public GameStatistics getPlayer1Stats() {
@@ -52,4 +73,32 @@ public class SimulationResult {
 		return player2Stats;
 	}
 
+	public WinRateInterval getWinRateInterval() {
+		return winRateInterval;
+	}
+
+	/**
+	 * Returns whether the win rate is known precisely enough to stop the
+	 * simulation early.
+	 */
+	public boolean isDecided() {
+		return winRateInterval != null && winRateInterval.isDecided();
+	}
+
+	/**
+	 * Records the statistics of a finished game. May be called from several
+	 * threads at once.
+	 */
+	public void onGameEnded(GameContext context) {
+		player1Accumulator.add(context.getPlayer1().getStatistics());
+		player2Accumulator.add(context.getPlayer2().getStatistics());
+		if (winRateInterval != null) {
+			// neither player wins a draw
+			double score = context.getPlayer1().getStatistics().getLong(Statistic.GAMES_WON) > 0 ? 1
+					: context.getPlayer2().getStatistics().getLong(Statistic.GAMES_WON) > 0 ? 0 : 0.5;
+			winRateInterval.addGame(score);
+		}
+		gamesPlayed.incrementAndGet();
+	}
+
 }
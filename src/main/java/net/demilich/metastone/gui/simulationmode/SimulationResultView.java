@@ -6,6 +6,7 @@ import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
@@ -121,8 +122,9 @@ public class SimulationResultView extends BorderPane {
 	}
 
 	private String getFavouriteCardName(GameStatistics stats, CardType cardType) {
+		Map<String, Integer> cardsPlayed = stats.getCardsPlayed();
 		List<Card> cards = new ArrayList<Card>();
-		for (String cardId : stats.getCardsPlayed().keySet()) {
+		for (String cardId : cardsPlayed.keySet()) {
 			Card card = CardCatalogue.getCardById(cardId);
 			if (card == null) {
 				System.out.println("Invalid card with id: " + cardId);
@@ -137,8 +139,8 @@ public class SimulationResultView extends BorderPane {
 		}
 
 		Collections.sort(cards, (c1, c2) -> {
-			int c1Count = stats.getCardsPlayed().get(c1.getCardId());
-			int c2Count = stats.getCardsPlayed().get(c2.getCardId());
+			int c1Count = cardsPlayed.get(c1.getCardId());
+			int c2Count = cardsPlayed.get(c2.getCardId());
 			// sort descending
 			return Integer.compare(c2Count, c1Count);
 		});
@@ -160,7 +162,11 @@ public class SimulationResultView extends BorderPane {
 	public void showSimulationResult(SimulationResult result) {
 		player1InfoView.setInfo(result.getConfig().getPlayerConfig1());
 		player2InfoView.setInfo(result.getConfig().getPlayerConfig2());
-		durationLabel.setText("Simulation took " + DurationFormatUtils.formatDurationHMS(result.getDuration()));
+		String durationText = "Simulation took " + DurationFormatUtils.formatDurationHMS(result.getDuration());
+		if (result.getNumberOfGames() < result.getConfig().getNumberOfGames()) {
+			durationText += " (stopped early after " + result.getNumberOfGames() + " games)";
+		}
+		durationLabel.setText(durationText);
 
 		ObservableList<StatEntry> absoluteStatEntries = FXCollections.observableArrayList();
 		ObservableList<StatEntry> averageStatEntries = FXCollections.observableArrayList();
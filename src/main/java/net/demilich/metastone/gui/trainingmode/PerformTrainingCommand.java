@@ -1,5 +1,8 @@
 package net.demilich.metastone.gui.trainingmode;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,6 +12,8 @@ import net.demilich.nittygrittymvc.interfaces.INotification;
 import net.demilich.metastone.GameNotification;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.SimulationBatch;
+import net.demilich.metastone.game.SimulationEngine;
 import net.demilich.metastone.game.behaviour.threat.FeatureVector;
 import net.demilich.metastone.game.behaviour.threat.GameStateValueBehaviour;
 import net.demilich.metastone.game.behaviour.threat.cuckoo.CuckooLearner;
@@ -20,6 +25,9 @@ public class PerformTrainingCommand extends SimpleCommand<GameNotification> {
 
 	private static Logger logger = LoggerFactory.getLogger(PerformTrainingCommand.class);
 
+	// games played with the fittest solution of each generation
+	private static final int GAMES_PER_GENERATION = 10;
+
 	private int gamesCompleted;
 	private int gamesWon;
 
@@ -44,27 +52,18 @@ public class PerformTrainingCommand extends SimpleCommand<GameNotification> {
 				// send initial status update
 				TrainingProgressReport progress = new TrainingProgressReport(gamesCompleted, config.getNumberOfGames(), gamesWon);
 				getFacade().sendNotification(GameNotification.TRAINING_PROGRESS_UPDATE, progress);
-				for (int i = 0; i < config.getNumberOfGames(); i++) {
+				// the games of each generation are played on the shared pool
+				// while the learner evolves the next one
+				SimulationEngine engine = SimulationEngine.getInstance();
+				List<SimulationBatch> batches = new ArrayList<>();
+				for (int i = 0; i < config.getNumberOfGames(); i += GAMES_PER_GENERATION) {
 					FeatureVector fittest = learner.getFittest();
-
-					PlayerConfig learnerConfig = new PlayerConfig(config.getDeckToTrain(),
-							new GameStateValueBehaviour(fittest, "(fittest)"));
-					learnerConfig.setName("Learner");
-					Player player1 = new Player(learnerConfig);
-
-					PlayerConfig opponentConfig = new PlayerConfig(config.getRandomDeck(), new GameStateValueBehaviour());
-					opponentConfig.setName("Opponent");
-					Player player2 = new Player(opponentConfig);
-
-					GameContext newGame = new GameContext(player1, player2, new GameLogic());
-					newGame.play();
-
-					onGameComplete(config, newGame);
-					newGame.dispose();
-
-					if (i % 10 == 0) {
-						learner.evolve();
-					}
+					int numberOfGames = Math.min(GAMES_PER_GENERATION, config.getNumberOfGames() - i);
+					batches.add(engine.simulate(() -> createGame(config, fittest), numberOfGames, game -> onGameComplete(config, game)));
+					learner.evolve().join();
+				}
+				for (SimulationBatch batch : batches) {
+					batch.await();
 				}
 
 				getFacade().sendNotification(GameNotification.TRAINING_PROGRESS_UPDATE,
@@ -83,7 +82,19 @@ public class PerformTrainingCommand extends SimpleCommand<GameNotification> {
 		t.start();
 	}
 
-	private void onGameComplete(TrainingConfig config, GameContext completedGame) {
+	private GameContext createGame(TrainingConfig config, FeatureVector fittest) {
+		PlayerConfig learnerConfig = new PlayerConfig(config.getDeckToTrain(), new GameStateValueBehaviour(fittest, "(fittest)"));
+		learnerConfig.setName("Learner");
+		Player player1 = new Player(learnerConfig);
+
+		PlayerConfig opponentConfig = new PlayerConfig(config.getRandomDeck(), new GameStateValueBehaviour());
+		opponentConfig.setName("Opponent");
+		Player player2 = new Player(opponentConfig);
+
+		return new GameContext(player1, player2, new GameLogic());
+	}
+
+	private synchronized void onGameComplete(TrainingConfig config, GameContext completedGame) {
 		gamesCompleted++;
 
 		gamesWon += completedGame.getPlayer1().getStatistics().getLong(Statistic.GAMES_WON);
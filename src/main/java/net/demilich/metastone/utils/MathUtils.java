@@ -24,6 +24,17 @@ public class MathUtils {
 		return clamp(value, 0.0, 1.0);
 	}
 
+	/**
+	 * Combines two values into a well distributed 64 bit hash (SplitMix64
+	 * finalizer), e.g. to derive Zobrist keys for (feature, value) pairs.
+	 */
+	public static long hash64(long first, long second) {
+		long z = first * 0x9E3779B97F4A7C15L + second;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
 	public static double levy(double xMin, double alpha) {
 		double u = Math.random();
 		return xMin * Math.pow(u, -1 / alpha);
@@ -0,0 +1,21 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class INodeTest {
+
+	@Test
+	public void testScoreDoesNotCarryIntoVisits() {
+		// more score units than fit into 32 bits
+		final int visits = 5_000_000;
+		INode node = new INode(null, 0);
+		for (int i = 0; i < visits; i++) {
+			node.addVirtualLoss();
+			node.updateStats(1);
+		}
+		Assert.assertEquals(node.getVisits(), visits);
+		Assert.assertEquals(node.getScore(), (double) visits);
+	}
+
+}
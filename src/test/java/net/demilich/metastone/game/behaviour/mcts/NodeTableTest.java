@@ -0,0 +1,156 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.tests.TestBase;
+import net.demilich.metastone.tests.TestMinionCard;
+
+public class NodeTableTest extends TestBase {
+
+	// playouts stop at the end of the turn, so that the tests stay fast
+	private static final RolloutPolicy ROLLOUT_POLICY = RolloutPolicy.RANDOM.truncate(1, null, 1);
+
+	/**
+	 * Returns a game in which the mage's three minions may attack and
+	 * nothing else can be done, so that the attacks commute.
+	 */
+	private static GameContext createAttacks() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player mage = context.getPlayer1();
+		mage.setMana(10);
+		for (int i = 0; i < 3; i++) {
+			playCard(context, mage, new TestMinionCard(1, 3));
+		}
+		context.endTurn();
+		context.startTurn();
+		context.endTurn();
+		context.startTurn();
+		mage.setMana(0);
+		return context;
+	}
+
+	private static INode createRoot(GameContext context, StateCache cache, SearchBudget.Tracker budget) {
+		INode root = new INode(null, context.getActivePlayerId());
+		root.initState(context, context.getValidActions(), cache, budget);
+		return root;
+	}
+
+	@Test
+	public void testOrdersShareNode() {
+		SearchBudget.Tracker budget = SearchBudget.UNLIMITED.start();
+		StateCache cache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+		NodeTable table = new NodeTable(NodeTable.DEFAULT_SIZE);
+		INode root = createRoot(createAttacks(), cache, budget);
+		UctPolicy treePolicy = new UctPolicy();
+		for (int i = 0; i < 500; i++) {
+			root.process(treePolicy, ROLLOUT_POLICY, cache, table, budget);
+		}
+
+		// counts the distinct parents of each node
+		Map<INode, Map<INode, Boolean>> parents = new IdentityHashMap<>();
+		Deque<INode> open = new ArrayDeque<>();
+		open.push(root);
+		while (!open.isEmpty()) {
+			INode node = open.pop();
+			for (INode child : node.getChildren()) {
+				if (!parents.containsKey(child)) {
+					parents.put(child, new IdentityHashMap<>());
+					open.push(child);
+				}
+				parents.get(child).put(node, true);
+			}
+		}
+		boolean shared = false;
+		for (Map<INode, Boolean> nodeParents : parents.values()) {
+			shared |= nodeParents.size() > 1;
+		}
+		Assert.assertTrue(shared, "no two orders of the attacks share a node");
+	}
+
+	@Test(timeOut = 60000)
+	public void testCycleEndsSelection() {
+		SearchBudget.Tracker budget = SearchBudget.UNLIMITED.start();
+		StateCache cache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+		NodeTable table = new NodeTable(NodeTable.DEFAULT_SIZE);
+		GameContext context = createAttacks();
+		List<GameAction> validActions = context.getValidActions();
+		INode root = createRoot(context, cache, budget);
+		// every action seems to lead back to the root's state, as with a hash
+		// collision
+		for (GameAction action : validActions) {
+			GameContext state = context.clone();
+			INode.perform(state, action);
+			table.putIfAbsent(state.stateHash(), root);
+		}
+
+		int iterations = validActions.size() + 10;
+		for (int i = 0; i < iterations; i++) {
+			root.process(new UctPolicy(), ROLLOUT_POLICY, cache, table, budget);
+		}
+		Assert.assertEquals(root.getChildren().length, 1);
+		Assert.assertSame(root.getChildren()[0], root);
+		Assert.assertFalse(root.isExpandable());
+	}
+
+	@Test
+	public void testReusedRootRegistersItsNodesOnly() {
+		SearchBudget.Tracker budget = SearchBudget.UNLIMITED.start();
+		StateCache cache = new StateCache(StateCache.DEFAULT_CAPACITY, INode::perform);
+		NodeTable table = new NodeTable(NodeTable.DEFAULT_SIZE);
+		INode root = createRoot(createAttacks(), cache, budget);
+		UctPolicy treePolicy = new UctPolicy();
+		for (int i = 0; i < 500; i++) {
+			root.process(treePolicy, ROLLOUT_POLICY, cache, table, budget);
+		}
+		INode[] children = root.getChildren();
+		INode reused = children[0];
+		INode dropped = children[1];
+		long droppedHash = cache.getState(dropped, budget).stateHash();
+
+		reused.detach(cache, budget);
+		table.clear();
+		reused.register(table);
+
+		// the dropped sibling cannot be linked back in
+		Assert.assertNull(table.get(droppedHash));
+		Deque<INode> open = new ArrayDeque<>();
+		Map<INode, Boolean> reached = new IdentityHashMap<>();
+		open.push(reused);
+		reached.put(reused, true);
+		while (!open.isEmpty()) {
+			for (INode child : open.pop().getChildren()) {
+				if (reached.put(child, true) == null) {
+					open.push(child);
+				}
+			}
+		}
+		for (INode node : reached.keySet()) {
+			if (node == reused) {
+				continue;
+			}
+			// every node is rebuilt within the reused graph, into the state it
+			// is registered by; the table may have lost it to a colliding node,
+			// but never maps its hash to another one
+			Assert.assertTrue(reached.containsKey(node.getParent()));
+			long hash = cache.getState(node, budget).stateHash();
+			Assert.assertEquals(hash, node.getStateHash());
+			INode found = table.get(hash);
+			Assert.assertTrue(found == null || found == node);
+		}
+		Assert.assertTrue(reached.size() > 1);
+	}
+
+}
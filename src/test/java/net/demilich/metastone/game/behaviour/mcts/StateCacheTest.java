@@ -0,0 +1,126 @@
+package net.demilich.metastone.game.behaviour.mcts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.tests.TestBase;
+
+public class StateCacheTest extends TestBase {
+
+	private static class TestNode implements SearchNode {
+
+		private final GameAction action;
+		private final SearchNode parent;
+		private GameContext cachedState;
+
+		public TestNode(GameAction action, SearchNode parent) {
+			this.action = action;
+			this.parent = parent;
+		}
+
+		@Override
+		public GameAction getAction() {
+			return action;
+		}
+
+		@Override
+		public GameContext getCachedState() {
+			return cachedState;
+		}
+
+		@Override
+		public SearchNode getParent() {
+			return parent;
+		}
+
+		@Override
+		public void setCachedState(GameContext state) {
+			this.cachedState = state;
+		}
+
+	}
+
+	/**
+	 * Grows a path of nodes from a root the way the search expands them,
+	 * playing the given game's turn until it ends, and returns the path; the
+	 * hash of each node's state is captured as it is reached.
+	 */
+	private static List<TestNode> growPath(GameContext context, StateCache cache, List<Long> hashes, SearchBudget.Tracker budget) {
+		TestNode node = new TestNode(null, null);
+		cache.pin(node, cache.createRootState(context, budget));
+		List<TestNode> nodes = new ArrayList<>();
+		while (true) {
+			GameContext state = cache.getState(node, budget);
+			List<GameAction> validActions = state.getValidActions();
+			if (state.gameDecided() || validActions.size() < 2) {
+				return nodes;
+			}
+			// anything but ending the turn
+			GameAction action = validActions.get(ThreadLocalRandom.current().nextInt(validActions.size() - 1));
+			INode.perform(state, action);
+			node = new TestNode(action, node);
+			nodes.add(node);
+			hashes.add(state.stateHash());
+			cache.keep(node, state, budget);
+		}
+	}
+
+	@Test
+	public void testEvictedStateIsRebuilt() {
+		SearchBudget.Tracker budget = SearchBudget.UNLIMITED.start();
+		StateCache cache = new StateCache(1, INode::perform);
+		List<TestNode> nodes = new ArrayList<>();
+		List<Long> hashes = new ArrayList<>();
+		while (nodes.size() < StateCache.SHALLOW_DEPTH + 3) {
+			hashes.clear();
+			cache.clear();
+			nodes = growPath(createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 10), cache, hashes, budget);
+		}
+
+		// only the shallow nodes and the most recent deeper one are cached
+		TestNode evicted = nodes.get(StateCache.SHALLOW_DEPTH);
+		Assert.assertNull(evicted.getCachedState());
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			Assert.assertEquals(cache.getState(nodes.get(i), budget).stateHash(), (long) hashes.get(i));
+		}
+	}
+
+	@Test
+	public void testRollOutsSampleGameRandomness() {
+		SearchBudget.Tracker budget = SearchBudget.UNLIMITED.start();
+		StateCache cache = new StateCache(1, INode::perform);
+		TestNode root = new TestNode(null, null);
+		cache.pin(root, cache.createRootState(createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6), budget));
+
+		// rebuilt states repeat the random sequence of the cached one
+		Assert.assertEquals(cache.getState(root, budget).getRandom().nextLong(),
+				cache.getState(root, budget).getRandom().nextLong());
+
+		// while every playout draws its own
+		List<Long> draws = new ArrayList<>();
+		RolloutPolicy drawing = new RolloutPolicy(null, 1, 0, null, 1) {
+
+			@Override
+			public double playOut(GameContext state, int playerId, Random random, SearchBudget.Tracker budget) {
+				draws.add(state.getRandom().nextLong());
+				return 0;
+			}
+
+		};
+		INode node = new INode(null, 0);
+		node.rollOut(cache.getState(root, budget), drawing, budget);
+		node.rollOut(cache.getState(root, budget), drawing, budget);
+		Assert.assertNotEquals(draws.get(0), draws.get(1));
+	}
+
+}
@@ -0,0 +1,173 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCollection;
+import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.targeting.EntityIndex;
+
+/**
+ * Clones share their card lists until one side changes them (see
+ * {@link net.demilich.metastone.game.cards.CardCollection#clone()}); changes
+ * made on either side must never show on the other.
+ */
+public class CloneIsolationTest extends TestBase {
+
+	private static void mutate(GameContext context) {
+		Player player = context.getActivePlayer();
+		for (Card card : player.getHand().toList()) {
+			card.modifyAttribute(Attribute.MANA_COST_MODIFIER, -1);
+		}
+		context.getLogic().drawCard(player.getId(), null);
+		player.getHero().setHp(player.getHero().getHp() - 5);
+		context.getLogic().performGameAction(player.getId(), context.getValidActions().get(0));
+	}
+
+	private static void assertIndexed(GameContext context) {
+		EntityIndex index = context.getEntityIndex();
+		for (Player player : context.getPlayers()) {
+			List<Entity> entities = new ArrayList<>();
+			entities.add(player.getHero());
+			entities.add(player.getHero().getHeroPower());
+			if (player.getHero().getWeapon() != null) {
+				entities.add(player.getHero().getWeapon());
+			}
+			entities.addAll(player.getMinions());
+			// takes ownership first, so the cards stay the same
+			entities.addAll(player.getHand().toList());
+			entities.addAll(player.getDeck().toList());
+			for (Entity entity : entities) {
+				if (entity.getId() >= 0) {
+					Assert.assertSame(index.find(context, entity.getId()), entity, entity.toString());
+				}
+			}
+		}
+	}
+
+	private static int getCostModifiers(Player player) {
+		int modifiers = 0;
+		for (Card card : player.getHand()) {
+			modifiers += card.getAttributeValue(Attribute.MANA_COST_MODIFIER);
+		}
+		return modifiers;
+	}
+
+	private static void assertUnchanged(GameContext context, long stateHash, int handCount, int deckCount, int costModifiers) {
+		Player player = context.getActivePlayer();
+		Assert.assertEquals(context.stateHash(), stateHash);
+		Assert.assertEquals(player.getHand().getCount(), handCount);
+		Assert.assertEquals(player.getDeck().getCount(), deckCount);
+		Assert.assertEquals(getCostModifiers(player), costModifiers);
+	}
+
+	@Test
+	public void testChangingCloneKeepsOriginal() {
+		GameContext original = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		Player player = original.getActivePlayer();
+		long stateHash = original.stateHash();
+		int handCount = player.getHand().getCount();
+		int deckCount = player.getDeck().getCount();
+		int costModifiers = getCostModifiers(player);
+
+		GameContext clone = original.clone();
+		Assert.assertEquals(clone.stateHash(), stateHash);
+		mutate(clone);
+		Assert.assertNotEquals(clone.stateHash(), stateHash);
+		assertUnchanged(original, stateHash, handCount, deckCount, costModifiers);
+	}
+
+	@Test
+	public void testChangingOriginalKeepsClone() {
+		GameContext original = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		GameContext clone = original.clone();
+		Player player = clone.getActivePlayer();
+		long stateHash = clone.stateHash();
+		int handCount = player.getHand().getCount();
+		int deckCount = player.getDeck().getCount();
+		int costModifiers = getCostModifiers(player);
+
+		mutate(original);
+		Assert.assertNotEquals(original.stateHash(), stateHash);
+		assertUnchanged(clone, stateHash, handCount, deckCount, costModifiers);
+	}
+
+	@Test
+	public void testChangingOneOfManyClonesKeepsOthers() {
+		GameContext original = createMidGame(HeroClass.WARRIOR, HeroClass.MAGE, 6);
+		GameContext clone1 = original.clone();
+		GameContext clone2 = clone1.clone();
+		long stateHash = original.stateHash();
+
+		// the middle one takes ownership first, and must get copies
+		mutate(clone1);
+		long clone1Hash = clone1.stateHash();
+		Assert.assertEquals(original.stateHash(), stateHash);
+		Assert.assertEquals(clone2.stateHash(), stateHash);
+		mutate(clone2);
+		Assert.assertEquals(original.stateHash(), stateHash);
+		Assert.assertEquals(clone1.stateHash(), clone1Hash);
+		mutate(original);
+		Assert.assertEquals(clone1.stateHash(), clone1Hash);
+		Card originalCard = original.getActivePlayer().getHand().toList().get(0);
+		Assert.assertFalse(clone2.getActivePlayer().getHand().contains(originalCard));
+	}
+
+	@Test
+	public void testRemovingHandedOutCardOnBothSides() {
+		GameContext original = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		CardCollection hand = original.getActivePlayer().getHand();
+		CardCollection cloneHand = hand.clone();
+		int handCount = hand.getCount();
+
+		// both sides hand out the same card while they share their list
+		Card card = hand.get(0);
+		Assert.assertSame(cloneHand.get(0), card);
+		Assert.assertTrue(hand.contains(card));
+		Assert.assertTrue(cloneHand.contains(card));
+		Assert.assertFalse(hand.owns(card));
+
+		// the first side to remove it takes copies, the other one adopts
+		Assert.assertTrue(hand.remove(card));
+		Assert.assertEquals(hand.getCount(), handCount - 1);
+		Assert.assertEquals(cloneHand.getCount(), handCount);
+		Assert.assertTrue(cloneHand.remove(cloneHand.get(0)));
+		Assert.assertEquals(cloneHand.getCount(), handCount - 1);
+		Assert.assertFalse(hand.contains(card));
+		Assert.assertFalse(cloneHand.contains(card));
+	}
+
+	@Test
+	public void testEntityIndexFollowsClones() {
+		GameContext original = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		GameContext clone = original.clone();
+		assertIndexed(clone);
+		mutate(clone);
+		assertIndexed(clone);
+		mutate(original);
+		assertIndexed(original);
+	}
+
+	@Test
+	public void testValidActionsKeepHandShared() {
+		GameContext original = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		while (original.getActivePlayer().getHand().isEmpty()) {
+			original = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		}
+		GameContext clone = original.clone();
+		Card card = original.getActivePlayer().getHand().get(0);
+
+		Assert.assertFalse(clone.getValidActions().isEmpty());
+		// the clone would have taken copies if it had changed its hand
+		Assert.assertTrue(clone.getActivePlayer().getHand().contains(card));
+	}
+
+}
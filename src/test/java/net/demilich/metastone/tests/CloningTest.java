@@ -1,5 +1,7 @@
 package net.demilich.metastone.tests;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -25,10 +27,13 @@ public class CloningTest extends TestBase {
 	private void compareCardCollections(CardCollection collection1, CardCollection collection2) {
 		Assert.assertEquals(collection1.getCount(), collection2.getCount());
 		Assert.assertNotSame(collection1, collection2);
+		// cards which may be kept are only handed out by toList()
+		List<Card> cards1 = collection1.toList();
+		List<Card> cards2 = collection2.toList();
 		for (int j = 0; j < collection1.getCount(); j++) {
-			Card originalCard = collection1.get(j);
+			Card originalCard = cards1.get(j);
 			logger.debug("Original card: " + originalCard);
-			Card cloneCard = collection2.get(j);
+			Card cloneCard = cards2.get(j);
 			logger.debug("Clone card: " + cloneCard);
 			Assert.assertNotSame(originalCard, cloneCard);
 			if (originalCard instanceof SpellCard) {
@@ -40,6 +45,19 @@ public class CloningTest extends TestBase {
 		}
 	}
 
+	@Test
+	public void testCloneDoesNotShareStacks() {
+		GameContext original = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		original.getDamageStack().push(1);
+
+		GameContext clone = original.clone();
+		Assert.assertNotSame(original.getDamageStack(), clone.getDamageStack());
+		Assert.assertEquals(clone.getDamageStack().peek(), (Integer) 1);
+
+		clone.getDamageStack().pop();
+		Assert.assertEquals(original.getDamageStack().size(), 1);
+	}
+
 	@Test
 	public void testCloneSpellCard() {
 		Card original = CardCatalogue.getCardById("spell_polymorph");
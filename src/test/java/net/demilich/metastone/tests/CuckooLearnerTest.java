@@ -0,0 +1,40 @@
+package net.demilich.metastone.tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.WeightedFeature;
+import net.demilich.metastone.game.behaviour.threat.cuckoo.CuckooLearner;
+
+public class CuckooLearnerTest {
+
+	private static double getWinProbability(FeatureVector featureVector) {
+		return (featureVector.get(WeightedFeature.MINION_ATTACK_FACTOR) + 10) / 110;
+	}
+
+	@Test
+	public void testRoundsArePlayedOncePerVector() {
+		TestRacingFitness fitness = new TestRacingFitness(CuckooLearnerTest::getWinProbability);
+		try {
+			CuckooLearner learner = new CuckooLearner(fitness);
+			int generations = 10;
+			double best = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < generations; i++) {
+				learner.evolve().join();
+				double fittest = getWinProbability(learner.getFittest());
+				// the fittest solution never gets worse
+				Assert.assertTrue(fittest >= best);
+				best = fittest;
+				Assert.assertTrue(fitness.getRoundsPlayed(learner.getFittest()) <= TestRacingFitness.MAX_ROUNDS);
+			}
+			// without racing and without keeping results, every generation
+			// would evaluate the whole population in full
+			int fullEvaluations = generations * (15 + 2) * TestRacingFitness.MAX_ROUNDS;
+			Assert.assertTrue(fitness.getTotalRounds() < fullEvaluations / 2, "rounds: " + fitness.getTotalRounds());
+		} finally {
+			fitness.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+package net.demilich.metastone.tests;
+
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.entities.minions.Minion;
+import net.demilich.metastone.game.entities.minions.Race;
+
+public class EntityAttributeTest extends TestBase {
+
+	@Test
+	public void testAttributeView() {
+		Minion minion = new TestMinionCard(1, 1).summon();
+		minion.removeAttribute(Attribute.SUMMONING_SICKNESS);
+		Map<Attribute, Object> attributes = minion.getAttributes();
+		Assert.assertFalse(attributes.containsKey(Attribute.TAUNT));
+
+		minion.setAttribute(Attribute.TAUNT);
+		minion.setAttribute(Attribute.RACE, Race.BEAST);
+		Assert.assertEquals(attributes.get(Attribute.TAUNT), 1);
+		Assert.assertEquals(attributes.get(Attribute.RACE), Race.BEAST);
+		Assert.assertEquals(attributes.size(), attributes.keySet().size());
+
+		minion.removeAttribute(Attribute.TAUNT);
+		Assert.assertFalse(attributes.containsKey(Attribute.TAUNT));
+		Assert.assertTrue(attributes.containsKey(Attribute.RACE));
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testAttributeViewIsReadOnly() {
+		Minion minion = new TestMinionCard(1, 1).summon();
+		minion.getAttributes().put(Attribute.TAUNT, 1);
+	}
+
+	@Test
+	public void testAttributeValue() {
+		Minion minion = new TestMinionCard(1, 1).summon();
+		Assert.assertEquals(minion.getAttributeValue(Attribute.TAUNT), 0);
+		minion.modifyAttribute(Attribute.TAUNT, 2);
+		Assert.assertEquals(minion.getAttributeValue(Attribute.TAUNT), 2);
+	}
+
+	@Test(expectedExceptions = ClassCastException.class)
+	public void testObjectAttributeValue() {
+		Minion minion = new TestMinionCard(1, 1).summon();
+		minion.setAttribute(Attribute.RACE, Race.BEAST);
+		minion.getAttributeValue(Attribute.RACE);
+	}
+
+}
@@ -0,0 +1,135 @@
+package net.demilich.metastone.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.SimulationEngine;
+import net.demilich.metastone.game.behaviour.learning.Brain;
+import net.demilich.metastone.game.behaviour.learning.Experience;
+import net.demilich.metastone.game.behaviour.learning.ExperienceStore;
+import net.demilich.metastone.game.behaviour.learning.SelfPlayTrainer;
+import net.demilich.metastone.game.decks.DeckFactory;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class ExperienceStoreTest extends TestBase {
+
+	private static final int INPUTS = 3;
+
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static Experience createExperience(int i, boolean terminal) {
+		double[] state = { i / 100.0, 0.5, 1 };
+		double[] nextState = terminal ? null : new double[] { (i + 1) / 100.0, 0.25, 0 };
+		return new Experience(state, nextState, terminal ? 1 : 0, -1);
+	}
+
+	@Test
+	public void testAppendAndReopen() throws IOException {
+		File directory = Files.createTempDirectory("experience").toFile();
+		try {
+			// small segments, so that the experiences span several of them
+			ExperienceStore store = new ExperienceStore(directory, INPUTS, 4);
+			for (int i = 0; i < 10; i++) {
+				store.append(createExperience(i, i % 5 == 4));
+			}
+			Assert.assertEquals(store.size(), 10);
+			store.close();
+
+			store = new ExperienceStore(directory, INPUTS, 4);
+			Assert.assertEquals(store.size(), 10);
+			store.append(createExperience(10, false));
+			for (int i = 0; i <= 10; i++) {
+				Experience experience = store.get(i);
+				Experience expected = createExperience(i, i % 5 == 4);
+				Assert.assertEquals(experience.isTerminal(), expected.isTerminal());
+				Assert.assertEquals(experience.getReward(), expected.getReward());
+				Assert.assertEquals(experience.getOutcome(), expected.getOutcome());
+				Assert.assertEquals(experience.getState()[0], expected.getState()[0], 1e-6);
+				if (!expected.isTerminal()) {
+					Assert.assertEquals(experience.getNextState()[1], expected.getNextState()[1], 1e-6);
+				}
+			}
+
+			List<Experience> minibatch = store.sample(32, new Random(1));
+			Assert.assertEquals(minibatch.size(), 32);
+			store.close();
+
+			try {
+				new ExperienceStore(directory, INPUTS + 1, 4);
+				Assert.fail("a store of another layout must not be opened");
+			} catch (IOException e) {
+			}
+		} finally {
+			deleteRecursively(directory);
+		}
+	}
+
+	@Test
+	public void testReplayEmptyStore() throws IOException {
+		File directory = Files.createTempDirectory("experience").toFile();
+		SimulationEngine engine = new SimulationEngine(1);
+		try {
+			Brain brain = new Brain();
+			ExperienceStore store = new ExperienceStore(directory, brain.getInputCount());
+			Assert.assertEquals(new SelfPlayTrainer(engine, brain).replay(store, 4, 16, new Random(1)), 0);
+			Assert.assertEquals(brain.getUpdates(), 0);
+			store.close();
+		} finally {
+			engine.shutdown();
+			deleteRecursively(directory);
+		}
+	}
+
+	@Test
+	public void testRecordSelfPlayAndReplay() throws IOException {
+		File directory = Files.createTempDirectory("experience").toFile();
+		SimulationEngine engine = new SimulationEngine(2);
+		try {
+			Brain brain = new Brain();
+			SelfPlayTrainer trainer = new SelfPlayTrainer(engine, brain);
+			ExperienceStore store = new ExperienceStore(directory, brain.getInputCount());
+			trainer.setExperienceStore(store);
+			trainer.train(DeckFactory.getRandomDeck(HeroClass.MAGE), DeckFactory.getRandomDeck(HeroClass.WARRIOR), 2);
+			Assert.assertTrue(store.size() > 0);
+
+			// a fresh brain learns from the recorded games alone
+			Brain replayed = new Brain();
+			GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+			long version = replayed.getVersion();
+			long updates = new SelfPlayTrainer(engine, replayed).replay(store, 4, 16, new Random(2));
+			Assert.assertEquals(updates, 64);
+			Assert.assertEquals(replayed.getUpdates(), 64);
+			// the trained weights are published; the output itself may not
+			// move, as a fresh brain scores every state the same and the wins
+			// and losses of a minibatch can cancel out
+			Assert.assertTrue(replayed.getVersion() > version);
+
+			// and survive saving and loading
+			String path = new File(directory, "brain.ser").getPath();
+			replayed.save(path);
+			Brain loaded = new Brain();
+			loaded.load(path);
+			Assert.assertEquals(loaded.getOutput(context, 1)[0], replayed.getOutput(context, 1)[0], 1e-12);
+			store.close();
+		} finally {
+			engine.shutdown();
+			deleteRecursively(directory);
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.game.decks.DeckFactory;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.game.logic.GameRandom;
+import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+
+public class GameRandomTest extends TestBase {
+
+	/**
+	 * Plays random moves from its own seeded generator; optionally clones the
+	 * game before every decision, like a searching AI would.
+	 */
+	private static class SeededRandomBehaviour extends Behaviour {
+
+		private final Random random = new Random(42);
+		private final boolean cloneGame;
+
+		public SeededRandomBehaviour(boolean cloneGame) {
+			this.cloneGame = cloneGame;
+		}
+
+		@Override
+		public String getName() {
+			return "Seeded Random";
+		}
+
+		@Override
+		public List<Card> mulligan(GameContext context, Player player, List<Card> cards) {
+			return new ArrayList<>();
+		}
+
+		@Override
+		public GameAction requestAction(GameContext context, Player player, List<GameAction> validActions) {
+			if (cloneGame) {
+				GameContext clone = context.clone();
+				clone.getRandom().nextLong();
+			}
+			return validActions.get(random.nextInt(validActions.size()));
+		}
+
+	}
+
+	private static Deck createFixedDeck(HeroClass heroClass) {
+		// a random deck picks new cards for every game
+		Deck deck = new Deck(heroClass);
+		deck.getCards().addAll(DeckFactory.getRandomDeck(heroClass).getCardsCopy());
+		return deck;
+	}
+
+	private static GameContext playSeededGame(Deck deck1, Deck deck2, long seed, boolean cloneGame) {
+		PlayerConfig player1Config = new PlayerConfig(deck1, new SeededRandomBehaviour(cloneGame));
+		player1Config.setName("Player 1");
+		player1Config.setHeroCard(getHeroCardForClass(deck1.getHeroClass()));
+		PlayerConfig player2Config = new PlayerConfig(deck2, new SeededRandomBehaviour(cloneGame));
+		player2Config.setName("Player 2");
+		player2Config.setHeroCard(getHeroCardForClass(deck2.getHeroClass()));
+
+		GameContext context = new GameContext(new Player(player1Config), new Player(player2Config), new GameLogic());
+		context.getRandom().setSeed(seed);
+		context.play();
+		return context;
+	}
+
+	@Test
+	public void testContinueFromRepeatsOutcomes() {
+		GameRandom random = new GameRandom(7);
+		random.nextLong();
+		GameRandom copy = new GameRandom();
+		copy.continueFrom(random);
+		Assert.assertEquals(copy.nextLong(), random.nextLong());
+		Assert.assertEquals(copy.fork().nextLong(), random.fork().nextLong());
+
+		// a clone continuing the original's sequence replays its random
+		// draws, e.g. when a searching AI rebuilds a state
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		GameContext clone = context.clone();
+		clone.getRandom().continueFrom(context.getRandom());
+		GameContext fork = context.clone();
+		for (GameContext game : new GameContext[] { context, clone, fork }) {
+			for (int i = 0; i < 6; i++) {
+				game.endTurn();
+				game.startTurn();
+			}
+		}
+		Assert.assertEquals(clone.stateHash(), context.stateHash());
+		Assert.assertNotEquals(fork.stateHash(), context.stateHash());
+	}
+
+	@Test
+	public void testForkDoesNotAdvanceGenerator() {
+		GameRandom random = new GameRandom(7);
+		GameRandom reference = new GameRandom(7);
+		GameRandom fork = random.fork();
+		Assert.assertEquals(random.nextLong(), reference.nextLong());
+		Assert.assertNotEquals(fork.nextLong(), reference.nextLong());
+
+		GameRandom sameFork = new GameRandom(7).fork();
+		Assert.assertEquals(sameFork.nextLong(), new GameRandom(7).fork().nextLong());
+	}
+
+	@Test
+	public void testSeededGamesAreReproducible() {
+		Deck deck1 = createFixedDeck(HeroClass.HUNTER);
+		Deck deck2 = createFixedDeck(HeroClass.PRIEST);
+
+		GameContext first = playSeededGame(deck1, deck2, 1234, false);
+		GameContext second = playSeededGame(deck1, deck2, 1234, false);
+		Assert.assertEquals(second.getTurn(), first.getTurn());
+		Assert.assertEquals(second.getWinningPlayerId(), first.getWinningPlayerId());
+		Assert.assertEquals(second.stateHash(), first.stateHash());
+
+		// cloning the game for look-ahead must not change how it plays out
+		GameContext cloned = playSeededGame(deck1, deck2, 1234, true);
+		Assert.assertEquals(cloned.getTurn(), first.getTurn());
+		Assert.assertEquals(cloned.stateHash(), first.stateHash());
+	}
+
+}
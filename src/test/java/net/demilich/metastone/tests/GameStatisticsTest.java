@@ -0,0 +1,81 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.statistics.GameStatistics;
+import net.demilich.metastone.game.statistics.Statistic;
+import net.demilich.metastone.game.statistics.StatisticsAccumulator;
+
+public class GameStatisticsTest extends TestBase {
+
+	@Test
+	public void testMerge() {
+		Card card = new TestMinionCard(1, 1);
+		GameStatistics first = new GameStatistics();
+		first.cardPlayed(card);
+		first.gameWon();
+		GameStatistics second = new GameStatistics();
+		second.cardPlayed(card);
+		second.damageDealt(5);
+		second.gameLost();
+
+		first.merge(second);
+		Assert.assertEquals(first.getLong(Statistic.CARDS_PLAYED), 2);
+		Assert.assertEquals(first.getLong(Statistic.MINIONS_PLAYED), 2);
+		Assert.assertEquals(first.getLong(Statistic.DAMAGE_DEALT), 5);
+		Assert.assertEquals(first.getDouble(Statistic.WIN_RATE), 0.5);
+		Assert.assertEquals(first.getCardsPlayed(card.getCardId()), 2);
+		Assert.assertEquals((int) first.getCardsPlayed().get(card.getCardId()), 2);
+		Assert.assertTrue(first.contains(Statistic.DAMAGE_DEALT));
+		Assert.assertFalse(first.contains(Statistic.HEALING_DONE));
+	}
+
+	@Test
+	public void testAccumulatorCombinesAllThreads() throws InterruptedException {
+		StatisticsAccumulator accumulator = new StatisticsAccumulator();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread(() -> {
+				for (int game = 0; game < 1000; game++) {
+					GameStatistics statistics = new GameStatistics();
+					statistics.startTurn();
+					statistics.gameWon();
+					accumulator.add(statistics);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		GameStatistics combined = accumulator.combine();
+		Assert.assertEquals(combined.getLong(Statistic.TURNS_TAKEN), 4000);
+		Assert.assertEquals(combined.getLong(Statistic.GAMES_WON), 4000);
+		Assert.assertEquals(combined.getDouble(Statistic.WIN_RATE), 1.0);
+	}
+
+	@Test
+	public void testAccumulatorFollowsLaterGames() {
+		StatisticsAccumulator accumulator = new StatisticsAccumulator();
+		GameStatistics statistics = new GameStatistics();
+		statistics.gameWon();
+		accumulator.add(statistics);
+
+		GameStatistics first = accumulator.combine();
+		Assert.assertEquals(first.getLong(Statistic.GAMES_WON), 1);
+		// the result belongs to the caller
+		first.gameWon();
+		Assert.assertEquals(accumulator.combine().getLong(Statistic.GAMES_WON), 1);
+
+		accumulator.add(statistics);
+		Assert.assertEquals(accumulator.combine().getLong(Statistic.GAMES_WON), 2);
+	}
+
+}
@@ -0,0 +1,87 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.mcts.InformationSetMcts;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.targeting.CardLocation;
+
+public class InformationSetMctsTest extends TestBase {
+
+	private static List<String> getCardIds(Iterable<Card> cards) {
+		List<String> cardIds = new ArrayList<>();
+		for (Card card : cards) {
+			cardIds.add(card.getCardId());
+		}
+		return cardIds;
+	}
+
+	private static List<String> getHiddenCardIds(Player opponent) {
+		List<String> cardIds = getCardIds(opponent.getHand());
+		cardIds.addAll(getCardIds(opponent.getDeck()));
+		Collections.sort(cardIds);
+		return cardIds;
+	}
+
+	@Test
+	public void testDeterminizeDealsHiddenCards() {
+		GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		Player player = context.getActivePlayer();
+		Player opponent = context.getOpponent(player);
+		List<String> handCardIds = getCardIds(opponent.getHand());
+		List<String> deckCardIds = getCardIds(opponent.getDeck());
+
+		boolean dealtOtherHand = false;
+		for (int seed = 0; seed < 10; seed++) {
+			GameContext sample = context.clone();
+			InformationSetMcts.determinize(sample, player.getId(), new Random(seed));
+			Player sampleOpponent = sample.getOpponent(sample.getPlayer(player.getId()));
+			Assert.assertEquals(sampleOpponent.getHand().getCount(), opponent.getHand().getCount());
+			Assert.assertEquals(sampleOpponent.getDeck().getCount(), opponent.getDeck().getCount());
+			Assert.assertEquals(getHiddenCardIds(sampleOpponent), getHiddenCardIds(opponent));
+			for (Card card : sampleOpponent.getHand()) {
+				Assert.assertEquals(card.getLocation(), CardLocation.HAND);
+			}
+			// the player's own cards are known
+			Assert.assertEquals(getCardIds(sample.getPlayer(player.getId()).getHand()), getCardIds(player.getHand()));
+			dealtOtherHand |= !getCardIds(sampleOpponent.getHand()).equals(getCardIds(opponent.getHand()));
+		}
+		Assert.assertTrue(dealtOtherHand);
+		// the sampled game itself must be left untouched
+		Assert.assertEquals(getCardIds(opponent.getHand()), handCardIds);
+		Assert.assertEquals(getCardIds(opponent.getDeck()), deckCardIds);
+	}
+
+	@Test
+	public void testSelectsValidAction() {
+		for (int threads = 1; threads <= 3; threads++) {
+			GameContext context = createDecision(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+			List<GameAction> validActions = context.getValidActions();
+			Player opponent = context.getOpponent(context.getActivePlayer());
+			List<String> handCardIds = getCardIds(opponent.getHand());
+			List<String> deckCardIds = getCardIds(opponent.getDeck());
+			long stateHash = context.stateHash();
+			InformationSetMcts behaviour = new InformationSetMcts(3, threads);
+			behaviour.setSearchBudget(SearchBudget.nodes(30));
+			GameAction action = behaviour.requestAction(context, context.getActivePlayer(), validActions);
+			Assert.assertTrue(validActions.stream().anyMatch(validAction -> validAction == action));
+			// the searched game itself must be left untouched, the order of
+			// the opponent's cards included
+			Assert.assertEquals(getCardIds(opponent.getHand()), handCardIds);
+			Assert.assertEquals(getCardIds(opponent.getDeck()), deckCardIds);
+			Assert.assertEquals(context.stateHash(), stateHash);
+		}
+	}
+
+}
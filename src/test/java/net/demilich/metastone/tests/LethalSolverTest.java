@@ -0,0 +1,126 @@
+package net.demilich.metastone.tests;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.LethalSolver;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCatalogue;
+import net.demilich.metastone.game.cards.MinionCard;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class LethalSolverTest extends TestBase {
+
+	/**
+	 * Creates a game in the mage's turn in which the mage's minions may
+	 * attack.
+	 */
+	private static GameContext createGame(int mageMinions, MinionCard warriorMinion) {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		for (Player player : context.getPlayers()) {
+			// the cards drawn below must not have effects of their own, e.g.
+			// damage the minions when drawn
+			player.getDeck().removeAll();
+			for (int i = 0; i < 5; i++) {
+				player.getDeck().add(new TestMinionCard(1, 1));
+			}
+		}
+		Player mage = context.getPlayer1();
+		mage.setMana(10);
+		Player warrior = context.getPlayer2();
+		warrior.setMana(10);
+		for (int i = 0; i < mageMinions; i++) {
+			playCard(context, mage, new TestMinionCard(3, 3));
+		}
+		if (warriorMinion != null) {
+			playCard(context, warrior, warriorMinion);
+		}
+		context.endTurn();
+		context.startTurn();
+		context.endTurn();
+		context.startTurn();
+		mage.setMana(0);
+		return context;
+	}
+
+	private static void play(GameContext context, List<GameAction> line) {
+		int playerId = context.getActivePlayerId();
+		for (GameAction action : line) {
+			context.getLogic().performGameAction(playerId, action);
+		}
+	}
+
+	@Test
+	public void testBurnWithSpellDamage() {
+		GameContext context = createGame(0, null);
+		Player mage = context.getPlayer1();
+		Player warrior = context.getPlayer2();
+		mage.setMana(10);
+		playCard(context, mage, CardCatalogue.getCardById("minion_kobold_geomancer"));
+		Card fireball = CardCatalogue.getCardById("spell_fireball");
+		context.getLogic().receiveCard(mage.getId(), fireball);
+		// fireball with spell damage and the hero power
+		warrior.getHero().setHp(8);
+		warrior.getHero().setAttribute(Attribute.ARMOR, 0);
+
+		List<GameAction> line = LethalSolver.findLethal(context, mage.getId(), LethalSolver.DEFAULT_NODES);
+		Assert.assertNotNull(line);
+		play(context, line);
+		Assert.assertTrue(warrior.getHero().isDestroyed());
+	}
+
+	@Test
+	public void testChooseOneCardInHand() {
+		GameContext context = createGame(3, null);
+		Player mage = context.getPlayer1();
+		Player warrior = context.getPlayer2();
+		mage.setMana(10);
+		// the options of these cards are spells, but the cards are not
+		context.getLogic().receiveCard(mage.getId(), CardCatalogue.getCardById("spell_wrath"));
+		context.getLogic().receiveCard(mage.getId(), CardCatalogue.getCardById("spell_starfall"));
+		warrior.getHero().setHp(9);
+		warrior.getHero().setAttribute(Attribute.ARMOR, 0);
+
+		List<GameAction> line = LethalSolver.findLethal(context, mage.getId(), LethalSolver.DEFAULT_NODES);
+		Assert.assertNotNull(line);
+		play(context, line);
+		Assert.assertTrue(warrior.getHero().isDestroyed());
+	}
+
+	@Test
+	public void testNoLethal() {
+		GameContext context = createGame(3, null);
+		Player warrior = context.getPlayer2();
+		warrior.getHero().setHp(10);
+		Assert.assertNull(LethalSolver.findLethal(context, context.getPlayer1().getId(), LethalSolver.DEFAULT_NODES));
+		// the game is left untouched
+		Assert.assertEquals(warrior.getHero().getHp(), 10);
+	}
+
+	@Test
+	public void testThroughTaunt() {
+		GameContext context = createGame(3, new TestMinionCard(1, 3, Attribute.TAUNT));
+		Player mage = context.getPlayer1();
+		Player warrior = context.getPlayer2();
+		warrior.getHero().setHp(6);
+		warrior.getHero().setAttribute(Attribute.ARMOR, 0);
+
+		List<GameAction> line = LethalSolver.findLethal(context, mage.getId(), LethalSolver.DEFAULT_NODES);
+		Assert.assertNotNull(line);
+		Assert.assertEquals(line.size(), 3);
+		play(context, line);
+		Assert.assertTrue(warrior.getHero().isDestroyed());
+
+		// with a divine shield, the taunt takes two attacks
+		context = createGame(3, new TestMinionCard(1, 3, Attribute.TAUNT, Attribute.DIVINE_SHIELD));
+		context.getPlayer2().getHero().setHp(6);
+		Assert.assertNull(LethalSolver.findLethal(context, context.getPlayer1().getId(), LethalSolver.DEFAULT_NODES));
+	}
+
+}
@@ -0,0 +1,130 @@
+package net.demilich.metastone.tests;
+
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.behaviour.neutralnetwork.NeuralNetwork;
+
+public class NeuralNetworkTest {
+
+	private static final int INPUTS = 5;
+	private static final int HIDDEN = 4;
+	private static final int OUTPUTS = 2;
+
+	private static NeuralNetwork createNetwork(Random random) {
+		NeuralNetwork network = new NeuralNetwork(INPUTS, new int[] { HIDDEN, OUTPUTS });
+		network.randomizeWeights(random);
+		return network;
+	}
+
+	private static double[] randomInput(Random random) {
+		double[] input = new double[INPUTS];
+		for (int i = 0; i < INPUTS; i++) {
+			input[i] = random.nextDouble();
+		}
+		return input;
+	}
+
+	private static double sigmoid(double x) {
+		return 1 / (1 + Math.exp(-x));
+	}
+
+	@Test
+	public void testBatchMatchesSingleInputs() {
+		Random random = new Random(1);
+		NeuralNetwork network = createNetwork(random);
+		int count = 7;
+		double[] inputs = new double[count * INPUTS];
+		for (int n = 0; n < count; n++) {
+			System.arraycopy(randomInput(random), 0, inputs, n * INPUTS, INPUTS);
+		}
+		double[] outputs = network.getValues(inputs, count);
+		Assert.assertEquals(outputs.length, count * OUTPUTS);
+		for (int n = 0; n < count; n++) {
+			double[] input = new double[INPUTS];
+			System.arraycopy(inputs, n * INPUTS, input, 0, INPUTS);
+			double[] output = network.getValue(input);
+			for (int k = 0; k < OUTPUTS; k++) {
+				Assert.assertEquals(outputs[n * OUTPUTS + k], output[k], 1e-12);
+			}
+		}
+	}
+
+	/**
+	 * Compares the TD(lambda) update with the textbook formulation for one
+	 * hidden layer, with a trace per weight and output.
+	 */
+	@Test
+	public void testTracesMatchTwoLayerUpdate() {
+		Random random = new Random(2);
+		NeuralNetwork network = createNetwork(random);
+		NeuralNetwork reference = new NeuralNetwork(network);
+		double[][] traces = network.createTraces();
+		double lambda = 0.5;
+		double alpha = 0.1;
+		double beta = 0.2;
+		double[][] ew = new double[HIDDEN][OUTPUTS];
+		double[][][] ev = new double[INPUTS][HIDDEN][OUTPUTS];
+
+		for (int step = 0; step < 5; step++) {
+			double[] in = randomInput(random);
+			double[] expected = { random.nextDouble(), random.nextDouble() };
+
+			double[] hidden = new double[HIDDEN];
+			for (int j = 0; j < HIDDEN; j++) {
+				double sum = 0;
+				for (int i = 0; i < INPUTS; i++) {
+					sum += reference.getWeight(0, j, i) * in[i];
+				}
+				hidden[j] = sigmoid(sum);
+			}
+			double[] out = new double[OUTPUTS];
+			for (int k = 0; k < OUTPUTS; k++) {
+				double sum = 0;
+				for (int j = 0; j < HIDDEN; j++) {
+					sum += reference.getWeight(1, k, j) * hidden[j];
+				}
+				out[k] = sigmoid(sum);
+			}
+			for (int j = 0; j < HIDDEN; j++) {
+				for (int k = 0; k < OUTPUTS; k++) {
+					double outGradient = out[k] * (1 - out[k]);
+					ew[j][k] = lambda * ew[j][k] + outGradient * hidden[j];
+					for (int i = 0; i < INPUTS; i++) {
+						ev[i][j][k] = lambda * ev[i][j][k]
+								+ outGradient * reference.getWeight(1, k, j) * hidden[j] * (1 - hidden[j]) * in[i];
+					}
+				}
+			}
+			for (int j = 0; j < HIDDEN; j++) {
+				for (int k = 0; k < OUTPUTS; k++) {
+					double error = expected[k] - out[k];
+					reference.setWeight(1, k, j, reference.getWeight(1, k, j) + beta * error * ew[j][k]);
+					for (int i = 0; i < INPUTS; i++) {
+						reference.setWeight(0, j, i, reference.getWeight(0, j, i) + alpha * error * ev[i][j][k]);
+					}
+				}
+			}
+
+			double[] output = network.updateTraces(in, traces, lambda);
+			double[] error = new double[OUTPUTS];
+			for (int k = 0; k < OUTPUTS; k++) {
+				Assert.assertEquals(output[k], out[k], 1e-12);
+				error[k] = expected[k] - output[k];
+			}
+			network.applyTraces(traces, error, new double[] { alpha, beta });
+		}
+
+		for (int j = 0; j < HIDDEN; j++) {
+			for (int i = 0; i < INPUTS; i++) {
+				Assert.assertEquals(network.getWeight(0, j, i), reference.getWeight(0, j, i), 1e-12);
+			}
+			for (int k = 0; k < OUTPUTS; k++) {
+				Assert.assertEquals(network.getWeight(1, k, j), reference.getWeight(1, k, j), 1e-12);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package net.demilich.metastone.tests;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.SimulationEngine;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.mcts.HearthAgent;
+import net.demilich.metastone.game.behaviour.mcts.MonteCarloTreeSearch;
+import net.demilich.metastone.game.behaviour.mcts.Parallelization;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class ParallelMctsTest extends TestBase {
+
+	private static void assertSelectsValidAction(Behaviour behaviour) {
+		GameContext context = createDecision(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		List<GameAction> validActions = context.getValidActions();
+		long stateHash = context.stateHash();
+		SearchBudget.Tracker[] tracker = new SearchBudget.Tracker[1];
+		behaviour.setSearchBudget(new SearchBudget(SearchBudget.Unit.NODES, 200) {
+
+			@Override
+			public Tracker start() {
+				tracker[0] = super.start();
+				return tracker[0];
+			}
+
+		});
+		GameAction action = behaviour.requestAction(context, context.getActivePlayer(), validActions);
+		Assert.assertTrue(validActions.stream().anyMatch(validAction -> validAction == action));
+		// the threads together spend the whole budget
+		Assert.assertTrue(tracker[0].isExhausted(), behaviour.getName() + " stopped early");
+		// the searched game itself must be left untouched
+		Assert.assertEquals(context.stateHash(), stateHash);
+	}
+
+	@Test
+	public void testRootParallelization() {
+		assertSelectsValidAction(new MonteCarloTreeSearch(4, Parallelization.ROOT));
+		assertSelectsValidAction(new MonteCarloTreeSearch(4, Parallelization.ROOT, true));
+		assertSelectsValidAction(new HearthAgent(10, 4, Parallelization.ROOT));
+	}
+
+	@Test
+	public void testSearchInsideSimulation() throws Exception {
+		// a searching player in a simulated game runs on a worker of the
+		// shared engine; waiting for its search threads must not starve the
+		// pool, even when it has a single worker
+		ExecutorService executor = SimulationEngine.getInstance().getExecutor();
+		GameAction[] action = new GameAction[1];
+		executor.submit(() -> {
+			GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+			action[0] = new MonteCarloTreeSearch(3, Parallelization.TREE).requestAction(context, context.getActivePlayer(),
+					context.getValidActions());
+		}).get(60, TimeUnit.SECONDS);
+		Assert.assertNotNull(action[0]);
+	}
+
+	@Test
+	public void testTreeParallelization() {
+		assertSelectsValidAction(new MonteCarloTreeSearch(4, Parallelization.TREE));
+		assertSelectsValidAction(new MonteCarloTreeSearch(4, Parallelization.TREE, true));
+		assertSelectsValidAction(new HearthAgent(10, 4, Parallelization.TREE));
+	}
+
+}
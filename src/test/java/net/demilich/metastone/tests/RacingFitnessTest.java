@@ -0,0 +1,104 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.WeightedFeature;
+import net.demilich.metastone.game.behaviour.threat.cuckoo.RaceResult;
+
+public class RacingFitnessTest {
+
+	private static FeatureVector createCandidate(double winProbability) {
+		FeatureVector featureVector = new FeatureVector();
+		featureVector.set(WeightedFeature.OWN_HP_FACTOR, winProbability);
+		return featureVector;
+	}
+
+	private static double getWinProbability(FeatureVector featureVector) {
+		return featureVector.get(WeightedFeature.OWN_HP_FACTOR);
+	}
+
+	@Test
+	public void testCloseCandidatesPlayAllRounds() {
+		TestRacingFitness fitness = new TestRacingFitness(RacingFitnessTest::getWinProbability);
+		try {
+			FeatureVector first = createCandidate(0.5);
+			FeatureVector second = createCandidate(0.55);
+			RaceResult result = fitness.race(Arrays.asList(first, second), 1).join();
+			Assert.assertTrue(result.hasSurvived(0));
+			Assert.assertTrue(result.hasSurvived(1));
+			Assert.assertEquals(fitness.getRoundsPlayed(first), TestRacingFitness.MAX_ROUNDS);
+			// on common random numbers, the better candidate wins every game
+			// the worse one wins
+			Assert.assertTrue(result.getFitness(1) >= result.getFitness(0));
+		} finally {
+			fitness.shutdown();
+		}
+	}
+
+	@Test
+	public void testDominatedCandidatesAreEliminatedEarly() {
+		TestRacingFitness fitness = new TestRacingFitness(RacingFitnessTest::getWinProbability);
+		try {
+			List<FeatureVector> candidates = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				candidates.add(createCandidate(i < 3 ? 0.05 : 0.9));
+			}
+			RaceResult result = fitness.race(candidates, 7).join();
+			for (int i = 0; i < candidates.size(); i++) {
+				Assert.assertEquals(result.hasSurvived(i), i >= 3);
+			}
+			Assert.assertTrue(fitness.getTotalRounds() < candidates.size() * TestRacingFitness.MAX_ROUNDS / 2,
+					"rounds: " + fitness.getTotalRounds());
+
+			// racing the candidates again only plays rounds they have not
+			// played yet
+			int rounds = fitness.getTotalRounds();
+			fitness.race(candidates, 7).join();
+			Assert.assertEquals(fitness.getTotalRounds(), rounds);
+			fitness.forget(candidates.get(0));
+			fitness.race(candidates, 7).join();
+			Assert.assertTrue(fitness.getTotalRounds() > rounds);
+		} finally {
+			fitness.shutdown();
+		}
+	}
+
+	@Test
+	public void testEqualVectorsKeepTheirOwnRounds() {
+		TestRacingFitness fitness = new TestRacingFitness(RacingFitnessTest::getWinProbability);
+		try {
+			FeatureVector first = createCandidate(0.5);
+			FeatureVector second = createCandidate(0.5);
+			fitness.evaluate(first);
+			fitness.evaluate(second);
+			Assert.assertEquals(fitness.getRoundsPlayed(second), TestRacingFitness.MAX_ROUNDS);
+
+			// forgetting one vector does not drop the rounds of the other
+			fitness.forget(first);
+			int rounds = fitness.getTotalRounds();
+			fitness.evaluate(second);
+			Assert.assertEquals(fitness.getTotalRounds(), rounds);
+		} finally {
+			fitness.shutdown();
+		}
+	}
+
+	@Test
+	public void testEvaluatePlaysAllRounds() {
+		TestRacingFitness fitness = new TestRacingFitness(RacingFitnessTest::getWinProbability);
+		try {
+			FeatureVector candidate = createCandidate(1);
+			Assert.assertEquals(fitness.evaluate(candidate), 100.0);
+			Assert.assertEquals(fitness.getRoundsPlayed(candidate), TestRacingFitness.MAX_ROUNDS);
+		} finally {
+			fitness.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package net.demilich.metastone.tests;
+
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.mcts.utils.ActionUtils;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.logic.GameLogic;
+
+public class RandomActionTest extends TestBase {
+
+	@Test
+	public void testPlayRandomGameDecidesGame() {
+		GameContext context = createMidGame(HeroClass.PRIEST, HeroClass.HUNTER, 6);
+		context.playRandomGame(new Random(1));
+		Assert.assertTrue(context.gameDecided() || context.getTurn() > GameLogic.TURN_LIMIT);
+	}
+
+	@Test
+	public void testRandomActionIsUniform() {
+		Random random = new Random(42);
+		for (int turn = 3; turn < 9; turn++) {
+			// the mage's hero power targets every character
+			GameContext context = createMidGame(HeroClass.MAGE, HeroClass.MAGE, turn);
+			List<GameAction> validActions = context.getValidActions();
+			if (validActions.size() < 2) {
+				continue;
+			}
+			int[] counts = new int[validActions.size()];
+			int samples = 200 * validActions.size();
+			for (int i = 0; i < samples; i++) {
+				GameAction action = context.getLogic().getRandomAction(context.getActivePlayerId(), random);
+				GameAction validAction = ActionUtils.findEquivalent(validActions, action);
+				Assert.assertNotNull(validAction, "not a valid action: " + action);
+				counts[validActions.indexOf(validAction)]++;
+			}
+			for (int i = 0; i < counts.length; i++) {
+				// 200 expected, with a standard deviation of about 14
+				Assert.assertTrue(counts[i] > 120 && counts[i] < 280, validActions.get(i) + " drawn " + counts[i] + " times");
+			}
+		}
+	}
+
+}
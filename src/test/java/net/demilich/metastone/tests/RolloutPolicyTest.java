@@ -0,0 +1,128 @@
+package net.demilich.metastone.tests;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.TurnState;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.FlatMonteCarlo;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.heuristic.IGameStateHeuristic;
+import net.demilich.metastone.game.behaviour.mcts.HearthAgent;
+import net.demilich.metastone.game.behaviour.mcts.InformationSetMcts;
+import net.demilich.metastone.game.behaviour.mcts.MonteCarloTreeSearch;
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.ThreatBasedHeuristic;
+import net.demilich.metastone.game.decks.DeckFactory;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+
+public class RolloutPolicyTest extends TestBase {
+
+	private static final ThreatBasedHeuristic HEURISTIC = new ThreatBasedHeuristic(FeatureVector.getFittest());
+
+	/**
+	 * Counts the states it scores, so that tests can tell whether a search
+	 * ran its playouts with a policy using it.
+	 */
+	private static class CountingHeuristic implements IGameStateHeuristic {
+
+		private final AtomicInteger scored = new AtomicInteger();
+
+		@Override
+		public double getScore(GameContext context, int playerId) {
+			scored.incrementAndGet();
+			return HEURISTIC.getScore(context, playerId);
+		}
+
+		@Override
+		public void onActionSelected(GameContext context, int playerId) {
+		}
+
+	}
+
+	private static void assertSearchesWithPolicy(Behaviour behaviour) {
+		GameContext context = createDecision(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		List<GameAction> validActions = context.getValidActions();
+		CountingHeuristic heuristic = new CountingHeuristic();
+		behaviour.setRolloutPolicy(RolloutPolicy.epsilonGreedy(heuristic, 0.5).truncate(2, heuristic, 10));
+		behaviour.setSearchBudget(SearchBudget.nodes(30));
+		GameAction action = behaviour.requestAction(context, context.getActivePlayer(), validActions);
+		Assert.assertTrue(validActions.stream().anyMatch(validAction -> validAction == action));
+		Assert.assertTrue(heuristic.scored.get() > 0, behaviour.getName() + " ignored the rollout policy");
+	}
+
+	@Test
+	public void testBehavioursUseRolloutPolicy() {
+		assertSearchesWithPolicy(new MonteCarloTreeSearch());
+		assertSearchesWithPolicy(new HearthAgent());
+		assertSearchesWithPolicy(new FlatMonteCarlo(10));
+		assertSearchesWithPolicy(new InformationSetMcts());
+	}
+
+	@Test
+	public void testParse() {
+		Assert.assertSame(RolloutPolicy.parse("random"), RolloutPolicy.RANDOM);
+		RolloutPolicy greedy = RolloutPolicy.parse("Greedy0.1");
+		Assert.assertEquals(greedy.getEpsilon(), 0.1);
+		Assert.assertEquals(greedy.getTurns(), 0);
+		RolloutPolicy truncated = RolloutPolicy.parse("random, 2turns");
+		Assert.assertEquals(truncated.getEpsilon(), 1.0);
+		Assert.assertEquals(truncated.getTurns(), 2);
+		for (String invalid : new String[] { "", "greedy", "greedy2", "random,", "random,0turns", "random,2", "minimax" }) {
+			try {
+				RolloutPolicy.parse(invalid);
+				Assert.fail("Parsed '" + invalid + "'");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testPlayerConfigSetsPolicy() {
+		RolloutPolicy rolloutPolicy = RolloutPolicy.parse("greedy0.2,3turns");
+		PlayerConfig playerConfig = new PlayerConfig(DeckFactory.getRandomDeck(HeroClass.MAGE), new MonteCarloTreeSearch());
+		playerConfig.setHeroCard(getHeroCardForClass(HeroClass.MAGE));
+		playerConfig.setRolloutPolicy(rolloutPolicy);
+		Player player = new Player(playerConfig);
+		Assert.assertSame(((Behaviour) player.getBehaviour()).getRolloutPolicy(), rolloutPolicy);
+		// the configured behaviour itself is left alone
+		Assert.assertNull(((Behaviour) playerConfig.getBehaviour()).getRolloutPolicy());
+	}
+
+	@Test
+	public void testPlayoutUntilGameEnds() {
+		GameContext context = createMidGame(HeroClass.PRIEST, HeroClass.ROGUE, 6);
+		int playerId = context.getActivePlayerId();
+		double value = RolloutPolicy.RANDOM.playOut(context, playerId, new Random(1));
+		Assert.assertTrue(context.gameDecided());
+		int winningPlayerId = context.getWinningPlayerId();
+		Assert.assertEquals(value, winningPlayerId == playerId ? 1.0 : winningPlayerId == -1 ? 0.5 : 0.0);
+	}
+
+	@Test
+	public void testTruncatedPlayout() {
+		for (int turns = 1; turns <= 3; turns++) {
+			GameContext context = createMidGame(HeroClass.HUNTER, HeroClass.PALADIN, 5);
+			int lastTurn = context.getTurn() + turns - 1;
+			RolloutPolicy rolloutPolicy = RolloutPolicy.epsilonGreedy(HEURISTIC, 0.1).truncate(turns, HEURISTIC, 10);
+			double value = rolloutPolicy.playOut(context, context.getActivePlayerId(), new Random(turns));
+			Assert.assertTrue(value >= 0 && value <= 1);
+			if (!context.gameDecided()) {
+				Assert.assertEquals(context.getTurn(), lastTurn);
+				Assert.assertEquals(context.getTurnState(), TurnState.TURN_ENDED);
+				Assert.assertTrue(value > 0 && value < 1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.FlatMonteCarlo;
+import net.demilich.metastone.game.behaviour.GreedyOptimizeTurn;
+import net.demilich.metastone.game.behaviour.RolloutPolicy;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.heuristic.WeightedHeuristic;
+import net.demilich.metastone.game.behaviour.mcts.HearthAgent;
+import net.demilich.metastone.game.behaviour.mcts.MonteCarloTreeSearch;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class SearchBudgetTest extends TestBase {
+
+	/**
+	 * A budget which keeps the trackers of all decisions, so that tests can
+	 * check what a search spent.
+	 */
+	private static class RecordingBudget extends SearchBudget {
+
+		private final List<Tracker> trackers = new ArrayList<>();
+
+		public RecordingBudget(Unit unit, long limit) {
+			super(unit, limit);
+		}
+
+		public Tracker getTracker() {
+			Assert.assertEquals(trackers.size(), 1);
+			return trackers.get(0);
+		}
+
+		@Override
+		public synchronized Tracker start() {
+			Tracker tracker = super.start();
+			trackers.add(tracker);
+			return tracker;
+		}
+
+	}
+
+	private static SearchBudget.Tracker search(Behaviour behaviour, RecordingBudget budget) {
+		GameContext context = createDecision(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		List<GameAction> validActions = context.getValidActions();
+		behaviour.setSearchBudget(budget);
+		behaviour.requestAction(context, context.getActivePlayer(), validActions);
+		return budget.getTracker();
+	}
+
+	private static void assertAnswersWithinTime(Behaviour behaviour) {
+		RecordingBudget budget = new RecordingBudget(SearchBudget.Unit.MILLISECONDS, 100);
+		long start = System.currentTimeMillis();
+		SearchBudget.Tracker tracker = search(behaviour, budget);
+		long elapsed = System.currentTimeMillis() - start;
+
+		Assert.assertTrue(tracker.getNodes() > 0, behaviour.getName() + " searched no nodes");
+		Assert.assertTrue(tracker.isExhausted() || behaviour instanceof GreedyOptimizeTurn, behaviour.getName() + " stopped early");
+		// the budget is checked between nodes, so allow for the last one and
+		// for setting up the mid-game state
+		Assert.assertTrue(elapsed < 5000, behaviour.getName() + " took " + elapsed + "ms");
+	}
+
+	private static void assertStopsAtNodeBudget(Behaviour behaviour) {
+		SearchBudget.Tracker tracker = search(behaviour, new RecordingBudget(SearchBudget.Unit.NODES, 50));
+		// the searches claim nodes until a claim fails, exactly once with a
+		// single thread
+		Assert.assertEquals(tracker.getNodes(), 51, behaviour.getName());
+	}
+
+	@Test
+	public void testBehavioursAreAnytime() {
+		assertAnswersWithinTime(new MonteCarloTreeSearch());
+		assertAnswersWithinTime(new HearthAgent());
+		assertAnswersWithinTime(new FlatMonteCarlo(1000));
+		assertAnswersWithinTime(new GreedyOptimizeTurn(new WeightedHeuristic()));
+	}
+
+	@Test
+	public void testBehavioursStopAtNodeBudget() {
+		assertStopsAtNodeBudget(new MonteCarloTreeSearch());
+		assertStopsAtNodeBudget(new HearthAgent());
+		assertStopsAtNodeBudget(new FlatMonteCarlo(1000));
+	}
+
+	@Test
+	public void testFlatMonteCarloStaysWithinCloneBudget() {
+		GameContext context = createDecision(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		List<GameAction> validActions = context.getValidActions();
+		for (long clones = 1; clones <= validActions.size() + 3; clones++) {
+			RecordingBudget budget = new RecordingBudget(SearchBudget.Unit.CLONES, clones);
+			FlatMonteCarlo behaviour = new FlatMonteCarlo(1000);
+			behaviour.setSearchBudget(budget);
+			GameAction action = behaviour.requestAction(context, context.getActivePlayer(), validActions);
+			Assert.assertEquals(budget.getTracker().getClones(), clones);
+			Assert.assertTrue(validActions.contains(action));
+		}
+	}
+
+	@Test
+	public void testGreedyPlayoutsStayWithinCloneBudget() {
+		final long clones = 200;
+		MonteCarloTreeSearch behaviour = new MonteCarloTreeSearch();
+		// every greedy move clones the game once per valid action
+		behaviour.setRolloutPolicy(RolloutPolicy.epsilonGreedy(new WeightedHeuristic(), 0));
+		SearchBudget.Tracker tracker = search(behaviour, new RecordingBudget(SearchBudget.Unit.CLONES, clones));
+		Assert.assertTrue(tracker.getClones() >= clones);
+		// the playout running out of budget finishes with random moves, so
+		// at most the clones of one greedy move and one iteration are over
+		Assert.assertTrue(tracker.getClones() < clones + 50, "clones: " + tracker.getClones());
+		// greedy playouts clone far more than the tree does
+		Assert.assertTrue(tracker.getNodes() < clones / 4, "nodes: " + tracker.getNodes());
+	}
+
+	@Test
+	public void testCloneBudget() {
+		GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 6);
+		SearchBudget.Tracker tracker = SearchBudget.clones(2).start();
+		Assert.assertTrue(tracker.nextNode());
+		tracker.clone(context);
+		Assert.assertFalse(tracker.isExhausted());
+		tracker.clone(context);
+		Assert.assertTrue(tracker.isExhausted());
+		Assert.assertFalse(tracker.nextNode());
+	}
+
+	@Test
+	public void testNodeBudget() {
+		SearchBudget.Tracker tracker = SearchBudget.nodes(3).start();
+		for (int i = 0; i < 3; i++) {
+			Assert.assertFalse(tracker.isExhausted());
+			Assert.assertTrue(tracker.nextNode());
+		}
+		Assert.assertTrue(tracker.isExhausted());
+		Assert.assertFalse(tracker.nextNode());
+	}
+
+	@Test
+	public void testParse() {
+		Assert.assertEquals(SearchBudget.parse("250ms").getUnit(), SearchBudget.Unit.MILLISECONDS);
+		Assert.assertEquals(SearchBudget.parse("250ms").getLimit(), 250);
+		Assert.assertEquals(SearchBudget.parse("1000 nodes").getUnit(), SearchBudget.Unit.NODES);
+		Assert.assertEquals(SearchBudget.parse("5000Clones").getLimit(), 5000);
+		Assert.assertEquals(SearchBudget.parse("5000clones").toString(), "5000clones");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testParseInvalid() {
+		SearchBudget.parse("fast");
+	}
+
+}
@@ -0,0 +1,40 @@
+package net.demilich.metastone.tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.SimulationEngine;
+import net.demilich.metastone.game.behaviour.learning.Brain;
+import net.demilich.metastone.game.behaviour.learning.SelfPlayTrainer;
+import net.demilich.metastone.game.decks.DeckFactory;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class SelfPlayTrainerTest extends TestBase {
+
+	@Test
+	public void testParallelSelfPlay() {
+		Brain brain = new Brain(4);
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		double before = brain.getOutput(context, context.getPlayer1().getId())[0];
+
+		SimulationEngine engine = new SimulationEngine(2);
+		SelfPlayTrainer.Throughput throughput;
+		try {
+			SelfPlayTrainer trainer = new SelfPlayTrainer(engine, brain);
+			throughput = trainer.train(DeckFactory.getRandomDeck(HeroClass.MAGE), DeckFactory.getRandomDeck(HeroClass.WARRIOR), 6);
+		} finally {
+			engine.shutdown();
+		}
+
+		Assert.assertEquals(throughput.getGames(), 6);
+		Assert.assertTrue(throughput.getUpdates() > 0);
+		Assert.assertEquals(throughput.getUpdates(), brain.getUpdates());
+		Assert.assertTrue(brain.getVersion() >= brain.getUpdates() / 4);
+		// readers see the trained weights once they are published
+		double after = brain.getOutput(context, context.getPlayer1().getId())[0];
+		Assert.assertFalse(Double.isNaN(after));
+		Assert.assertNotEquals(after, before);
+	}
+
+}
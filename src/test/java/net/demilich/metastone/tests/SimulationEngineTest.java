@@ -0,0 +1,186 @@
+package net.demilich.metastone.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.SimulationBatch;
+import net.demilich.metastone.game.SimulationEngine;
+import net.demilich.metastone.game.behaviour.GreedyOptimizeTurn;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
+import net.demilich.metastone.game.behaviour.heuristic.WeightedHeuristic;
+import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.game.decks.DeckFactory;
+import net.demilich.metastone.game.decks.MetaDeck;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.logic.GameLogic;
+import net.demilich.metastone.gui.gameconfig.GameConfig;
+import net.demilich.metastone.gui.gameconfig.PlayerConfig;
+
+public class SimulationEngineTest extends TestBase {
+
+	// the engine of the current test, shut down after it
+	private SimulationEngine engine;
+
+	private static GameContext createRandomGame() {
+		PlayerConfig player1Config = new PlayerConfig(DeckFactory.getRandomDeck(HeroClass.HUNTER), new PlayRandomBehaviour());
+		player1Config.setName("Player 1");
+		player1Config.setHeroCard(getHeroCardForClass(HeroClass.HUNTER));
+
+		PlayerConfig player2Config = new PlayerConfig(DeckFactory.getRandomDeck(HeroClass.PRIEST), new PlayRandomBehaviour());
+		player2Config.setName("Player 2");
+		player2Config.setHeroCard(getHeroCardForClass(HeroClass.PRIEST));
+
+		return new GameContext(new Player(player1Config), new Player(player2Config), new GameLogic());
+	}
+
+	private static GameConfig createSeededConfig(long seed) {
+		// random and meta decks are picked anew for every game, from the seed
+		Deck deck1 = DeckFactory.getRandomDeck(HeroClass.HUNTER);
+		List<Deck> metaDecks = new ArrayList<>();
+		for (HeroClass heroClass : new HeroClass[] { HeroClass.PRIEST, HeroClass.MAGE, HeroClass.WARRIOR }) {
+			Deck deck = new Deck(heroClass);
+			deck.getCards().addAll(DeckFactory.getRandomDeck(heroClass).getCardsCopy());
+			metaDecks.add(deck);
+		}
+		Deck deck2 = new MetaDeck(metaDecks);
+
+		PlayerConfig player1Config = new PlayerConfig(deck1, new PlayRandomBehaviour());
+		player1Config.setName("Player 1");
+		player1Config.setHeroCard(getHeroCardForClass(HeroClass.HUNTER));
+		PlayerConfig player2Config = new PlayerConfig(deck2, new GreedyOptimizeTurn(new WeightedHeuristic()));
+		player2Config.setName("Player 2");
+
+		GameConfig gameConfig = new GameConfig();
+		gameConfig.setPlayerConfig1(player1Config);
+		gameConfig.setPlayerConfig2(player2Config);
+		gameConfig.setRandomSeed(seed);
+		return gameConfig;
+	}
+
+	private List<String> playSeededBatch(GameConfig gameConfig, int numberOfGames) {
+		List<String> results = Collections.synchronizedList(new ArrayList<>());
+		engine.simulate(SimulationEngine.createGameFactory(gameConfig), numberOfGames,
+				game -> results.add(game.getPlayer2().getHero().getHeroClass() + "/" + game.getWinningPlayerId() + "/"
+						+ game.getTurn() + "/" + game.stateHash())).await();
+		// the workers finish the games in any order
+		Collections.sort(results);
+		return results;
+	}
+
+	@AfterMethod
+	public void shutdownEngine() {
+		if (engine != null) {
+			engine.shutdown();
+			engine = null;
+		}
+	}
+
+	@Test
+	public void testAllGamesArePlayed() {
+		engine = new SimulationEngine(2);
+		AtomicInteger decidedGames = new AtomicInteger();
+		SimulationBatch batch = engine.simulate(SimulationEngineTest::createRandomGame, 20, game -> {
+			if (game.gameDecided()) {
+				decidedGames.incrementAndGet();
+			}
+		});
+		batch.await();
+
+		Assert.assertTrue(batch.isDone());
+		Assert.assertEquals(batch.getGamesCompleted(), 20);
+		Assert.assertEquals(decidedGames.get(), 20);
+	}
+
+	@Test
+	public void testCancellation() {
+		engine = new SimulationEngine(1);
+		AtomicReference<SimulationBatch> batch = new AtomicReference<>();
+		// the first games may finish before simulate returns
+		batch.set(engine.simulate(SimulationEngineTest::createRandomGame, 1000, game -> {
+			if (batch.get() != null) {
+				batch.get().cancel();
+			}
+		}));
+		batch.get().await();
+
+		Assert.assertTrue(batch.get().isCancelled());
+		Assert.assertTrue(batch.get().getGamesCompleted() < 1000);
+	}
+
+	@Test
+	public void testStopCondition() {
+		engine = new SimulationEngine(1);
+		AtomicInteger playedGames = new AtomicInteger();
+		SimulationBatch batch = engine.simulate(SimulationEngineTest::createRandomGame, 100, game -> playedGames.incrementAndGet(),
+				() -> playedGames.get() >= 5);
+		batch.await();
+
+		Assert.assertTrue(batch.isCancelled());
+		Assert.assertEquals(batch.getGamesCompleted(), 5);
+	}
+
+	@Test
+	public void testFailureIsReported() {
+		engine = new SimulationEngine(1);
+		Supplier<GameContext> failingFactory = () -> {
+			throw new IllegalStateException("broken game");
+		};
+		SimulationBatch batch = engine.simulate(failingFactory, 10, null);
+		try {
+			batch.await();
+			Assert.fail("A failed game must fail the batch");
+		} catch (RuntimeException e) {
+			Assert.assertEquals(e.getMessage(), "Simulation failed");
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			Assert.assertSame(e.getCause(), batch.getFailure());
+		}
+	}
+
+	@Test(timeOut = 60000)
+	public void testRejectedGamesFailBatch() {
+		engine = new SimulationEngine(2);
+		engine.shutdown();
+		SimulationBatch batch = engine.simulate(SimulationEngineTest::createRandomGame, 10, null);
+		try {
+			batch.await();
+			Assert.fail("A rejected game must fail the batch");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+		Assert.assertEquals(batch.getGamesCompleted(), 0);
+	}
+
+	@Test
+	public void testSeededBatchesAreReplayed() {
+		engine = new SimulationEngine(2);
+		GameConfig gameConfig = createSeededConfig(1234);
+		List<String> first = playSeededBatch(gameConfig, 6);
+		List<String> second = playSeededBatch(gameConfig, 6);
+		Assert.assertEquals(second, first);
+		// the seeds differ from game to game
+		Assert.assertEquals(first.stream().distinct().count(), 6);
+	}
+
+	@Test
+	public void testShutdown() throws InterruptedException {
+		engine = new SimulationEngine(2);
+		SimulationBatch batch = engine.simulate(SimulationEngineTest::createRandomGame, 4, null);
+		batch.await();
+		engine.shutdown();
+		Assert.assertTrue(engine.getExecutor().awaitTermination(10, TimeUnit.SECONDS));
+		Assert.assertEquals(batch.getGamesCompleted(), 4);
+	}
+
+}
@@ -0,0 +1,157 @@
+package net.demilich.metastone.tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.Attribute;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCollection;
+import net.demilich.metastone.game.entities.Actor;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.spells.DestroySpell;
+import net.demilich.metastone.game.spells.trigger.SpellTrigger;
+import net.demilich.metastone.game.spells.trigger.TurnEndTrigger;
+import net.demilich.metastone.game.targeting.EntityReference;
+import net.demilich.metastone.utils.MathUtils;
+
+public class StateHashTest extends TestBase {
+
+	private static void assertRunningHashes(GameContext context) {
+		for (Player player : context.getPlayers()) {
+			long boardHash = 0;
+			for (int i = 0; i < player.getMinions().size(); i++) {
+				boardHash += MathUtils.hash64(i, player.getMinions().get(i).getStateHash());
+			}
+			Assert.assertEquals(player.getBoardStateHash(), boardHash);
+			Assert.assertEquals(player.getHand().getStateHash(), sumOf(player.getHand()));
+			Assert.assertEquals(player.getDeck().getStateHash(), sumOf(player.getDeck()));
+		}
+	}
+
+	private static long sumOf(CardCollection cards) {
+		long hash = 0;
+		for (Card card : cards) {
+			hash += card.getStateHash();
+		}
+		return hash;
+	}
+
+	@Test
+	public void testCloneHasSameHash() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player player = context.getPlayer1();
+		playMinionCard(context, player, new TestMinionCard(3, 3));
+
+		GameContext clone = context.clone();
+		Assert.assertEquals(clone.stateHash(), context.stateHash());
+	}
+
+	@Test
+	public void testHashFollowsChanges() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player player = context.getPlayer1();
+		Actor minion = playMinionCard(context, player, new TestMinionCard(3, 3));
+		long originalHash = context.stateHash();
+
+		minion.modifyAttribute(Attribute.ATTACK_BONUS, 2);
+		long buffedHash = context.stateHash();
+		Assert.assertNotEquals(buffedHash, originalHash);
+
+		minion.modifyAttribute(Attribute.ATTACK_BONUS, -2);
+		Assert.assertEquals(context.stateHash(), originalHash);
+
+		minion.setAttribute(Attribute.TAUNT);
+		Assert.assertNotEquals(context.stateHash(), originalHash);
+		minion.removeAttribute(Attribute.TAUNT);
+		Assert.assertEquals(context.stateHash(), originalHash);
+
+		player.setMana(player.getMana() + 1);
+		Assert.assertNotEquals(context.stateHash(), originalHash);
+	}
+
+	@Test
+	public void testHashIgnoresCloneModifications() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player player = context.getPlayer1();
+		playMinionCard(context, player, new TestMinionCard(3, 3));
+		long originalHash = context.stateHash();
+
+		GameContext clone = context.clone();
+		clone.getPlayer1().getMinions().get(0).setAttribute(Attribute.FROZEN);
+		clone.getPlayer1().getHero().modifyAttribute(Attribute.ARMOR, 5);
+		Assert.assertNotEquals(clone.stateHash(), originalHash);
+		Assert.assertEquals(context.stateHash(), originalHash);
+	}
+
+	@Test
+	public void testHashFollowsTriggers() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player player = context.getPlayer1();
+		Actor minion = playMinionCard(context, player, new TestMinionCard(3, 3));
+		long originalHash = context.stateHash();
+
+		SpellTrigger trigger = new SpellTrigger(new TurnEndTrigger(), DestroySpell.create(EntityReference.SELF));
+		context.getLogic().addGameEventListener(player, trigger, minion);
+		long triggerHash = context.stateHash();
+		Assert.assertNotEquals(triggerHash, originalHash);
+		Assert.assertEquals(context.clone().stateHash(), triggerHash);
+
+		context.removeTriggersAssociatedWith(minion.getReference());
+		Assert.assertEquals(context.stateHash(), originalHash);
+	}
+
+	@Test
+	public void testRunningHashesFollowGames() {
+		for (int turn = 2; turn <= 12; turn += 2) {
+			GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, turn);
+			assertRunningHashes(context);
+			GameContext clone = context.clone();
+			assertRunningHashes(clone);
+			if (!clone.gameDecided()) {
+				clone.playTurn();
+			}
+			assertRunningHashes(clone);
+			assertRunningHashes(context);
+		}
+	}
+
+	@Test
+	public void testHashFollowsCardsInHand() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player player = context.getPlayer1();
+		long originalHash = context.stateHash();
+
+		Card card = player.getHand().toList().get(0);
+		card.setAttribute(Attribute.MANA_COST_MODIFIER, -1);
+		Assert.assertNotEquals(context.stateHash(), originalHash);
+		card.removeAttribute(Attribute.MANA_COST_MODIFIER);
+		Assert.assertEquals(context.stateHash(), originalHash);
+
+		// a card which left the hand no longer counts
+		context.getLogic().removeCard(player.getId(), card);
+		long removedHash = context.stateHash();
+		card.setAttribute(Attribute.MANA_COST_MODIFIER, -1);
+		Assert.assertEquals(context.stateHash(), removedHash);
+	}
+
+	@Test
+	public void testHashFollowsSecrets() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player player = context.getPlayer1();
+		long originalHash = context.stateHash();
+
+		player.addSecret("secret_counterspell");
+		long secretHash = context.stateHash();
+		Assert.assertNotEquals(secretHash, originalHash);
+		player.addSecret("secret_ice_block");
+		Assert.assertNotEquals(context.stateHash(), secretHash);
+		player.removeSecret("secret_ice_block");
+		Assert.assertEquals(context.stateHash(), secretHash);
+		Assert.assertEquals(context.clone().stateHash(), secretHash);
+		player.clearSecrets();
+		Assert.assertEquals(context.stateHash(), originalHash);
+	}
+
+}
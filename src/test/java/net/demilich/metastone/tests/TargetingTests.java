@@ -10,11 +10,13 @@ import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.actions.PhysicalAttackAction;
+import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.game.cards.CardCatalogue;
 import net.demilich.metastone.game.cards.MinionCard;
 import net.demilich.metastone.game.entities.Entity;
 import net.demilich.metastone.game.entities.EntityType;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.targeting.EntityReference;
 
 public class TargetingTests extends TestBase {
 
@@ -64,4 +66,22 @@ public class TargetingTests extends TestBase {
 
 	}
 
+	@Test
+	public void testIndexedCardAfterClone() {
+		GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 4);
+		Card card = context.getActivePlayer().getHand().toList().get(0);
+		EntityReference reference = card.getReference();
+		Assert.assertSame(context.resolveSingleTarget(reference), card);
+
+		// the hands are shared now; the first one to hand out a card takes
+		// copies, so the indexed card belongs to the clone from then on
+		GameContext clone = context.clone();
+		Entity resolved = context.resolveSingleTarget(reference);
+		Assert.assertNotSame(resolved, card);
+		Assert.assertEquals(resolved.getId(), card.getId());
+		Assert.assertTrue(context.getActivePlayer().getHand().contains((Card) resolved));
+		Assert.assertSame(clone.resolveSingleTarget(reference), card);
+		Assert.assertSame(context.resolveSingleTarget(reference), resolved);
+	}
+
 }
@@ -10,9 +10,11 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.TurnState;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.actions.PhysicalAttackAction;
 import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
 import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.game.cards.CardCatalogue;
 import net.demilich.metastone.game.cards.CardProxy;
@@ -97,6 +99,50 @@ public class TestBase {
 		return context;
 	}
 
+	/**
+	 * Plays random moves in a game between two random decks until the given
+	 * turn and returns the game at the start of the active player's next
+	 * decision.
+	 */
+	protected static GameContext createMidGame(HeroClass hero1, HeroClass hero2, int turn) {
+		PlayerConfig player1Config = new PlayerConfig(DeckFactory.getRandomDeck(hero1), new PlayRandomBehaviour());
+		player1Config.setName("Player 1");
+		player1Config.setHeroCard(getHeroCardForClass(hero1));
+
+		PlayerConfig player2Config = new PlayerConfig(DeckFactory.getRandomDeck(hero2), new PlayRandomBehaviour());
+		player2Config.setName("Player 2");
+		player2Config.setHeroCard(getHeroCardForClass(hero2));
+
+		GameContext context = new GameContext(new Player(player1Config), new Player(player2Config), new GameLogic());
+		context.getLogic().setLoggingEnabled(false);
+		context.init();
+		while (context.getTurn() < turn && !context.gameDecided()) {
+			if (context.getTurnState() == TurnState.TURN_ENDED) {
+				context.startTurn();
+			}
+			context.playTurn();
+		}
+		if (context.getTurnState() == TurnState.TURN_ENDED) {
+			context.startTurn();
+		}
+		return context;
+	}
+
+	/**
+	 * Returns a mid-game decision like {@link #createMidGame} with a few
+	 * actions to choose from; the searches answer single actions without
+	 * searching.
+	 */
+	protected static GameContext createDecision(HeroClass hero1, HeroClass hero2, int turn) {
+		for (int attempt = 0; attempt < 100; attempt++) {
+			GameContext context = createMidGame(hero1, hero2, turn);
+			if (context.getValidActions().size() > 3) {
+				return context;
+			}
+		}
+		throw new AssertionError("No mid-game decision with more than 3 actions");
+	}
+
 	protected static Entity find(GameContext context, String cardId) {
 		for (Player player : context.getPlayers()) {
 			for (Minion minion : player.getMinions()) {
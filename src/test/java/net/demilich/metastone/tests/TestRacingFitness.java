@@ -0,0 +1,66 @@
+package net.demilich.metastone.tests;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import net.demilich.metastone.game.behaviour.threat.FeatureVector;
+import net.demilich.metastone.game.behaviour.threat.cuckoo.RacingFitness;
+
+/**
+ * A racing fitness whose games are decided by coin flips on another thread:
+ * the n-th game of each round is won by every vector whose win probability
+ * exceeds the n-th random number of the round, the same for all vectors.
+ */
+public class TestRacingFitness extends RacingFitness {
+
+	public static final int ROUND_GAMES = 10;
+	public static final int MAX_ROUNDS = 10;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+	private final ToDoubleFunction<FeatureVector> winProbability;
+	// rounds played per feature vector object, as they are kept
+	private final Map<FeatureVector, AtomicInteger> roundsPlayed = Collections.synchronizedMap(new IdentityHashMap<>());
+	private final AtomicInteger totalRounds = new AtomicInteger();
+
+	public TestRacingFitness(ToDoubleFunction<FeatureVector> winProbability) {
+		super(ROUND_GAMES, MAX_ROUNDS, 0.05);
+		this.winProbability = winProbability;
+	}
+
+	public int getRoundsPlayed(FeatureVector featureVector) {
+		AtomicInteger rounds = roundsPlayed.get(featureVector);
+		return rounds != null ? rounds.get() : 0;
+	}
+
+	public int getTotalRounds() {
+		return totalRounds.get();
+	}
+
+	@Override
+	protected CompletableFuture<Integer> playRound(FeatureVector featureVector, int round) {
+		roundsPlayed.computeIfAbsent(featureVector, key -> new AtomicInteger()).incrementAndGet();
+		totalRounds.incrementAndGet();
+		return CompletableFuture.supplyAsync(() -> {
+			Random random = new Random(round);
+			int wins = 0;
+			for (int game = 0; game < ROUND_GAMES; game++) {
+				if (random.nextDouble() < winProbability.applyAsDouble(featureVector)) {
+					wins++;
+				}
+			}
+			return wins;
+		}, executor);
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+}
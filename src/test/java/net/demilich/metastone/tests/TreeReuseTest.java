@@ -0,0 +1,76 @@
+package net.demilich.metastone.tests;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.actions.ActionType;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.IBehaviour;
+import net.demilich.metastone.game.behaviour.mcts.HearthAgent;
+import net.demilich.metastone.game.behaviour.mcts.MonteCarloTreeSearch;
+import net.demilich.metastone.game.behaviour.mcts.Parallelization;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class TreeReuseTest extends TestBase {
+
+	/**
+	 * Lets the behaviour play out a whole turn, and returns the visits its
+	 * decisions took over from the trees of the decisions before. Those
+	 * decisions must still return the game's own valid actions.
+	 */
+	private static int playTurn(IBehaviour behaviour, IntSupplier reusedVisits) {
+		GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, 8);
+		int player = context.getActivePlayerId();
+		int reused = 0;
+		while (!context.gameDecided() && context.getActivePlayerId() == player) {
+			List<GameAction> validActions = context.getValidActions();
+			GameAction action = behaviour.requestAction(context, context.getActivePlayer(), validActions);
+			Assert.assertTrue(validActions.stream().anyMatch(validAction -> validAction == action));
+			if (validActions.size() > 1) {
+				reused += reusedVisits.getAsInt();
+			}
+			context.getLogic().performGameAction(player, action);
+			if (action.getActionType() == ActionType.END_TURN) {
+				break;
+			}
+		}
+		return reused;
+	}
+
+	/**
+	 * Plays turns until one of them reuses a tree. Actions with random
+	 * outcomes lead to states the retained tree was not grown from, so not
+	 * every turn does.
+	 */
+	private static void assertReusesTrees(IBehaviour behaviour, IntSupplier reusedVisits) {
+		for (int turn = 0; turn < 10; turn++) {
+			if (playTurn(behaviour, reusedVisits) > 0) {
+				return;
+			}
+		}
+		Assert.fail(behaviour.getName() + " never reused a tree");
+	}
+
+	@Test
+	public void testHearthAgentReusesTree() {
+		HearthAgent agent = new HearthAgent(20);
+		assertReusesTrees(agent, agent::getReusedVisits);
+		HearthAgent rootParallel = new HearthAgent(20, 2, Parallelization.ROOT);
+		assertReusesTrees(rootParallel, rootParallel::getReusedVisits);
+	}
+
+	@Test
+	public void testMctsReusesTree() {
+		MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+		assertReusesTrees(mcts, mcts::getReusedVisits);
+		MonteCarloTreeSearch rootParallel = new MonteCarloTreeSearch(2, Parallelization.ROOT);
+		assertReusesTrees(rootParallel, rootParallel::getReusedVisits);
+		MonteCarloTreeSearch transpositions = new MonteCarloTreeSearch(1, Parallelization.TREE, true);
+		assertReusesTrees(transpositions, transpositions::getReusedVisits);
+	}
+
+}
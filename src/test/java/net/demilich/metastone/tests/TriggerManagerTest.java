@@ -0,0 +1,124 @@
+package net.demilich.metastone.tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.entities.Entity;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import net.demilich.metastone.game.events.GameEvent;
+import net.demilich.metastone.game.events.GameEventType;
+import net.demilich.metastone.game.events.TurnEndEvent;
+import net.demilich.metastone.game.spells.trigger.IGameEventListener;
+import net.demilich.metastone.game.spells.trigger.TriggerLayer;
+import net.demilich.metastone.game.spells.trigger.TriggerManager;
+import net.demilich.metastone.game.targeting.EntityReference;
+
+public class TriggerManagerTest extends TestBase {
+
+	private static class CountingListener implements IGameEventListener {
+
+		private final EntityReference hostReference;
+		private int fired;
+
+		public CountingListener(EntityReference hostReference) {
+			this.hostReference = hostReference;
+		}
+
+		@Override
+		public boolean canFire(GameEvent event) {
+			return true;
+		}
+
+		@Override
+		public IGameEventListener clone() {
+			return new CountingListener(hostReference);
+		}
+
+		@Override
+		public EntityReference getHostReference() {
+			return hostReference;
+		}
+
+		@Override
+		public TriggerLayer getLayer() {
+			return TriggerLayer.DEFAULT;
+		}
+
+		@Override
+		public int getOwner() {
+			return 0;
+		}
+
+		@Override
+		public boolean interestedIn(GameEventType eventType) {
+			return eventType == GameEventType.TURN_END;
+		}
+
+		@Override
+		public boolean isExpired() {
+			return false;
+		}
+
+		@Override
+		public void onAdd(GameContext context) {
+		}
+
+		@Override
+		public void onGameEvent(GameEvent event) {
+			fired++;
+		}
+
+		@Override
+		public void onRemove(GameContext context) {
+		}
+
+		@Override
+		public void setHost(Entity host) {
+		}
+
+		@Override
+		public void setOwner(int playerIndex) {
+		}
+
+	}
+
+	@Test
+	public void testDuplicateListener() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		TriggerManager triggerManager = new TriggerManager();
+		EntityReference host = context.getPlayer1().getHero().getReference();
+		CountingListener listener = new CountingListener(host);
+
+		// a listener added twice fires twice, as with a plain list of listeners
+		triggerManager.addTrigger(listener);
+		triggerManager.addTrigger(listener);
+		Assert.assertEquals(triggerManager.getTriggersAssociatedWith(host).size(), 2);
+		triggerManager.fireGameEvent(new TurnEndEvent(context, 0));
+		Assert.assertEquals(listener.fired, 2);
+
+		// and has to be removed twice
+		triggerManager.removeTrigger(listener);
+		triggerManager.fireGameEvent(new TurnEndEvent(context, 0));
+		Assert.assertEquals(listener.fired, 3);
+		triggerManager.removeTrigger(listener);
+		triggerManager.fireGameEvent(new TurnEndEvent(context, 0));
+		Assert.assertEquals(listener.fired, 3);
+		Assert.assertTrue(triggerManager.getTriggersAssociatedWith(host).isEmpty());
+	}
+
+	@Test
+	public void testRemoveDuplicatesOfHost() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		TriggerManager triggerManager = new TriggerManager();
+		EntityReference host = context.getPlayer1().getHero().getReference();
+		CountingListener listener = new CountingListener(host);
+		triggerManager.addTrigger(listener);
+		triggerManager.addTrigger(listener);
+
+		triggerManager.removeTriggersAssociatedWith(host);
+		triggerManager.fireGameEvent(new TurnEndEvent(context, 0));
+		Assert.assertEquals(listener.fired, 0);
+	}
+
+}
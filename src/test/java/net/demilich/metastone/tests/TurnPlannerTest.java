@@ -0,0 +1,81 @@
+package net.demilich.metastone.tests;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.ActionType;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.LethalSolver;
+import net.demilich.metastone.game.behaviour.SearchBudget;
+import net.demilich.metastone.game.behaviour.TurnPlanner;
+import net.demilich.metastone.game.behaviour.heuristic.WeightedHeuristic;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardCatalogue;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+
+public class TurnPlannerTest extends TestBase {
+
+	private static void playTurn(GameContext context, TurnPlanner planner) {
+		int playerId = context.getActivePlayerId();
+		while (!context.gameDecided() && context.getActivePlayerId() == playerId) {
+			List<GameAction> validActions = context.getValidActions();
+			GameAction action = planner.requestAction(context, context.getActivePlayer(), validActions);
+			Assert.assertTrue(validActions.contains(action));
+			context.getLogic().performGameAction(playerId, action);
+			if (action.getActionType() == ActionType.END_TURN) {
+				break;
+			}
+		}
+	}
+
+	@Test
+	public void testFindsLethal() {
+		GameContext context = createContext(HeroClass.MAGE, HeroClass.WARRIOR);
+		Player mage = context.getPlayer1();
+		mage.setMana(10);
+		Player warrior = context.getPlayer2();
+		warrior.setMana(10);
+
+		for (int i = 0; i < 3; i++) {
+			playCard(context, mage, new TestMinionCard(3, 3));
+		}
+		playCard(context, warrior, new TestMinionCard(1, 8));
+		// the minions may attack in the mage's next turn
+		context.endTurn();
+		context.startTurn();
+		context.endTurn();
+		context.startTurn();
+		warrior.getHero().setHp(12);
+		// the attacks only win with one of the minions buffed, which the
+		// lethal solver does not look for
+		for (Card card : mage.getHand().toList()) {
+			context.getLogic().removeCard(mage.getId(), card);
+		}
+		context.getLogic().receiveCard(mage.getId(), CardCatalogue.getCardById("spell_blessing_of_might"));
+		mage.setMana(1);
+		Assert.assertNull(LethalSolver.findLethal(context, mage.getId(), LethalSolver.DEFAULT_NODES));
+
+		// the three attacks commute, and only all of them on the hero win
+		TurnPlanner planner = new TurnPlanner(new WeightedHeuristic());
+		planner.setSearchBudget(SearchBudget.nodes(2000));
+		playTurn(context, planner);
+		Assert.assertTrue(warrior.getHero().isDestroyed());
+	}
+
+	@Test
+	public void testPlaysWholeTurns() {
+		for (int turn = 4; turn <= 12; turn += 4) {
+			GameContext context = createMidGame(HeroClass.MAGE, HeroClass.WARRIOR, turn);
+			TurnPlanner planner = new TurnPlanner(new WeightedHeuristic());
+			planner.setSearchBudget(SearchBudget.nodes(200));
+			int playerId = context.getActivePlayerId();
+			playTurn(context, planner);
+			Assert.assertTrue(context.gameDecided() || context.getActivePlayerId() != playerId);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package net.demilich.metastone.tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.demilich.metastone.game.statistics.WinRateInterval;
+import net.demilich.metastone.gui.common.WinRateIntervalStringConverter;
+
+public class WinRateIntervalTest {
+
+	@Test
+	public void testWilsonBounds() {
+		Assert.assertEquals(WinRateInterval.getLowerBound(8, 10), 0.4902, 0.0001);
+		Assert.assertEquals(WinRateInterval.getUpperBound(8, 10), 0.9433, 0.0001);
+		Assert.assertEquals(WinRateInterval.getLowerBound(0, 0), 0.0);
+		Assert.assertEquals(WinRateInterval.getUpperBound(0, 0), 1.0);
+	}
+
+	@Test
+	public void testLopsidedMatchIsDecidedEarlier() {
+		WinRateInterval lopsided = new WinRateInterval(0.1);
+		int lopsidedGames = 0;
+		while (!lopsided.isDecided()) {
+			lopsided.addGame(lopsidedGames++ % 20 != 0);
+		}
+
+		WinRateInterval even = new WinRateInterval(0.1);
+		int evenGames = 0;
+		while (!even.isDecided()) {
+			even.addGame(evenGames++ % 2 == 0);
+		}
+
+		Assert.assertEquals(lopsided.getGames(), lopsidedGames);
+		Assert.assertTrue(lopsided.getWidth() <= 0.1);
+		Assert.assertTrue(lopsidedGames * 3 < evenGames);
+	}
+
+	@Test
+	public void testDrawsCountHalf() {
+		WinRateInterval draws = new WinRateInterval(0.1);
+		WinRateInterval even = new WinRateInterval(0.1);
+		for (int game = 0; game < 100; game++) {
+			draws.addGame(0.5);
+			even.addGame(game % 2 == 0);
+		}
+		Assert.assertEquals(draws.getWins(), 50.0);
+		Assert.assertEquals(draws.getLowerBound(), even.getLowerBound(), 1e-9);
+		Assert.assertEquals(draws.getUpperBound(), even.getUpperBound(), 1e-9);
+	}
+
+	@Test
+	public void testConverterReadsItsOwnText() {
+		WinRateIntervalStringConverter converter = new WinRateIntervalStringConverter();
+		for (double width : new double[] { 0.0, 0.2, 0.1, 0.05, 0.02 }) {
+			Assert.assertEquals(converter.fromString(converter.toString(width)), width);
+		}
+		Assert.assertNull(converter.fromString("Win rate"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidScore() {
+		new WinRateInterval(0.1).addGame(0.3);
+	}
+
+}